@@ -81,11 +81,25 @@ public class AppConstants {
 	public static final int RECORDING_FORMAT_M4A = 0;
 	public static final int RECORDING_FORMAT_WAV = 1;
 
+	/** Approximate size of FLAC record relative to WAV record, used for size estimations. */
+	public static final float FLAC_SIZE_RATIO = 0.6f;
+
 	public static final int DEFAULT_PER_PAGE = 50;
 
 	public final static long RECORD_IN_TRASH_MAX_DURATION = 5184000000L; // 1000 X 60 X 60 X 24 X 60 = 60 Days
 	public final static long MIN_REMAIN_RECORDING_TIME = 10000; // 1000 X 10 = 10 Seconds
 	public final static long DECODE_DURATION = 7200000; // 2 X 60 X 60 X 1000 = 2 Hours
+	/** Max count of threads decoding parts of a long record concurrently. */
+	public final static int MAX_DECODE_WORKERS = 8;
+	/** Count of threads reading metadata of files in file browser, more workers were slower than one on 10k WAV files. */
+	public final static int FILE_PROBE_WORKERS = 1;
+	/** Max count of records which waveforms are decoded in the background at once. */
+	public final static int MAX_BACKGROUND_DECODES = 2;
+	/** Size limits of decoded waveforms cache in memory and on disk. */
+	public final static long WAVEFORM_CACHE_MEMORY_BYTES = 4 * 1024 * 1024;
+	public final static long WAVEFORM_CACHE_DISK_BYTES = 32 * 1024 * 1024;
+	/** Size limit of stored waveform peaks, an hour of 48 kHz stereo record takes about 7 MB. */
+	public final static long WAVEFORM_PEAKS_DISK_BYTES = 128 * 1024 * 1024;
 
 	//BEGINNING-------------- Waveform visualisation constants ----------------------------------
 
@@ -93,6 +107,10 @@ public class AppConstants {
 	 *  Used for short records (shorter than {@link AppConstants#LONG_RECORD_THRESHOLD_SECONDS}) */
 	public static final int SHORT_RECORD_DP_PER_SECOND = 25;
 
+	/** Count of gains stored per one second of a record, whatever the screen is.
+	 *  Gains are fit to pixels when a waveform is drawn. */
+	public static final int WAVEFORM_FRAMES_PER_SECOND = SHORT_RECORD_DP_PER_SECOND;
+
 	/** Waveform length, measured in screens count of device.
 	 *  Used for long records (longer than {@link AppConstants#LONG_RECORD_THRESHOLD_SECONDS})   */
 	public static final float WAVEFORM_WIDTH = 1.5f; //one and half of screen waveform width.
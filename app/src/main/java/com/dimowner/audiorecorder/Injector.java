@@ -21,8 +21,10 @@ import android.content.Context;
 
 import com.dimowner.audiorecorder.app.AppRecorder;
 import com.dimowner.audiorecorder.app.AppRecorderImpl;
+import com.dimowner.audiorecorder.app.RecordWaveformDecoder;
 import com.dimowner.audiorecorder.app.browser.FileBrowserContract;
 import com.dimowner.audiorecorder.app.browser.FileBrowserPresenter;
+import com.dimowner.audiorecorder.app.browser.FileListLoader;
 import com.dimowner.audiorecorder.app.lostrecords.LostRecordsContract;
 import com.dimowner.audiorecorder.app.lostrecords.LostRecordsPresenter;
 import com.dimowner.audiorecorder.app.moverecords.MoveRecordsViewModel;
@@ -31,10 +33,15 @@ import com.dimowner.audiorecorder.app.setup.SetupContract;
 import com.dimowner.audiorecorder.app.setup.SetupPresenter;
 import com.dimowner.audiorecorder.app.trash.TrashContract;
 import com.dimowner.audiorecorder.app.trash.TrashPresenter;
-import com.dimowner.audiorecorder.audio.AudioWaveformVisualization;
+import com.dimowner.audiorecorder.audio.AudioDecoder;
+import com.dimowner.audiorecorder.audio.WaveformCache;
+import com.dimowner.audiorecorder.audio.WaveformDecodeScheduler;
 import com.dimowner.audiorecorder.audio.player.AudioPlayerNew;
 import com.dimowner.audiorecorder.audio.player.PlayerContractNew;
 import com.dimowner.audiorecorder.audio.recorder.AudioRecorder;
+import com.dimowner.audiorecorder.audio.recorder.FlacRecorder;
+import com.dimowner.audiorecorder.audio.recorder.PcmProcessorChain;
+import com.dimowner.audiorecorder.audio.recorder.SilenceSkipper;
 import com.dimowner.audiorecorder.audio.recorder.ThreeGpRecorder;
 import com.dimowner.audiorecorder.audio.recorder.RecorderContract;
 import com.dimowner.audiorecorder.audio.recorder.WavRecorder;
@@ -52,8 +59,17 @@ import com.dimowner.audiorecorder.app.records.RecordsContract;
 import com.dimowner.audiorecorder.app.records.RecordsPresenter;
 import com.dimowner.audiorecorder.app.settings.SettingsContract;
 import com.dimowner.audiorecorder.app.settings.SettingsPresenter;
+import com.dimowner.audiorecorder.data.database.RecordInfoCache;
 import com.dimowner.audiorecorder.data.database.TrashDataSource;
 
+import java.io.File;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+
 public class Injector {
 
 	private BackgroundQueue loadingTasks;
@@ -61,6 +77,11 @@ public class Injector {
 	private BackgroundQueue importTasks;
 	private BackgroundQueue processingTasks;
 	private BackgroundQueue copyTasks;
+	private ForkJoinPool decodePool;
+	private ExecutorService fileProbeExecutor;
+	private WaveformDecodeScheduler waveformDecodeScheduler;
+	private WaveformCache waveformCache;
+	private RecordInfoCache recordInfoCache;
 
 	private MainContract.UserActionsListener mainPresenter;
 	private RecordDataSource recordDataSource;
@@ -92,16 +113,77 @@ public class Injector {
 	}
 
 	public LocalRepository provideLocalRepository(Context context) {
-		return LocalRepositoryImpl.getInstance(provideRecordsDataSource(context), provideTrashDataSource(context), provideFileRepository(context), providePrefs(context));
+		return LocalRepositoryImpl.getInstance(provideRecordsDataSource(context), provideTrashDataSource(context),
+				provideFileRepository(context), providePrefs(context), provideWaveformCache(context));
 	}
 
 	public AppRecorder provideAppRecorder(Context context) {
 		return AppRecorderImpl.getInstance(provideAudioRecorder(context), provideLocalRepository(context),
-				provideLoadingTasksQueue(), provideRecordDataSource(context));
+				provideLoadingTasksQueue(), provideRecordDataSource(context), provideRecordInfoCache(context));
+	}
+
+	public FileListLoader provideFileListLoader(Context context) {
+		final RecordInfoCache cache = provideRecordInfoCache(context);
+		return new FileListLoader(provideFileProbeExecutor(), cache::readRecordInfo, AppConstants.DEFAULT_PER_PAGE);
+	}
+
+	public RecordInfoCache provideRecordInfoCache(Context context) {
+		if (recordInfoCache == null) {
+			recordInfoCache = new RecordInfoCache(context.getApplicationContext());
+		}
+		return recordInfoCache;
+	}
+
+	/**
+	 * Workers decoding parts of long records concurrently, one core is left for UI and recording.
+	 * @return pool or null when there is only one core.
+	 */
+	public ForkJoinPool provideDecodePool() {
+		int workers = Math.min(Runtime.getRuntime().availableProcessors() - 1, AppConstants.MAX_DECODE_WORKERS);
+		if (decodePool == null && workers > 1) {
+			decodePool = new ForkJoinPool(workers);
+		}
+		return decodePool;
+	}
+
+	/**
+	 * Workers reading metadata of files, threads are stopped when they are not used.
+	 */
+	public ExecutorService provideFileProbeExecutor() {
+		if (fileProbeExecutor == null) {
+			ThreadPoolExecutor executor = new ThreadPoolExecutor(AppConstants.FILE_PROBE_WORKERS,
+					AppConstants.FILE_PROBE_WORKERS, 30, TimeUnit.SECONDS, new LinkedBlockingQueue<>());
+			executor.allowCoreThreadTimeOut(true);
+			fileProbeExecutor = executor;
+		}
+		return fileProbeExecutor;
 	}
 
-	public AudioWaveformVisualization provideAudioWaveformVisualization() {
-		return new AudioWaveformVisualization(provideProcessingTasksQueue());
+	public WaveformCache provideWaveformCache(Context context) {
+		if (waveformCache == null) {
+			waveformCache = new WaveformCache(new File(context.getCacheDir(), "waveforms"),
+					AppConstants.WAVEFORM_CACHE_MEMORY_BYTES, AppConstants.WAVEFORM_CACHE_DISK_BYTES,
+					AppConstants.WAVEFORM_PEAKS_DISK_BYTES);
+		}
+		return waveformCache;
+	}
+
+	/**
+	 * Decodes waveforms of records which are not decoded yet, decoded gains are saved into the database.
+	 * Waveforms decoded before for the same record content are taken from {@link WaveformCache}.
+	 * Decoding is started on processing tasks queue, WAV records are decoded there one by one,
+	 * other formats are decoded by MediaCodec asynchronously.
+	 */
+	public WaveformDecodeScheduler provideWaveformDecodeScheduler(Context context) {
+		if (waveformDecodeScheduler == null) {
+			RecordWaveformDecoder decoder = new RecordWaveformDecoder(provideLocalRepository(context),
+					provideWaveformCache(context),
+					(path, listener) -> AudioDecoder.decode(path, provideDecodePool(), listener),
+					provideRecordingTasksQueue()::postRunnable);
+			waveformDecodeScheduler = new WaveformDecodeScheduler(decoder,
+					provideProcessingTasksQueue()::postRunnable, decoder, AppConstants.MAX_BACKGROUND_DECODES);
+		}
+		return waveformDecodeScheduler;
 	}
 
 	public BackgroundQueue provideLoadingTasksQueue() {
@@ -164,12 +246,28 @@ public class Injector {
 			case AppConstants.FORMAT_M4A:
 				return AudioRecorder.getInstance();
 			case AppConstants.FORMAT_WAV:
-				return WavRecorder.getInstance();
+				WavRecorder wavRecorder = WavRecorder.getInstance();
+				wavRecorder.setProcessorChain(providePcmProcessorChain(context));
+				wavRecorder.setSilenceSkipper(provideSilenceSkipper(context));
+				return wavRecorder;
+			case AppConstants.FORMAT_FLAC:
+				FlacRecorder flacRecorder = FlacRecorder.getInstance();
+				flacRecorder.setProcessorChain(providePcmProcessorChain(context));
+				flacRecorder.setSilenceSkipper(provideSilenceSkipper(context));
+				return flacRecorder;
 			case AppConstants.FORMAT_3GP:
 				return ThreeGpRecorder.getInstance();
 		}
 	}
 
+	public PcmProcessorChain providePcmProcessorChain(Context context) {
+		return providePrefs(context).isAudioProcessing() ? PcmProcessorChain.createDefault() : null;
+	}
+
+	public SilenceSkipper provideSilenceSkipper(Context context) {
+		return providePrefs(context).isSkipSilence() ? new SilenceSkipper(SilenceSkipper.MODE_COLLAPSE) : null;
+	}
+
 	public RecordDataSource provideRecordDataSource(Context context) {
 		if (recordDataSource == null) {
 			recordDataSource = new RecordDataSource(
@@ -185,7 +283,9 @@ public class Injector {
 			mainPresenter = new MainPresenter(providePrefs(context), provideFileRepository(context),
 					provideLocalRepository(context), provideAudioPlayer(), provideAppRecorder(context),
 					provideRecordingTasksQueue(), provideLoadingTasksQueue(), provideProcessingTasksQueue(),
-					provideImportTasksQueue(), provideSettingsMapper(context), provideRecordDataSource(context));
+					provideImportTasksQueue(), provideSettingsMapper(context), provideRecordDataSource(context),
+					provideWaveformDecodeScheduler(context), provideRecordInfoCache(context),
+					provideWaveformCache(context));
 		}
 		return mainPresenter;
 	}
@@ -194,7 +294,8 @@ public class Injector {
 		if (recordsPresenter == null) {
 			recordsPresenter = new RecordsPresenter(provideLocalRepository(context), provideFileRepository(context),
 					provideLoadingTasksQueue(), provideRecordingTasksQueue(),
-					provideAudioPlayer(), provideAppRecorder(context), providePrefs(context));
+					provideAudioPlayer(), provideAppRecorder(context), providePrefs(context),
+					provideWaveformDecodeScheduler(context), provideWaveformCache(context));
 		}
 		return recordsPresenter;
 	}
@@ -242,7 +343,7 @@ public class Injector {
 	public LostRecordsContract.UserActionsListener provideLostRecordsPresenter(Context context) {
 		if (lostRecordsPresenter == null) {
 			lostRecordsPresenter = new LostRecordsPresenter(provideLoadingTasksQueue(), provideRecordingTasksQueue(),
-					provideLocalRepository(context), providePrefs(context));
+					provideLocalRepository(context), provideAppRecorder(context), providePrefs(context));
 		}
 		return lostRecordsPresenter;
 	}
@@ -251,7 +352,8 @@ public class Injector {
 		if (fileBrowserPresenter == null) {
 			fileBrowserPresenter = new FileBrowserPresenter(providePrefs(context), provideAppRecorder(context), provideImportTasksQueue(),
 					provideLoadingTasksQueue(), provideRecordingTasksQueue(),
-					provideLocalRepository(context), provideFileRepository(context));
+					provideLocalRepository(context), provideFileRepository(context), provideRecordInfoCache(context),
+					provideFileListLoader(context));
 		}
 		return fileBrowserPresenter;
 	}
@@ -322,5 +424,17 @@ public class Injector {
 		processingTasks.close();
 		recordingTasks.cleanupQueue();
 		recordingTasks.close();
+		if (waveformDecodeScheduler != null) {
+			waveformDecodeScheduler.cancelAll();
+			waveformDecodeScheduler = null;
+		}
+		if (decodePool != null) {
+			decodePool.shutdownNow();
+			decodePool = null;
+		}
+		if (fileProbeExecutor != null) {
+			fileProbeExecutor.shutdownNow();
+			fileProbeExecutor = null;
+		}
 	}
 }
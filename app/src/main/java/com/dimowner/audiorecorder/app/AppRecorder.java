@@ -30,6 +30,9 @@ public interface AppRecorder {
 	void pauseRecording();
 	void resumeRecording();
 	void stopRecording();
+	void startPreRoll(int channelCount, int sampleRate, int seconds);
+	void stopPreRoll();
+	boolean isPreRolling();
 	IntArrayList getRecordingData();
 	long getRecordingDuration();
 	boolean isRecording();
@@ -16,16 +16,16 @@
 
 package com.dimowner.audiorecorder.app;
 
-import com.dimowner.audiorecorder.ARApplication;
 import com.dimowner.audiorecorder.AppConstants;
 import com.dimowner.audiorecorder.BackgroundQueue;
 import com.dimowner.audiorecorder.IntArrayList;
 import com.dimowner.audiorecorder.app.info.RecordInfo;
-import com.dimowner.audiorecorder.audio.AudioDecoder;
+import com.dimowner.audiorecorder.audio.WaveformDecimator;
 import com.dimowner.audiorecorder.audio.recorder.RecorderContract;
 import com.dimowner.audiorecorder.data.RecordDataSource;
 import com.dimowner.audiorecorder.data.database.LocalRepository;
 import com.dimowner.audiorecorder.data.database.Record;
+import com.dimowner.audiorecorder.data.database.RecordInfoCache;
 import com.dimowner.audiorecorder.exception.AppException;
 import com.dimowner.audiorecorder.exception.RecordingException;
 import com.dimowner.audiorecorder.util.AndroidUtils;
@@ -33,8 +33,6 @@ import com.dimowner.audiorecorder.util.AndroidUtils;
 import java.io.File;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Timer;
-import java.util.TimerTask;
 
 import timber.log.Timber;
 
@@ -46,13 +44,11 @@ public class AppRecorderImpl implements AppRecorder {
 	private final BackgroundQueue recordingsTasks;
 
 	private final LocalRepository localRepository;
+	private final RecordInfoCache recordInfoCache;
 	private final RecorderContract.RecorderCallback recorderCallback;
 	private final List<AppRecorderCallback> appCallbacks;
 	private final IntArrayList recordingData;
-	private final IntArrayList apmpPool;
-	private long durationMills = 0;
-	private long updateTime = 0;
-	private Timer timerProgress;
+	private final ProgressScheduler progressScheduler;
 	private String recordFilePath = null;
 
 	private volatile static AppRecorderImpl instance;
@@ -61,12 +57,13 @@ public class AppRecorderImpl implements AppRecorder {
 			RecorderContract.Recorder recorder,
 			LocalRepository localRep,
 			BackgroundQueue tasks,
-			RecordDataSource recordDataSource
+			RecordDataSource recordDataSource,
+			RecordInfoCache recordInfoCache
 	) {
 		if (instance == null) {
 			synchronized (AppRecorderImpl.class) {
 				if (instance == null) {
-					instance = new AppRecorderImpl(recorder, localRep, tasks, recordDataSource);
+					instance = new AppRecorderImpl(recorder, localRep, tasks, recordDataSource, recordInfoCache);
 				}
 			}
 		}
@@ -77,53 +74,53 @@ public class AppRecorderImpl implements AppRecorder {
 			RecorderContract.Recorder recorder,
 			LocalRepository localRep,
 			BackgroundQueue tasks,
-			RecordDataSource recordDataSource
+			RecordDataSource recordDataSource,
+			RecordInfoCache recordInfoCache
 	) {
 		this.audioRecorder = recorder;
 		this.localRepository = localRep;
+		this.recordInfoCache = recordInfoCache;
 		this.recordingsTasks = tasks;
 		this.appCallbacks = new ArrayList<>();
 		this.recordingData = new IntArrayList();
-		this.apmpPool = new IntArrayList();
+		this.progressScheduler = new ProgressScheduler("AppRecorder Progress",
+				PLAYBACK_VISUALIZATION_INTERVAL, this::readProgress);
 
 		recorderCallback = new RecorderContract.RecorderCallback() {
 
 			@Override
 			public void onStartRecord(File output) {
-				durationMills = 0;
-				scheduleRecordingTimeUpdate();
+				addPreRollData();
+				progressScheduler.resetStatistics();
+				progressScheduler.start();
 				onRecordingStarted(output);
 			}
 
 			@Override
 			public void onPauseRecord() {
 				onRecordingPaused();
-				pauseRecordingTimer();
+				progressScheduler.stop();
 			}
 
 			@Override
 			public void onResumeRecord() {
-				scheduleRecordingTimeUpdate();
+				progressScheduler.start();
 				onRecordingResumed();
 			}
 
-			@Override
-			public void onRecordProgress(final long mills, final int amplitude) {
-				apmpPool.add(amplitude);
-			}
-
 			@Override
 			public void onStopRecord(final File output) {
-				stopRecordingTimer();
+				progressScheduler.stop();
+				logProgressStatistics();
+				final long durationMills = audioRecorder.getRecordingDurationMills();
 				recordingsTasks.postRunnable(() -> {
-					RecordInfo info = AudioDecoder.readRecordInfo(output);
+					RecordInfo info = recordInfoCache.readRecordInfo(output);
 					long duration = info.getDuration();
 					if (duration <= 0) {
-						duration = durationMills;
+						duration = durationMills * 1000;
 					}
-					durationMills = 0;
 
-					int[] waveForm = convertRecordingData(recordingData, (int) (duration / 1000000f));
+					int[] waveForm = convertRecordingData(recordingData, duration / 1000);
 					final Record record = recordDataSource.getRecordingRecord();
 					if (record != null) {
 						final Record update = new Record(
@@ -172,37 +169,37 @@ public class AppRecorderImpl implements AppRecorder {
 		audioRecorder.setRecorderCallback(recorderCallback);
 	}
 
-	private int[] convertRecordingData(IntArrayList list, int durationSec) {
-		if (durationSec > AppConstants.LONG_RECORD_THRESHOLD_SECONDS) {
-			int sampleCount = ARApplication.getLongWaveformSampleCount();
-			int[] waveForm = new int[sampleCount];
-			if (list.size() < sampleCount*2) {
-				float scale = (float) list.size() / (float) sampleCount;
-				for (int i = 0; i < sampleCount; i++) {
-					waveForm[i] = convertAmp(list.get((int) Math.floor(i*scale)));
-				}
-			} else {
-				float scale = (float) list.size() / (float) sampleCount;
-				for (int i = 0; i < sampleCount; i++) {
-					int val = 0;
-					int step = (int) Math.ceil(scale);
-					for (int j = 0; j < step; j++) {
-						val += list.get((int)(i * scale + j));
-					}
-					val = (int) ((float) val / scale);
-					waveForm[i] = convertAmp(val);
+	/**
+	 * Record started from pre-roll begins with buffered audio, so its visualisation is added.
+	 */
+	private void addPreRollData() {
+		if (audioRecorder instanceof RecorderContract.PreRollRecorder) {
+			RecorderContract.PreRollRecorder recorder = (RecorderContract.PreRollRecorder) audioRecorder;
+			long mills = recorder.getPreRollMills();
+			if (mills > 0) {
+				int[] amps = recorder.getPreRollAmplitudes((int) (mills / PLAYBACK_VISUALIZATION_INTERVAL));
+				for (int amp : amps) {
+					recordingData.add(amp);
 				}
 			}
-			return waveForm;
-		} else {
-			int[] waveForm = new int[list.size()];
-			for (int i = 0; i < list.size(); i++) {
-				waveForm[i] = convertAmp(list.get(i));
-			}
-			return waveForm;
 		}
 	}
 
+	/**
+	 * Convert amplitudes collected while recording into gains at {@link AppConstants#WAVEFORM_FRAMES_PER_SECOND}.
+	 */
+	private int[] convertRecordingData(IntArrayList list, long durationMills) {
+		int[] amps = new int[list.size()];
+		for (int i = 0; i < amps.length; i++) {
+			amps[i] = convertAmp(list.get(i));
+		}
+		int count = WaveformDecimator.getFrameCount(durationMills);
+		if (count <= 0 || amps.length == 0) {
+			return amps;
+		}
+		return WaveformDecimator.resample(amps, count);
+	}
+
 	/**
 	 * Convert dB amp value to view amp.
 	 */
@@ -222,6 +219,9 @@ public class AppRecorderImpl implements AppRecorder {
 
 	@Override
 	public void setRecorder(RecorderContract.Recorder recorder) {
+		if (audioRecorder != recorder) {
+			stopPreRoll();
+		}
 		this.audioRecorder = recorder;
 		this.audioRecorder.setRecorderCallback(recorderCallback);
 	}
@@ -255,6 +255,26 @@ public class AppRecorderImpl implements AppRecorder {
 		}
 	}
 
+	@Override
+	public void startPreRoll(int channelCount, int sampleRate, int seconds) {
+		if (audioRecorder instanceof RecorderContract.PreRollRecorder && !audioRecorder.isRecording()) {
+			((RecorderContract.PreRollRecorder) audioRecorder).startPreRoll(channelCount, sampleRate, seconds);
+		}
+	}
+
+	@Override
+	public void stopPreRoll() {
+		if (audioRecorder instanceof RecorderContract.PreRollRecorder) {
+			((RecorderContract.PreRollRecorder) audioRecorder).stopPreRoll();
+		}
+	}
+
+	@Override
+	public boolean isPreRolling() {
+		return audioRecorder instanceof RecorderContract.PreRollRecorder
+				&& ((RecorderContract.PreRollRecorder) audioRecorder).isPreRolling();
+	}
+
 	@Override
 	public IntArrayList getRecordingData() {
 		return recordingData;
@@ -262,7 +282,7 @@ public class AppRecorderImpl implements AppRecorder {
 
 	@Override
 	public long getRecordingDuration() {
-		return durationMills;
+		return audioRecorder.isRecording() ? audioRecorder.getRecordingDurationMills() : 0;
 	}
 
 	@Override
@@ -285,9 +305,9 @@ public class AppRecorderImpl implements AppRecorder {
 
 	@Override
 	public void release() {
-		stopRecordingTimer();
+		progressScheduler.stop();
 		recordingData.clear();
-		apmpPool.clear();
+		stopPreRoll();
 		audioRecorder.stopRecording();
 		appCallbacks.clear();
 	}
@@ -340,43 +360,29 @@ public class AppRecorderImpl implements AppRecorder {
 		}
 	}
 
-	private void scheduleRecordingTimeUpdate() {
-		updateTime = System.currentTimeMillis();
-		timerProgress = new Timer();
-		timerProgress.schedule(new TimerTask() {
-			@Override
-			public void run() {
-				try {
-					readProgress();
-				} catch (IllegalStateException e) {
-					Timber.e(e);
-				}
-				long curTime = System.currentTimeMillis();
-				durationMills += curTime - updateTime;
-				updateTime = curTime;
-			}
-		}, 0, PLAYBACK_VISUALIZATION_INTERVAL);
-	}
-
+	/**
+	 * Recording progress is read from the recorder with the interval of recording visualisation.
+	 */
 	private void readProgress() {
-		if (apmpPool.size() > 0) {
-			int amp = apmpPool.get(apmpPool.size()-1);
-			apmpPool.clear();
-			apmpPool.add(amp);
-			recordingData.add(amp);
-			onRecordingProgress(durationMills, amp);
+		try {
+			if (audioRecorder.isRecording() && !audioRecorder.isPaused()) {
+				int amp = audioRecorder.getAmplitude();
+				recordingData.add(amp);
+				onRecordingProgress(audioRecorder.getRecordingDurationMills(), amp);
+			}
+		} catch (IllegalStateException e) {
+			Timber.e(e);
 		}
 	}
 
-	private void stopRecordingTimer() {
-		timerProgress.cancel();
-		timerProgress.purge();
-		updateTime = 0;
-	}
-
-	private void pauseRecordingTimer() {
-		timerProgress.cancel();
-		timerProgress.purge();
-		updateTime = 0;
+	private void logProgressStatistics() {
+		long activeMills = progressScheduler.getActiveMills();
+		if (activeMills > 0) {
+			//Recorder and this class used to run separate timers with recording and playback intervals.
+			long replaced = activeMills / AppConstants.RECORDING_VISUALIZATION_INTERVAL
+					+ activeMills / PLAYBACK_VISUALIZATION_INTERVAL;
+			Timber.d("Recording progress: %d wakeups in %d ms, two timers would take %d wakeups",
+					progressScheduler.getWakeupCount(), activeMills, replaced);
+		}
 	}
 }
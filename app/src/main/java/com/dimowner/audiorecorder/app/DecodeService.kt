@@ -45,9 +45,9 @@ import com.dimowner.audiorecorder.ColorMap
 import com.dimowner.audiorecorder.R
 import com.dimowner.audiorecorder.app.main.MainActivity
 import com.dimowner.audiorecorder.audio.AudioDecodingListener
-import com.dimowner.audiorecorder.audio.AudioWaveformVisualization
+import com.dimowner.audiorecorder.audio.WaveformDecimator
+import com.dimowner.audiorecorder.audio.WaveformDecodeScheduler
 import com.dimowner.audiorecorder.data.database.LocalRepository
-import com.dimowner.audiorecorder.data.database.Record
 import com.dimowner.audiorecorder.util.isUsingNightModeResources
 import timber.log.Timber
 
@@ -84,7 +84,7 @@ class DecodeService : Service() {
 	lateinit var processingTasks: BackgroundQueue
 	lateinit var recordingsTasks: BackgroundQueue
 	lateinit var localRepository: LocalRepository
-	lateinit var waveformVisualization: AudioWaveformVisualization
+	lateinit var waveformDecodeScheduler: WaveformDecodeScheduler
 	lateinit var colorMap: ColorMap
 	private var isCancel = false
 
@@ -98,7 +98,7 @@ class DecodeService : Service() {
 		processingTasks = ARApplication.injector.provideProcessingTasksQueue()
 		recordingsTasks = ARApplication.injector.provideRecordingTasksQueue()
 		localRepository = ARApplication.injector.provideLocalRepository(applicationContext)
-		waveformVisualization = ARApplication.injector.provideAudioWaveformVisualization()
+		waveformDecodeScheduler = ARApplication.injector.provideWaveformDecodeScheduler(applicationContext)
 	}
 
 	override fun onStartCommand(intent: Intent?, flags: Int, startId: Int): Int {
@@ -128,17 +128,24 @@ class DecodeService : Service() {
 		startNotification()
 		processingTasks.postRunnable {
 			var prevTime: Long = 0
+			var frameCount = 0
 			val rec = localRepository.getRecord(id)
 			if (rec != null && rec.duration / 1000 < DECODE_DURATION) {
-				waveformVisualization.decodeRecordWaveform(rec.path, object : AudioDecodingListener {
+				//Gains are saved by the scheduler before its listeners are notified.
+				waveformDecodeScheduler.request(id, WaveformDecodeScheduler.PRIORITY_ACTIVE, object : AudioDecodingListener {
 					override fun isCanceled(): Boolean {
 						return isCancel
 					}
 
 					override fun onStartProcessing(duration: Long, channelsCount: Int, sampleRate: Int) {
+						frameCount = WaveformDecimator.getFrameCount(duration / 1000)
 						decodeListener?.onStartProcessing()
 					}
 
+					override fun onWaveformChunk(offset: Int, data: IntArray, length: Int) {
+						decodeListener?.onWaveformChunk(offset, data, length, frameCount, rec.duration / 1000)
+					}
+
 					override fun onProcessingProgress(percent: Int) {
 						val curTime = System.currentTimeMillis()
 						if (percent == 100 || curTime > prevTime + 200) {
@@ -155,26 +162,6 @@ class DecodeService : Service() {
 
 					override fun onFinishProcessing(data: IntArray, duration: Long) {
 						recordingsTasks.postRunnable {
-							val rec1 = localRepository.getRecord(id)
-							if (rec1 != null) {
-								val decodedRecord = Record(
-										rec1.id,
-										rec1.name,
-										rec1.duration,
-										rec1.created,
-										rec1.added,
-										rec1.removed,
-										rec1.path,
-										rec1.format,
-										rec1.size,
-										rec1.sampleRate,
-										rec1.channelCount,
-										rec1.bitrate,
-										rec1.isBookmarked,
-										true,
-										data)
-								localRepository.updateRecord(decodedRecord)
-							}
 							decodeListener?.onFinishProcessing()
 							stopService()
 						}
@@ -347,5 +334,11 @@ class DecodeService : Service() {
 
 interface DecodeServiceListener {
 	fun onStartProcessing()
+
+	/**
+	 * Part of the waveform decoded so far, [data] is reused by the decoder and has to be copied.
+	 * @param frameCount expected count of gains of the whole record.
+	 */
+	fun onWaveformChunk(offset: Int, data: IntArray, length: Int, frameCount: Int, durationMills: Long)
 	fun onFinishProcessing()
 }
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2026 Dmytro Ponomarenko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dimowner.audiorecorder.app;
+
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs a task with a fixed rate on one background thread while started.
+ * The thread is kept only while the task is scheduled. Counts wakeups to measure its cost.
+ */
+public class ProgressScheduler {
+
+	private static final long THREAD_KEEP_ALIVE_SECONDS = 5;
+
+	private final ScheduledThreadPoolExecutor executor;
+	private final Runnable tick;
+	private final long intervalMills;
+	private ScheduledFuture<?> future = null;
+
+	private volatile long wakeups = 0;
+	private long activeNanos = 0;
+	private long startNanos = 0;
+
+	/**
+	 * @param intervalMills interval in which the task is run, chosen by consumer of the task results.
+	 */
+	public ProgressScheduler(final String threadName, long intervalMills, final Runnable task) {
+		this.intervalMills = intervalMills;
+		this.executor = new ScheduledThreadPoolExecutor(1, runnable -> {
+			Thread thread = new Thread(runnable, threadName);
+			thread.setDaemon(true);
+			return thread;
+		});
+		this.executor.setKeepAliveTime(THREAD_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS);
+		this.executor.allowCoreThreadTimeOut(true);
+		this.executor.setRemoveOnCancelPolicy(true);
+		this.tick = () -> {
+			wakeups++;
+			task.run();
+		};
+	}
+
+	public synchronized void start() {
+		if (future == null) {
+			startNanos = System.nanoTime();
+			future = executor.scheduleAtFixedRate(tick, 0, intervalMills, TimeUnit.MILLISECONDS);
+		}
+	}
+
+	public synchronized void stop() {
+		if (future != null) {
+			future.cancel(false);
+			future = null;
+			activeNanos += System.nanoTime() - startNanos;
+		}
+	}
+
+	public synchronized boolean isStarted() {
+		return future != null;
+	}
+
+	public long getIntervalMills() {
+		return intervalMills;
+	}
+
+	/** Count of task runs since the last reset. */
+	public long getWakeupCount() {
+		return wakeups;
+	}
+
+	/** Time the task was scheduled since the last reset. */
+	public synchronized long getActiveMills() {
+		long nanos = activeNanos;
+		if (future != null) {
+			nanos += System.nanoTime() - startNanos;
+		}
+		return nanos / 1000000;
+	}
+
+	public synchronized void resetStatistics() {
+		wakeups = 0;
+		activeNanos = 0;
+		startNanos = System.nanoTime();
+	}
+}
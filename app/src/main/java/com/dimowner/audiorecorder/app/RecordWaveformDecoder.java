@@ -0,0 +1,140 @@
+/*
+ * Copyright 2026 Dmytro Ponomarenko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dimowner.audiorecorder.app;
+
+import com.dimowner.audiorecorder.AppConstants;
+import com.dimowner.audiorecorder.audio.AudioDecodingListener;
+import com.dimowner.audiorecorder.audio.WaveformCache;
+import com.dimowner.audiorecorder.audio.WaveformDecodeScheduler;
+import com.dimowner.audiorecorder.audio.WaveformPyramid;
+import com.dimowner.audiorecorder.data.database.LocalRepository;
+import com.dimowner.audiorecorder.data.database.Record;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.concurrent.Executor;
+
+import timber.log.Timber;
+
+/**
+ * Decodes waveforms of records for {@link WaveformDecodeScheduler} and saves the results.
+ * Waveforms decoded before for the same record content are taken from {@link WaveformCache}.
+ * Decoded gains are saved into the database, gains and peaks are put into the cache.
+ */
+public class RecordWaveformDecoder implements WaveformDecodeScheduler.Decoder, WaveformDecodeScheduler.Callback {
+
+	/** Decodes the record file, the listener may be called from any thread. */
+	public interface FileDecoder {
+		void decode(String path, AudioDecodingListener listener);
+	}
+
+	private final LocalRepository localRepository;
+	private final WaveformCache cache;
+	private final FileDecoder fileDecoder;
+	private final Executor saveExecutor;
+
+	/**
+	 * @param saveExecutor runs saving of results, tasks are run one by one in the order they are posted.
+	 */
+	public RecordWaveformDecoder(LocalRepository localRepository, WaveformCache cache, FileDecoder fileDecoder,
+			Executor saveExecutor) {
+		this.localRepository = localRepository;
+		this.cache = cache;
+		this.fileDecoder = fileDecoder;
+		this.saveExecutor = saveExecutor;
+	}
+
+	@Override
+	public void decode(int id, AudioDecodingListener listener) {
+		Record rec = localRepository.getRecord(id);
+		if (rec == null) {
+			listener.onError(new FileNotFoundException("Record not found: " + id));
+			return;
+		}
+		WaveformCache.Entry entry = null;
+		try {
+			entry = cache.get(readKey(rec));
+		} catch (IOException e) {
+			Timber.e(e);
+		}
+		if (entry != null) {
+			int[] gains = entry.getGains();
+			listener.onStartProcessing(entry.getDuration(), rec.getChannelCount(), rec.getSampleRate());
+			listener.onWaveformChunk(0, gains, gains.length);
+			listener.onProcessingProgress(100);
+			listener.onFinishProcessing(gains, entry.getDuration());
+		} else {
+			fileDecoder.decode(rec.getPath(), listener);
+		}
+	}
+
+	@Override
+	public void onPeaks(int id, WaveformPyramid peaks) {
+		//Peaks are written before gains are saved, so they are found when the record is shown.
+		saveExecutor.execute(() -> {
+			Record rec = localRepository.getRecord(id);
+			if (rec != null) {
+				try {
+					cache.putPeaks(readKey(rec), peaks);
+				} catch (IOException e) {
+					Timber.e(e);
+				}
+			}
+		});
+	}
+
+	@Override
+	public void onDecoded(int id, int[] gains, long duration) {
+		saveExecutor.execute(() -> {
+			Record rec = localRepository.getRecord(id);
+			if (rec != null) {
+				try {
+					cache.put(readKey(rec), gains, duration);
+				} catch (IOException e) {
+					Timber.e(e);
+				}
+				localRepository.updateRecord(new Record(
+						rec.getId(),
+						rec.getName(),
+						rec.getDuration(),
+						rec.getCreated(),
+						rec.getAdded(),
+						rec.getRemoved(),
+						rec.getPath(),
+						rec.getFormat(),
+						rec.getSize(),
+						rec.getSampleRate(),
+						rec.getChannelCount(),
+						rec.getBitrate(),
+						rec.isBookmarked(),
+						true,
+						gains));
+			}
+			Timber.v("Waveform decoded: %d %s", id, cache.getStats());
+		});
+	}
+
+	@Override
+	public void onFailed(int id, Exception e) {
+		Timber.e(e, "Failed to decode waveform: %d", id);
+	}
+
+	private static WaveformCache.Key readKey(Record rec) throws IOException {
+		return WaveformCache.Key.read(new File(rec.getPath()), AppConstants.WAVEFORM_FRAMES_PER_SECOND);
+	}
+}
@@ -77,6 +77,10 @@ public class RecordingService extends Service {
 
 	public static final String ACTION_STOP_RECORDING_SERVICE = "ACTION_STOP_RECORDING_SERVICE";
 
+	/** Keep capturing into memory, so a record started later begins with the last seconds of sound. */
+	public static final String ACTION_START_PRE_ROLL = "ACTION_START_PRE_ROLL";
+	public static final String ACTION_STOP_PRE_ROLL = "ACTION_STOP_PRE_ROLL";
+
 	public static final String ACTION_STOP_RECORDING = "ACTION_STOP_RECORDING";
 	public static final String ACTION_PAUSE_RECORDING = "ACTION_PAUSE_RECORDING";
 
@@ -100,6 +104,9 @@ public class RecordingService extends Service {
 	private boolean isSystemAudioRecording = false;
 	private String pendingRecordingPath = null;
 	private boolean isSystemAudioRecordingAttempt = false;
+	private int preRollSeconds = 0;
+	private int preRollSampleRate = 0;
+	private int preRollChannelCount = 0;
 
 	public RecordingService() {
 	}
@@ -142,7 +149,9 @@ public class RecordingService extends Service {
 				if (rec != null && rec.getDuration()/1000 < AppConstants.DECODE_DURATION && !rec.isWaveformProcessed()) {
 					DecodeService.Companion.startNotification(getApplicationContext(), rec.getId());
 				}
-				stopForegroundService();
+				if (!startPreRoll()) {
+					stopForegroundService();
+				}
 			}
 
 			@Override
@@ -233,7 +242,7 @@ public class RecordingService extends Service {
 			if (action != null && !action.isEmpty()) {
 				switch (action) {
 					case ACTION_START_RECORDING_SERVICE:
-						if (!started) {
+						if (!started || appRecorder.isPreRolling()) {
 							boolean systemAudio = intent.getBooleanExtra(EXTRAS_KEY_RECORD_SYSTEM_AUDIO, false);
 							isSystemAudioRecording = systemAudio;
 							startForegroundService();
@@ -248,6 +257,19 @@ public class RecordingService extends Service {
 					case ACTION_STOP_RECORDING_SERVICE:
 						stopForegroundService();
 						break;
+					case ACTION_START_PRE_ROLL:
+						if (!started || (appRecorder.isPreRolling() && isPreRollSettingsChanged())) {
+							if (!startPreRoll()) {
+								stopForegroundService();
+							}
+						}
+						break;
+					case ACTION_STOP_PRE_ROLL:
+						if (!appRecorder.isRecording()) {
+							appRecorder.stopPreRoll();
+							stopForegroundService();
+						}
+						break;
 					case ACTION_STOP_RECORDING:
 						stopRecording();
 						break;
@@ -265,7 +287,37 @@ public class RecordingService extends Service {
 	}
 
 	private void stopRecording() {
-		appRecorder.stopRecording();
+		if (appRecorder.isPreRolling()) {
+			appRecorder.stopPreRoll();
+			stopForegroundService();
+		} else {
+			appRecorder.stopRecording();
+		}
+	}
+
+	/**
+	 * Start capturing into memory when it is enabled in settings and supported by the recording format.
+	 * @return true if capturing is started.
+	 */
+	private boolean startPreRoll() {
+		int seconds = prefs.getPreRollSeconds();
+		if (seconds <= 0 || appRecorder.isRecording()) {
+			return false;
+		}
+		recorder = ARApplication.getInjector().provideAudioRecorder(getApplicationContext());
+		appRecorder.setRecorder(recorder);
+		if (!started) {
+			startForegroundService();
+		}
+		preRollSeconds = seconds;
+		preRollSampleRate = prefs.getSettingSampleRate();
+		preRollChannelCount = prefs.getSettingChannelCount();
+		appRecorder.startPreRoll(preRollChannelCount, preRollSampleRate, preRollSeconds);
+		if (appRecorder.isPreRolling()) {
+			updateNotificationPreRoll(seconds);
+			return true;
+		}
+		return false;
 	}
 
 	private void startForegroundService() {
@@ -453,6 +505,22 @@ public class RecordingService extends Service {
 		}
 	}
 
+	private boolean isPreRollSettingsChanged() {
+		return preRollSeconds != prefs.getPreRollSeconds()
+				|| preRollSampleRate != prefs.getSettingSampleRate()
+				|| preRollChannelCount != prefs.getSettingChannelCount();
+	}
+
+	private void updateNotificationPreRoll(int seconds) {
+		if (started && remoteViewsSmall != null) {
+			remoteViewsSmall.setTextViewText(R.id.txt_recording_progress, getResources().getString(R.string.pre_roll_is_on, seconds));
+			if (remoteViewsBig != null) {
+				remoteViewsBig.setTextViewText(R.id.txt_recording_progress, getResources().getString(R.string.pre_roll_is_on, seconds));
+			}
+			notificationManager.notify(NOTIF_ID, buildNotification());
+		}
+	}
+
 	private void updateNotification(long mills) {
 		if (started && remoteViewsSmall != null) {
 			remoteViewsSmall.setTextViewText(R.id.txt_recording_progress,
@@ -11,7 +11,8 @@ fun formatRecordInformation(settingsMapper: SettingsMapper, format: String, samp
 					+ settingsMapper.convertFormatsToString(format)
 					+ AppConstants.SEPARATOR + settingsMapper.convertSampleRateToString(sampleRate))
 		AppConstants.FORMAT_M4A,
-		AppConstants.FORMAT_WAV ->
+		AppConstants.FORMAT_WAV,
+		AppConstants.FORMAT_FLAC ->
 			(settingsMapper.formatSize(size).toString() + AppConstants.SEPARATOR
 					+ settingsMapper.convertFormatsToString(format) + AppConstants.SEPARATOR
 					+ settingsMapper.convertSampleRateToString(sampleRate))
@@ -77,6 +77,12 @@ public class FileBrowserAdapter extends RecyclerView.Adapter<FileBrowserAdapter.
 		notifyDataSetChanged();
 	}
 
+	void addData(List<RecordInfo> list) {
+		int start = data.size();
+		data.addAll(list);
+		notifyItemRangeInserted(start, list.size());
+	}
+
 	void removeItem(String path) {
 		int pos = -1;
 		for (int i = 0; i < data.size(); i++) {
@@ -185,6 +191,7 @@ public class FileBrowserAdapter extends RecyclerView.Adapter<FileBrowserAdapter.
 			switch (format) {
 				case AppConstants.FORMAT_M4A:
 				case AppConstants.FORMAT_WAV:
+				case AppConstants.FORMAT_FLAC:
 					view.setText(settingsMapper.formatSize(size) + AppConstants.SEPARATOR
 							+ settingsMapper.convertFormatsToString(format) + AppConstants.SEPARATOR
 							+ settingsMapper.convertSampleRateToString(sampleRate) + AppConstants.SEPARATOR
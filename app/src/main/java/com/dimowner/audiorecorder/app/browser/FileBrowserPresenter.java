@@ -26,11 +26,12 @@ import com.dimowner.audiorecorder.R;
 import com.dimowner.audiorecorder.app.AppRecorder;
 import com.dimowner.audiorecorder.app.AppRecorderCallback;
 import com.dimowner.audiorecorder.app.info.RecordInfo;
-import com.dimowner.audiorecorder.audio.AudioDecoder;
+import com.dimowner.audiorecorder.audio.recorder.SilenceIndex;
 import com.dimowner.audiorecorder.data.FileRepository;
 import com.dimowner.audiorecorder.data.Prefs;
 import com.dimowner.audiorecorder.data.database.LocalRepository;
 import com.dimowner.audiorecorder.data.database.Record;
+import com.dimowner.audiorecorder.data.database.RecordInfoCache;
 import com.dimowner.audiorecorder.exception.AppException;
 import com.dimowner.audiorecorder.exception.ErrorParser;
 import com.dimowner.audiorecorder.util.AndroidUtils;
@@ -39,6 +40,7 @@ import java.io.File;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
+import java.util.Set;
 
 import timber.log.Timber;
 
@@ -59,17 +61,23 @@ public class FileBrowserPresenter implements FileBrowserContract.UserActionsList
 	private final BackgroundQueue recordingsTasks;
 	private final LocalRepository localRepository;
 	private final FileRepository fileRepository;
+	private final RecordInfoCache recordInfoCache;
+	private final FileListLoader fileListLoader;
+	private FileListLoader.Task loadingTask = null;
 	private int selectedTab;
 
 	public FileBrowserPresenter(Prefs prefs, AppRecorder appRecorder, BackgroundQueue importTasks,
 										 BackgroundQueue loadingTasks, BackgroundQueue recordingsTasks,
-										 LocalRepository localRepository, FileRepository fileRepository) {
+										 LocalRepository localRepository, FileRepository fileRepository,
+										 RecordInfoCache recordInfoCache, FileListLoader fileListLoader) {
 		this.appRecorder = appRecorder;
 		this.importTasks = importTasks;
 		this.loadingTasks = loadingTasks;
 		this.recordingsTasks = recordingsTasks;
 		this.localRepository = localRepository;
 		this.fileRepository = fileRepository;
+		this.recordInfoCache = recordInfoCache;
+		this.fileListLoader = fileListLoader;
 
 		if (prefs.isStoreDirPublic()) {
 			selectedTab = TAB_PUBLIC_DIR;
@@ -126,6 +134,10 @@ public class FileBrowserPresenter implements FileBrowserContract.UserActionsList
 
 	@Override
 	public void clear() {
+		if (loadingTask != null) {
+			loadingTask.cancel();
+			loadingTask = null;
+		}
 		unbindView();
 	}
 
@@ -151,33 +163,60 @@ public class FileBrowserPresenter implements FileBrowserContract.UserActionsList
 		if (view != null) {
 			view.showProgress();
 		}
+		//Files of previously selected tab are not needed anymore.
+		if (loadingTask != null) {
+			loadingTask.cancel();
+		}
+		final FileListLoader.Task task = new FileListLoader.Task();
+		loadingTask = task;
 		loadingTasks.postRunnable(() -> {
+			if (task.isCanceled()) {
+				return;
+			}
 			File[] files;
 			if (selectedTab == TAB_PRIVATE_DIR) {
 				files = fileRepository.getPrivateDirFiles(context);
 			} else {
 				files = fileRepository.getPublicDirFiles();
 			}
-			final List<RecordInfo> items = new ArrayList<>();
+			final List<File> records = new ArrayList<>();
+			final List<String> paths = new ArrayList<>();
 			if (files != null) {
-				for (int i = 0; i < files.length; i++) {
-					Record rec = localRepository.findRecordByPath(files[i].getAbsolutePath());
-					RecordInfo r = AudioDecoder.readRecordInfo(files[i]);
-					r.setInDatabase(rec != null);
-					items.add(r);
+				for (File file : files) {
+					if (!SilenceIndex.isIndexFile(file)) {
+						records.add(file);
+						paths.add(file.getAbsolutePath());
+					}
 				}
 			}
-			AndroidUtils.runOnUIThread(() -> {
-				if (view != null) {
-					view.hideProgress();
-					if (items.isEmpty()) {
-						view.showEmpty();
-					} else {
-						view.showFileItems(items);
+			Set<String> pathsInDatabase = localRepository.findRecordsPaths(paths);
+			final boolean[] isFirstPage = {true};
+			final int count = fileListLoader.load(records, pathsInDatabase, task, page -> {
+				//The first page replaces files shown before.
+				final boolean replace = isFirstPage[0];
+				isFirstPage[0] = false;
+				AndroidUtils.runOnUIThread(() -> {
+					if (view != null && !task.isCanceled()) {
+						if (replace) {
+							view.showFileItems(page);
+						} else {
+							view.addFileItems(page);
+						}
 						view.hideEmpty();
 					}
-				}
+				});
 			});
+			Timber.d("Files loaded: %d, %s", count, recordInfoCache);
+			if (count >= 0) {
+				AndroidUtils.runOnUIThread(() -> {
+					if (view != null && !task.isCanceled()) {
+						view.hideProgress();
+						if (count == 0) {
+							view.showEmpty();
+						}
+					}
+				});
+			}
 		});
 	}
 
@@ -192,6 +231,7 @@ public class FileBrowserPresenter implements FileBrowserContract.UserActionsList
 	public void deleteRecord(final RecordInfo record) {
 		recordingsTasks.postRunnable(() -> {
 			if (fileRepository.deleteRecordFile(record.getLocation())) {
+				recordInfoCache.remove(record.getLocation());
 				AndroidUtils.runOnUIThread(() -> {
 					if (view != null) {
 						view.onDeletedRecord(record.getLocation());
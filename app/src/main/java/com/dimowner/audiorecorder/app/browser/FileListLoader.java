@@ -0,0 +1,159 @@
+/*
+ * Copyright 2026 Dmytro Ponomarenko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dimowner.audiorecorder.app.browser;
+
+import com.dimowner.audiorecorder.app.info.RecordInfo;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import timber.log.Timber;
+
+/**
+ * Reads metadata of files on workers of the executor and passes it in pages as files are read,
+ * so the first files are shown before the whole directory is read.
+ * Every page is sorted in the order of the list, files read by several workers
+ * may still be passed in a later page than files which follow them in the list.
+ */
+public class FileListLoader {
+
+	/** Longest time read files wait before they are passed in a page which is not full. */
+	private static final long PAGE_INTERVAL_MILLS = 100;
+
+	public interface Probe {
+		RecordInfo read(File file);
+	}
+
+	public interface Callback {
+		/** Called on the loading thread with files read since the previous page. */
+		void onPage(List<RecordInfo> page);
+	}
+
+	/** One loading of files, canceled when other files are requested. */
+	public static class Task {
+		private volatile boolean isCanceled = false;
+
+		public void cancel() {
+			isCanceled = true;
+		}
+
+		public boolean isCanceled() {
+			return isCanceled;
+		}
+	}
+
+	private final ExecutorService executor;
+	private final Probe probe;
+	private final int pageSize;
+
+	public FileListLoader(ExecutorService executor, Probe probe, int pageSize) {
+		this.executor = executor;
+		this.probe = probe;
+		this.pageSize = pageSize;
+	}
+
+	/**
+	 * Read files and wait for them on the calling thread.
+	 * @param pathsInDatabase paths of files which are records in database.
+	 * @return count of read files or -1 when the task was canceled.
+	 */
+	public int load(List<File> files, Set<String> pathsInDatabase, final Task task, Callback callback) {
+		CompletionService<ReadFile> completion = new ExecutorCompletionService<>(executor);
+		for (int i = 0; i < files.size(); i++) {
+			final int index = i;
+			final File file = files.get(i);
+			//Files left in the queue of canceled task are skipped.
+			completion.submit(() -> task.isCanceled() ? null : new ReadFile(index, probe.read(file)));
+		}
+		List<ReadFile> page = new ArrayList<>();
+		long pageTime = System.currentTimeMillis();
+		int count = 0;
+		int remaining = files.size();
+		try {
+			while (remaining > 0) {
+				Future<ReadFile> future = completion.poll(PAGE_INTERVAL_MILLS, TimeUnit.MILLISECONDS);
+				if (task.isCanceled()) {
+					return -1;
+				}
+				if (future != null) {
+					remaining--;
+					ReadFile read = readResult(future);
+					if (read != null && read.info != null) {
+						read.info.setInDatabase(pathsInDatabase.contains(read.info.getLocation()));
+						page.add(read);
+						count++;
+					}
+				}
+				long time = System.currentTimeMillis();
+				if (page.size() >= pageSize || (!page.isEmpty() && time - pageTime >= PAGE_INTERVAL_MILLS)) {
+					callback.onPage(toSortedPage(page));
+					page = new ArrayList<>();
+					pageTime = time;
+				}
+			}
+		} catch (InterruptedException e) {
+			task.cancel();
+			Thread.currentThread().interrupt();
+			return -1;
+		}
+		if (task.isCanceled()) {
+			return -1;
+		}
+		if (!page.isEmpty()) {
+			callback.onPage(toSortedPage(page));
+		}
+		return count;
+	}
+
+	private static List<RecordInfo> toSortedPage(List<ReadFile> page) {
+		Collections.sort(page, (a, b) -> Integer.compare(a.index, b.index));
+		List<RecordInfo> infos = new ArrayList<>(page.size());
+		for (ReadFile read : page) {
+			infos.add(read.info);
+		}
+		return infos;
+	}
+
+	private static ReadFile readResult(Future<ReadFile> future) throws InterruptedException {
+		try {
+			return future.get();
+		} catch (ExecutionException e) {
+			Timber.e(e);
+			return null;
+		}
+	}
+
+	/** Metadata of the file at the index of the list. */
+	private static class ReadFile {
+		final int index;
+		final RecordInfo info;
+
+		ReadFile(int index, RecordInfo info) {
+			this.index = index;
+			this.info = info;
+		}
+	}
+}
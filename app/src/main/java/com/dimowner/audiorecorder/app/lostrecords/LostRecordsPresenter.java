@@ -18,11 +18,13 @@ package com.dimowner.audiorecorder.app.lostrecords;
 
 import com.dimowner.audiorecorder.BackgroundQueue;
 import com.dimowner.audiorecorder.Mapper;
+import com.dimowner.audiorecorder.app.AppRecorder;
 import com.dimowner.audiorecorder.app.info.RecordInfo;
 import com.dimowner.audiorecorder.data.Prefs;
 import com.dimowner.audiorecorder.data.database.LocalRepository;
 import com.dimowner.audiorecorder.util.AndroidUtils;
 
+import java.io.File;
 import java.util.List;
 
 /**
@@ -35,13 +37,15 @@ public class LostRecordsPresenter implements LostRecordsContract.UserActionsList
 	private final BackgroundQueue loadingTasks;
 	private final BackgroundQueue recordingsTasks;
 	private final LocalRepository localRepository;
+	private final AppRecorder appRecorder;
 	private final Prefs prefs;
 
 	public LostRecordsPresenter(BackgroundQueue loadingTasks, BackgroundQueue recordingsTasks,
-										 LocalRepository localRepository, Prefs prefs) {
+										 LocalRepository localRepository, AppRecorder appRecorder, Prefs prefs) {
 		this.loadingTasks = loadingTasks;
 		this.recordingsTasks = recordingsTasks;
 		this.localRepository = localRepository;
+		this.appRecorder = appRecorder;
 		this.prefs = prefs;
 	}
 
@@ -60,7 +64,18 @@ public class LostRecordsPresenter implements LostRecordsContract.UserActionsList
 				}
 			}
 		}));
-		loadingTasks.postRunnable(localRepository::getAllRecords);
+		loadingTasks.postRunnable(() -> {
+			localRepository.repairInterruptedRecords(getRecordingPath());
+			localRepository.getAllRecords();
+		});
+	}
+
+	private String getRecordingPath() {
+		File file = appRecorder.getRecordFile();
+		if (appRecorder.isRecording() && file != null) {
+			return file.getAbsolutePath();
+		}
+		return null;
 	}
 
 	@Override
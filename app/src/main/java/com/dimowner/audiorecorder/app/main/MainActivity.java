@@ -44,9 +44,11 @@ import android.widget.TextView;
 import android.widget.Toast;
 
 import com.dimowner.audiorecorder.ARApplication;
+import com.dimowner.audiorecorder.AppConstants;
 import com.dimowner.audiorecorder.ColorMap;
 import com.dimowner.audiorecorder.IntArrayList;
 import com.dimowner.audiorecorder.R;
+import com.dimowner.audiorecorder.app.AppRecorder;
 import com.dimowner.audiorecorder.app.DecodeService;
 import com.dimowner.audiorecorder.app.DecodeServiceListener;
 import com.dimowner.audiorecorder.app.DownloadService;
@@ -61,6 +63,8 @@ import com.dimowner.audiorecorder.app.welcome.WelcomeActivity;
 import com.dimowner.audiorecorder.app.widget.RecordingWaveformView;
 import com.dimowner.audiorecorder.app.widget.WaveformViewNew;
 import com.dimowner.audiorecorder.audio.AudioDecoder;
+import com.dimowner.audiorecorder.audio.WaveformPyramid;
+import com.dimowner.audiorecorder.audio.recorder.SilenceIndex;
 import com.dimowner.audiorecorder.data.FileRepository;
 import com.dimowner.audiorecorder.data.Prefs;
 import com.dimowner.audiorecorder.data.database.Record;
@@ -133,6 +137,11 @@ public class MainActivity extends Activity implements MainContract.View, View.On
 					runOnUiThread(MainActivity.this::showRecordProcessing);
 				}
 
+				@Override
+				public void onWaveformChunk(int offset, int[] data, int length, int frameCount, long durationMills) {
+					waveformView.addWaveformChunk(offset, data, length, frameCount, durationMills);
+				}
+
 				@Override
 				public void onFinishProcessing() {
 					runOnUiThread(() -> {
@@ -249,7 +258,7 @@ public class MainActivity extends Activity implements MainContract.View, View.On
 				if (length > 0) {
 					playProgress.setProgress(1000 * (int) AndroidUtils.pxToDp(px) / length);
 				}
-				txtProgress.setText(TimeUtils.formatTimeIntervalHourMinSec2(mills));
+				txtProgress.setText(TimeUtils.formatTimeIntervalHourMinSec2(waveformView.toOriginalMills(mills)));
 			}
 			@Override
 			public void onSeeking(int px, long mills) {
@@ -257,7 +266,7 @@ public class MainActivity extends Activity implements MainContract.View, View.On
 				if (length > 0) {
 					playProgress.setProgress(1000 * (int) AndroidUtils.pxToDp(px) / length);
 				}
-				txtProgress.setText(TimeUtils.formatTimeIntervalHourMinSec2(mills));
+				txtProgress.setText(TimeUtils.formatTimeIntervalHourMinSec2(waveformView.toOriginalMills(mills)));
 			}
 		});
 		onThemeColorChangeListener = colorKey -> {
@@ -300,6 +309,7 @@ public class MainActivity extends Activity implements MainContract.View, View.On
 //			presenter.checkPublicStorageRecords();
 		}
 		presenter.checkFirstRun();
+		updatePreRoll();
 		presenter.setAudioRecorder(ARApplication.getInjector().provideAudioRecorder(getApplicationContext()));
 		presenter.updateRecordingDir(getApplicationContext());
 		presenter.loadActiveRecord();
@@ -622,6 +632,29 @@ public class MainActivity extends Activity implements MainContract.View, View.On
 		}
 	}
 	
+	/**
+	 * Start or stop capturing into memory for retroactive recording according to settings.
+	 */
+	private void updatePreRoll() {
+		Prefs prefs = ARApplication.getInjector().providePrefs(getApplicationContext());
+		AppRecorder appRecorder = ARApplication.getInjector().provideAppRecorder(getApplicationContext());
+		if (appRecorder.isRecording()) {
+			return;
+		}
+		boolean hasPermission = Build.VERSION.SDK_INT < Build.VERSION_CODES.M
+				|| checkSelfPermission(Manifest.permission.RECORD_AUDIO) == PackageManager.PERMISSION_GRANTED;
+		if (hasPermission && prefs.getPreRollSeconds() > 0
+				&& AppConstants.FORMAT_WAV.equals(prefs.getSettingRecordingFormat())) {
+			Intent intent = new Intent(getApplicationContext(), RecordingService.class);
+			intent.setAction(RecordingService.ACTION_START_PRE_ROLL);
+			startService(intent);
+		} else if (appRecorder.isPreRolling()) {
+			Intent intent = new Intent(getApplicationContext(), RecordingService.class);
+			intent.setAction(RecordingService.ACTION_STOP_PRE_ROLL);
+			startService(intent);
+		}
+	}
+
 	private void startRecordingServiceWithSystemAudio() {
 		try {
 			String path = fileRepository.provideRecordFile().getAbsolutePath();
@@ -702,6 +735,16 @@ public class MainActivity extends Activity implements MainContract.View, View.On
 		waveformView.setWaveform(waveForm, duration/1000, playbackMills);
 	}
 
+	@Override
+	public void showWaveformPeaks(WaveformPyramid peaks) {
+		waveformView.setPeaks(peaks);
+	}
+
+	@Override
+	public void showSilenceIndex(SilenceIndex index) {
+		waveformView.setSilenceIndex(index);
+	}
+
 	@Override
 	public void waveFormToStart() {
 		waveformView.seekPx(0);
@@ -816,7 +859,7 @@ public class MainActivity extends Activity implements MainContract.View, View.On
 	public void onPlayProgress(final long mills, int percent) {
 		playProgress.setProgress(percent);
 		waveformView.setPlayback(mills);
-		txtProgress.setText(TimeUtils.formatTimeIntervalHourMinSec2(mills));
+		txtProgress.setText(TimeUtils.formatTimeIntervalHourMinSec2(waveformView.toOriginalMills(mills)));
 	}
 
 	@Override
@@ -21,7 +21,9 @@ import android.net.Uri;
 import com.dimowner.audiorecorder.Contract;
 import com.dimowner.audiorecorder.IntArrayList;
 import com.dimowner.audiorecorder.app.info.RecordInfo;
+import com.dimowner.audiorecorder.audio.WaveformPyramid;
 import com.dimowner.audiorecorder.audio.recorder.RecorderContract;
+import com.dimowner.audiorecorder.audio.recorder.SilenceIndex;
 import com.dimowner.audiorecorder.data.database.Record;
 
 import java.io.File;
@@ -60,6 +62,8 @@ public interface MainContract {
 		void hideRecordProcessing();
 
 		void showWaveForm(int[] waveForm, long duration, long playbackMills);
+		void showWaveformPeaks(WaveformPyramid peaks);
+		void showSilenceIndex(SilenceIndex index);
 		void waveFormToStart();
 		void showDuration(String duration);
 		void showRecordingProgress(String progress);
@@ -32,14 +32,18 @@ import com.dimowner.audiorecorder.app.AppRecorder;
 import com.dimowner.audiorecorder.app.AppRecorderCallback;
 import com.dimowner.audiorecorder.app.info.RecordInfo;
 import com.dimowner.audiorecorder.app.settings.SettingsMapper;
-import com.dimowner.audiorecorder.audio.AudioDecoder;
+import com.dimowner.audiorecorder.audio.WaveformCache;
+import com.dimowner.audiorecorder.audio.WaveformDecodeScheduler;
+import com.dimowner.audiorecorder.audio.WaveformPyramid;
 import com.dimowner.audiorecorder.audio.player.PlayerContractNew;
 import com.dimowner.audiorecorder.audio.recorder.RecorderContract;
+import com.dimowner.audiorecorder.audio.recorder.SilenceIndex;
 import com.dimowner.audiorecorder.data.RecordDataSource;
 import com.dimowner.audiorecorder.data.FileRepository;
 import com.dimowner.audiorecorder.data.Prefs;
 import com.dimowner.audiorecorder.data.database.LocalRepository;
 import com.dimowner.audiorecorder.data.database.Record;
+import com.dimowner.audiorecorder.data.database.RecordInfoCache;
 import com.dimowner.audiorecorder.exception.AppException;
 import com.dimowner.audiorecorder.exception.CantCreateFileException;
 import com.dimowner.audiorecorder.exception.ErrorParser;
@@ -72,13 +76,21 @@ public class MainPresenter implements MainContract.UserActionsListener {
 	private final Prefs prefs;
 	private final SettingsMapper settingsMapper;
 	private long songDuration = 0;
+	/** Cuts of skipped silence in the active record, null when there were no cuts. */
+	private SilenceIndex silenceIndex = null;
 	private RecordDataSource recordDataSource = null;
+	private final WaveformDecodeScheduler waveformDecodeScheduler;
+	private final RecordInfoCache recordInfoCache;
+	private final WaveformCache waveformCache;
 	private boolean listenPlaybackProgress = true;
 
 	/** Flag true defines that presenter called to show import progress when view was not bind.
 	 * And after view bind we need to show import progress.*/
 	private boolean showImportProgress = false;
 
+	/** Interrupted records are repaired once per app launch. */
+	private boolean isInterruptedRecordsRepaired = false;
+
 	public MainPresenter(final Prefs prefs, final FileRepository fileRepository,
 						 final LocalRepository localRepository,
 						 PlayerContractNew.Player audioPlayer,
@@ -88,7 +100,10 @@ public class MainPresenter implements MainContract.UserActionsListener {
 						 final BackgroundQueue processingTasks,
 						 final BackgroundQueue importTasks,
 						 SettingsMapper settingsMapper,
-						 RecordDataSource recordDataSource
+						 RecordDataSource recordDataSource,
+						 WaveformDecodeScheduler waveformDecodeScheduler,
+						 RecordInfoCache recordInfoCache,
+						 WaveformCache waveformCache
 						 ) {
 		this.prefs = prefs;
 		this.fileRepository = fileRepository;
@@ -101,6 +116,9 @@ public class MainPresenter implements MainContract.UserActionsListener {
 		this.appRecorder = appRecorder;
 		this.settingsMapper = settingsMapper;
 		this.recordDataSource = recordDataSource;
+		this.waveformDecodeScheduler = waveformDecodeScheduler;
+		this.recordInfoCache = recordInfoCache;
+		this.waveformCache = waveformCache;
 	}
 
 	@Override
@@ -115,6 +133,11 @@ public class MainPresenter implements MainContract.UserActionsListener {
 		if (!prefs.isMigratedDb3()) {
 			migrateDb3();
 		}
+		if (!isInterruptedRecordsRepaired) {
+			isInterruptedRecordsRepaired = true;
+			repairInterruptedRecords();
+			decodeUnprocessedRecords();
+		}
 		if (!prefs.hasAskToRenameAfterStopRecordingSetting()) {
 			prefs.setAskToRenameAfterStopRecording(true);
 		}
@@ -161,12 +184,14 @@ public class MainPresenter implements MainContract.UserActionsListener {
 					}
 					prefs.setActiveRecord(rec.getId());
 					songDuration = rec.getDuration();
+					silenceIndex = null;
 					if (view != null) {
 						view.showWaveForm(rec.getAmps(), songDuration, 0);
 						view.showName(rec.getName());
-						view.showDuration(TimeUtils.formatTimeIntervalHourMinSec2(songDuration / 1000));
+						view.showDuration(formatDuration());
 						view.showOptionsMenu();
 					}
+					loadSilenceIndex(file);
 					updateInformation(rec.getFormat(), rec.getSampleRate(), rec.getSize());
 					if (view != null) {
 						view.keepScreenOn(false);
@@ -235,7 +260,7 @@ public class MainPresenter implements MainContract.UserActionsListener {
 					if (view != null) {
 						audioPlayer.seek(0);
 						view.showPlayStop();
-						view.showDuration(TimeUtils.formatTimeIntervalHourMinSec2(songDuration / 1000));
+						view.showDuration(formatDuration());
 					}
 				}
 
@@ -538,7 +563,10 @@ public class MainPresenter implements MainContract.UserActionsListener {
 				final Record rec = recordDataSource.getActiveRecord();
 				if (rec != null) {
 					songDuration = rec.getDuration();
+					final WaveformPyramid peaks = waveformCache.findPeaks(new File(rec.getPath()));
+					final SilenceIndex index = SilenceIndex.findIndex(new File(rec.getPath()));
 					AndroidUtils.runOnUIThread(() -> {
+						silenceIndex = index;
 						if (view != null) {
 							if (audioPlayer.isPaused()) {
 								long duration = songDuration/1000;
@@ -550,9 +578,11 @@ public class MainPresenter implements MainContract.UserActionsListener {
 							} else {
 								view.showWaveForm(rec.getAmps(), songDuration, 0);
 							}
+							view.showWaveformPeaks(peaks);
+							view.showSilenceIndex(index);
 
 							view.showName(rec.getName());
-							view.showDuration(TimeUtils.formatTimeIntervalHourMinSec2(songDuration / 1000));
+							view.showDuration(formatDuration());
 							view.showOptionsMenu();
 							view.hideProgress();
 							updateInformation(rec.getFormat(), rec.getSampleRate(), rec.getSize());
@@ -560,6 +590,7 @@ public class MainPresenter implements MainContract.UserActionsListener {
 					});
 				} else {
 					AndroidUtils.runOnUIThread(() -> {
+						silenceIndex = null;
 						if (view != null) {
 							view.hideProgress();
 							view.showWaveForm(new int[]{}, 0, 0);
@@ -679,6 +710,33 @@ public class MainPresenter implements MainContract.UserActionsListener {
 		});
 	}
 
+	/**
+	 * Read cuts of skipped silence written next to the recorded file.
+	 */
+	private void loadSilenceIndex(final File file) {
+		loadingTasks.postRunnable(() -> {
+			final SilenceIndex index = SilenceIndex.findIndex(file);
+			if (index != null) {
+				AndroidUtils.runOnUIThread(() -> {
+					silenceIndex = index;
+					if (view != null) {
+						view.showSilenceIndex(index);
+						view.showDuration(formatDuration());
+					}
+				});
+			}
+		});
+	}
+
+	/**
+	 * Duration of the active record, with silence skipped while recording included.
+	 */
+	private String formatDuration() {
+		SilenceIndex index = silenceIndex;
+		long durationUs = index != null ? index.getOriginalDurationUs() : songDuration;
+		return TimeUtils.formatTimeIntervalHourMinSec2(durationUs / 1000);
+	}
+
 	private void updateInformation(String format, int sampleRate, long size) {
 		if (format.equals(AppConstants.FORMAT_3GP)) {
 			if (view != null) {
@@ -692,6 +750,7 @@ public class MainPresenter implements MainContract.UserActionsListener {
 				switch (format) {
 					case AppConstants.FORMAT_M4A:
 					case AppConstants.FORMAT_WAV:
+					case AppConstants.FORMAT_FLAC:
 						view.showInformation(settingsMapper.formatSize(size) + AppConstants.SEPARATOR
 								+ settingsMapper.convertFormatsToString(format) + AppConstants.SEPARATOR
 								+ settingsMapper.convertSampleRateToString(sampleRate)
@@ -720,6 +779,7 @@ public class MainPresenter implements MainContract.UserActionsListener {
 			if (rec != null && localRepository.deleteRecord(rec.getId())) {
 				prefs.setActiveRecord(-1);
 				AndroidUtils.runOnUIThread(() -> {
+					silenceIndex = null;
 					if (view != null) {
 						view.showWaveForm(new int[]{}, 0, 0);
 						view.showName("");
@@ -783,7 +843,7 @@ public class MainPresenter implements MainContract.UserActionsListener {
 
 					File newFile = fileRepository.provideRecordFile(name);
 					if (FileUtil.copyFile(fileDescriptor, newFile)) {
-						RecordInfo info = AudioDecoder.readRecordInfo(newFile);
+						RecordInfo info = recordInfoCache.readRecordInfo(newFile);
 
 						//Do 2 step import: 1) Import record with empty waveform. 2) Process and update waveform in background.
 						Record r = new Record(
@@ -808,11 +868,12 @@ public class MainPresenter implements MainContract.UserActionsListener {
 							prefs.setActiveRecord(id);
 							songDuration = info.getDuration();
 							AndroidUtils.runOnUIThread(() -> {
+								silenceIndex = null;
 								if (view != null) {
 									audioPlayer.stop();
 									view.showWaveForm(rec.getAmps(), songDuration, 0);
 									view.showName(rec.getName());
-									view.showDuration(TimeUtils.formatTimeIntervalHourMinSec2(songDuration / 1000));
+									view.showDuration(formatDuration());
 									view.hideProgress();
 									view.hideImportProgress();
 									view.showOptionsMenu();
@@ -845,6 +906,31 @@ public class MainPresenter implements MainContract.UserActionsListener {
 		});
 	}
 
+	private void repairInterruptedRecords() {
+		final File recordingFile = appRecorder.isRecording() ? appRecorder.getRecordFile() : null;
+		processingTasks.postRunnable(() -> {
+			List<Record> repaired = localRepository.repairInterruptedRecords(
+					recordingFile != null ? recordingFile.getAbsolutePath() : null);
+			for (int i = 0; i < repaired.size(); i++) {
+				if (repaired.get(i).getId() == prefs.getActiveRecord()) {
+					recordDataSource.clearActiveRecord();
+					AndroidUtils.runOnUIThread(this::loadActiveRecord);
+					break;
+				}
+			}
+		});
+	}
+
+	/**
+	 * Decode waveforms of records which are not decoded yet, then migrate waveforms stored for a screen width.
+	 */
+	private void decodeUnprocessedRecords() {
+		processingTasks.postRunnable(() -> {
+			waveformDecodeScheduler.requestAll(localRepository.getUnprocessedRecordsIds());
+			waveformDecodeScheduler.requestAll(localRepository.getLegacyWaveformRecordsIds());
+		});
+	}
+
 	private void migrateDb3() {
 		processingTasks.postRunnable(() -> {
 			//Update records table.
@@ -854,7 +940,7 @@ public class MainPresenter implements MainContract.UserActionsListener {
 				if (ids.get(i) != null) {
 					rec = localRepository.getRecord(ids.get(i));
 					if (rec != null) {
-						RecordInfo info = AudioDecoder.readRecordInfo(new File(rec.getPath()));
+						RecordInfo info = recordInfoCache.readRecordInfo(new File(rec.getPath()));
 						localRepository.updateRecord(new Record(
 								rec.getId(),
 								FileUtil.removeFileExtension(rec.getName()),
@@ -881,7 +967,7 @@ public class MainPresenter implements MainContract.UserActionsListener {
 				if (trashIds.get(i) != null) {
 					trashRecord = localRepository.getTrashRecord(trashIds.get(i));
 					if (trashRecord != null) {
-						RecordInfo info = AudioDecoder.readRecordInfo(new File(trashRecord.getPath()));
+						RecordInfo info = recordInfoCache.readRecordInfo(new File(trashRecord.getPath()));
 						localRepository.updateTrashRecord(new Record(
 								trashRecord.getId(),
 								FileUtil.removeFileExtension(trashRecord.getName()),
@@ -25,6 +25,7 @@ import com.dimowner.audiorecorder.BackgroundQueue
 import com.dimowner.audiorecorder.ColorMap
 import com.dimowner.audiorecorder.R
 import com.dimowner.audiorecorder.app.main.MainActivity
+import com.dimowner.audiorecorder.audio.recorder.SilenceIndex
 import com.dimowner.audiorecorder.data.FileRepository
 import com.dimowner.audiorecorder.data.Prefs
 import com.dimowner.audiorecorder.data.database.LocalRepository
@@ -162,6 +163,7 @@ class MoveRecordsService : Service() {
 									copied++
 									copiedPercent += oneRecordProgress.toInt()
 									localRepository.updateRecord(record)
+									SilenceIndex.moveIndexFile(File(sourceFilePath), destinationFile)
 									fileRepository.deleteRecordFile(sourceFilePath)
 									if (copied + failed == list.size) {
 										val text = getResultMessage(message, copied, failed, list.size)
@@ -53,6 +53,9 @@ import com.dimowner.audiorecorder.app.trash.TrashActivity;
 import com.dimowner.audiorecorder.app.widget.SimpleWaveformView;
 import com.dimowner.audiorecorder.app.widget.TouchLayout;
 import com.dimowner.audiorecorder.app.widget.WaveformViewNew;
+import com.dimowner.audiorecorder.audio.WaveformPyramid;
+import com.dimowner.audiorecorder.audio.recorder.SilenceIndex;
+import com.dimowner.audiorecorder.data.database.PageKey;
 import com.dimowner.audiorecorder.data.database.Record;
 import com.dimowner.audiorecorder.util.AndroidUtils;
 import com.dimowner.audiorecorder.util.AnimationUtil;
@@ -71,6 +74,7 @@ public class RecordsActivity extends Activity implements RecordsContract.View, V
 
 	private RecyclerView recyclerView;
 	private LinearLayoutManager layoutManager;
+	private MyScrollListener scrollListener;
 	private RecordsAdapter adapter;
 
 	private LinearLayout toolbar;
@@ -210,7 +214,8 @@ public class RecordsActivity extends Activity implements RecordsContract.View, V
 		recyclerView.setHasFixedSize(true);
 		layoutManager = new LinearLayoutManager(getApplicationContext());
 		recyclerView.setLayoutManager(layoutManager);
-		recyclerView.addOnScrollListener(new MyScrollListener(layoutManager));
+		scrollListener = new MyScrollListener(layoutManager);
+		recyclerView.addOnScrollListener(scrollListener);
 
 		recyclerView.addOnScrollListener(new RecyclerView.OnScrollListener() {
 			@Override
@@ -235,6 +240,14 @@ public class RecordsActivity extends Activity implements RecordsContract.View, V
 					bottomDivider.setVisibility(View.VISIBLE);
 				}
 			}
+
+			@Override
+			public void onScrollStateChanged(@NonNull RecyclerView rv, int newState) {
+				super.onScrollStateChanged(rv, newState);
+				if (newState == RecyclerView.SCROLL_STATE_IDLE) {
+					updateVisibleRecords();
+				}
+			}
 		});
 
 		adapter = new RecordsAdapter(ARApplication.getInjector().provideSettingsMapper(getApplicationContext()));
@@ -331,7 +344,7 @@ public class RecordsActivity extends Activity implements RecordsContract.View, V
 				if (length > 0) {
 					playProgress.setProgress(1000 * (int) AndroidUtils.pxToDp(px) / length);
 				}
-				txtProgress.setText(TimeUtils.formatTimeIntervalHourMinSec2(mills));
+				txtProgress.setText(TimeUtils.formatTimeIntervalHourMinSec2(waveformView.toOriginalMills(mills)));
 			}
 			@Override
 			public void onSeeking(int px, long mills) {
@@ -339,7 +352,7 @@ public class RecordsActivity extends Activity implements RecordsContract.View, V
 				if (length > 0) {
 					playProgress.setProgress(1000 * (int) AndroidUtils.pxToDp(px) / length);
 				}
-				txtProgress.setText(TimeUtils.formatTimeIntervalHourMinSec2(mills));
+				txtProgress.setText(TimeUtils.formatTimeIntervalHourMinSec2(waveformView.toOriginalMills(mills)));
 			}
 		});
 	}
@@ -632,6 +645,24 @@ public class RecordsActivity extends Activity implements RecordsContract.View, V
 		ARApplication.getInjector().releaseRecordsPresenter();
 	}
 
+	/**
+	 * Waveforms of records visible on the screen are decoded first.
+	 */
+	private void updateVisibleRecords() {
+		int first = layoutManager.findFirstVisibleItemPosition();
+		int last = layoutManager.findLastVisibleItemPosition();
+		List<Integer> ids = new ArrayList<>();
+		if (first != RecyclerView.NO_POSITION) {
+			for (int i = first; i <= last && i < adapter.getItemCount(); i++) {
+				ListItem item = adapter.getItem(i);
+				if (item.getType() == ListItem.ITEM_TYPE_NORMAL) {
+					ids.add((int) item.getId());
+				}
+			}
+		}
+		presenter.setVisibleRecords(ids);
+	}
+
 	private void handleToolbarScroll(int dy) {
 		float inset = toolbar.getTranslationY() - dy;
 		int height;
@@ -707,6 +738,16 @@ public class RecordsActivity extends Activity implements RecordsContract.View, V
 		waveformView.setWaveform(waveForm, duration/1000, playbackMills);
 	}
 
+	@Override
+	public void showWaveformPeaks(WaveformPyramid peaks) {
+		waveformView.setPeaks(peaks);
+	}
+
+	@Override
+	public void showSilenceIndex(SilenceIndex index) {
+		waveformView.setSilenceIndex(index);
+	}
+
 	@Override
 	public void showDuration(final String duration) {
 		txtProgress.setText(duration);
@@ -717,11 +758,13 @@ public class RecordsActivity extends Activity implements RecordsContract.View, V
 	public void onPlayProgress(final long mills, final int percent) {
 		playProgress.setProgress(percent);
 		waveformView.setPlayback(mills);
-		txtProgress.setText(TimeUtils.formatTimeIntervalHourMinSec2(mills));
+		txtProgress.setText(TimeUtils.formatTimeIntervalHourMinSec2(waveformView.toOriginalMills(mills)));
 	}
 
 	@Override
-	public void showRecords(List<ListItem> records, int order) {
+	public void showRecords(List<ListItem> records, int order, PageKey nextPage) {
+		scrollListener.reset();
+		scrollListener.setNextPage(nextPage);
 		if (records.size() == 0) {
 			txtEmpty.setVisibility(View.VISIBLE);
 			adapter.setData(new ArrayList<>(), order);
@@ -731,11 +774,13 @@ public class RecordsActivity extends Activity implements RecordsContract.View, V
 			if (touchLayout.getVisibility() == View.VISIBLE) {
 				adapter.showFooter();
 			}
+			recyclerView.post(this::updateVisibleRecords);
 		}
 	}
 
 	@Override
-	public void addRecords(List<ListItem> records, int order) {
+	public void addRecords(List<ListItem> records, int order, PageKey nextPage) {
+		scrollListener.setNextPage(nextPage);
 		adapter.addData(records, order);
 		txtEmpty.setVisibility(View.GONE);
 	}
@@ -956,9 +1001,9 @@ public class RecordsActivity extends Activity implements RecordsContract.View, V
 		}
 
 		@Override
-		public void onLoadMore(int page, int totalItemsCount) {
-//			Timber.v("onLoadMore page = " + page + " count = " + totalItemsCount);
-			presenter.loadRecordsPage(page);
+		public void onLoadMore(PageKey nextPage, int totalItemsCount) {
+//			Timber.v("onLoadMore page = " + nextPage + " count = " + totalItemsCount);
+			presenter.loadRecordsPage(nextPage);
 		}
 	}
 }
@@ -18,6 +18,9 @@ package com.dimowner.audiorecorder.app.records;
 
 import com.dimowner.audiorecorder.Contract;
 import com.dimowner.audiorecorder.app.info.RecordInfo;
+import com.dimowner.audiorecorder.audio.WaveformPyramid;
+import com.dimowner.audiorecorder.audio.recorder.SilenceIndex;
+import com.dimowner.audiorecorder.data.database.PageKey;
 import com.dimowner.audiorecorder.data.database.Record;
 
 import java.util.List;
@@ -42,10 +45,12 @@ public interface RecordsContract {
 		void startPlaybackService();
 
 		void showWaveForm(int[] waveForm, long duration, long playbackMills);
+		void showWaveformPeaks(WaveformPyramid peaks);
+		void showSilenceIndex(SilenceIndex index);
 		void showDuration(String duration);
 
-		void showRecords(List<ListItem> records, int order);
-		void addRecords(List<ListItem> records, int order);
+		void showRecords(List<ListItem> records, int order, PageKey nextPage);
+		void addRecords(List<ListItem> records, int order, PageKey nextPage);
 
 		void showEmptyList();
 		void showEmptyBookmarksList();
@@ -108,10 +113,13 @@ public interface RecordsContract {
 
 		void updateRecordsOrder(int order);
 
-		void loadRecordsPage(int page);
+		void loadRecordsPage(PageKey key);
 
 		void decodeActiveRecord();
 
+		/** Records shown on the screen, their waveforms are decoded before others. */
+		void setVisibleRecords(List<Integer> ids);
+
 		void applyBookmarksFilter();
 		void checkBookmarkActiveRecord();
 
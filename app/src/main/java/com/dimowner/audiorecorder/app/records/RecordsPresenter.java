@@ -23,10 +23,15 @@ import com.dimowner.audiorecorder.R;
 import com.dimowner.audiorecorder.app.AppRecorder;
 import com.dimowner.audiorecorder.app.AppRecorderCallback;
 import com.dimowner.audiorecorder.app.info.RecordInfo;
+import com.dimowner.audiorecorder.audio.WaveformCache;
+import com.dimowner.audiorecorder.audio.WaveformDecodeScheduler;
+import com.dimowner.audiorecorder.audio.WaveformPyramid;
 import com.dimowner.audiorecorder.audio.player.PlayerContractNew;
+import com.dimowner.audiorecorder.audio.recorder.SilenceIndex;
 import com.dimowner.audiorecorder.data.FileRepository;
 import com.dimowner.audiorecorder.data.Prefs;
 import com.dimowner.audiorecorder.data.database.LocalRepository;
+import com.dimowner.audiorecorder.data.database.PageKey;
 import com.dimowner.audiorecorder.data.database.Record;
 import com.dimowner.audiorecorder.exception.AppException;
 import com.dimowner.audiorecorder.exception.ErrorParser;
@@ -52,6 +57,8 @@ public class RecordsPresenter implements RecordsContract.UserActionsListener {
 	private final FileRepository fileRepository;
 	private final LocalRepository localRepository;
 	private final Prefs prefs;
+	private final WaveformDecodeScheduler waveformDecodeScheduler;
+	private final WaveformCache waveformCache;
 
 	private Record activeRecord;
 	private boolean showBookmarks = false;
@@ -59,7 +66,8 @@ public class RecordsPresenter implements RecordsContract.UserActionsListener {
 
 	public RecordsPresenter(final LocalRepository localRepository, FileRepository fileRepository,
 									BackgroundQueue loadingTasks, BackgroundQueue recordingsTasks,
-									PlayerContractNew.Player player, AppRecorder appRecorder, Prefs prefs) {
+									PlayerContractNew.Player player, AppRecorder appRecorder, Prefs prefs,
+									WaveformDecodeScheduler waveformDecodeScheduler, WaveformCache waveformCache) {
 		this.localRepository = localRepository;
 		this.fileRepository = fileRepository;
 		this.loadingTasks = loadingTasks;
@@ -68,6 +76,8 @@ public class RecordsPresenter implements RecordsContract.UserActionsListener {
 		this.appRecorder = appRecorder;
 		this.playerCallback = null;
 		this.prefs = prefs;
+		this.waveformDecodeScheduler = waveformDecodeScheduler;
+		this.waveformCache = waveformCache;
 	}
 
 	@Override
@@ -391,12 +401,16 @@ public class RecordsPresenter implements RecordsContract.UserActionsListener {
 			view.showPanelProgress();
 			loadingTasks.postRunnable(() -> {
 				final int order = prefs.getRecordsOrder();
-				final List<Record> recordList = localRepository.getRecords(0, order);
+				final PageKey key = PageKey.first(order);
+				final List<Record> recordList = localRepository.getRecords(key);
+				final PageKey nextPage = key.next(recordList);
 				final Record rec = localRepository.getRecord((int) prefs.getActiveRecord());
 				activeRecord = rec;
+				final WaveformPyramid peaks = rec != null ? waveformCache.findPeaks(new File(rec.getPath())) : null;
+				final SilenceIndex index = rec != null ? SilenceIndex.findIndex(new File(rec.getPath())) : null;
 				AndroidUtils.runOnUIThread(() -> {
 					if (view != null) {
-						view.showRecords(Mapper.recordsToListItems(recordList), order);
+						view.showRecords(Mapper.recordsToListItems(recordList), order, nextPage);
 						if (audioPlayer.isPaused() || audioPlayer.isPlaying()) {
 							if (rec != null) {
 								if (audioPlayer.isPaused()) {
@@ -409,7 +423,9 @@ public class RecordsPresenter implements RecordsContract.UserActionsListener {
 								} else {
 									view.showWaveForm(rec.getAmps(), rec.getDuration(), 0);
 								}
-								view.showDuration(TimeUtils.formatTimeIntervalHourMinSec2(rec.getDuration() / 1000));
+								view.showWaveformPeaks(peaks);
+								view.showSilenceIndex(index);
+								view.showDuration(formatDuration(rec, index));
 								view.showRecordName(rec.getName());
 								if (rec.isBookmarked()) {
 									view.bookmarksSelected();
@@ -444,16 +460,16 @@ public class RecordsPresenter implements RecordsContract.UserActionsListener {
 	}
 
 	@Override
-	public void loadRecordsPage(final int page) {
+	public void loadRecordsPage(final PageKey key) {
 		if (view != null && !showBookmarks) {
 			view.showProgress();
 			view.showPanelProgress();
 			loadingTasks.postRunnable(() -> {
-				final int order = prefs.getRecordsOrder();
-				final List<Record> recordList = localRepository.getRecords(page, order);
+				final List<Record> recordList = localRepository.getRecords(key);
+				final PageKey nextPage = key.next(recordList);
 				AndroidUtils.runOnUIThread(() -> {
 					if (view != null) {
-						view.addRecords(Mapper.recordsToListItems(recordList), order);
+						view.addRecords(Mapper.recordsToListItems(recordList), key.getOrder(), nextPage);
 						view.hideProgress();
 						view.hidePanelProgress();
 						view.bookmarksUnselected();
@@ -470,6 +486,11 @@ public class RecordsPresenter implements RecordsContract.UserActionsListener {
 		}
 	}
 
+	@Override
+	public void setVisibleRecords(List<Integer> ids) {
+		waveformDecodeScheduler.setVisible(ids);
+	}
+
 	public void loadBookmarks() {
 		if (!showBookmarks) {
 			loadRecords();
@@ -481,7 +502,7 @@ public class RecordsPresenter implements RecordsContract.UserActionsListener {
 					final List<Record> recordList = localRepository.getBookmarks();
 					AndroidUtils.runOnUIThread(() -> {
 						if (view != null) {
-							view.showRecords(Mapper.recordsToListItems(recordList), AppConstants.SORT_DATE);
+							view.showRecords(Mapper.recordsToListItems(recordList), AppConstants.SORT_DATE, null);
 							view.hideProgress();
 							view.hidePanelProgress();
 							view.bookmarksSelected();
@@ -571,10 +592,14 @@ public class RecordsPresenter implements RecordsContract.UserActionsListener {
 				final Record rec = localRepository.getRecord((int) id);
 				activeRecord = rec;
 				if (rec != null) {
+					final WaveformPyramid peaks = waveformCache.findPeaks(new File(rec.getPath()));
+					final SilenceIndex index = SilenceIndex.findIndex(new File(rec.getPath()));
 					AndroidUtils.runOnUIThread(() -> {
 						if (view != null) {
 							view.showWaveForm(rec.getAmps(), rec.getDuration(), 0);
-							view.showDuration(TimeUtils.formatTimeIntervalHourMinSec2(rec.getDuration() / 1000));
+							view.showWaveformPeaks(peaks);
+							view.showSilenceIndex(index);
+							view.showDuration(formatDuration(rec, index));
 							view.showRecordName(rec.getName());
 							callback.onSuccess();
 							if (rec.isBookmarked()) {
@@ -642,4 +667,12 @@ public class RecordsPresenter implements RecordsContract.UserActionsListener {
 	public void enablePlaybackProgressListener() {
 		listenPlaybackProgress = true;
 	}
+
+	/**
+	 * Duration of the record, with silence skipped while recording included.
+	 */
+	private static String formatDuration(Record rec, SilenceIndex index) {
+		long durationUs = index != null ? index.getOriginalDurationUs() : rec.getDuration();
+		return TimeUtils.formatTimeIntervalHourMinSec2(durationUs / 1000);
+	}
 }
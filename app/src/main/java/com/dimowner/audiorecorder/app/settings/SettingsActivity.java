@@ -75,6 +75,8 @@ public class SettingsActivity extends Activity implements SettingsContract.View,
 	private Switch swKeepScreenOn;
 	private Switch swAskToRename;
 	private Switch swRecordSystemAudio;
+	private Switch swAudioProcessing;
+	private Switch swSkipSilence;
 
 	private Spinner nameFormatSelector;
 
@@ -82,6 +84,7 @@ public class SettingsActivity extends Activity implements SettingsContract.View,
 	private SettingView sampleRateSetting;
 	private SettingView bitrateSetting;
 	private SettingView channelsSetting;
+	private SettingView preRollSetting;
 	private Button btnReset;
 
 	private SettingsContract.UserActionsListener presenter;
@@ -151,6 +154,8 @@ public class SettingsActivity extends Activity implements SettingsContract.View,
 		swKeepScreenOn = findViewById(R.id.swKeepScreenOn);
 		swAskToRename = findViewById(R.id.swAskToRename);
 		swRecordSystemAudio = findViewById(R.id.swRecordSystemAudio);
+		swAudioProcessing = findViewById(R.id.swAudioProcessing);
+		swSkipSilence = findViewById(R.id.swSkipSilence);
 
 		txtRecordsCount = findViewById(R.id.txt_records_count);
 		txtTotalDuration= findViewById(R.id.txt_total_duration);
@@ -161,13 +166,16 @@ public class SettingsActivity extends Activity implements SettingsContract.View,
 		swKeepScreenOn.setOnCheckedChangeListener((btn, isChecked) -> presenter.keepScreenOn(isChecked));
 		swAskToRename.setOnCheckedChangeListener((btn, isChecked) -> presenter.askToRenameAfterRecordingStop(isChecked));
 		swRecordSystemAudio.setOnCheckedChangeListener((btn, isChecked) -> presenter.setRecordSystemAudio(isChecked));
+		swAudioProcessing.setOnCheckedChangeListener((btn, isChecked) -> presenter.setAudioProcessing(isChecked));
+		swSkipSilence.setOnCheckedChangeListener((btn, isChecked) -> presenter.setSkipSilence(isChecked));
 
 		formatSetting = findViewById(R.id.setting_recording_format);
 		formats = getResources().getStringArray(R.array.formats2);
 		formatsKeys = new String[] {
 				AppConstants.FORMAT_M4A,
 				AppConstants.FORMAT_WAV,
-				AppConstants.FORMAT_3GP
+				AppConstants.FORMAT_3GP,
+				AppConstants.FORMAT_FLAC
 		};
 		formatSetting.setData(formats, formatsKeys);
 		formatSetting.setOnChipCheckListener((key, name, checked) -> presenter.setSettingRecordingFormat(key));
@@ -216,6 +224,18 @@ public class SettingsActivity extends Activity implements SettingsContract.View,
 		channelsSetting.setTitle(R.string.channels);
 		channelsSetting.setOnInfoClickListener(v -> AndroidUtils.showInfoDialog(SettingsActivity.this, R.string.info_channels));
 
+		preRollSetting = findViewById(R.id.setting_pre_roll);
+		preRollSetting.setData(getResources().getStringArray(R.array.pre_roll_durations), new String[] {
+				SettingsMapper.PRE_ROLL_OFF,
+				SettingsMapper.PRE_ROLL_10,
+				SettingsMapper.PRE_ROLL_30,
+				SettingsMapper.PRE_ROLL_60,
+				SettingsMapper.PRE_ROLL_120
+		});
+		preRollSetting.setOnChipCheckListener((key, name, checked) -> presenter.setPreRollSeconds(Integer.parseInt(key)));
+		preRollSetting.setTitle(R.string.pre_roll);
+		preRollSetting.setOnInfoClickListener(v -> AndroidUtils.showInfoDialog(SettingsActivity.this, R.string.info_pre_roll));
+
 		presenter = ARApplication.getInjector().provideSettingsPresenter(getApplicationContext());
 
 		LinearLayout pnlInfo = findViewById(R.id.info_panel);
@@ -443,6 +463,16 @@ public class SettingsActivity extends Activity implements SettingsContract.View,
 		swRecordSystemAudio.setChecked(b);
 	}
 
+	@Override
+	public void showAudioProcessing(boolean b) {
+		swAudioProcessing.setChecked(b);
+	}
+
+	@Override
+	public void showSkipSilence(boolean b) {
+		swSkipSilence.setChecked(b);
+	}
+
 	@Override
 	public void showRecordingBitrate(int bitrate) {
 		bitrateSetting.setSelected(SettingsMapper.bitrateToKey(bitrate));
@@ -498,6 +528,21 @@ public class SettingsActivity extends Activity implements SettingsContract.View,
 		bitrateSetting.setVisibility(View.GONE);
 	}
 
+	@Override
+	public void showPreRollSeconds(int seconds) {
+		preRollSetting.setSelected(String.valueOf(seconds));
+	}
+
+	@Override
+	public void showPreRollSelector() {
+		preRollSetting.setVisibility(View.VISIBLE);
+	}
+
+	@Override
+	public void hidePreRollSelector() {
+		preRollSetting.setVisibility(View.GONE);
+	}
+
 	@Override
 	public void showDialogPublicDirInfo() {
 		AndroidUtils.showInfoDialog(this, R.string.public_dir_warning);
@@ -38,6 +38,10 @@ public class SettingsContract {
 
 		void showRecordSystemAudio(boolean b);
 
+		void showAudioProcessing(boolean b);
+
+		void showSkipSilence(boolean b);
+
 		void showRecordingBitrate(int bitrate);
 
 		void showRecordingSampleRate(int rate);
@@ -59,6 +63,10 @@ public class SettingsContract {
 		void showBitrateSelector();
 		void hideBitrateSelector();
 
+		void showPreRollSeconds(int seconds);
+		void showPreRollSelector();
+		void hidePreRollSelector();
+
 		void showDialogPublicDirInfo();
 
 		void showDialogPrivateDirInfo();
@@ -88,6 +96,12 @@ public class SettingsContract {
 
 		void setRecordSystemAudio(boolean enabled);
 
+		void setAudioProcessing(boolean enabled);
+
+		void setSkipSilence(boolean enabled);
+
+		void setPreRollSeconds(int seconds);
+
 		void setSettingRecordingBitrate(int bitrate);
 
 		void setSettingSampleRate(int rate);
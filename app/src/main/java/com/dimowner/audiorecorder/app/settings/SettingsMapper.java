@@ -70,6 +70,12 @@ public class SettingsMapper {
 	public final static String CHANNEL_COUNT_STEREO = "stereo";
 	public final static String CHANNEL_COUNT_MONO = "mono";
 
+	public final static String PRE_ROLL_OFF = "0";
+	public final static String PRE_ROLL_10 = "10";
+	public final static String PRE_ROLL_30 = "30";
+	public final static String PRE_ROLL_60 = "60";
+	public final static String PRE_ROLL_120 = "120";
+
 	private Resources resources;
 	private String[] formats;
 	private String[] formatsKeys;
@@ -86,7 +92,8 @@ public class SettingsMapper {
 		formatsKeys = new String[] {
 				AppConstants.FORMAT_M4A,
 				AppConstants.FORMAT_WAV,
-				AppConstants.FORMAT_3GP
+				AppConstants.FORMAT_3GP,
+				AppConstants.FORMAT_FLAC
 		};
 		sampleRates = resources.getStringArray(R.array.sample_rates2);
 		sampleRatesKeys = new String[] {
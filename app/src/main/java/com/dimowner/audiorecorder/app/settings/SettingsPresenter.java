@@ -113,6 +113,9 @@ public class SettingsPresenter implements SettingsContract.UserActionsListener {
 			view.showAskToRenameAfterRecordingStop(prefs.isAskToRenameAfterStopRecording());
 			view.showKeepScreenOn(prefs.isKeepScreenOn());
 			view.showRecordSystemAudio(prefs.isRecordSystemAudio());
+			view.showAudioProcessing(prefs.isAudioProcessing());
+			view.showSkipSilence(prefs.isSkipSilence());
+			view.showPreRollSeconds(prefs.getPreRollSeconds());
 			view.showChannelCount(prefs.getSettingChannelCount());
 			String recordingFormatKey = prefs.getSettingRecordingFormat();
 			view.showRecordingFormat(recordingFormatKey);
@@ -151,6 +154,21 @@ public class SettingsPresenter implements SettingsContract.UserActionsListener {
 		prefs.setRecordSystemAudio(enabled);
 	}
 
+	@Override
+	public void setAudioProcessing(boolean enabled) {
+		prefs.setAudioProcessing(enabled);
+	}
+
+	@Override
+	public void setSkipSilence(boolean enabled) {
+		prefs.setSkipSilence(enabled);
+	}
+
+	@Override
+	public void setPreRollSeconds(int seconds) {
+		prefs.setPreRollSeconds(seconds);
+	}
+
 	@Override
 	public void setSettingRecordingBitrate(int bitrate) {
 		prefs.setSettingBitrate(bitrate);
@@ -307,6 +325,7 @@ public class SettingsPresenter implements SettingsContract.UserActionsListener {
 								+ settingsMapper.convertChannelsToString(channelsCount));
 						break;
 					case AppConstants.FORMAT_WAV:
+					case AppConstants.FORMAT_FLAC:
 						view.showInformation(settingsMapper.convertFormatsToString(format) + AppConstants.SEPARATOR
 								+ settingsMapper.convertSampleRateToString(sampleRate) + AppConstants.SEPARATOR
 								+ settingsMapper.convertChannelsToString(channelsCount));
@@ -323,6 +342,8 @@ public class SettingsPresenter implements SettingsContract.UserActionsListener {
 				return 1000 * (spaceBytes/(bitrate/8));
 			case AppConstants.FORMAT_WAV:
 				return 1000 * (spaceBytes/((long) sampleRate * channels * 2));
+			case AppConstants.FORMAT_FLAC:
+				return 1000 * (long) (spaceBytes/((long) sampleRate * channels * 2 * AppConstants.FLAC_SIZE_RATIO));
 			default:
 				return 0;
 		}
@@ -335,15 +356,23 @@ public class SettingsPresenter implements SettingsContract.UserActionsListener {
 				return 60L * (bitrate/8);
 			case AppConstants.FORMAT_WAV:
 				return 60 * ((long) sampleRate * channels * 2);
+			case AppConstants.FORMAT_FLAC:
+				return (long) (60 * ((long) sampleRate * channels * 2) * AppConstants.FLAC_SIZE_RATIO);
 			default:
 				return 0;
 		}
 	}
 
 	private void updateRecordingFormat(String formatKey) {
+		if (formatKey.equals(AppConstants.FORMAT_WAV)) {
+			view.showPreRollSelector();
+		} else {
+			view.hidePreRollSelector();
+		}
 		switch (formatKey) {
 			case AppConstants.FORMAT_WAV:
 			case AppConstants.FORMAT_3GP:
+			case AppConstants.FORMAT_FLAC:
 				view.hideBitrateSelector();
 				break;
 			case AppConstants.FORMAT_M4A:
@@ -168,6 +168,11 @@ public class SetupPresenter implements SetupContract.UserActionsListener {
 					view.showInformation(R.string.info_3gp);
 				}
 				break;
+			case AppConstants.FORMAT_FLAC:
+				if (view != null) {
+					view.showInformation(R.string.info_flac);
+				}
+				break;
 		}
 		if (view != null) {
 			view.updateRecordingInfo(formatKey);
@@ -215,6 +220,12 @@ public class SetupPresenter implements SetupContract.UserActionsListener {
 					view.showInformation(R.string.info_wav);
 				}
 				break;
+			case AppConstants.FORMAT_FLAC:
+				if (view != null) {
+					view.hideBitrateSelector();
+					view.showInformation(R.string.info_flac);
+				}
+				break;
 			case AppConstants.FORMAT_M4A:
 				if (view != null) {
 					view.showInformation(R.string.info_m4a);
@@ -252,6 +263,8 @@ public class SetupPresenter implements SetupContract.UserActionsListener {
 				return 60 * (bitrate/8);
 			case AppConstants.FORMAT_WAV:
 				return 60 * (sampleRate * channels * 2);
+			case AppConstants.FORMAT_FLAC:
+				return (long) (60 * (sampleRate * channels * 2) * AppConstants.FLAC_SIZE_RATIO);
 			default:
 				return 0;
 		}
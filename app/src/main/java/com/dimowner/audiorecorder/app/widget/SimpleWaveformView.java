@@ -23,6 +23,7 @@ import android.util.AttributeSet;
 import android.view.View;
 
 import com.dimowner.audiorecorder.R;
+import com.dimowner.audiorecorder.audio.WaveformDecimator;
 import com.dimowner.audiorecorder.util.AndroidUtils;
 
 public class SimpleWaveformView extends View {
@@ -184,6 +185,11 @@ public class SimpleWaveformView extends View {
 	 * Called once when a new sound file is added
 	 */
 	private void adjustWaveformHeights(int[] frameGains) {
+		int widthDp = (int) (getMeasuredWidth() / AndroidUtils.dpToPx(1));
+		if (widthDp > 0 && frameGains.length > widthDp) {
+			//Gains are stored at fixed time resolution, the whole record is fit into the view.
+			frameGains = WaveformDecimator.resample(frameGains, widthDp);
+		}
 		int numFrames = frameGains.length;
 		//One frame corresponds one pixel on screen
 		int[] smoothedGains = frameGains;
@@ -28,6 +28,9 @@ import android.view.animation.DecelerateInterpolator
 import androidx.core.content.ContextCompat
 import com.dimowner.audiorecorder.AppConstants
 import com.dimowner.audiorecorder.R
+import com.dimowner.audiorecorder.audio.WaveformDecimator
+import com.dimowner.audiorecorder.audio.WaveformPyramid
+import com.dimowner.audiorecorder.audio.recorder.SilenceIndex
 import com.dimowner.audiorecorder.util.AndroidUtils
 import com.dimowner.audiorecorder.util.TimeUtils
 
@@ -65,8 +68,21 @@ class WaveformViewNew @JvmOverloads constructor(
 
 	private var originalData: IntArray = IntArray(0)
 	private var waveformData: IntArray = IntArray(0)
+	/** Gains of a record being decoded, filled by chunks. */
+	private var partialData: IntArray = IntArray(0)
 	lateinit var drawLinesArray: FloatArray
 
+	/** Min/max peaks drawn instead of frame gains when set. */
+	private var peaks: WaveformPyramid? = null
+	private var peaksMin = ShortArray(0)
+	private var peaksMax = ShortArray(0)
+	/** Gains of visible pixels taken by [WaveformDecimator]. */
+	private var gainsMin = IntArray(0)
+	private var gainsMax = IntArray(0)
+
+	/** Cuts of skipped silence, the timeline shows the time of capture when set. */
+	private var silenceIndex: SilenceIndex? = null
+
 	private var showTimeline: Boolean = true
 
 	/** 1 means that waveform will take whole view width. 2 mean that waveform will take double view width to draw.  */
@@ -191,6 +207,10 @@ class WaveformViewNew @JvmOverloads constructor(
 	fun setWaveform(frameGains: IntArray, durationMills: Long, playbackMills: Long) {
 		post {
 			originalData = frameGains
+			partialData = IntArray(0)
+			//Peaks and cuts of the previous record.
+			peaks = null
+			silenceIndex = null
 			viewWidthPx = width
 			viewHeightPx = height
 			playProgressMills = playbackMills
@@ -199,6 +219,56 @@ class WaveformViewNew @JvmOverloads constructor(
 		}
 	}
 
+	/**
+	 * Show part of the waveform while the record is still decoded, may be called from any thread.
+	 * Chunk is copied at once, [data] may be reused by the caller.
+	 * @param frameCount expected count of gains of the whole record, the rest is drawn empty.
+	 */
+	fun addWaveformChunk(offset: Int, data: IntArray, length: Int, frameCount: Int, durationMills: Long) {
+		val chunk = data.copyOf(length)
+		post {
+			if (offset == 0 || partialData.size < offset) {
+				partialData = IntArray(maxOf(frameCount, length))
+			} else if (partialData.size < offset + length) {
+				partialData = partialData.copyOf(offset + length)
+			}
+			chunk.copyInto(partialData, offset)
+			originalData = partialData
+			viewWidthPx = width
+			viewHeightPx = height
+			updateWaveform(partialData, durationMills, playProgressMills)
+			invalidate()
+		}
+	}
+
+	/**
+	 * Draw record from peaks, only visible pixels are taken from the pyramid level matching the zoom.
+	 */
+	fun setPeaks(pyramid: WaveformPyramid?) {
+		post {
+			peaks = pyramid
+			invalidate()
+		}
+	}
+
+	/**
+	 * Show the time of capture in the timeline of a record recorded with silence skipping.
+	 */
+	fun setSilenceIndex(index: SilenceIndex?) {
+		post {
+			silenceIndex = index
+			invalidate()
+		}
+	}
+
+	/**
+	 * Map time of the record into the time when the sound was captured.
+	 */
+	fun toOriginalMills(mills: Long): Long {
+		val index = silenceIndex ?: return mills
+		return index.toOriginalTimeUs(mills * 1000) / 1000
+	}
+
 	private fun updateWaveform(frameGains: IntArray, durationMills: Long, playbackMills: Long) {
 		drawLinesArray = FloatArray(viewWidthPx * 4)
 		updateValues(frameGains.size, durationMills)
@@ -354,7 +424,7 @@ class WaveformViewNew @JvmOverloads constructor(
 				if (showTimeline) {
 					//Draw timeline texts
 					if (indexMills >= 0) {
-						val text = TimeUtils.formatTimeIntervalHourMin(indexMills)
+						val text = TimeUtils.formatTimeIntervalHourMin(toOriginalMills(indexMills))
 						//Bottom timeline text
 						canvas.drawText(text, xPos, height - PADD, textPaint)
 						//Top timeline text
@@ -366,32 +436,68 @@ class WaveformViewNew @JvmOverloads constructor(
 	}
 
 	private fun drawWaveForm(canvas: Canvas) {
-		if (waveformData.isNotEmpty()) {
-			clearDrawLines()
-			val half = (height / 2).toFloat()
-			var step = 0
-			for (index in 0 until durationPx.toInt()) {
-				var sampleIndex = pxToSample(index)
-				if (sampleIndex >= waveformData.size) {
-					sampleIndex = waveformData.size - 1
-				}
-				val xPos = (waveformShiftPx + index).toFloat()
-				if (xPos >= 0 && xPos <= viewWidthPx && step + 3 < drawLinesArray.size) {  // Draw only visible part of waveform
-					drawLinesArray[step] = xPos
-					drawLinesArray[step + 1] = (half + waveformData[sampleIndex] + 1)
-					drawLinesArray[step + 2] = xPos
-					drawLinesArray[step + 3] = (half - waveformData[sampleIndex] - 1)
-					step += 4
-				}
-			}
-			canvas.drawLines(drawLinesArray, 0, drawLinesArray.size, waveformPaint)
+		val pyramid = peaks
+		if (pyramid != null && durationPx > 0) {
+			drawPeaks(canvas, pyramid)
+		} else if (waveformData.isNotEmpty() && durationPx > 0) {
+			drawGains(canvas)
+		}
+	}
+
+	/**
+	 * Draw waveform gains stored at fixed time resolution, gains are fit to pixels of the current zoom.
+	 */
+	private fun drawGains(canvas: Canvas) {
+		if (gainsMax.size != viewWidthPx) {
+			gainsMin = IntArray(viewWidthPx)
+			gainsMax = IntArray(viewWidthPx)
+		}
+		val startPx = maxOf(0, waveformShiftPx)
+		val endPx = minOf(viewWidthPx, (waveformShiftPx + durationPx).toInt())
+		if (endPx <= startPx) {
+			return
+		}
+		val gainsPerPx = samplePerPx.toDouble()
+		val count = WaveformDecimator.fill(waveformData, waveformData.size, (startPx - waveformShiftPx) * gainsPerPx,
+				gainsPerPx, gainsMin, gainsMax, endPx - startPx)
+		val half = (height / 2).toFloat()
+		var step = 0
+		for (i in 0 until count) {
+			val xPos = (startPx + i).toFloat()
+			drawLinesArray[step] = xPos
+			drawLinesArray[step + 1] = (half + gainsMax[i] + 1)
+			drawLinesArray[step + 2] = xPos
+			drawLinesArray[step + 3] = (half - gainsMax[i] - 1)
+			step += 4
 		}
+		canvas.drawLines(drawLinesArray, 0, step, waveformPaint)
 	}
 
-	private fun clearDrawLines() {
-		for (i in drawLinesArray.indices) {
-			drawLinesArray[i] = 0f
+	private fun drawPeaks(canvas: Canvas, pyramid: WaveformPyramid) {
+		if (peaksMin.size != viewWidthPx) {
+			peaksMin = ShortArray(viewWidthPx)
+			peaksMax = ShortArray(viewWidthPx)
+		}
+		val startPx = maxOf(0, waveformShiftPx)
+		val endPx = minOf(viewWidthPx, (waveformShiftPx + durationPx).toInt())
+		if (endPx <= startPx) {
+			return
+		}
+		val framesPerPx = pyramid.frameCount / durationPx.toDouble()
+		val startFrame = ((startPx - waveformShiftPx) * framesPerPx).toLong()
+		val count = pyramid.fill(startFrame, framesPerPx, peaksMin, peaksMax, endPx - startPx)
+		val half = (height / 2).toFloat()
+		val scale = (viewHeightPx / 2 - textIndent - 1) / Short.MAX_VALUE.toFloat()
+		var step = 0
+		for (i in 0 until count) {
+			val xPos = (startPx + i).toFloat()
+			drawLinesArray[step] = xPos
+			drawLinesArray[step + 1] = half - peaksMin[i] * scale + 1
+			drawLinesArray[step + 2] = xPos
+			drawLinesArray[step + 3] = half - peaksMax[i] * scale - 1
+			step += 4
 		}
+		canvas.drawLines(drawLinesArray, 0, step, waveformPaint)
 	}
 
 	/**
@@ -20,9 +20,7 @@ import android.media.MediaCodec;
 import android.media.MediaExtractor;
 import android.media.MediaFormat;
 
-import com.dimowner.audiorecorder.ARApplication;
 import com.dimowner.audiorecorder.AppConstants;
-import com.dimowner.audiorecorder.IntArrayList;
 import com.dimowner.audiorecorder.app.info.RecordInfo;
 import com.dimowner.audiorecorder.util.FileUtil;
 
@@ -31,8 +29,10 @@ import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import timber.log.Timber;
 
 import static com.dimowner.audiorecorder.AppConstants.SUPPORTED_EXT;
@@ -45,22 +45,29 @@ public class AudioDecoder {
 	private static final int QUEUE_INPUT_BUFFER_EFFECTIVE = 1; // Most effective and fastest
 	private static final int QUEUE_INPUT_BUFFER_SIMPLE = 2;	// Less effective and slower
 
-	private float dpPerSec = AppConstants.SHORT_RECORD_DP_PER_SECOND;
 
 	private int sampleRate;
 	private int channelCount;
-	private int[] oneFrameAmps;
-	private int frameIndex = 0;
+	private WaveformGainReducer reducer;
+	private WaveformPyramidBuilder pyramid;
 
 	private long duration;
 	private static final String TRASH_EXT = "del";
 
-	private IntArrayList gains;
+	private WaveformChunks gains;
 
 	private AudioDecoder() {
 	}
 
 	public static void decode(@NonNull String fileName, @NonNull AudioDecodingListener decodeListener) {
+		decode(fileName, null, decodeListener);
+	}
+
+	/**
+	 * @param pool workers to decode parts of long records concurrently, null to decode by one thread.
+	 */
+	public static void decode(@NonNull String fileName, @Nullable ForkJoinPool pool,
+			@NonNull AudioDecodingListener decodeListener) {
 		try {
 			File file = new File(fileName);
 			if (!file.exists()) {
@@ -74,6 +81,14 @@ public class AudioDecoder {
 			if (!Arrays.asList(SUPPORTED_EXT).contains(components[components.length - 1])) {
 				throw new IOException();
 			}
+			WavFileInfo wavInfo = readPcmWavInfo(file);
+			if (wavInfo != null) {
+				WavDecoder.decode(file, wavInfo, AppConstants.WAVEFORM_FRAMES_PER_SECOND, pool, decodeListener);
+				return;
+			}
+			if (pool != null && CodecChunkDecoder.decode(file, pool, decodeListener)) {
+				return;
+			}
 			AudioDecoder decoder = new AudioDecoder();
 			decoder.decodeFile(file, decodeListener, QUEUE_INPUT_BUFFER_EFFECTIVE);
 		} catch (Exception e) {
@@ -82,12 +97,12 @@ public class AudioDecoder {
 	}
 
 	private int calculateSamplesPerFrame() {
-		return (int)(sampleRate / dpPerSec);
+		return sampleRate / AppConstants.WAVEFORM_FRAMES_PER_SECOND;
 	}
 
 	private void decodeFile(@NonNull final File mInputFile, @NonNull final AudioDecodingListener decodeListener, final int queueType)
 			throws IOException, OutOfMemoryError, IllegalStateException {
-		gains = new IntArrayList();
+		gains = new WaveformChunks(decodeListener);
 		final MediaExtractor extractor = new MediaExtractor();
 		MediaFormat format = null;
 		int i;
@@ -111,9 +126,8 @@ public class AudioDecoder {
 
 		duration = format.getLong(MediaFormat.KEY_DURATION);
 
-		//TODO: Make waveform independent from dpPerSec!!!
-		dpPerSec = ARApplication.getDpPerSecond((float) duration/1000000f);
-		oneFrameAmps = new int[calculateSamplesPerFrame() * channelCount];
+		reducer = new WaveformGainReducer(calculateSamplesPerFrame(), channelCount);
+		pyramid = new WaveformPyramidBuilder(sampleRate, channelCount);
 
 		String mimeType = format.getString(MediaFormat.KEY_MIME);
 		//Start decoding
@@ -210,27 +224,10 @@ public class AudioDecoder {
 					if (outputBuffer != null) {
 						outputBuffer.rewind();
 						outputBuffer.order(ByteOrder.LITTLE_ENDIAN);
-						while (outputBuffer.remaining() > 0) {
-							oneFrameAmps[frameIndex] = outputBuffer.getShort();
-							frameIndex++;
-							if (frameIndex >= oneFrameAmps.length - 1) {
-								int j;
-								int gain, value;
-								gain = -1;
-								for (j = 0; j < oneFrameAmps.length; j += channelCount) {
-									value = 0;
-									for (int k = 0; k < channelCount; k++) {
-										value += oneFrameAmps[j + k];
-									}
-									value /= channelCount;
-									if (gain < value) {
-										gain = value;
-									}
-								}
-								gains.add((int) Math.sqrt(gain));
-								frameIndex = 0;
-							}
-						}
+						pyramid.process(outputBuffer.asShortBuffer());
+						reducer.process(outputBuffer.asShortBuffer());
+						reducer.drainTo(gains);
+						gains.publish();
 					}
 
 					mOutputEOS |= ((info.flags & MediaCodec.BUFFER_FLAG_END_OF_STREAM) != 0);
@@ -240,8 +237,10 @@ public class AudioDecoder {
 						if (decodeListener.isCanceled()) {
 							decodeListener.onProcessingCancel();
 						} else {
+							decodeListener.onPeaks(pyramid.build());
+							int[] data = gains.finish();
 							decodeListener.onProcessingProgress(100);
-							decodeListener.onFinishProcessing(gains.getData(), duration);
+							decodeListener.onFinishProcessing(data, duration);
 						}
 						codec.stop();
 						codec.release();
@@ -274,6 +273,38 @@ public class AudioDecoder {
 				throw new IOException();
 			}
 
+			WavFileInfo wavInfo = readWavInfo(inputFile);
+			if (wavInfo != null) {
+				return new RecordInfo(
+						FileUtil.removeFileExtension(inputFile.getName()),
+						AppConstants.FORMAT_WAV,
+						wavInfo.getDuration(),
+						inputFile.length(),
+						inputFile.getAbsolutePath(),
+						inputFile.lastModified(),
+						wavInfo.getSampleRate(),
+						wavInfo.getChannelCount(),
+						wavInfo.getBitrate(),
+						isInTrash
+				);
+			}
+
+			Mp4FileInfo mp4Info = readMp4Info(inputFile);
+			if (mp4Info != null) {
+				return new RecordInfo(
+						FileUtil.removeFileExtension(inputFile.getName()),
+						readFileFormat(inputFile, mp4Info.getMime()),
+						mp4Info.getDuration(),
+						inputFile.length(),
+						inputFile.getAbsolutePath(),
+						inputFile.lastModified(),
+						mp4Info.getSampleRate(),
+						mp4Info.getChannelCount(),
+						mp4Info.getBitrate(),
+						isInTrash
+				);
+			}
+
 			final MediaExtractor extractor = new MediaExtractor();
 			MediaFormat format = null;
 			int i;
@@ -355,6 +386,52 @@ public class AudioDecoder {
 		}
 	}
 
+	/**
+	 * Read WAV file chunks without MediaExtractor, it also reads RF64 records (bigger than 4 GB) it can't open.
+	 * @return header info or null for other files and malformed WAV files MediaExtractor has to read.
+	 */
+	private static WavFileInfo readWavInfo(File file) {
+		if (!file.getName().toLowerCase().contains(AppConstants.FORMAT_WAV)) {
+			return null;
+		}
+		try {
+			return WavFileInfo.read(file);
+		} catch (IOException e) {
+			Timber.e(e);
+			return null;
+		}
+	}
+
+	/**
+	 * Read boxes of MP4 file without MediaExtractor, it is the default format of records.
+	 * @return audio track info or null for other files and formats MediaExtractor has to read.
+	 */
+	private static Mp4FileInfo readMp4Info(File file) {
+		try {
+			return Mp4FileInfo.read(file);
+		} catch (IOException e) {
+			Timber.e(e);
+			return null;
+		}
+	}
+
+	/**
+	 * Read WAV file header if it is 16 bit PCM record which gains can be calculated from without decoding.
+	 * @return header info or null for other files.
+	 */
+	private static WavFileInfo readPcmWavInfo(File file) {
+		if (!file.getName().toLowerCase().endsWith(AppConstants.FORMAT_WAV)) {
+			return null;
+		}
+		try {
+			WavFileInfo info = WavFileInfo.read(file);
+			return info != null && info.isPcm() && info.getBitsPerSample() == 16 ? info : null;
+		} catch (IOException e) {
+			Timber.e(e);
+			return null;
+		}
+	}
+
 	public static String readRecordMime(@NonNull final File inputFile) {
 		try {
 			if (!inputFile.exists()) {
@@ -365,6 +442,14 @@ public class AudioDecoder {
 			if (components.length < 2) {
 				throw new IOException();
 			}
+			WavFileInfo wavInfo = readWavInfo(inputFile);
+			if (wavInfo != null) {
+				return wavInfo.getMime();
+			}
+			Mp4FileInfo mp4Info = readMp4Info(inputFile);
+			if (mp4Info != null) {
+				return mp4Info.getMime();
+			}
 
 			final MediaExtractor extractor = new MediaExtractor();
 			MediaFormat format = null;
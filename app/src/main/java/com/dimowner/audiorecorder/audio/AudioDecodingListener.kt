@@ -28,5 +28,17 @@ interface AudioDecodingListener {
 	fun onProcessingProgress(percent: Int)
 	fun onProcessingCancel()
 	fun onFinishProcessing(data: IntArray, duration: Long)
+
+	/**
+	 * Gains decoded so far: [length] gains of [data] starting at [offset] of the whole waveform.
+	 * Called at a bounded rate in the order of the record. [data] is reused for the next chunk.
+	 */
+	fun onWaveformChunk(offset: Int, data: IntArray, length: Int) {}
+
+	/**
+	 * Min/max peaks of the whole record, called once before [onFinishProcessing]
+	 * by decoders which collect them.
+	 */
+	fun onPeaks(peaks: WaveformPyramid) {}
 	fun onError(exception: Exception)
 }
@@ -0,0 +1,207 @@
+/*
+ * Copyright 2026 Dmytro Ponomarenko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dimowner.audiorecorder.audio;
+
+import android.media.MediaCodec;
+import android.media.MediaExtractor;
+import android.media.MediaFormat;
+
+import com.dimowner.audiorecorder.AppConstants;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.ShortBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Semaphore;
+
+import timber.log.Timber;
+
+/**
+ * Decodes long compressed record in time ranges concurrently. Every range has its own
+ * MediaExtractor seeking to the previous sync point and its own MediaCodec, decoded samples
+ * out of the range are dropped. Ranges start at whole gain frames and peak buckets,
+ * so joined result differs from decoding at once only as much as decoder output timestamps do.
+ */
+public class CodecChunkDecoder {
+
+	/** Shorter records are decoded by one codec, start of codecs costs more than it saves. */
+	private static final long MIN_DURATION_US = 20 * 60 * 1000000L;
+	private static final long MIN_PART_DURATION_US = 5 * 60 * 1000000L;
+	private static final int PARTS_PER_WORKER = 2;
+	/** Count of codec instances is limited on devices, no more of them are used at once. */
+	private static final int MAX_CODECS = 4;
+	private static final long TIMEOUT_US = 10000;
+	private static final int CHUNK_SAMPLES = 16 * 1024;
+
+	private static final Semaphore codecs = new Semaphore(MAX_CODECS);
+
+	private CodecChunkDecoder() {}
+
+	/**
+	 * @return false when the record is too short or can't be split, nothing is reported to the listener then.
+	 */
+	public static boolean decode(final File file, ForkJoinPool pool, AudioDecodingListener listener)
+			throws IOException {
+		int workers = Math.min(pool.getParallelism(), MAX_CODECS);
+		MediaFormat format;
+		MediaExtractor extractor = new MediaExtractor();
+		try {
+			extractor.setDataSource(file.getPath());
+			format = selectAudioTrack(extractor);
+		} finally {
+			extractor.release();
+		}
+		if (workers <= 1 || format == null || !format.containsKey(MediaFormat.KEY_DURATION)) {
+			return false;
+		}
+		long duration = format.getLong(MediaFormat.KEY_DURATION);
+		if (duration < MIN_DURATION_US) {
+			return false;
+		}
+		final int sampleRate = format.getInteger(MediaFormat.KEY_SAMPLE_RATE);
+		final int channelCount = format.getInteger(MediaFormat.KEY_CHANNEL_COUNT);
+		final int samplesPerFrame = sampleRate / AppConstants.WAVEFORM_FRAMES_PER_SECOND;
+
+		long totalFrames = duration * sampleRate / 1000000;
+		long alignment = DecodeChunks.getPartAlignment(samplesPerFrame, channelCount) / channelCount;
+		long partFrames = Math.max(MIN_PART_DURATION_US * sampleRate / 1000000,
+				totalFrames / ((long) workers * PARTS_PER_WORKER));
+		partFrames = (partFrames + alignment - 1) / alignment * alignment;
+
+		listener.onStartProcessing(duration, channelCount, sampleRate);
+		List<DecodeChunks.Chunk<DecodeChunks.Part>> chunks = new ArrayList<>();
+		for (long frame = 0; frame < totalFrames; frame += partFrames) {
+			final long fromFrame = frame;
+			//The last part is decoded till the end of stream, duration of the track may be not exact.
+			final long toFrame = frame + partFrames < totalFrames ? frame + partFrames : Long.MAX_VALUE;
+			chunks.add(progress -> {
+				codecs.acquire();
+				try {
+					return decodePart(file, fromFrame, toFrame, sampleRate, channelCount, samplesPerFrame, progress);
+				} finally {
+					codecs.release();
+				}
+			});
+		}
+		DecodeChunks.Joiner joiner = new DecodeChunks.Joiner(listener);
+		if (new DecodeChunks(file.length()).decode(pool, chunks, joiner::update, listener)) {
+			int[] gains = joiner.finish();
+			listener.onProcessingProgress(100);
+			listener.onFinishProcessing(gains, duration);
+		}
+		return true;
+	}
+
+	private static MediaFormat selectAudioTrack(MediaExtractor extractor) {
+		for (int i = 0; i < extractor.getTrackCount(); i++) {
+			MediaFormat format = extractor.getTrackFormat(i);
+			String mime = format.getString(MediaFormat.KEY_MIME);
+			if (mime != null && mime.startsWith("audio/")) {
+				extractor.selectTrack(i);
+				return format;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Decode frames from fromFrame (inclusive) till toFrame (exclusive).
+	 */
+	private static DecodeChunks.Part decodePart(File file, long fromFrame, long toFrame, int sampleRate,
+			int channelCount, int samplesPerFrame, DecodeChunks.Progress progress) throws IOException {
+		DecodeChunks.Part part = new DecodeChunks.Part(samplesPerFrame, sampleRate, channelCount);
+		MediaExtractor extractor = new MediaExtractor();
+		MediaCodec codec = null;
+		try {
+			extractor.setDataSource(file.getPath());
+			MediaFormat format = selectAudioTrack(extractor);
+			if (format == null) {
+				throw new IOException("No audio track found in " + file);
+			}
+			long toUs = toFrame == Long.MAX_VALUE ? Long.MAX_VALUE : toFrame * 1000000 / sampleRate;
+			extractor.seekTo(fromFrame * 1000000 / sampleRate, MediaExtractor.SEEK_TO_PREVIOUS_SYNC);
+			codec = MediaCodec.createDecoderByType(format.getString(MediaFormat.KEY_MIME));
+			codec.configure(format, null, null, 0);
+			codec.start();
+
+			MediaCodec.BufferInfo info = new MediaCodec.BufferInfo();
+			short[] chunk = new short[CHUNK_SAMPLES];
+			boolean isInputDone = false;
+			boolean isOutputDone = false;
+			while (!isOutputDone) {
+				if (!isInputDone) {
+					int index = codec.dequeueInputBuffer(TIMEOUT_US);
+					if (index >= 0) {
+						ByteBuffer input = codec.getInputBuffer(index);
+						int size = input != null ? extractor.readSampleData(input, 0) : -1;
+						long sampleTime = extractor.getSampleTime();
+						if (size < 0 || sampleTime >= toUs) {
+							codec.queueInputBuffer(index, 0, 0, 0, MediaCodec.BUFFER_FLAG_END_OF_STREAM);
+							isInputDone = true;
+						} else {
+							codec.queueInputBuffer(index, 0, size, sampleTime, 0);
+							extractor.advance();
+							if (!progress.onDecoded(size)) {
+								return part;
+							}
+						}
+					}
+				}
+				int index = codec.dequeueOutputBuffer(info, TIMEOUT_US);
+				if (index >= 0) {
+					ByteBuffer output = codec.getOutputBuffer(index);
+					if (output != null && info.size > 0) {
+						output.position(info.offset);
+						output.limit(info.offset + info.size);
+						ShortBuffer samples = output.order(ByteOrder.LITTLE_ENDIAN).asShortBuffer();
+						long firstFrame = info.presentationTimeUs * sampleRate / 1000000;
+						long frames = samples.remaining() / channelCount;
+						long skip = Math.min(Math.max(fromFrame - firstFrame, 0), frames);
+						long take = toFrame == Long.MAX_VALUE ? frames : Math.min(toFrame - firstFrame, frames);
+						if (take > skip) {
+							samples.position((int) (skip * channelCount));
+							samples.limit((int) (take * channelCount));
+							while (samples.hasRemaining()) {
+								int count = Math.min(samples.remaining(), chunk.length);
+								samples.get(chunk, 0, count);
+								part.process(chunk, 0, count);
+							}
+						}
+						isOutputDone = toFrame != Long.MAX_VALUE && firstFrame + frames >= toFrame;
+					}
+					isOutputDone |= (info.flags & MediaCodec.BUFFER_FLAG_END_OF_STREAM) != 0;
+					codec.releaseOutputBuffer(index, false);
+				}
+			}
+		} finally {
+			if (codec != null) {
+				try {
+					codec.stop();
+				} catch (IllegalStateException e) {
+					Timber.e(e);
+				}
+				codec.release();
+			}
+			extractor.release();
+		}
+		return part;
+	}
+}
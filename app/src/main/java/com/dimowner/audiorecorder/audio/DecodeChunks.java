@@ -0,0 +1,227 @@
+/*
+ * Copyright 2026 Dmytro Ponomarenko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dimowner.audiorecorder.audio;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Decodes parts of a record concurrently on a pool. Chunks report decoded bytes from pool threads,
+ * while progress and cancel of {@link AudioDecodingListener} are handled on the calling thread only.
+ */
+public class DecodeChunks {
+
+	/** How often the calling thread checks progress and cancel while chunks are decoded. */
+	private static final long POLL_INTERVAL_MILLS = 50;
+
+	/** Reports decoding progress of a chunk. */
+	public interface Progress {
+		/**
+		 * @param bytes count of input bytes decoded since the previous call.
+		 * @return false when decoding should be stopped.
+		 */
+		boolean onDecoded(long bytes);
+	}
+
+	/** Decodes one chunk, {@link Progress} should be called often enough to stop it quickly. */
+	public interface Chunk<T> {
+		T decode(Progress progress) throws Exception;
+	}
+
+	/** Takes result of a chunk on the calling thread, in the order of chunks. */
+	public interface Result<T> {
+		void onDecoded(T result);
+	}
+
+	/** Gains and peaks of consecutive part of a record. */
+	public static class Part {
+		final WaveformGainReducer reducer;
+		final WaveformPyramidBuilder pyramid;
+
+		public Part(int samplesPerFrame, int sampleRate, int channelCount) {
+			this.reducer = new WaveformGainReducer(samplesPerFrame, channelCount);
+			this.pyramid = new WaveformPyramidBuilder(sampleRate, channelCount);
+		}
+
+		/** Take samples copied out of decoded data. */
+		void process(short[] samples, int offset, int length) {
+			reducer.process(samples, offset, length);
+			pyramid.process(samples, offset, length);
+		}
+	}
+
+	private final long totalBytes;
+	private final AtomicLong decodedBytes = new AtomicLong();
+	private volatile boolean isCanceled = false;
+	private int percent = 0;
+
+	/**
+	 * @param totalBytes count of input bytes of all chunks, base of progress percent.
+	 */
+	public DecodeChunks(long totalBytes) {
+		this.totalBytes = Math.max(totalBytes, 1);
+	}
+
+	/**
+	 * Decode all chunks and wait for them.
+	 * @return false when decoding was canceled.
+	 */
+	public <T> boolean decode(ForkJoinPool pool, List<Chunk<T>> chunks, Result<T> result,
+			AudioDecodingListener listener) throws IOException {
+		final Progress progress = bytes -> {
+			decodedBytes.addAndGet(bytes);
+			return !isCanceled;
+		};
+		List<Future<T>> futures = new ArrayList<>(chunks.size());
+		for (final Chunk<T> chunk : chunks) {
+			futures.add(pool.submit((Callable<T>) () -> chunk.decode(progress)));
+		}
+		try {
+			for (Future<T> future : futures) {
+				while (true) {
+					if (listener.isCanceled()) {
+						cancel(futures);
+						listener.onProcessingCancel();
+						return false;
+					}
+					try {
+						result.onDecoded(future.get(POLL_INTERVAL_MILLS, TimeUnit.MILLISECONDS));
+						break;
+					} catch (TimeoutException e) {
+						reportProgress(listener);
+					}
+				}
+				reportProgress(listener);
+			}
+		} catch (InterruptedException e) {
+			cancel(futures);
+			Thread.currentThread().interrupt();
+			throw new IOException(e);
+		} catch (ExecutionException e) {
+			cancel(futures);
+			Throwable cause = e.getCause();
+			if (cause instanceof IOException) {
+				throw (IOException) cause;
+			} else if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			throw new IOException(cause);
+		}
+		return true;
+	}
+
+	/**
+	 * Count of samples of all channels parts of a record should be multiple of to be joined exactly,
+	 * it is a whole count of frames, gain frames and peak buckets.
+	 */
+	public static long getPartAlignment(int samplesPerFrame, int channelCount) {
+		long gainSamples = new WaveformGainReducer(samplesPerFrame, channelCount).getFillLength();
+		long bucketSamples = (long) WaveformPyramid.BASE_BUCKET_FRAMES * channelCount;
+		long a = gainSamples;
+		long b = bucketSamples;
+		while (b != 0) {
+			long t = a % b;
+			a = b;
+			b = t;
+		}
+		return gainSamples / a * bucketSamples;
+	}
+
+	/**
+	 * Joins parts in the order of the record, gains are delivered to the listener as soon as they are joined.
+	 */
+	public static class Joiner {
+		private final AudioDecodingListener listener;
+		private final WaveformChunks gains;
+		private WaveformPyramidBuilder pyramid;
+		private Part part;
+		private int partGains = 0;
+
+		public Joiner(AudioDecodingListener listener) {
+			this.listener = listener;
+			this.gains = new WaveformChunks(listener);
+		}
+
+		/**
+		 * Take gains of the part calculated so far. The last taken part may be updated again
+		 * while it is decoded, a new one is taken only after the previous is decoded completely.
+		 */
+		public void update(Part part) {
+			if (part != this.part) {
+				joinPyramid();
+				this.part = part;
+				partGains = 0;
+			}
+			int count = part.reducer.getGainCount();
+			for (int i = partGains; i < count; i++) {
+				gains.add(part.reducer.getGain(i));
+			}
+			partGains = count;
+			gains.publish();
+		}
+
+		/**
+		 * Deliver peaks of the whole record to the listener.
+		 * @return gains of the whole record.
+		 */
+		public int[] finish() {
+			joinPyramid();
+			if (pyramid != null) {
+				listener.onPeaks(pyramid.build());
+			}
+			return gains.finish();
+		}
+
+		private void joinPyramid() {
+			if (part != null) {
+				if (pyramid == null) {
+					pyramid = part.pyramid;
+				} else {
+					pyramid.append(part.pyramid);
+				}
+			}
+		}
+	}
+
+	private void cancel(List<? extends Future<?>> futures) {
+		isCanceled = true;
+		for (Future<?> future : futures) {
+			future.cancel(false);
+		}
+	}
+
+	private void reportProgress(AudioDecodingListener listener) {
+		//Chunks of compressed records may overlap, 100 is reported only when everything is decoded.
+		int curProgress = (int) Math.min(99, 100 * decodedBytes.get() / totalBytes);
+		if (curProgress > percent) {
+			percent = curProgress;
+			listener.onProcessingProgress(percent);
+		}
+	}
+
+	public boolean isCanceled() {
+		return isCanceled;
+	}
+}
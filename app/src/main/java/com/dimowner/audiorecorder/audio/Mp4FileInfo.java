@@ -0,0 +1,387 @@
+/*
+ * Copyright 2026 Dmytro Ponomarenko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dimowner.audiorecorder.audio;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Audio track format of ISO base media (MP4, M4A) file with AAC or MP3 audio.
+ * Only headers of boxes on the way to the sample description are read:
+ * ftyp, moov, mvhd, trak, mdia, mdhd, hdlr, minf, stbl, stsd and esds of the sample entry.
+ * Media data and tables of samples are skipped by their size, so moov stored after mdat costs one more header read.
+ */
+public class Mp4FileInfo {
+
+	public static final String MIME_AAC = "audio/mp4a-latm";
+	public static final String MIME_MPEG = "audio/mpeg";
+
+	private static final long MAX_UINT32 = 0xFFFFFFFFL;
+	/** Longest part of sample description read into memory. */
+	private static final int MAX_STSD_READ = 4096;
+
+	private static final int FTYP = type("ftyp");
+	private static final int MOOV = type("moov");
+	private static final int MVHD = type("mvhd");
+	private static final int TRAK = type("trak");
+	private static final int MDIA = type("mdia");
+	private static final int MDHD = type("mdhd");
+	private static final int HDLR = type("hdlr");
+	private static final int MINF = type("minf");
+	private static final int STBL = type("stbl");
+	private static final int STSD = type("stsd");
+	private static final int MP4A = type("mp4a");
+	private static final int WAVE = type("wave");
+	private static final int ESDS = type("esds");
+	private static final int SOUN = type("soun");
+
+	private static final int TAG_ES_DESCRIPTOR = 0x03;
+	private static final int TAG_DECODER_CONFIG = 0x04;
+
+	private final long duration;
+	private final int sampleRate;
+	private final int channelCount;
+	private final int bitrate;
+	private final String mime;
+
+	private Mp4FileInfo(long duration, int sampleRate, int channelCount, int bitrate, String mime) {
+		this.duration = duration;
+		this.sampleRate = sampleRate;
+		this.channelCount = channelCount;
+		this.bitrate = bitrate;
+		this.mime = mime;
+	}
+
+	/**
+	 * Read MP4 file boxes.
+	 * @return info or null if the file is not MP4 or its first audio track is not AAC or MP3.
+	 */
+	public static Mp4FileInfo read(File file) throws IOException {
+		try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+			return read(raf.getChannel());
+		}
+	}
+
+	public static Mp4FileInfo read(FileChannel channel) throws IOException {
+		long fileLength = channel.size();
+		ByteBuffer buffer = ByteBuffer.allocate(32);
+		Box box = readBox(channel, buffer, 0, fileLength);
+		if (box == null || box.type != FTYP) {
+			return null;
+		}
+		Box moov = findBox(channel, buffer, box.end, fileLength, MOOV);
+		return moov != null ? readMovie(channel, buffer, moov) : null;
+	}
+
+	private static Mp4FileInfo readMovie(FileChannel channel, ByteBuffer buffer, Box moov) throws IOException {
+		Box mvhd = findBox(channel, buffer, moov.body, moov.end, MVHD);
+		long movieDuration = mvhd != null ? readDuration(channel, buffer, mvhd) : -1;
+		long position = moov.body;
+		Box trak;
+		while ((trak = findBox(channel, buffer, position, moov.end, TRAK)) != null) {
+			Mp4FileInfo info = readTrack(channel, buffer, trak, movieDuration);
+			if (info != null) {
+				return info;
+			}
+			position = trak.end;
+		}
+		return null;
+	}
+
+	private static Mp4FileInfo readTrack(FileChannel channel, ByteBuffer buffer, Box trak, long movieDuration)
+			throws IOException {
+		Box mdia = findBox(channel, buffer, trak.body, trak.end, MDIA);
+		if (mdia == null) {
+			return null;
+		}
+		Box hdlr = findBox(channel, buffer, mdia.body, mdia.end, HDLR);
+		if (hdlr == null || hdlr.end - hdlr.body < 12 || !readFully(channel, buffer, hdlr.body, 12)
+				|| buffer.getInt(8) != SOUN) {
+			return null;
+		}
+		Box mdhd = findBox(channel, buffer, mdia.body, mdia.end, MDHD);
+		long duration = mdhd != null ? readDuration(channel, buffer, mdhd) : -1;
+		if (duration <= 0) {
+			duration = movieDuration;
+		}
+		if (duration <= 0) {
+			return null;
+		}
+		Box minf = findBox(channel, buffer, mdia.body, mdia.end, MINF);
+		Box stbl = minf != null ? findBox(channel, buffer, minf.body, minf.end, STBL) : null;
+		Box stsd = stbl != null ? findBox(channel, buffer, stbl.body, stbl.end, STSD) : null;
+		if (stsd == null) {
+			return null;
+		}
+		int length = (int) Math.min(stsd.end - stsd.body, MAX_STSD_READ);
+		ByteBuffer data = ByteBuffer.allocate(length);
+		if (!readFully(channel, data, stsd.body, length)) {
+			return null;
+		}
+		return readSampleEntry(data, duration);
+	}
+
+	/**
+	 * Duration in microseconds from mvhd or mdhd, both of them start with the same fields.
+	 * @return duration or -1 if it is unknown.
+	 */
+	private static long readDuration(FileChannel channel, ByteBuffer buffer, Box box) throws IOException {
+		int length = (int) Math.min(box.end - box.body, 32);
+		if (length < 20 || !readFully(channel, buffer, box.body, length)) {
+			return -1;
+		}
+		long timescale;
+		long duration;
+		if (buffer.get(0) == 1) {
+			if (length < 32) {
+				return -1;
+			}
+			timescale = buffer.getInt(20) & MAX_UINT32;
+			duration = buffer.getLong(24);
+		} else {
+			timescale = buffer.getInt(12) & MAX_UINT32;
+			duration = buffer.getInt(16) & MAX_UINT32;
+			if (duration == MAX_UINT32) {
+				return -1;
+			}
+		}
+		if (timescale == 0 || duration <= 0) {
+			return -1;
+		}
+		return duration / timescale * 1000000 + duration % timescale * 1000000 / timescale;
+	}
+
+	/**
+	 * Read the first entry of sample description, it has to be MPEG-4 audio with elementary stream descriptor.
+	 */
+	private static Mp4FileInfo readSampleEntry(ByteBuffer data, long duration) {
+		//Version and flags, count of entries, then the first entry.
+		int entry = 8;
+		if (data.limit() < entry + 36 || data.getInt(4) < 1 || data.getInt(entry + 4) != MP4A) {
+			return null;
+		}
+		int entryEnd = boxEnd(data, entry);
+		//Reserved, data reference index, then fields of audio sample entry.
+		int fields = entry + 16;
+		int version = data.getShort(fields) & 0xFFFF;
+		int channelCount = data.getShort(fields + 8) & 0xFFFF;
+		int sampleRate = data.getInt(fields + 16) >>> 16;
+		int children = fields + 20;
+		if (version == 1) {
+			children += 16;
+		} else if (version == 2) {
+			if (children + 36 > entryEnd) {
+				return null;
+			}
+			sampleRate = (int) Double.longBitsToDouble(data.getLong(children + 4));
+			channelCount = data.getInt(children + 12);
+			children += 36;
+		}
+		int esds = findBox(data, children, entryEnd, ESDS);
+		if (esds < 0) {
+			//QuickTime files keep it in wave box.
+			int wave = findBox(data, children, entryEnd, WAVE);
+			esds = wave >= 0 ? findBox(data, wave + 8, boxEnd(data, wave), ESDS) : -1;
+		}
+		if (esds < 0 || channelCount <= 0 || sampleRate <= 0) {
+			return null;
+		}
+		return readEsds(data, esds + 12, boxEnd(data, esds), duration, sampleRate, channelCount);
+	}
+
+	/**
+	 * Read decoder config of elementary stream descriptor (ISO/IEC 14496-1).
+	 * @param position the first descriptor after version and flags of esds box.
+	 */
+	private static Mp4FileInfo readEsds(ByteBuffer data, int position, int end, long duration,
+			int sampleRate, int channelCount) {
+		if (position >= end || data.get(position) != TAG_ES_DESCRIPTOR) {
+			return null;
+		}
+		position = skipDescriptorLength(data, position + 1, end);
+		if (position + 3 > end) {
+			return null;
+		}
+		//ES_ID, then flags of optional fields.
+		int flags = data.get(position + 2) & 0xFF;
+		position += 3;
+		if ((flags & 0x80) != 0) {
+			position += 2;
+		}
+		if ((flags & 0x40) != 0 && position < end) {
+			position += 1 + (data.get(position) & 0xFF);
+		}
+		if ((flags & 0x20) != 0) {
+			position += 2;
+		}
+		if (position >= end || data.get(position) != TAG_DECODER_CONFIG) {
+			return null;
+		}
+		position = skipDescriptorLength(data, position + 1, end);
+		if (position + 13 > end) {
+			return null;
+		}
+		String mime = getMime(data.get(position) & 0xFF);
+		if (mime == null) {
+			return null;
+		}
+		long maxBitrate = data.getInt(position + 5) & MAX_UINT32;
+		long avgBitrate = data.getInt(position + 9) & MAX_UINT32;
+		int bitrate = (int) Math.min(avgBitrate > 0 ? avgBitrate : maxBitrate, Integer.MAX_VALUE);
+		return new Mp4FileInfo(duration, sampleRate, channelCount, bitrate, mime);
+	}
+
+	private static String getMime(int objectType) {
+		switch (objectType) {
+			case 0x40: //MPEG-4 audio
+			case 0x66: //MPEG-2 AAC profiles
+			case 0x67:
+			case 0x68:
+				return MIME_AAC;
+			case 0x69: //MPEG-2 and MPEG-1 audio
+			case 0x6B:
+				return MIME_MPEG;
+			default:
+				return null;
+		}
+	}
+
+	/** Length of descriptor takes 1 to 4 bytes, 7 bits each. */
+	private static int skipDescriptorLength(ByteBuffer data, int position, int end) {
+		for (int i = 0; i < 4 && position < end; i++) {
+			if ((data.get(position++) & 0x80) == 0) {
+				break;
+			}
+		}
+		return position;
+	}
+
+	private static Box readBox(FileChannel channel, ByteBuffer buffer, long position, long parentEnd)
+			throws IOException {
+		if (position + 8 > parentEnd || !readFully(channel, buffer, position, 8)) {
+			return null;
+		}
+		long size = buffer.getInt(0) & MAX_UINT32;
+		int type = buffer.getInt(4);
+		long body = position + 8;
+		if (size == 1) {
+			if (!readFully(channel, buffer, body, 8)) {
+				return null;
+			}
+			size = buffer.getLong(0);
+			body += 8;
+		} else if (size == 0) {
+			//The last box takes the rest of the file.
+			size = parentEnd - position;
+		}
+		if (size < body - position || size > parentEnd - position) {
+			return null;
+		}
+		return new Box(type, body, position + size);
+	}
+
+	/**
+	 * Find child box by reading headers of its preceding siblings only.
+	 */
+	private static Box findBox(FileChannel channel, ByteBuffer buffer, long position, long end, int type)
+			throws IOException {
+		Box box;
+		while ((box = readBox(channel, buffer, position, end)) != null) {
+			if (box.type == type) {
+				return box;
+			}
+			position = box.end;
+		}
+		return null;
+	}
+
+	/**
+	 * Find box in data read into memory.
+	 * @return position of the box header or -1.
+	 */
+	private static int findBox(ByteBuffer data, int position, int end, int type) {
+		while (position + 8 <= end) {
+			long size = data.getInt(position) & MAX_UINT32;
+			if (size < 8) {
+				return -1;
+			}
+			if (data.getInt(position + 4) == type) {
+				return position;
+			}
+			position += (int) Math.min(size, end - position);
+		}
+		return -1;
+	}
+
+	private static int boxEnd(ByteBuffer data, int position) {
+		long size = data.getInt(position) & MAX_UINT32;
+		return (int) Math.min(position + size, data.limit());
+	}
+
+	private static boolean readFully(FileChannel channel, ByteBuffer buffer, long position, int length)
+			throws IOException {
+		buffer.clear();
+		buffer.limit(length);
+		while (buffer.hasRemaining()) {
+			if (channel.read(buffer, position + buffer.position()) < 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static int type(String tag) {
+		return tag.charAt(0) << 24 | tag.charAt(1) << 16 | tag.charAt(2) << 8 | tag.charAt(3);
+	}
+
+	/** Duration in microseconds. */
+	public long getDuration() {
+		return duration;
+	}
+
+	public int getSampleRate() {
+		return sampleRate;
+	}
+
+	public int getChannelCount() {
+		return channelCount;
+	}
+
+	public int getBitrate() {
+		return bitrate;
+	}
+
+	public String getMime() {
+		return mime;
+	}
+
+	private static class Box {
+		final int type;
+		/** Position of box content after the header. */
+		final long body;
+		final long end;
+
+		Box(int type, long body, long end) {
+			this.type = type;
+			this.body = body;
+			this.end = end;
+		}
+	}
+}
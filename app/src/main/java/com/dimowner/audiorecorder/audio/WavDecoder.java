@@ -0,0 +1,158 @@
+/*
+ * Copyright 2026 Dmytro Ponomarenko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dimowner.audiorecorder.audio;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.ShortBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Calculates waveform gains of 16 bit PCM WAV file by reading its data chunk directly,
+ * without MediaExtractor and MediaCodec. Data chunk is memory mapped window by window
+ * and copied out in bulk for {@link WaveformGainReducer}, so gains are the same as
+ * calculated from decoder output. {@link WaveformPyramid} of the record is collected on the way.
+ * Long records are split into parts decoded concurrently, parts start at boundaries of both gain frames
+ * and peak buckets, so joined result is exactly the same as decoded at once.
+ */
+public class WavDecoder {
+
+	/** Size of data mapped at once, whole multi-gigabyte record may not fit into address space. */
+	private static final int MAP_WINDOW_SIZE = 8 * 1024 * 1024;
+	/** Count of samples copied out of the mapped window at once, shared by gains and peaks. */
+	private static final int CHUNK_SAMPLES = 16 * 1024;
+	/** Records shorter than two parts are decoded on the calling thread. */
+	private static final long MIN_PART_SIZE = 16 * 1024 * 1024;
+	/** Parts per worker of the pool, so a slower worker doesn't keep others waiting at the end. */
+	private static final int PARTS_PER_WORKER = 4;
+
+	private WavDecoder() {}
+
+	public static void decode(File file, WavFileInfo info, float dpPerSec, AudioDecodingListener listener)
+			throws IOException {
+		decode(file, info, dpPerSec, null, listener);
+	}
+
+	/**
+	 * @param pool workers to decode parts of long record concurrently, null to decode on the calling thread.
+	 */
+	public static void decode(File file, WavFileInfo info, float dpPerSec, ForkJoinPool pool,
+			final AudioDecodingListener listener) throws IOException {
+		if (info.getBitsPerSample() != 16) {
+			throw new IOException("Unsupported bits per sample: " + info.getBitsPerSample());
+		}
+		final int samplesPerFrame = (int) (info.getSampleRate() / dpPerSec);
+		final int sampleRate = info.getSampleRate();
+		final int channelCount = info.getChannelCount();
+		long duration = info.getDuration();
+		long start = info.getDataOffset();
+		//Trailing odd byte is not a sample.
+		long end = start + (info.getDataLength() & ~1L);
+		long partSize = pool != null ? calculatePartSize(info, samplesPerFrame, pool.getParallelism()) : 0;
+
+		listener.onStartProcessing(duration, channelCount, sampleRate);
+		final DecodeChunks.Joiner joiner = new DecodeChunks.Joiner(listener);
+		try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+			final FileChannel channel = raf.getChannel();
+			if (partSize <= 0 || end - start < partSize * 2) {
+				final DecodeChunks.Part part = new DecodeChunks.Part(samplesPerFrame, sampleRate, channelCount);
+				final long dataLength = Math.max(end - start, 1);
+				final long[] decoded = new long[1];
+				final int[] percent = new int[1];
+				boolean finished = decodeRange(channel, start, end, part, bytes -> {
+					if (listener.isCanceled()) {
+						return false;
+					}
+					decoded[0] += bytes;
+					int curProgress = (int) (100 * decoded[0] / dataLength);
+					if (curProgress != percent[0]) {
+						percent[0] = curProgress;
+						listener.onProcessingProgress(percent[0]);
+					}
+					joiner.update(part);
+					return true;
+				});
+				if (!finished) {
+					listener.onProcessingCancel();
+					return;
+				}
+				joiner.update(part);
+			} else {
+				List<DecodeChunks.Chunk<DecodeChunks.Part>> chunks = new ArrayList<>();
+				for (long position = start; position < end; position += partSize) {
+					final long from = position;
+					final long to = Math.min(position + partSize, end);
+					chunks.add(progress -> {
+						DecodeChunks.Part part = new DecodeChunks.Part(samplesPerFrame, sampleRate, channelCount);
+						decodeRange(channel, from, to, part, progress);
+						return part;
+					});
+				}
+				if (!new DecodeChunks(end - start).decode(pool, chunks, joiner::update, listener)) {
+					return;
+				}
+			}
+		}
+		int[] gains = joiner.finish();
+		listener.onProcessingProgress(100);
+		listener.onFinishProcessing(gains, duration);
+	}
+
+	/**
+	 * Size of a part of data in bytes. Parts end at boundaries of both gain frames and peak buckets.
+	 * @return size or 0 when the record can't be split.
+	 */
+	static long calculatePartSize(WavFileInfo info, int samplesPerFrame, int workers) {
+		if (workers <= 1) {
+			return 0;
+		}
+		long alignment = DecodeChunks.getPartAlignment(samplesPerFrame, info.getChannelCount()) * 2;
+		long size = Math.max(MIN_PART_SIZE, info.getDataLength() / ((long) workers * PARTS_PER_WORKER));
+		return (size + alignment - 1) / alignment * alignment;
+	}
+
+	/**
+	 * Reduce samples of the data range.
+	 * @return false if decoding was stopped.
+	 */
+	private static boolean decodeRange(FileChannel channel, long start, long end, DecodeChunks.Part part,
+			DecodeChunks.Progress progress) throws IOException {
+		short[] chunk = new short[CHUNK_SAMPLES];
+		long position = start;
+		while (position < end) {
+			long size = Math.min(MAP_WINDOW_SIZE, end - position);
+			MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position, size);
+			ShortBuffer samples = window.order(ByteOrder.LITTLE_ENDIAN).asShortBuffer();
+			while (samples.hasRemaining()) {
+				int count = Math.min(samples.remaining(), chunk.length);
+				samples.get(chunk, 0, count);
+				part.process(chunk, 0, count);
+			}
+			position += size;
+			if (!progress.onDecoded(size)) {
+				return false;
+			}
+		}
+		return true;
+	}
+}
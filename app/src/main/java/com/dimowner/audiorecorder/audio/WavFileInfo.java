@@ -0,0 +1,237 @@
+/*
+ * Copyright 2026 Dmytro Ponomarenko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dimowner.audiorecorder.audio;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+
+/**
+ * Format and data chunk location of RIFF WAV or RF64 (EBU Tech 3306) file.
+ * Only chunk headers are read, so it is cheap for files of any size.
+ * Headers of usual records fit into the first {@link #HEAD_SIZE} bytes read at once,
+ * only chunks after big LIST or JUNK chunks need more reads.
+ */
+public class WavFileInfo {
+
+	public static final String MIME_RAW = "audio/raw";
+	public static final String MIME_ALAW = "audio/g711-alaw";
+	public static final String MIME_MLAW = "audio/g711-mlaw";
+
+	static final int HEAD_SIZE = 512;
+	private static final int FORMAT_PCM = 1;
+	private static final int FORMAT_IEEE_FLOAT = 3;
+	private static final int FORMAT_ALAW = 6;
+	private static final int FORMAT_MULAW = 7;
+	private static final int FORMAT_EXTENSIBLE = 0xFFFE;
+	private static final long MAX_UINT32 = 0xFFFFFFFFL;
+
+	private final boolean isRf64;
+	private final int format;
+	private final int channelCount;
+	private final int sampleRate;
+	private final int bitsPerSample;
+	private final int blockAlign;
+	private final long dataOffset;
+	private final long dataLength;
+
+	private WavFileInfo(boolean isRf64, int format, int channelCount, int sampleRate, int bitsPerSample,
+			int blockAlign, long dataOffset, long dataLength) {
+		this.isRf64 = isRf64;
+		this.format = format;
+		this.channelCount = channelCount;
+		this.sampleRate = sampleRate;
+		this.bitsPerSample = bitsPerSample;
+		this.blockAlign = blockAlign;
+		this.dataOffset = dataOffset;
+		this.dataLength = dataLength;
+	}
+
+	/**
+	 * Read WAV file chunks.
+	 * @return info or null if the file is not RIFF WAV or RF64 with PCM, float or G.711 data.
+	 */
+	public static WavFileInfo read(File file) throws IOException {
+		try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+			return read(raf.getChannel());
+		}
+	}
+
+	public static WavFileInfo read(FileChannel channel) throws IOException {
+		long fileLength = channel.size();
+		ByteBuffer head = ByteBuffer.allocate((int) Math.min(HEAD_SIZE, fileLength)).order(ByteOrder.LITTLE_ENDIAN);
+		if (head.capacity() < 12 || !readFully(channel, head, 0, head.capacity())) {
+			return null;
+		}
+		boolean isRf64 = hasTag(head, 0, "RF64");
+		if ((!isRf64 && !hasTag(head, 0, "RIFF")) || !hasTag(head, 8, "WAVE")) {
+			return null;
+		}
+		ByteBuffer buffer = ByteBuffer.allocate(40).order(ByteOrder.LITTLE_ENDIAN);
+		long ds64DataLength = -1;
+		int format = 0;
+		int channelCount = 0;
+		int sampleRate = 0;
+		int blockAlign = 0;
+		int bitsPerSample = 0;
+		long position = 12;
+		while (position + 8 <= fileLength) {
+			ByteBuffer chunk = read(channel, head, buffer, position, 8);
+			if (chunk == null) {
+				return null;
+			}
+			long chunkSize = chunk.getInt(4) & MAX_UINT32;
+			long body = position + 8;
+			if (hasTag(chunk, 0, "ds64")) {
+				chunk = read(channel, head, buffer, body, 24);
+				if (chunk == null) {
+					return null;
+				}
+				ds64DataLength = chunk.getLong(8);
+			} else if (hasTag(chunk, 0, "fmt ")) {
+				chunk = chunkSize < 16 ? null : read(channel, head, buffer, body, (int) Math.min(chunkSize, 40));
+				if (chunk == null) {
+					return null;
+				}
+				format = chunk.getShort(0) & 0xFFFF;
+				channelCount = chunk.getShort(2) & 0xFFFF;
+				sampleRate = chunk.getInt(4);
+				blockAlign = chunk.getShort(12) & 0xFFFF;
+				bitsPerSample = chunk.getShort(14) & 0xFFFF;
+				if (format == FORMAT_EXTENSIBLE && chunkSize >= 40) {
+					//First 2 bytes of sub format GUID hold format code.
+					format = chunk.getShort(24) & 0xFFFF;
+				}
+			} else if (hasTag(chunk, 0, "data")) {
+				if (getMime(format) == null || channelCount <= 0 || sampleRate <= 0 || blockAlign <= 0) {
+					return null;
+				}
+				long dataLength = isRf64 && chunkSize == MAX_UINT32 && ds64DataLength >= 0
+						? ds64DataLength : chunkSize;
+				//Size of interrupted record may be bigger than written data.
+				dataLength = Math.min(dataLength, fileLength - body);
+				dataLength -= dataLength % blockAlign;
+				return new WavFileInfo(isRf64, format, channelCount, sampleRate, bitsPerSample,
+						blockAlign, body, dataLength);
+			}
+			//Chunks are word aligned.
+			position = body + chunkSize + (chunkSize & 1);
+		}
+		return null;
+	}
+
+	/**
+	 * @return bytes at the position taken from the head of the file when they are there or read into the buffer.
+	 */
+	private static ByteBuffer read(FileChannel channel, ByteBuffer head, ByteBuffer buffer, long position, int length)
+			throws IOException {
+		if (position + length <= head.capacity()) {
+			head.clear();
+			head.position((int) position);
+			return head.slice().order(ByteOrder.LITTLE_ENDIAN);
+		}
+		return readFully(channel, buffer, position, length) ? buffer : null;
+	}
+
+	private static boolean readFully(FileChannel channel, ByteBuffer buffer, long position, int length)
+			throws IOException {
+		buffer.clear();
+		buffer.limit(length);
+		while (buffer.hasRemaining()) {
+			if (channel.read(buffer, position + buffer.position()) < 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static String getMime(int format) {
+		switch (format) {
+			case FORMAT_PCM:
+			case FORMAT_IEEE_FLOAT:
+				return MIME_RAW;
+			case FORMAT_ALAW:
+				return MIME_ALAW;
+			case FORMAT_MULAW:
+				return MIME_MLAW;
+			default:
+				return null;
+		}
+	}
+
+	private static boolean hasTag(ByteBuffer buffer, int offset, String tag) {
+		for (int i = 0; i < 4; i++) {
+			if (buffer.get(offset + i) != tag.charAt(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	public boolean isRf64() {
+		return isRf64;
+	}
+
+	/** True for integer PCM samples, gains can be calculated from them without decoding. */
+	public boolean isPcm() {
+		return format == FORMAT_PCM;
+	}
+
+	/** Mime type MediaExtractor reports for the data format. */
+	public String getMime() {
+		return getMime(format);
+	}
+
+	public int getChannelCount() {
+		return channelCount;
+	}
+
+	public int getSampleRate() {
+		return sampleRate;
+	}
+
+	public int getBitsPerSample() {
+		return bitsPerSample;
+	}
+
+	public int getBlockAlign() {
+		return blockAlign;
+	}
+
+	/** Position of the first audio byte in the file. */
+	public long getDataOffset() {
+		return dataOffset;
+	}
+
+	/** Length of audio data in bytes without incomplete last frame. */
+	public long getDataLength() {
+		return dataLength;
+	}
+
+	public int getBitrate() {
+		return sampleRate * blockAlign * 8;
+	}
+
+	/** Duration in microseconds. */
+	public long getDuration() {
+		long byteRate = (long) sampleRate * blockAlign;
+		return byteRate > 0 ? dataLength / byteRate * 1000000 + dataLength % byteRate * 1000000 / byteRate : 0;
+	}
+}
@@ -0,0 +1,542 @@
+/*
+ * Copyright 2026 Dmytro Ponomarenko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dimowner.audiorecorder.audio;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+import timber.log.Timber;
+
+/**
+ * Decoded waveforms of records found by content of record files, so a file imported again, restored from trash,
+ * moved or added again after the database was cleared is not decoded again.
+ * Recently used waveforms are kept in memory, all of them are stored in a directory.
+ * Both are limited by size, least recently used waveforms are evicted first.
+ * Waveforms are not removed with records, a renamed record keeps its key and a deleted one may come back.
+ * The app invalidates them before it rewrites a record file in place, because the key doesn't see every change.
+ * {@link WaveformPyramid} peaks of records are much larger than gains, they are stored in a subdirectory
+ * with a limit of its own, so peaks of a few long records don't evict gains of all the others.
+ */
+public class WaveformCache {
+
+	private static final int MAGIC = 0x57464331; //"WFC1"
+	private static final String EXTENSION = "wfc";
+	private static final String PEAKS_EXTENSION = "peaks";
+	private static final String PEAKS_DIR = "peaks";
+	/** Count of bytes hashed at the start and at the end of a file. */
+	static final int HASH_BYTES = 64 * 1024;
+	/** Bytes taken by an entry besides its gains. */
+	private static final int ENTRY_OVERHEAD = 64;
+
+	/**
+	 * Identity of record content: size of the file and hash of its first and last bytes.
+	 * Modification time is not a part of it, copies of a file get a new one.
+	 * Resolution is count of gains per second the waveform is decoded at.
+	 */
+	public static class Key {
+		private final long size;
+		private final String hash;
+		private final int resolution;
+
+		Key(long size, String hash, int resolution) {
+			this.size = size;
+			this.hash = hash;
+			this.resolution = resolution;
+		}
+
+		public static Key read(File file, int resolution) throws IOException {
+			MessageDigest digest;
+			try {
+				digest = MessageDigest.getInstance("SHA-1");
+			} catch (NoSuchAlgorithmException e) {
+				throw new IOException(e);
+			}
+			try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+				long size = raf.length();
+				byte[] buffer = new byte[(int) Math.min(HASH_BYTES, size)];
+				raf.readFully(buffer);
+				digest.update(buffer);
+				if (size > HASH_BYTES) {
+					long tail = Math.max(HASH_BYTES, size - HASH_BYTES);
+					buffer = new byte[(int) (size - tail)];
+					raf.seek(tail);
+					raf.readFully(buffer);
+					digest.update(buffer);
+				}
+				StringBuilder hash = new StringBuilder();
+				byte[] bytes = digest.digest();
+				for (int i = 0; i < 8; i++) {
+					hash.append(String.format(Locale.US, "%02x", bytes[i]));
+				}
+				return new Key(size, hash.toString(), resolution);
+			}
+		}
+
+		public long getSize() {
+			return size;
+		}
+
+		String getFileName() {
+			return getContentPrefix() + resolution + "." + EXTENSION;
+		}
+
+		/** Start of names of gains files of the same content at any resolution. */
+		String getContentPrefix() {
+			return size + "-" + hash + "-";
+		}
+
+		boolean isSameContent(Key key) {
+			return size == key.size && hash.equals(key.hash);
+		}
+
+		/** Peaks don't depend on resolution. */
+		String getPeaksFileName() {
+			return size + "-" + hash + "." + PEAKS_EXTENSION;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (this == o) return true;
+			if (o == null || getClass() != o.getClass()) return false;
+			Key key = (Key) o;
+			return size == key.size && resolution == key.resolution && hash.equals(key.hash);
+		}
+
+		@Override
+		public int hashCode() {
+			return Arrays.hashCode(new Object[]{size, hash, resolution});
+		}
+
+		@Override
+		public String toString() {
+			return getFileName();
+		}
+	}
+
+	public static class Entry {
+		private final int[] gains;
+		private final long duration;
+
+		public Entry(int[] gains, long duration) {
+			this.gains = gains;
+			this.duration = duration;
+		}
+
+		public int[] getGains() {
+			return gains;
+		}
+
+		/** Duration of the record in microseconds. */
+		public long getDuration() {
+			return duration;
+		}
+
+		long getBytes() {
+			return (long) gains.length * 4 + ENTRY_OVERHEAD;
+		}
+	}
+
+	private final long maxMemoryBytes;
+	private final LinkedHashMap<Key, Entry> memory = new LinkedHashMap<>(16, 0.75f, true);
+	private long memoryBytes = 0;
+	private final DiskStore gainsStore;
+	private final DiskStore peaksStore;
+
+	private int memoryHits = 0;
+	private int diskHits = 0;
+	private int misses = 0;
+	private long bytesSaved = 0;
+
+	/**
+	 * @param maxDiskBytes limit of stored gains.
+	 * @param maxPeaksDiskBytes limit of stored peaks.
+	 */
+	public WaveformCache(File dir, long maxMemoryBytes, long maxDiskBytes, long maxPeaksDiskBytes) {
+		this.maxMemoryBytes = maxMemoryBytes;
+		this.gainsStore = new DiskStore(dir, maxDiskBytes);
+		this.peaksStore = new DiskStore(new File(dir, PEAKS_DIR), maxPeaksDiskBytes);
+	}
+
+	/**
+	 * @return waveform decoded before or null.
+	 */
+	public synchronized Entry get(Key key) {
+		Entry entry = memory.get(key);
+		if (entry != null) {
+			memoryHits++;
+			bytesSaved += key.size;
+			return entry;
+		}
+		File file = gainsStore.getFile(key.getFileName());
+		if (file.exists()) {
+			entry = readEntry(file);
+			if (entry != null) {
+				diskHits++;
+				bytesSaved += key.size;
+				gainsStore.touch(file);
+				putMemory(key, entry);
+				return entry;
+			}
+			gainsStore.delete(file);
+		}
+		misses++;
+		return null;
+	}
+
+	public synchronized void put(Key key, int[] gains, long duration) {
+		Entry entry = new Entry(gains, duration);
+		putMemory(key, entry);
+		File file = gainsStore.getFile(key.getFileName());
+		if (file.exists() || entry.getBytes() > gainsStore.maxBytes || !gainsStore.prepare()) {
+			return;
+		}
+		File tmp = gainsStore.getFile(key.getFileName() + ".tmp");
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)))) {
+			out.writeInt(MAGIC);
+			out.writeLong(duration);
+			out.writeInt(gains.length);
+			for (int gain : gains) {
+				out.writeInt(gain);
+			}
+		} catch (IOException e) {
+			Timber.e(e);
+			tmp.delete();
+			return;
+		}
+		gainsStore.add(tmp, file);
+	}
+
+	/**
+	 * @return peaks stored before or null. Peaks are memory mapped, they don't take memory of the cache.
+	 */
+	public synchronized WaveformPyramid getPeaks(Key key) {
+		File file = peaksStore.getFile(key.getPeaksFileName());
+		if (!file.exists()) {
+			return null;
+		}
+		WaveformPyramid peaks = null;
+		try {
+			peaks = WaveformPyramid.read(file);
+		} catch (IOException e) {
+			Timber.e(e);
+		}
+		if (peaks == null) {
+			peaksStore.delete(file);
+			return null;
+		}
+		peaksStore.touch(file);
+		return peaks;
+	}
+
+	/**
+	 * Peaks of the record file found by its content.
+	 * @return peaks or null when they are not stored or the file can't be read.
+	 */
+	public WaveformPyramid findPeaks(File record) {
+		try {
+			//Resolution is not a part of peaks file name.
+			return getPeaks(Key.read(record, 0));
+		} catch (IOException e) {
+			Timber.e(e);
+			return null;
+		}
+	}
+
+	public synchronized void putPeaks(Key key, WaveformPyramid peaks) {
+		File file = peaksStore.getFile(key.getPeaksFileName());
+		if (file.exists() || !peaksStore.prepare()) {
+			return;
+		}
+		File tmp = peaksStore.getFile(key.getPeaksFileName() + ".tmp");
+		try {
+			peaks.write(tmp);
+		} catch (IOException e) {
+			Timber.e(e);
+			tmp.delete();
+			return;
+		}
+		peaksStore.add(tmp, file);
+	}
+
+	/**
+	 * Remove waveforms of every resolution and peaks of the current content of the record file.
+	 * Called before the file is rewritten in place.
+	 */
+	public void invalidate(File record) {
+		try {
+			invalidate(Key.read(record, 0));
+		} catch (IOException e) {
+			Timber.e(e);
+		}
+	}
+
+	/**
+	 * Remove waveforms of every resolution and peaks of the content from both memory and disk.
+	 */
+	public synchronized void invalidate(Key key) {
+		Iterator<Map.Entry<Key, Entry>> iterator = memory.entrySet().iterator();
+		while (iterator.hasNext()) {
+			Map.Entry<Key, Entry> item = iterator.next();
+			if (item.getKey().isSameContent(key)) {
+				memoryBytes -= item.getValue().getBytes();
+				iterator.remove();
+			}
+		}
+		gainsStore.deleteStartingWith(key.getContentPrefix());
+		File peaks = peaksStore.getFile(key.getPeaksFileName());
+		if (peaks.exists()) {
+			peaksStore.delete(peaks);
+		}
+	}
+
+	public synchronized void clear() {
+		memory.clear();
+		memoryBytes = 0;
+		gainsStore.clear();
+		peaksStore.clear();
+	}
+
+	public synchronized long getMemoryBytes() {
+		return memoryBytes;
+	}
+
+	/** Size of stored gains. */
+	public synchronized long getDiskBytes() {
+		return gainsStore.getBytes();
+	}
+
+	/** Size of stored peaks. */
+	public synchronized long getPeaksDiskBytes() {
+		return peaksStore.getBytes();
+	}
+
+	public synchronized Stats getStats() {
+		return new Stats(memoryHits, diskHits, misses, bytesSaved);
+	}
+
+	private void putMemory(Key key, Entry entry) {
+		if (entry.getBytes() > maxMemoryBytes) {
+			return;
+		}
+		Entry prev = memory.put(key, entry);
+		if (prev != null) {
+			memoryBytes -= prev.getBytes();
+		}
+		memoryBytes += entry.getBytes();
+		Iterator<Map.Entry<Key, Entry>> iterator = memory.entrySet().iterator();
+		while (memoryBytes > maxMemoryBytes && iterator.hasNext()) {
+			memoryBytes -= iterator.next().getValue().getBytes();
+			iterator.remove();
+		}
+	}
+
+	private static Entry readEntry(File file) {
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+			if (in.readInt() != MAGIC) {
+				return null;
+			}
+			long duration = in.readLong();
+			int count = in.readInt();
+			if (count < 0 || count > (file.length() - 16) / 4) {
+				return null;
+			}
+			int[] gains = new int[count];
+			for (int i = 0; i < count; i++) {
+				gains[i] = in.readInt();
+			}
+			return new Entry(gains, duration);
+		} catch (IOException e) {
+			Timber.e(e);
+			return null;
+		}
+	}
+
+	/**
+	 * Files of a directory limited by their size, least recently used files are deleted first.
+	 * Only files are counted, subdirectories are left to their own stores.
+	 */
+	private static class DiskStore {
+		private final File dir;
+		private final long maxBytes;
+		/** Size of stored files, counted on the first use of the directory. */
+		private long bytes = -1;
+
+		DiskStore(File dir, long maxBytes) {
+			this.dir = dir;
+			this.maxBytes = maxBytes;
+		}
+
+		File getFile(String name) {
+			return new File(dir, name);
+		}
+
+		/**
+		 * Create the directory and count stored files before one is added.
+		 */
+		boolean prepare() {
+			if (!dir.exists() && !dir.mkdirs()) {
+				return false;
+			}
+			countBytes();
+			return true;
+		}
+
+		/**
+		 * Rename the written temporary file into the stored one and evict files over the limit.
+		 */
+		void add(File tmp, File file) {
+			if (tmp.length() <= maxBytes && tmp.renameTo(file)) {
+				bytes += file.length();
+				evict();
+			} else {
+				tmp.delete();
+			}
+		}
+
+		/** Modification time orders stored files for eviction. */
+		void touch(File file) {
+			file.setLastModified(System.currentTimeMillis());
+		}
+
+		long getBytes() {
+			countBytes();
+			return bytes;
+		}
+
+		void clear() {
+			File[] files = dir.listFiles(File::isFile);
+			if (files != null) {
+				for (File f : files) {
+					f.delete();
+				}
+			}
+			bytes = 0;
+		}
+
+		void deleteStartingWith(String prefix) {
+			File[] files = dir.listFiles((d, name) -> name.startsWith(prefix));
+			if (files != null) {
+				for (File f : files) {
+					delete(f);
+				}
+			}
+		}
+
+		void delete(File file) {
+			countBytes();
+			long length = file.length();
+			if (file.delete()) {
+				bytes -= length;
+			}
+		}
+
+		private void countBytes() {
+			if (bytes < 0) {
+				bytes = 0;
+				File[] files = dir.listFiles(File::isFile);
+				if (files != null) {
+					for (File f : files) {
+						bytes += f.length();
+					}
+				}
+			}
+		}
+
+		/** Delete least recently used files till stored ones fit the limit. */
+		private void evict() {
+			if (bytes <= maxBytes) {
+				return;
+			}
+			File[] files = dir.listFiles(File::isFile);
+			if (files == null) {
+				return;
+			}
+			long[] modified = new long[files.length];
+			Integer[] order = new Integer[files.length];
+			for (int i = 0; i < files.length; i++) {
+				modified[i] = files[i].lastModified();
+				order[i] = i;
+			}
+			Arrays.sort(order, (a, b) -> Long.compare(modified[a], modified[b]));
+			for (int i = 0; i < order.length && bytes > maxBytes; i++) {
+				delete(files[order[i]]);
+			}
+		}
+	}
+
+	/** Lookups since the cache was created. */
+	public static class Stats {
+		private final int memoryHits;
+		private final int diskHits;
+		private final int misses;
+		private final long bytesSaved;
+
+		Stats(int memoryHits, int diskHits, int misses, long bytesSaved) {
+			this.memoryHits = memoryHits;
+			this.diskHits = diskHits;
+			this.misses = misses;
+			this.bytesSaved = bytesSaved;
+		}
+
+		public int getMemoryHits() {
+			return memoryHits;
+		}
+
+		public int getDiskHits() {
+			return diskHits;
+		}
+
+		public int getMisses() {
+			return misses;
+		}
+
+		/** Size of record files which were not decoded thanks to the cache. */
+		public long getBytesSaved() {
+			return bytesSaved;
+		}
+
+		public float getHitRate() {
+			int total = memoryHits + diskHits + misses;
+			return total > 0 ? (memoryHits + diskHits) / (float) total : 0;
+		}
+
+		@Override
+		public String toString() {
+			return "Stats{" +
+					"memoryHits=" + memoryHits +
+					", diskHits=" + diskHits +
+					", misses=" + misses +
+					", hitRate=" + getHitRate() +
+					", bytesSaved=" + bytesSaved +
+					'}';
+		}
+	}
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2026 Dmytro Ponomarenko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dimowner.audiorecorder.audio;
+
+import com.dimowner.audiorecorder.IntArrayList;
+
+/**
+ * Collects gains of a record being decoded and delivers them to
+ * {@link AudioDecodingListener#onWaveformChunk(int, int[], int)} not more often than once per interval.
+ * Gains are kept in {@link IntArrayList} like before, so chunks joined together are exactly
+ * the gains passed to {@link AudioDecodingListener#onFinishProcessing(int[], long)}.
+ * Chunks are copied into one reused buffer.
+ */
+public class WaveformChunks {
+
+	public static final long DEFAULT_INTERVAL_MILLS = 200;
+	private static final int INITIAL_CAPACITY = 1024;
+
+	private final AudioDecodingListener listener;
+	private final long intervalMills;
+	private final IntArrayList gains = new IntArrayList();
+	private int[] buffer = new int[INITIAL_CAPACITY];
+	private int delivered = 0;
+	private long deliveredMills;
+
+	public WaveformChunks(AudioDecodingListener listener) {
+		this(listener, DEFAULT_INTERVAL_MILLS);
+	}
+
+	public WaveformChunks(AudioDecodingListener listener, long intervalMills) {
+		this.listener = listener;
+		this.intervalMills = intervalMills;
+		this.deliveredMills = System.currentTimeMillis();
+	}
+
+	public void add(int gain) {
+		gains.add(gain);
+	}
+
+	/**
+	 * Deliver gains added since the previous chunk if the interval has passed.
+	 */
+	public void publish() {
+		if (gains.size() > delivered && System.currentTimeMillis() - deliveredMills >= intervalMills) {
+			deliver();
+		}
+	}
+
+	/**
+	 * Deliver the rest of gains.
+	 * @return all gains of the record.
+	 */
+	public int[] finish() {
+		if (gains.size() > delivered) {
+			deliver();
+		}
+		return gains.getData();
+	}
+
+	public int size() {
+		return gains.size();
+	}
+
+	private void deliver() {
+		int length = gains.size() - delivered;
+		if (buffer.length < length) {
+			buffer = new int[Math.max(length, buffer.length * 2)];
+		}
+		for (int i = 0; i < length; i++) {
+			buffer[i] = gains.get(delivered + i);
+		}
+		listener.onWaveformChunk(delivered, buffer, length);
+		delivered += length;
+		deliveredMills = System.currentTimeMillis();
+	}
+}
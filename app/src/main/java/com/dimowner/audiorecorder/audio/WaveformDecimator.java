@@ -0,0 +1,80 @@
+/*
+ * Copyright 2026 Dmytro Ponomarenko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dimowner.audiorecorder.audio;
+
+import com.dimowner.audiorecorder.AppConstants;
+
+/**
+ * Maps gains stored at {@link AppConstants#WAVEFORM_FRAMES_PER_SECOND} to pixels when a waveform is drawn.
+ * Every pixel takes min and max of the gains it covers, so short peaks are not lost when many gains
+ * fall into one pixel. When a pixel is narrower than a gain, the gain is repeated.
+ */
+public class WaveformDecimator {
+
+	private WaveformDecimator() {}
+
+	/**
+	 * @return count of gains stored for a record of the duration.
+	 */
+	public static int getFrameCount(long durationMills) {
+		return (int) (durationMills * AppConstants.WAVEFORM_FRAMES_PER_SECOND / 1000);
+	}
+
+	/**
+	 * Fill min and max gains of consecutive pixels.
+	 * @param startGain gain drawn at the first pixel.
+	 * @param gainsPerPixel zoom, count of gains in one pixel.
+	 * @return count of filled pixels, less than requested at the end of the waveform.
+	 */
+	public static int fill(int[] gains, int size, double startGain, double gainsPerPixel,
+			int[] min, int[] max, int pixels) {
+		int filled = 0;
+		for (int i = 0; i < pixels; i++) {
+			int from = (int) (startGain + i * gainsPerPixel);
+			if (from >= size || from < 0) {
+				break;
+			}
+			int to = Math.min((int) (startGain + (i + 1) * gainsPerPixel), size);
+			int lo = gains[from];
+			int hi = lo;
+			for (int j = from + 1; j < to; j++) {
+				int value = gains[j];
+				if (value < lo) lo = value;
+				if (value > hi) hi = value;
+			}
+			min[i] = lo;
+			max[i] = hi;
+			filled++;
+		}
+		return filled;
+	}
+
+	/**
+	 * Fit the whole waveform into count of pixels, every pixel takes the highest gain it covers.
+	 */
+	public static int[] resample(int[] gains, int pixels) {
+		int[] min = new int[pixels];
+		int[] max = new int[pixels];
+		int count = fill(gains, gains.length, 0, (double) gains.length / pixels, min, max, pixels);
+		if (count < pixels) {
+			int[] result = new int[count];
+			System.arraycopy(max, 0, result, 0, count);
+			return result;
+		}
+		return max;
+	}
+}
@@ -0,0 +1,484 @@
+/*
+ * Copyright 2026 Dmytro Ponomarenko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dimowner.audiorecorder.audio;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+
+/**
+ * Decodes waveforms of records in the background, the active record first, then records visible in the list,
+ * then the rest. Every record is queued once, a repeated request only raises its priority.
+ * Not more than maxRunning records are decoded at once. When all slots are busy, a request of the active
+ * record stops a background decoding without listeners, which is queued again.
+ */
+public class WaveformDecodeScheduler {
+
+	public static final int PRIORITY_ACTIVE = 0;
+	public static final int PRIORITY_VISIBLE = 1;
+	public static final int PRIORITY_BACKGROUND = 2;
+
+	/** Decodes waveform of a record, the listener may be called from any thread. */
+	public interface Decoder {
+		void decode(int id, AudioDecodingListener listener);
+	}
+
+	/** Receives results before listeners of requests are notified. */
+	public interface Callback {
+		void onPeaks(int id, WaveformPyramid peaks);
+		void onDecoded(int id, int[] gains, long duration);
+		void onFailed(int id, Exception e);
+	}
+
+	private final Decoder decoder;
+	private final Executor executor;
+	private final Callback callback;
+	private final int maxRunning;
+
+	private final TreeSet<Task> queue = new TreeSet<>();
+	private final Map<Integer, Task> queued = new HashMap<>();
+	private final Map<Integer, Task> running = new HashMap<>();
+	private final Set<Integer> visible = new HashSet<>();
+	private long sequence = 0;
+
+	private int decodedCount = 0;
+	private int failedCount = 0;
+	private int canceledCount = 0;
+	private long decodedDuration = 0;
+	private long decodingMills = 0;
+
+	public WaveformDecodeScheduler(Decoder decoder, Executor executor, Callback callback, int maxRunning) {
+		if (maxRunning <= 0) {
+			throw new IllegalArgumentException("maxRunning = " + maxRunning);
+		}
+		this.decoder = decoder;
+		this.executor = executor;
+		this.callback = callback;
+		this.maxRunning = maxRunning;
+	}
+
+	public void request(int id, int priority) {
+		request(id, priority, null);
+	}
+
+	/**
+	 * Queue decoding of the record or raise priority of already queued one.
+	 * @param listener notified about decoding of this record, it also may cancel it by isCanceled().
+	 */
+	public void request(int id, int priority, AudioDecodingListener listener) {
+		List<Task> start;
+		synchronized (this) {
+			Task task = running.get(id);
+			if (task == null) {
+				task = queued.get(id);
+				if (task == null) {
+					task = new Task(id);
+					queued.put(id, task);
+				} else {
+					queue.remove(task);
+				}
+				if (priority < task.priority) {
+					task.priority = priority;
+					task.sequence = sequence++;
+				}
+				queue.add(task);
+			}
+			if (listener != null) {
+				task.listeners.add(listener);
+			}
+			if (priority == PRIORITY_ACTIVE && task.runner == null && running.size() >= maxRunning) {
+				preempt();
+			}
+			start = poll();
+		}
+		execute(start);
+	}
+
+	/**
+	 * Queue all records not queued yet in the background.
+	 */
+	public void requestAll(Collection<Integer> ids) {
+		List<Task> start;
+		synchronized (this) {
+			for (Integer id : ids) {
+				if (!queued.containsKey(id) && !running.containsKey(id)) {
+					Task task = new Task(id);
+					queued.put(id, task);
+					queue.add(task);
+				}
+			}
+			start = poll();
+		}
+		execute(start);
+	}
+
+	/**
+	 * Records visible in the list are decoded before the rest, ones not visible anymore go back to the background.
+	 * Records which are not queued are ignored.
+	 */
+	public synchronized void setVisible(Collection<Integer> ids) {
+		for (Integer id : visible) {
+			Task task = queued.get(id);
+			if (task != null && task.priority == PRIORITY_VISIBLE && !ids.contains(id)) {
+				queue.remove(task);
+				task.priority = PRIORITY_BACKGROUND;
+				queue.add(task);
+			}
+		}
+		visible.clear();
+		for (Integer id : ids) {
+			Task task = queued.get(id);
+			if (task != null && task.priority > PRIORITY_VISIBLE) {
+				queue.remove(task);
+				task.priority = PRIORITY_VISIBLE;
+				task.sequence = sequence++;
+				queue.add(task);
+			}
+			visible.add(id);
+		}
+	}
+
+	/**
+	 * Remove the record from the queue or stop its decoding.
+	 * @return false if the record was neither queued nor decoded.
+	 */
+	public boolean cancel(int id) {
+		Task task;
+		synchronized (this) {
+			task = queued.remove(id);
+			if (task != null) {
+				queue.remove(task);
+				canceledCount++;
+			} else {
+				task = running.get(id);
+				if (task == null) {
+					return false;
+				}
+				task.isCanceled = true;
+				return true;
+			}
+		}
+		for (AudioDecodingListener l : task.listeners) {
+			l.onProcessingCancel();
+		}
+		return true;
+	}
+
+	public void cancelAll() {
+		List<Integer> ids;
+		synchronized (this) {
+			ids = new ArrayList<>(queued.keySet());
+			ids.addAll(running.keySet());
+		}
+		for (Integer id : ids) {
+			cancel(id);
+		}
+	}
+
+	public synchronized int getQueueDepth() {
+		return queue.size();
+	}
+
+	public synchronized int getRunningCount() {
+		return running.size();
+	}
+
+	public synchronized boolean isQueued(int id) {
+		return queued.containsKey(id) || running.containsKey(id);
+	}
+
+	public synchronized Metrics getMetrics() {
+		return new Metrics(queue.size(), running.size(), decodedCount, failedCount, canceledCount,
+				decodedDuration, decodingMills);
+	}
+
+	/** Stop a running background decoding without listeners to free a slot for the active record. */
+	private void preempt() {
+		Task victim = null;
+		for (Task task : running.values()) {
+			if (task.priority > PRIORITY_ACTIVE && task.listeners.isEmpty() && !task.isCanceled
+					&& (victim == null || task.priority > victim.priority)) {
+				victim = task;
+			}
+		}
+		if (victim != null) {
+			victim.isCanceled = true;
+			victim.isRequeued = true;
+		}
+	}
+
+	/** Take tasks from the queue into free slots. */
+	private List<Task> poll() {
+		List<Task> start = null;
+		while (running.size() < maxRunning && !queue.isEmpty()) {
+			Task task = queue.pollFirst();
+			queued.remove(task.id);
+			task.runner = task.new Runner();
+			running.put(task.id, task);
+			if (start == null) {
+				start = new ArrayList<>();
+			}
+			start.add(task);
+		}
+		return start;
+	}
+
+	private void execute(List<Task> start) {
+		if (start != null) {
+			for (final Task task : start) {
+				final Task.Runner runner = task.runner;
+				executor.execute(() -> {
+					try {
+						decoder.decode(task.id, runner);
+					} catch (Exception e) {
+						runner.onError(e);
+					}
+				});
+			}
+		}
+	}
+
+	/**
+	 * Release the slot of finished task.
+	 * @return listeners to notify or null when the task is queued again.
+	 */
+	private List<AudioDecodingListener> finish(Task task, int result, long duration) {
+		List<Task> start;
+		boolean isRequeued = false;
+		synchronized (this) {
+			running.remove(task.id);
+			long mills = System.currentTimeMillis() - task.runner.startMills;
+			task.runner = null;
+			if (task.isRequeued && result == Task.RESULT_CANCELED) {
+				task.isCanceled = false;
+				task.isRequeued = false;
+				queued.put(task.id, task);
+				queue.add(task);
+				isRequeued = true;
+			} else {
+				decodingMills += mills;
+				if (result == Task.RESULT_DECODED) {
+					decodedCount++;
+					decodedDuration += duration;
+				} else if (result == Task.RESULT_FAILED) {
+					failedCount++;
+				} else {
+					canceledCount++;
+				}
+			}
+			start = poll();
+		}
+		execute(start);
+		return isRequeued ? null : task.listeners;
+	}
+
+	private class Task implements Comparable<Task> {
+		static final int RESULT_DECODED = 0;
+		static final int RESULT_FAILED = 1;
+		static final int RESULT_CANCELED = 2;
+
+		final int id;
+		final List<AudioDecodingListener> listeners = new CopyOnWriteArrayList<>();
+		int priority = PRIORITY_BACKGROUND;
+		long sequence = WaveformDecodeScheduler.this.sequence++;
+		Runner runner;
+		volatile boolean isCanceled = false;
+		volatile boolean isRequeued = false;
+
+		Task(int id) {
+			this.id = id;
+		}
+
+		@Override
+		public int compareTo(Task o) {
+			if (priority != o.priority) {
+				return priority < o.priority ? -1 : 1;
+			}
+			return Long.compare(sequence, o.sequence);
+		}
+
+		/** Listener of one decoding of the task, calls after the decoding has finished are ignored. */
+		class Runner implements AudioDecodingListener {
+			final long startMills = System.currentTimeMillis();
+			private boolean isFinished = false;
+
+			private synchronized boolean setFinished() {
+				if (isFinished) {
+					return false;
+				}
+				isFinished = true;
+				return true;
+			}
+
+			@Override
+			public boolean isCanceled() {
+				if (isCanceled) {
+					return true;
+				}
+				for (AudioDecodingListener l : listeners) {
+					if (l.isCanceled()) {
+						return true;
+					}
+				}
+				return false;
+			}
+
+			@Override
+			public void onStartProcessing(long duration, int channelsCount, int sampleRate) {
+				for (AudioDecodingListener l : listeners) {
+					l.onStartProcessing(duration, channelsCount, sampleRate);
+				}
+			}
+
+			@Override
+			public void onProcessingProgress(int percent) {
+				for (AudioDecodingListener l : listeners) {
+					l.onProcessingProgress(percent);
+				}
+			}
+
+			@Override
+			public void onWaveformChunk(int offset, int[] data, int length) {
+				for (AudioDecodingListener l : listeners) {
+					l.onWaveformChunk(offset, data, length);
+				}
+			}
+
+			@Override
+			public void onPeaks(WaveformPyramid peaks) {
+				callback.onPeaks(id, peaks);
+				for (AudioDecodingListener l : listeners) {
+					l.onPeaks(peaks);
+				}
+			}
+
+			@Override
+			public void onProcessingCancel() {
+				if (setFinished()) {
+					List<AudioDecodingListener> notify = finish(Task.this, RESULT_CANCELED, 0);
+					if (notify != null) {
+						for (AudioDecodingListener l : notify) {
+							l.onProcessingCancel();
+						}
+					}
+				}
+			}
+
+			@Override
+			public void onFinishProcessing(int[] data, long duration) {
+				if (setFinished()) {
+					callback.onDecoded(id, data, duration);
+					for (AudioDecodingListener l : finish(Task.this, RESULT_DECODED, duration)) {
+						l.onFinishProcessing(data, duration);
+					}
+				}
+			}
+
+			@Override
+			public void onError(Exception exception) {
+				if (setFinished()) {
+					callback.onFailed(id, exception);
+					for (AudioDecodingListener l : finish(Task.this, RESULT_FAILED, 0)) {
+						l.onError(exception);
+					}
+				}
+			}
+		}
+	}
+
+	/** Snapshot of the scheduler state and its work done since it was created. */
+	public static class Metrics {
+		private final int queueDepth;
+		private final int runningCount;
+		private final int decodedCount;
+		private final int failedCount;
+		private final int canceledCount;
+		private final long decodedDuration;
+		private final long decodingMills;
+
+		Metrics(int queueDepth, int runningCount, int decodedCount, int failedCount, int canceledCount,
+				long decodedDuration, long decodingMills) {
+			this.queueDepth = queueDepth;
+			this.runningCount = runningCount;
+			this.decodedCount = decodedCount;
+			this.failedCount = failedCount;
+			this.canceledCount = canceledCount;
+			this.decodedDuration = decodedDuration;
+			this.decodingMills = decodingMills;
+		}
+
+		public int getQueueDepth() {
+			return queueDepth;
+		}
+
+		public int getRunningCount() {
+			return runningCount;
+		}
+
+		public int getDecodedCount() {
+			return decodedCount;
+		}
+
+		public int getFailedCount() {
+			return failedCount;
+		}
+
+		public int getCanceledCount() {
+			return canceledCount;
+		}
+
+		/** Duration of decoded records in microseconds. */
+		public long getDecodedDuration() {
+			return decodedDuration;
+		}
+
+		/** Time spent by all decodings, parallel ones are summed. */
+		public long getDecodingMills() {
+			return decodingMills;
+		}
+
+		/** Records decoded per minute of decoding. */
+		public float getRecordsPerMinute() {
+			return decodingMills > 0 ? decodedCount * 60000f / decodingMills : 0;
+		}
+
+		/** How many times faster than real time records are decoded. */
+		public float getSpeed() {
+			return decodingMills > 0 ? decodedDuration / 1000f / decodingMills : 0;
+		}
+
+		@Override
+		public String toString() {
+			return "Metrics{" +
+					"queueDepth=" + queueDepth +
+					", running=" + runningCount +
+					", decoded=" + decodedCount +
+					", failed=" + failedCount +
+					", canceled=" + canceledCount +
+					", recordsPerMinute=" + getRecordsPerMinute() +
+					", speed=" + getSpeed() +
+					'}';
+		}
+	}
+}
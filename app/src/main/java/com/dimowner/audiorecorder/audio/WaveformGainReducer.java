@@ -0,0 +1,157 @@
+/*
+ * Copyright 2026 Dmytro Ponomarenko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dimowner.audiorecorder.audio;
+
+import com.dimowner.audiorecorder.IntArrayList;
+
+import java.nio.ShortBuffer;
+import java.util.Arrays;
+
+/**
+ * Reduces decoded 16 bit PCM into waveform gains, one gain per frame of samples.
+ * Samples are copied in bulk into a reused frame, frames may span any count of buffers.
+ * Gain is square root of the max value of channels mean in the frame. Like in the original per sample
+ * loop of {@link AudioDecoder} a frame takes one sample less than its size and the last slot stays zero.
+ */
+public class WaveformGainReducer {
+
+	private static final int INITIAL_CAPACITY = 256;
+
+	private final short[] frame;
+	private final int channelCount;
+	/** Count of samples put into the frame before its gain is calculated. */
+	private final int fillLength;
+	private int frameIndex = 0;
+	private int[] gains = new int[INITIAL_CAPACITY];
+	private int gainCount = 0;
+
+	/**
+	 * @param samplesPerFrame count of samples of every channel in one waveform frame.
+	 */
+	public WaveformGainReducer(int samplesPerFrame, int channelCount) {
+		if (samplesPerFrame <= 0 || channelCount <= 0) {
+			throw new IllegalArgumentException("samplesPerFrame = " + samplesPerFrame
+					+ " channelCount = " + channelCount);
+		}
+		this.frame = new short[samplesPerFrame * channelCount];
+		this.channelCount = channelCount;
+		this.fillLength = Math.max(frame.length - 1, 1);
+	}
+
+	/**
+	 * Take all remaining samples of the buffer.
+	 */
+	public void process(ShortBuffer samples) {
+		int remaining = samples.remaining();
+		while (remaining > 0) {
+			int count = Math.min(remaining, fillLength - frameIndex);
+			samples.get(frame, frameIndex, count);
+			frameIndex += count;
+			remaining -= count;
+			if (frameIndex >= fillLength) {
+				addGain(calculateGain());
+				frameIndex = 0;
+			}
+		}
+	}
+
+	public void process(short[] samples, int offset, int length) {
+		while (length > 0) {
+			int count = Math.min(length, fillLength - frameIndex);
+			System.arraycopy(samples, offset, frame, frameIndex, count);
+			frameIndex += count;
+			offset += count;
+			length -= count;
+			if (frameIndex >= fillLength) {
+				addGain(calculateGain());
+				frameIndex = 0;
+			}
+		}
+	}
+
+	private void addGain(int gain) {
+		if (gainCount == gains.length) {
+			gains = Arrays.copyOf(gains, gainCount * 2);
+		}
+		gains[gainCount++] = gain;
+	}
+
+	private int calculateGain() {
+		final short[] frame = this.frame;
+		final int length = frame.length;
+		int gain = -1;
+		if (channelCount == 1) {
+			for (int j = 0; j < length; j++) {
+				gain = Math.max(gain, frame[j]);
+			}
+		} else if (channelCount == 2) {
+			for (int j = 0; j < length; j += 2) {
+				gain = Math.max(gain, (frame[j] + frame[j + 1]) / 2);
+			}
+		} else {
+			for (int j = 0; j < length; j += channelCount) {
+				int value = 0;
+				for (int k = 0; k < channelCount; k++) {
+					value += frame[j + k];
+				}
+				gain = Math.max(gain, value / channelCount);
+			}
+		}
+		return (int) Math.sqrt(gain);
+	}
+
+	/** Count of samples of all channels taken into one gain. */
+	public int getFillLength() {
+		return fillLength;
+	}
+
+	public int getGainCount() {
+		return gainCount;
+	}
+
+	public int getGain(int index) {
+		return gains[index];
+	}
+
+	/**
+	 * Move calculated gains into chunks of a record being decoded, the reducer keeps only the current frame.
+	 */
+	public void drainTo(WaveformChunks chunks) {
+		for (int i = 0; i < gainCount; i++) {
+			chunks.add(gains[i]);
+		}
+		gainCount = 0;
+	}
+
+	/**
+	 * Add calculated gains into the list, gains of consecutive parts of a record are joined this way.
+	 */
+	public void appendTo(IntArrayList list) {
+		for (int i = 0; i < gainCount; i++) {
+			list.add(gains[i]);
+		}
+	}
+
+	/**
+	 * Gains the same as collected into {@link IntArrayList} by the original decoding loop.
+	 */
+	public int[] getGains() {
+		IntArrayList list = new IntArrayList();
+		appendTo(list);
+		return list.getData();
+	}
+}
@@ -0,0 +1,209 @@
+/*
+ * Copyright 2026 Dmytro Ponomarenko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dimowner.audiorecorder.audio;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.ShortBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Min/max peaks of a record at several resolutions. Level 0 keeps peaks of every
+ * {@link #BASE_BUCKET_FRAMES} frames, every next level merges {@link #LEVEL_FACTOR} buckets of the previous one.
+ * Peaks of any zoom are taken from the level closest to it, so drawing costs a few buckets per pixel
+ * whatever the record length is. Stored by {@link WaveformCache}, read file is memory mapped.
+ */
+public class WaveformPyramid {
+
+	public static final int BASE_BUCKET_FRAMES = 256;
+	public static final int LEVEL_FACTOR = 4;
+
+	private static final int MAGIC = 0x57505952; //"WPYR"
+	private static final int VERSION = 1;
+	/** Magic, version, sample rate, channel count, frame count, level count. */
+	private static final int HEADER_SIZE = 4 + 4 + 4 + 4 + 8 + 4;
+
+	private final int sampleRate;
+	private final int channelCount;
+	private final long frameCount;
+	/** Min and max value of every bucket one after another, level 0 first. */
+	private final ShortBuffer[] levels;
+
+	WaveformPyramid(int sampleRate, int channelCount, long frameCount, ShortBuffer[] levels) {
+		this.sampleRate = sampleRate;
+		this.channelCount = channelCount;
+		this.frameCount = frameCount;
+		this.levels = levels;
+	}
+
+	public int getSampleRate() {
+		return sampleRate;
+	}
+
+	public int getChannelCount() {
+		return channelCount;
+	}
+
+	public long getFrameCount() {
+		return frameCount;
+	}
+
+	public int getLevelCount() {
+		return levels.length;
+	}
+
+	public int getBucketCount(int level) {
+		return levels[level].limit() / 2;
+	}
+
+	/** Count of frames merged into one bucket of the level. */
+	public static long getBucketFrames(int level) {
+		long frames = BASE_BUCKET_FRAMES;
+		for (int i = 0; i < level; i++) {
+			frames *= LEVEL_FACTOR;
+		}
+		return frames;
+	}
+
+	public short getMin(int level, int bucket) {
+		return levels[level].get(bucket * 2);
+	}
+
+	public short getMax(int level, int bucket) {
+		return levels[level].get(bucket * 2 + 1);
+	}
+
+	/**
+	 * Find the coarsest level which buckets are not wider than a pixel.
+	 */
+	public int selectLevel(double framesPerPixel) {
+		int level = 0;
+		while (level + 1 < levels.length && getBucketFrames(level + 1) <= framesPerPixel) {
+			level++;
+		}
+		return level;
+	}
+
+	/**
+	 * Fill peaks of consecutive pixels.
+	 * @param startFrame frame drawn at the first pixel.
+	 * @param framesPerPixel zoom, count of frames in one pixel.
+	 * @return count of filled pixels, less than requested at the end of the record.
+	 */
+	public int fill(long startFrame, double framesPerPixel, short[] min, short[] max, int pixels) {
+		int level = selectLevel(framesPerPixel);
+		ShortBuffer peaks = levels[level];
+		long bucketFrames = getBucketFrames(level);
+		int bucketCount = peaks.limit() / 2;
+		int filled = 0;
+		for (int i = 0; i < pixels; i++) {
+			long from = startFrame + (long) (i * framesPerPixel);
+			if (from >= frameCount || from < 0) {
+				break;
+			}
+			long to = startFrame + (long) ((i + 1) * framesPerPixel);
+			int first = (int) (from / bucketFrames);
+			int last = (int) Math.min(Math.max((to - 1) / bucketFrames, first), bucketCount - 1);
+			short lo = Short.MAX_VALUE;
+			short hi = Short.MIN_VALUE;
+			for (int b = first; b <= last; b++) {
+				short value = peaks.get(b * 2);
+				if (value < lo) lo = value;
+				value = peaks.get(b * 2 + 1);
+				if (value > hi) hi = value;
+			}
+			min[i] = lo;
+			max[i] = hi;
+			filled++;
+		}
+		return filled;
+	}
+
+	public void write(File file) throws IOException {
+		try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+			raf.setLength(0);
+			FileChannel channel = raf.getChannel();
+			ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE + levels.length * 4).order(ByteOrder.LITTLE_ENDIAN);
+			header.putInt(MAGIC);
+			header.putInt(VERSION);
+			header.putInt(sampleRate);
+			header.putInt(channelCount);
+			header.putLong(frameCount);
+			header.putInt(levels.length);
+			for (ShortBuffer level : levels) {
+				header.putInt(level.limit() / 2);
+			}
+			header.flip();
+			while (header.hasRemaining()) {
+				channel.write(header);
+			}
+			for (ShortBuffer level : levels) {
+				ByteBuffer data = ByteBuffer.allocate(level.limit() * 2).order(ByteOrder.LITTLE_ENDIAN);
+				data.asShortBuffer().put(level.duplicate());
+				while (data.hasRemaining()) {
+					channel.write(data);
+				}
+			}
+		}
+	}
+
+	/**
+	 * @return peaks or null when the file is not a waveform pyramid.
+	 */
+	public static WaveformPyramid read(File file) throws IOException {
+		try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+			FileChannel channel = raf.getChannel();
+			if (channel.size() < HEADER_SIZE) {
+				return null;
+			}
+			//Mapping stays valid after the channel is closed.
+			ByteBuffer data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size())
+					.order(ByteOrder.LITTLE_ENDIAN);
+			if (data.getInt() != MAGIC || data.getInt() != VERSION) {
+				return null;
+			}
+			int sampleRate = data.getInt();
+			int channelCount = data.getInt();
+			long frameCount = data.getLong();
+			int levelCount = data.getInt();
+			if (levelCount <= 0 || data.remaining() < levelCount * 4L) {
+				return null;
+			}
+			int[] counts = new int[levelCount];
+			long size = 0;
+			for (int i = 0; i < levelCount; i++) {
+				counts[i] = data.getInt();
+				size += counts[i] * 4L;
+			}
+			if (data.remaining() < size) {
+				return null;
+			}
+			ShortBuffer[] levels = new ShortBuffer[levelCount];
+			for (int i = 0; i < levelCount; i++) {
+				int length = counts[i] * 4;
+				ByteBuffer level = data.slice().order(ByteOrder.LITTLE_ENDIAN);
+				level.limit(length);
+				levels[i] = level.asShortBuffer();
+				data.position(data.position() + length);
+			}
+			return new WaveformPyramid(sampleRate, channelCount, frameCount, levels);
+		}
+	}
+}
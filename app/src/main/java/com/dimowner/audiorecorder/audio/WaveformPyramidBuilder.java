@@ -0,0 +1,172 @@
+/*
+ * Copyright 2026 Dmytro Ponomarenko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dimowner.audiorecorder.audio;
+
+import java.nio.ShortBuffer;
+import java.util.Arrays;
+
+/**
+ * Collects {@link WaveformPyramid} from 16 bit interleaved PCM passed in any count of buffers.
+ * Peaks of a bucket are taken over samples of all channels.
+ */
+public class WaveformPyramidBuilder {
+
+	private static final int SCRATCH_SIZE = 4096;
+	private static final int INITIAL_CAPACITY = 1024;
+
+	private final int sampleRate;
+	private final int channelCount;
+	/** Count of samples of all channels in a bucket of level 0. */
+	private final int bucketSamples;
+	private final short[] scratch = new short[SCRATCH_SIZE];
+
+	private short[] peaks = new short[INITIAL_CAPACITY];
+	private int peaksLength = 0;
+	private int bucketIndex = 0;
+	private short min = Short.MAX_VALUE;
+	private short max = Short.MIN_VALUE;
+	private long sampleCount = 0;
+
+	public WaveformPyramidBuilder(int sampleRate, int channelCount) {
+		if (channelCount <= 0) {
+			throw new IllegalArgumentException("channelCount = " + channelCount);
+		}
+		this.sampleRate = sampleRate;
+		this.channelCount = channelCount;
+		this.bucketSamples = WaveformPyramid.BASE_BUCKET_FRAMES * channelCount;
+	}
+
+	/**
+	 * Take all remaining samples of the buffer.
+	 */
+	public void process(ShortBuffer samples) {
+		int remaining = samples.remaining();
+		sampleCount += remaining;
+		while (remaining > 0) {
+			int count = Math.min(remaining, SCRATCH_SIZE);
+			samples.get(scratch, 0, count);
+			accumulate(scratch, 0, count);
+			remaining -= count;
+		}
+	}
+
+	public void process(short[] samples, int offset, int length) {
+		sampleCount += length;
+		accumulate(samples, offset, length);
+	}
+
+	private void accumulate(short[] samples, int offset, int length) {
+		int lo = min;
+		int hi = max;
+		int end = offset + length;
+		int i = offset;
+		while (i < end) {
+			//Loop without bucket check, so it can be vectorized.
+			int count = Math.min(end - i, bucketSamples - bucketIndex);
+			for (int j = i; j < i + count; j++) {
+				lo = Math.min(lo, samples[j]);
+				hi = Math.max(hi, samples[j]);
+			}
+			i += count;
+			bucketIndex += count;
+			if (bucketIndex == bucketSamples) {
+				addBucket((short) lo, (short) hi);
+				lo = Short.MAX_VALUE;
+				hi = Short.MIN_VALUE;
+				bucketIndex = 0;
+			}
+		}
+		min = (short) lo;
+		max = (short) hi;
+	}
+
+	private void addBucket(short lo, short hi) {
+		if (peaksLength == peaks.length) {
+			peaks = Arrays.copyOf(peaks, peaks.length * 2);
+		}
+		peaks[peaksLength++] = lo;
+		peaks[peaksLength++] = hi;
+	}
+
+	/**
+	 * Append peaks of the following part of the record. The part should start at a bucket boundary,
+	 * otherwise the last partial bucket of this builder is closed as a short one.
+	 */
+	public void append(WaveformPyramidBuilder next) {
+		if (next.channelCount != channelCount) {
+			throw new IllegalArgumentException("channelCount = " + next.channelCount);
+		}
+		if (bucketIndex > 0) {
+			addBucket(min, max);
+		}
+		for (int i = 0; i < next.peaksLength; i += 2) {
+			addBucket(next.peaks[i], next.peaks[i + 1]);
+		}
+		min = next.min;
+		max = next.max;
+		bucketIndex = next.bucketIndex;
+		sampleCount += next.sampleCount;
+	}
+
+	/** Count of samples of all channels in a bucket of level 0. */
+	public int getBucketSamples() {
+		return bucketSamples;
+	}
+
+	public long getFrameCount() {
+		return sampleCount / channelCount;
+	}
+
+	/**
+	 * Make pyramid of all processed samples. The last bucket may be shorter than the others.
+	 */
+	public WaveformPyramid build() {
+		short[] base = Arrays.copyOf(peaks, peaksLength + (bucketIndex > 0 ? 2 : 0));
+		if (bucketIndex > 0) {
+			base[peaksLength] = min;
+			base[peaksLength + 1] = max;
+		}
+		int levelCount = 1;
+		for (int count = base.length / 2; count > 1; count = (count + WaveformPyramid.LEVEL_FACTOR - 1)
+				/ WaveformPyramid.LEVEL_FACTOR) {
+			levelCount++;
+		}
+		ShortBuffer[] levels = new ShortBuffer[levelCount];
+		levels[0] = ShortBuffer.wrap(base);
+		short[] previous = base;
+		for (int level = 1; level < levelCount; level++) {
+			int previousCount = previous.length / 2;
+			short[] merged = new short[(previousCount + WaveformPyramid.LEVEL_FACTOR - 1)
+					/ WaveformPyramid.LEVEL_FACTOR * 2];
+			for (int b = 0; b < merged.length / 2; b++) {
+				int first = b * WaveformPyramid.LEVEL_FACTOR;
+				int last = Math.min(first + WaveformPyramid.LEVEL_FACTOR, previousCount);
+				short lo = Short.MAX_VALUE;
+				short hi = Short.MIN_VALUE;
+				for (int i = first; i < last; i++) {
+					if (previous[i * 2] < lo) lo = previous[i * 2];
+					if (previous[i * 2 + 1] > hi) hi = previous[i * 2 + 1];
+				}
+				merged[b * 2] = lo;
+				merged[b * 2 + 1] = hi;
+			}
+			levels[level] = ShortBuffer.wrap(merged);
+			previous = merged;
+		}
+		return new WaveformPyramid(sampleRate, channelCount, getFrameCount(), levels);
+	}
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright 2026 Dmytro Ponomarenko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dimowner.audiorecorder.audio.recorder;
+
+import android.media.AudioFormat;
+import android.media.AudioRecord;
+import android.media.MediaRecorder;
+
+import androidx.annotation.RequiresPermission;
+
+import timber.log.Timber;
+
+/**
+ * Microphone PCM captured by {@link AudioRecord}.
+ */
+public class AudioRecordSource implements PcmSource {
+
+	private final AudioRecord recorder;
+	private final int sampleRate;
+	private final int channelCount;
+	private final int bufferSize;
+
+	private AudioRecordSource(AudioRecord recorder, int sampleRate, int channelCount, int bufferSize) {
+		this.recorder = recorder;
+		this.sampleRate = sampleRate;
+		this.channelCount = channelCount;
+		this.bufferSize = bufferSize;
+	}
+
+	/**
+	 * Create microphone source with the minimal buffer size.
+	 * @return initialized source or null if AudioRecord can't be created with such parameters.
+	 */
+	@RequiresPermission(value = "android.permission.RECORD_AUDIO")
+	public static AudioRecordSource create(int sampleRate, int channelCount) {
+		int channel = channelCount == 1 ? AudioFormat.CHANNEL_IN_MONO : AudioFormat.CHANNEL_IN_STEREO;
+		int bufferSize = 0;
+		AudioRecord recorder = null;
+		try {
+			bufferSize = AudioRecord.getMinBufferSize(sampleRate,
+					channel,
+					AudioFormat.ENCODING_PCM_16BIT);
+			if (bufferSize == AudioRecord.ERROR || bufferSize == AudioRecord.ERROR_BAD_VALUE) {
+				bufferSize = AudioRecord.getMinBufferSize(sampleRate,
+						channel,
+						AudioFormat.ENCODING_PCM_16BIT);
+			}
+			recorder = new AudioRecord(
+					MediaRecorder.AudioSource.MIC,
+					sampleRate,
+					channel,
+					AudioFormat.ENCODING_PCM_16BIT,
+					bufferSize
+			);
+		} catch (IllegalArgumentException e) {
+			Timber.e(e, "sampleRate = " + sampleRate + " channel = " + channel + " bufferSize = " + bufferSize);
+		}
+		if (recorder != null && recorder.getState() == AudioRecord.STATE_INITIALIZED) {
+			return new AudioRecordSource(recorder, sampleRate, channelCount, bufferSize);
+		}
+		if (recorder != null) {
+			recorder.release();
+		}
+		return null;
+	}
+
+	@Override
+	public int getSampleRate() {
+		return sampleRate;
+	}
+
+	@Override
+	public int getChannelCount() {
+		return channelCount;
+	}
+
+	@Override
+	public int getBufferSize() {
+		return bufferSize;
+	}
+
+	@Override
+	public void start() {
+		recorder.startRecording();
+	}
+
+	@Override
+	public void stop() {
+		if (recorder.getState() == AudioRecord.STATE_INITIALIZED) {
+			recorder.stop();
+		}
+	}
+
+	@Override
+	public void release() {
+		recorder.release();
+	}
+
+	@Override
+	public int read(byte[] data, int offset, int length) {
+		return recorder.read(data, offset, length);
+	}
+
+	@Override
+	public int read(short[] samples, int offset, int length) {
+		return recorder.read(samples, offset, length);
+	}
+}
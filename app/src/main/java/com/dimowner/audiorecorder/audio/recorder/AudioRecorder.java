@@ -21,7 +21,6 @@ import android.hardware.display.VirtualDisplay;
 import android.media.MediaRecorder;
 import android.media.projection.MediaProjection;
 import android.os.Build;
-import android.os.Handler;
 
 import androidx.annotation.RequiresApi;
 
@@ -35,18 +34,14 @@ import java.util.concurrent.atomic.AtomicBoolean;
 
 import timber.log.Timber;
 
-import static com.dimowner.audiorecorder.AppConstants.RECORDING_VISUALIZATION_INTERVAL;
-
 public class AudioRecorder implements RecorderContract.Recorder {
 
 	private MediaRecorder recorder = null;
 	private File recordFile = null;
-	private long updateTime = 0;
-	private long durationMills = 0;
+	private final RecordingClock clock = new RecordingClock();
 
 	private final AtomicBoolean isRecording = new AtomicBoolean(false);
 	private final AtomicBoolean isPaused = new AtomicBoolean(false);
-	private final Handler handler = new Handler();
 
 	private RecorderContract.RecorderCallback recorderCallback;
 	
@@ -97,9 +92,8 @@ public class AudioRecorder implements RecorderContract.Recorder {
 			try {
 				recorder.prepare();
 				recorder.start();
-				updateTime = System.currentTimeMillis();
+				clock.start();
 				isRecording.set(true);
-				scheduleRecordingTimeUpdate();
 				if (recorderCallback != null) {
 					recorderCallback.onStartRecord(recordFile);
 				}
@@ -232,9 +226,8 @@ public class AudioRecorder implements RecorderContract.Recorder {
 			recorder.prepare();
 			Timber.d("Starting MediaRecorder...");
 			recorder.start();
-			updateTime = System.currentTimeMillis();
+			clock.start();
 			isRecording.set(true);
-			scheduleRecordingTimeUpdate();
 			if (recorderCallback != null) {
 				recorderCallback.onStartRecord(recordFile);
 			}
@@ -276,8 +269,7 @@ public class AudioRecorder implements RecorderContract.Recorder {
 		if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.N && isPaused.get()) {
 			try {
 				recorder.resume();
-				updateTime = System.currentTimeMillis();
-				scheduleRecordingTimeUpdate();
+				clock.resume();
 				if (recorderCallback != null) {
 					recorderCallback.onResumeRecord();
 				}
@@ -298,8 +290,7 @@ public class AudioRecorder implements RecorderContract.Recorder {
 				if (!isPaused.get()) {
 					try {
 						recorder.pause();
-						durationMills += System.currentTimeMillis() - updateTime;
-						pauseRecordingTimer();
+						clock.pause();
 						if (recorderCallback != null) {
 							recorderCallback.onPauseRecord();
 						}
@@ -321,7 +312,7 @@ public class AudioRecorder implements RecorderContract.Recorder {
 	@Override
 	public void stopRecording() {
 		if (isRecording.get()) {
-			stopRecordingTimer();
+			clock.stop();
 			try {
 				if (recorder != null) {
 					recorder.stop();
@@ -337,7 +328,6 @@ public class AudioRecorder implements RecorderContract.Recorder {
 			if (recorderCallback != null) {
 				recorderCallback.onStopRecord(recordFile);
 			}
-			durationMills = 0;
 			recordFile = null;
 			isRecording.set(false);
 			isPaused.set(false);
@@ -361,32 +351,6 @@ public class AudioRecorder implements RecorderContract.Recorder {
 		Timber.d("System audio resources released and global MediaProjection cleared");
 	}
 
-	private void scheduleRecordingTimeUpdate() {
-		handler.postDelayed(() -> {
-			if (recorderCallback != null && recorder != null) {
-				try {
-					long curTime = System.currentTimeMillis();
-					durationMills += curTime - updateTime;
-					updateTime = curTime;
-					recorderCallback.onRecordProgress(durationMills, recorder.getMaxAmplitude());
-				} catch (IllegalStateException e) {
-					Timber.e(e);
-				}
-				scheduleRecordingTimeUpdate();
-			}
-		}, RECORDING_VISUALIZATION_INTERVAL);
-	}
-
-	private void stopRecordingTimer() {
-		handler.removeCallbacksAndMessages(null);
-		updateTime = 0;
-	}
-
-	private void pauseRecordingTimer() {
-		handler.removeCallbacksAndMessages(null);
-		updateTime = 0;
-	}
-
 	@Override
 	public boolean isRecording() {
 		return isRecording.get();
@@ -396,4 +360,22 @@ public class AudioRecorder implements RecorderContract.Recorder {
 	public boolean isPaused() {
 		return isPaused.get();
 	}
+
+	@Override
+	public long getRecordingDurationMills() {
+		return clock.getDurationMills();
+	}
+
+	@Override
+	public int getAmplitude() {
+		MediaRecorder rec = recorder;
+		if (rec != null && isRecording.get() && !isPaused.get()) {
+			try {
+				return rec.getMaxAmplitude();
+			} catch (IllegalStateException e) {
+				Timber.e(e);
+			}
+		}
+		return 0;
+	}
 }
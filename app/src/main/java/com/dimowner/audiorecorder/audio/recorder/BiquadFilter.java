@@ -0,0 +1,138 @@
+/*
+ * Copyright 2026 Dmytro Ponomarenko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dimowner.audiorecorder.audio.recorder;
+
+/**
+ * Biquad filter in transposed direct form II with independent state for each channel.
+ * Coefficients are calculated by formulas of RBJ Audio EQ Cookbook when sample rate is known.
+ */
+public class BiquadFilter implements PcmProcessor {
+
+	public static final float Q_BUTTERWORTH = 0.7071f;
+
+	/** Cutoff frequency of DC offset removal in Hz. */
+	private static final float DC_BLOCKER_FREQUENCY = 5;
+
+	private static final int TYPE_HIGH_PASS = 1;
+	private static final int TYPE_LOW_PASS = 2;
+	private static final int TYPE_DC_BLOCKER = 3;
+
+	private final int type;
+	private final float frequency;
+	private final float q;
+
+	private double b0;
+	private double b1;
+	private double b2;
+	private double a1;
+	private double a2;
+	private double[] z1 = new double[0];
+	private double[] z2 = new double[0];
+	private int channelCount = 1;
+
+	private BiquadFilter(int type, float frequency, float q) {
+		this.type = type;
+		this.frequency = frequency;
+		this.q = q;
+	}
+
+	public static BiquadFilter highPass(float frequency, float q) {
+		return new BiquadFilter(TYPE_HIGH_PASS, frequency, q);
+	}
+
+	public static BiquadFilter lowPass(float frequency, float q) {
+		return new BiquadFilter(TYPE_LOW_PASS, frequency, q);
+	}
+
+	/**
+	 * First order high-pass with very low cutoff which removes DC offset of the microphone.
+	 */
+	public static BiquadFilter dcBlocker() {
+		return new BiquadFilter(TYPE_DC_BLOCKER, DC_BLOCKER_FREQUENCY, 0);
+	}
+
+	@Override
+	public void prepare(int sampleRate, int channelCount) {
+		this.channelCount = channelCount;
+		z1 = new double[channelCount];
+		z2 = new double[channelCount];
+		double w0 = 2 * Math.PI * Math.min(frequency, sampleRate * 0.49) / sampleRate;
+		if (type == TYPE_DC_BLOCKER) {
+			double r = Math.exp(-w0);
+			double gain = (1 + r) / 2;
+			b0 = gain;
+			b1 = -gain;
+			b2 = 0;
+			a1 = -r;
+			a2 = 0;
+			return;
+		}
+		double cos = Math.cos(w0);
+		double alpha = Math.sin(w0) / (2 * q);
+		double a0 = 1 + alpha;
+		if (type == TYPE_HIGH_PASS) {
+			b0 = (1 + cos) / 2 / a0;
+			b1 = -(1 + cos) / a0;
+		} else {
+			b0 = (1 - cos) / 2 / a0;
+			b1 = (1 - cos) / a0;
+		}
+		b2 = b0;
+		a1 = -2 * cos / a0;
+		a2 = (1 - alpha) / a0;
+	}
+
+	@Override
+	public void process(short[] samples, int offset, int length) {
+		final double[] z1 = this.z1;
+		final double[] z2 = this.z2;
+		final int end = offset + length;
+		int ch = 0;
+		for (int i = offset; i < end; i++) {
+			double x = samples[i];
+			double y = b0 * x + z1[ch];
+			z1[ch] = b1 * x - a1 * y + z2[ch];
+			z2[ch] = b2 * x - a2 * y;
+			samples[i] = clip(y);
+			if (++ch == channelCount) {
+				ch = 0;
+			}
+		}
+	}
+
+	static short clip(double value) {
+		long rounded = Math.round(value);
+		if (rounded > Short.MAX_VALUE) {
+			return Short.MAX_VALUE;
+		} else if (rounded < Short.MIN_VALUE) {
+			return Short.MIN_VALUE;
+		}
+		return (short) rounded;
+	}
+
+	@Override
+	public String getName() {
+		switch (type) {
+			case TYPE_HIGH_PASS:
+				return "high-pass " + frequency + " Hz";
+			case TYPE_LOW_PASS:
+				return "low-pass " + frequency + " Hz";
+			default:
+				return "DC blocker";
+		}
+	}
+}
@@ -0,0 +1,40 @@
+/*
+ * Copyright 2026 Dmytro Ponomarenko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dimowner.audiorecorder.audio.recorder;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * {@link PcmWriter.Sink} which appends PCM data to the file channel at its current position.
+ */
+public class FileChannelSink implements PcmWriter.Sink {
+
+	protected final FileChannel channel;
+
+	public FileChannelSink(FileChannel channel) {
+		this.channel = channel;
+	}
+
+	@Override
+	public void write(ByteBuffer data) throws IOException {
+		while (data.hasRemaining()) {
+			channel.write(data);
+		}
+	}
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright 2026 Dmytro Ponomarenko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dimowner.audiorecorder.audio.recorder;
+
+import java.util.Arrays;
+
+/**
+ * MSB-first bit writer of FLAC frames with CRC calculation.
+ */
+class FlacBitWriter {
+
+	private static final int[] CRC8_TABLE = new int[256];
+	private static final int[] CRC16_TABLE = new int[256];
+
+	static {
+		for (int i = 0; i < 256; i++) {
+			int crc8 = i;
+			int crc16 = i << 8;
+			for (int j = 0; j < 8; j++) {
+				crc8 = (crc8 & 0x80) != 0 ? (crc8 << 1) ^ 0x07 : crc8 << 1;
+				crc16 = (crc16 & 0x8000) != 0 ? (crc16 << 1) ^ 0x8005 : crc16 << 1;
+			}
+			CRC8_TABLE[i] = crc8 & 0xFF;
+			CRC16_TABLE[i] = crc16 & 0xFFFF;
+		}
+	}
+
+	private byte[] buffer;
+	private int length = 0;
+	private long accumulator = 0;
+	private int bitCount = 0;
+
+	FlacBitWriter(int capacity) {
+		buffer = new byte[capacity];
+	}
+
+	void reset() {
+		length = 0;
+		accumulator = 0;
+		bitCount = 0;
+	}
+
+	/**
+	 * Write low n bits of the value, n is from 0 to 32.
+	 */
+	void writeBits(int value, int n) {
+		if (length + 8 > buffer.length) {
+			buffer = Arrays.copyOf(buffer, buffer.length * 2);
+		}
+		accumulator = (accumulator << n) | (value & ((1L << n) - 1));
+		bitCount += n;
+		while (bitCount >= 8) {
+			bitCount -= 8;
+			buffer[length++] = (byte) (accumulator >>> bitCount);
+		}
+	}
+
+	void writeLong(long value, int n) {
+		if (n > 32) {
+			writeBits((int) (value >>> 32), n - 32);
+			n = 32;
+		}
+		writeBits((int) value, n);
+	}
+
+	/**
+	 * Write Rice code of zigzag encoded value: unary quotient and k low bits.
+	 */
+	void writeRice(int value, int k) {
+		int u = (value << 1) ^ (value >> 31);
+		int quotient = u >>> k;
+		if (quotient + k < 32) {
+			writeBits((1 << k) | (u & ((1 << k) - 1)), quotient + 1 + k);
+		} else {
+			while (quotient >= 32) {
+				writeBits(0, 32);
+				quotient -= 32;
+			}
+			writeBits(1, quotient + 1);
+			writeBits(u, k);
+		}
+	}
+
+	/**
+	 * Write UTF-8 like coded number of FLAC frame header.
+	 */
+	void writeUtf8(long value) {
+		if (value < 0x80) {
+			writeBits((int) value, 8);
+			return;
+		}
+		int bytes = 2;
+		while (bytes < 7 && value >= (1L << (5 * bytes + 1))) {
+			bytes++;
+		}
+		int shift = 6 * (bytes - 1);
+		writeBits((0xFF00 >> bytes) | (int) (value >>> shift), 8);
+		while (shift > 0) {
+			shift -= 6;
+			writeBits(0x80 | (int) ((value >>> shift) & 0x3F), 8);
+		}
+	}
+
+	/** Pad with zero bits to the byte boundary. */
+	void alignToByte() {
+		if (bitCount > 0) {
+			writeBits(0, 8 - bitCount);
+		}
+	}
+
+	/** CRC-8 of all written bytes, writer must be byte aligned. */
+	int crc8() {
+		int crc = 0;
+		for (int i = 0; i < length; i++) {
+			crc = CRC8_TABLE[crc ^ (buffer[i] & 0xFF)];
+		}
+		return crc;
+	}
+
+	/** CRC-16 of all written bytes, writer must be byte aligned. */
+	int crc16() {
+		int crc = 0;
+		for (int i = 0; i < length; i++) {
+			crc = ((crc << 8) ^ CRC16_TABLE[(crc >>> 8) ^ (buffer[i] & 0xFF)]) & 0xFFFF;
+		}
+		return crc;
+	}
+
+	byte[] getBuffer() {
+		return buffer;
+	}
+
+	/** Count of complete bytes written. */
+	int getLength() {
+		return length;
+	}
+}
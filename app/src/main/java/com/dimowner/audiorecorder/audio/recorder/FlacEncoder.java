@@ -0,0 +1,655 @@
+/*
+ * Copyright 2026 Dmytro Ponomarenko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dimowner.audiorecorder.audio.recorder;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Streaming FLAC encoder of 16 bit PCM. Little-endian interleaved PCM is collected into blocks
+ * of {@link #BLOCK_SIZE} samples and every block is written as a FLAC frame right away.
+ * Each channel is encoded by the cheapest of constant, verbatim, fixed or LPC predictor
+ * with Rice coded residual, stereo is decorrelated by the cheapest of left/side, right/side
+ * or mid/side modes. STREAMINFO with total samples and MD5 is rewritten by {@link #finish()}.
+ */
+public class FlacEncoder implements RecordFileSink {
+
+	public static final int BLOCK_SIZE = 4096;
+	public static final int BITS_PER_SAMPLE = 16;
+
+	private static final int STREAMINFO_OFFSET = 4;
+	private static final int STREAMINFO_SIZE = 34;
+	/** 'fLaC' marker and STREAMINFO metadata block. */
+	public static final int HEADER_SIZE = STREAMINFO_OFFSET + 4 + STREAMINFO_SIZE;
+
+	private static final int MAX_LPC_ORDER = 8;
+	private static final int LPC_PRECISION = 12;
+	private static final int MAX_FIXED_ORDER = 4;
+	private static final int MAX_PARTITION_ORDER = 8;
+	private static final int MAX_RICE_PARAMETER = 14;
+	/** Residual bigger than this is not encoded, verbatim subframe is used instead. */
+	private static final int MAX_RESIDUAL = 1 << 30;
+
+	private static final int CHANNELS_INDEPENDENT = -1;
+	private static final int CHANNELS_LEFT_SIDE = 8;
+	private static final int CHANNELS_RIGHT_SIDE = 9;
+	private static final int CHANNELS_MID_SIDE = 10;
+
+	private static final int[] SAMPLE_RATES = {
+			0, 88200, 176400, 192000, 8000, 16000, 22050, 24000, 32000, 44100, 48000, 96000
+	};
+
+	private final FileChannel channel;
+	private final int sampleRate;
+	private final int channels;
+	private final int blockAlign;
+	private final FlacBitWriter bits;
+	private final MessageDigest md5;
+
+	/** Not encoded samples of the current block for each channel. */
+	private final int[][] block;
+	private int blockLength = 0;
+	/** PCM bytes which don't make a whole sample frame yet. */
+	private final byte[] pending;
+	private int pendingLength = 0;
+
+	private final int[] mid = new int[BLOCK_SIZE];
+	private final int[] side = new int[BLOCK_SIZE];
+	private final int[] residual = new int[BLOCK_SIZE];
+	private final int[] bestResidual = new int[BLOCK_SIZE];
+	private final int[] riceParameters = new int[1 << MAX_PARTITION_ORDER];
+	private final int[] bestRiceParameters = new int[1 << MAX_PARTITION_ORDER];
+	private final long[] partitionSums = new long[2 << MAX_PARTITION_ORDER];
+	private final double[] window = new double[BLOCK_SIZE];
+	private final double[] windowed = new double[BLOCK_SIZE];
+	private final double[] autocorrelation = new double[MAX_LPC_ORDER + 1];
+	private final double[][] lpc = new double[MAX_LPC_ORDER][MAX_LPC_ORDER];
+	private final int[] coefficients = new int[MAX_LPC_ORDER];
+	private final int[] bestCoefficients = new int[MAX_LPC_ORDER];
+	private int windowLength = 0;
+	private int riceParameterOrder;
+	private int lpcShift;
+
+	private long frameNumber = 0;
+	private long totalSamples = 0;
+	private int minFrameSize = Integer.MAX_VALUE;
+	private int maxFrameSize = 0;
+	private long encodedBytes = 0;
+
+	public FlacEncoder(FileChannel channel, int sampleRate, int channels) {
+		if (channels < 1 || channels > 8) {
+			throw new IllegalArgumentException("Unsupported channels count: " + channels);
+		}
+		this.channel = channel;
+		this.sampleRate = sampleRate;
+		this.channels = channels;
+		this.blockAlign = channels * BITS_PER_SAMPLE / 8;
+		this.block = new int[channels][BLOCK_SIZE];
+		this.pending = new byte[blockAlign];
+		this.bits = new FlacBitWriter(BLOCK_SIZE * channels * (BITS_PER_SAMPLE + 1) / 8 + 64);
+		try {
+			this.md5 = MessageDigest.getInstance("MD5");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Write stream marker and STREAMINFO at the beginning of the file,
+	 * frames are written after it.
+	 */
+	public void start() throws IOException {
+		writeFully(generateHeader(), 0);
+		encodedBytes = HEADER_SIZE;
+	}
+
+	/**
+	 * Encode little-endian interleaved 16 bit PCM.
+	 */
+	@Override
+	public void write(ByteBuffer data) throws IOException {
+		data.order(ByteOrder.LITTLE_ENDIAN);
+		if (pendingLength > 0) {
+			while (pendingLength < blockAlign && data.hasRemaining()) {
+				pending[pendingLength++] = data.get();
+			}
+			if (pendingLength < blockAlign) {
+				return;
+			}
+			md5.update(pending, 0, blockAlign);
+			addSamples(ByteBuffer.wrap(pending).order(ByteOrder.LITTLE_ENDIAN), 1);
+			pendingLength = 0;
+		}
+		int frames = data.remaining() / blockAlign;
+		int start = data.position();
+		if (data.hasArray()) {
+			md5.update(data.array(), data.arrayOffset() + start, frames * blockAlign);
+		} else {
+			ByteBuffer slice = data.duplicate();
+			slice.limit(start + frames * blockAlign);
+			md5.update(slice);
+		}
+		addSamples(data, frames);
+		while (data.hasRemaining()) {
+			pending[pendingLength++] = data.get();
+		}
+	}
+
+	private void addSamples(ByteBuffer data, int frames) throws IOException {
+		while (frames > 0) {
+			int count = Math.min(frames, BLOCK_SIZE - blockLength);
+			for (int i = blockLength; i < blockLength + count; i++) {
+				for (int ch = 0; ch < channels; ch++) {
+					block[ch][i] = data.getShort();
+				}
+			}
+			blockLength += count;
+			frames -= count;
+			if (blockLength == BLOCK_SIZE) {
+				encodeFrame();
+			}
+		}
+	}
+
+	/**
+	 * Encode the last incomplete block and write final STREAMINFO.
+	 */
+	@Override
+	public void finish() throws IOException {
+		if (blockLength > 0) {
+			encodeFrame();
+		}
+		writeFully(generateHeader(), 0);
+	}
+
+	public long getTotalSamples() {
+		return totalSamples;
+	}
+
+	/** Size of the encoded stream in bytes. */
+	public long getEncodedBytes() {
+		return encodedBytes;
+	}
+
+	private ByteBuffer generateHeader() {
+		FlacBitWriter header = new FlacBitWriter(HEADER_SIZE);
+		header.writeBits(0x664C6143, 32); // 'fLaC'
+		header.writeBits(1, 1); // last metadata block
+		header.writeBits(0, 7); // STREAMINFO
+		header.writeBits(STREAMINFO_SIZE, 24);
+		header.writeBits(BLOCK_SIZE, 16);
+		header.writeBits(BLOCK_SIZE, 16);
+		header.writeBits(maxFrameSize > 0 ? minFrameSize : 0, 24);
+		header.writeBits(maxFrameSize, 24);
+		header.writeBits(sampleRate, 20);
+		header.writeBits(channels - 1, 3);
+		header.writeBits(BITS_PER_SAMPLE - 1, 5);
+		header.writeLong(totalSamples, 36);
+		byte[] digest = totalSamples > 0 ? cloneDigest().digest() : new byte[16];
+		for (byte b : digest) {
+			header.writeBits(b, 8);
+		}
+		return ByteBuffer.wrap(header.getBuffer(), 0, header.getLength());
+	}
+
+	private MessageDigest cloneDigest() {
+		try {
+			return (MessageDigest) md5.clone();
+		} catch (CloneNotSupportedException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private void writeFully(ByteBuffer data, long position) throws IOException {
+		while (data.hasRemaining()) {
+			position += channel.write(data, position);
+		}
+	}
+
+	private void encodeFrame() throws IOException {
+		int n = blockLength;
+		int assignment = CHANNELS_INDEPENDENT;
+		if (channels == 2) {
+			assignment = selectStereoMode(n);
+		}
+		bits.reset();
+		bits.writeBits(0xFFF8, 16); // sync code, fixed block size
+		bits.writeBits(0x7, 4); // 16 bit block size at the end of header
+		bits.writeBits(getSampleRateCode(), 4);
+		bits.writeBits(assignment == CHANNELS_INDEPENDENT ? channels - 1 : assignment, 4);
+		bits.writeBits(0x4, 3); // 16 bits per sample
+		bits.writeBits(0, 1);
+		bits.writeUtf8(frameNumber);
+		bits.writeBits(n - 1, 16);
+		bits.writeBits(bits.crc8(), 8);
+
+		switch (assignment) {
+			case CHANNELS_LEFT_SIDE:
+				encodeSubframe(block[0], n, BITS_PER_SAMPLE);
+				encodeSubframe(side, n, BITS_PER_SAMPLE + 1);
+				break;
+			case CHANNELS_RIGHT_SIDE:
+				encodeSubframe(side, n, BITS_PER_SAMPLE + 1);
+				encodeSubframe(block[1], n, BITS_PER_SAMPLE);
+				break;
+			case CHANNELS_MID_SIDE:
+				encodeSubframe(mid, n, BITS_PER_SAMPLE);
+				encodeSubframe(side, n, BITS_PER_SAMPLE + 1);
+				break;
+			default:
+				for (int ch = 0; ch < channels; ch++) {
+					encodeSubframe(block[ch], n, BITS_PER_SAMPLE);
+				}
+		}
+		bits.alignToByte();
+		bits.writeBits(bits.crc16(), 16);
+
+		int frameSize = bits.getLength();
+		writeFully(ByteBuffer.wrap(bits.getBuffer(), 0, frameSize), encodedBytes);
+		encodedBytes += frameSize;
+		minFrameSize = Math.min(minFrameSize, frameSize);
+		maxFrameSize = Math.max(maxFrameSize, frameSize);
+		totalSamples += n;
+		frameNumber++;
+		blockLength = 0;
+	}
+
+	private int getSampleRateCode() {
+		for (int i = 1; i < SAMPLE_RATES.length; i++) {
+			if (SAMPLE_RATES[i] == sampleRate) {
+				return i;
+			}
+		}
+		return 0; // taken from STREAMINFO
+	}
+
+	/**
+	 * Choose stereo decorrelation by the sum of second order fixed predictor residuals.
+	 */
+	private int selectStereoMode(int n) {
+		int[] left = block[0];
+		int[] right = block[1];
+		for (int i = 0; i < n; i++) {
+			mid[i] = (left[i] + right[i]) >> 1;
+			side[i] = left[i] - right[i];
+		}
+		long leftCost = fixedOrder2Cost(left, n);
+		long rightCost = fixedOrder2Cost(right, n);
+		long midCost = fixedOrder2Cost(mid, n);
+		long sideCost = fixedOrder2Cost(side, n);
+
+		int mode = CHANNELS_INDEPENDENT;
+		long best = leftCost + rightCost;
+		if (leftCost + sideCost < best) {
+			best = leftCost + sideCost;
+			mode = CHANNELS_LEFT_SIDE;
+		}
+		if (sideCost + rightCost < best) {
+			best = sideCost + rightCost;
+			mode = CHANNELS_RIGHT_SIDE;
+		}
+		if (midCost + sideCost < best) {
+			mode = CHANNELS_MID_SIDE;
+		}
+		return mode;
+	}
+
+	private static long fixedOrder2Cost(int[] x, int n) {
+		long sum = 0;
+		for (int i = 2; i < n; i++) {
+			sum += Math.abs(x[i] - 2 * x[i - 1] + x[i - 2]);
+		}
+		return sum;
+	}
+
+	private void encodeSubframe(int[] x, int n, int bps) {
+		boolean isConstant = true;
+		for (int i = 1; i < n; i++) {
+			if (x[i] != x[0]) {
+				isConstant = false;
+				break;
+			}
+		}
+		if (isConstant) {
+			bits.writeBits(0, 8); // CONSTANT
+			bits.writeBits(x[0], bps);
+			return;
+		}
+
+		long verbatimBits = (long) n * bps;
+		long bestBits = verbatimBits;
+		int bestType = -1;
+		int bestOrder = 0;
+		int bestShift = 0;
+		int bestRiceOrder = 0;
+
+		int fixedOrder = selectFixedOrder(x, n);
+		if (fixedResidual(x, n, fixedOrder)) {
+			long cost = fixedOrder * bps + riceCost(n, fixedOrder);
+			if (cost < bestBits) {
+				bestBits = cost;
+				bestType = 0;
+				bestOrder = fixedOrder;
+				keepBest();
+				bestRiceOrder = riceParameterOrder;
+			}
+		}
+
+		int maxLpcOrder = Math.min(MAX_LPC_ORDER, n - 1);
+		if (maxLpcOrder > 0 && calculateLpc(x, n, maxLpcOrder)) {
+			for (int order = 1; order <= maxLpcOrder; order++) {
+				if (!quantizeLpc(order) || !lpcResidual(x, n, order)) {
+					continue;
+				}
+				long cost = order * (bps + LPC_PRECISION) + 9 + riceCost(n, order);
+				if (cost < bestBits) {
+					bestBits = cost;
+					bestType = 1;
+					bestOrder = order;
+					bestShift = lpcShift;
+					System.arraycopy(coefficients, 0, bestCoefficients, 0, order);
+					keepBest();
+					bestRiceOrder = riceParameterOrder;
+				}
+			}
+		}
+
+		if (bestType == 0) {
+			bits.writeBits(0x10 | bestOrder << 1, 8); // FIXED
+			writeWarmUp(x, bestOrder, bps);
+			writeResidual(n, bestOrder, bestRiceOrder);
+		} else if (bestType == 1) {
+			bits.writeBits(0x40 | (bestOrder - 1) << 1, 8); // LPC
+			writeWarmUp(x, bestOrder, bps);
+			bits.writeBits(LPC_PRECISION - 1, 4);
+			bits.writeBits(bestShift, 5);
+			for (int i = 0; i < bestOrder; i++) {
+				bits.writeBits(bestCoefficients[i], LPC_PRECISION);
+			}
+			writeResidual(n, bestOrder, bestRiceOrder);
+		} else {
+			bits.writeBits(0x2, 8); // VERBATIM
+			for (int i = 0; i < n; i++) {
+				bits.writeBits(x[i], bps);
+			}
+		}
+	}
+
+	private void keepBest() {
+		int partitions = 1 << riceParameterOrder;
+		System.arraycopy(residual, 0, bestResidual, 0, residual.length);
+		System.arraycopy(riceParameters, 0, bestRiceParameters, 0, partitions);
+	}
+
+	private void writeWarmUp(int[] x, int order, int bps) {
+		for (int i = 0; i < order; i++) {
+			bits.writeBits(x[i], bps);
+		}
+	}
+
+	private void writeResidual(int n, int predictorOrder, int partitionOrder) {
+		bits.writeBits(0, 2); // Rice coding with 4 bit parameters
+		bits.writeBits(partitionOrder, 4);
+		int partitionSize = n >> partitionOrder;
+		int i = predictorOrder;
+		for (int p = 0; p < (1 << partitionOrder); p++) {
+			int k = bestRiceParameters[p];
+			bits.writeBits(k, 4);
+			int end = (p + 1) * partitionSize;
+			for (; i < end; i++) {
+				bits.writeRice(bestResidual[i], k);
+			}
+		}
+	}
+
+	/**
+	 * Choose fixed predictor order by the sums of absolute residuals of all orders.
+	 */
+	private static int selectFixedOrder(int[] x, int n) {
+		if (n <= MAX_FIXED_ORDER) {
+			return 0;
+		}
+		long e0 = 0, e1 = 0, e2 = 0, e3 = 0, e4 = 0;
+		int last0 = x[3];
+		int last1 = x[3] - x[2];
+		int last2 = last1 - (x[2] - x[1]);
+		int last3 = last2 - (x[2] - x[1] - (x[1] - x[0]));
+		for (int i = MAX_FIXED_ORDER; i < n; i++) {
+			int r0 = x[i];
+			int r1 = r0 - last0;
+			int r2 = r1 - last1;
+			int r3 = r2 - last2;
+			int r4 = r3 - last3;
+			e0 += Math.abs(r0);
+			e1 += Math.abs(r1);
+			e2 += Math.abs(r2);
+			e3 += Math.abs(r3);
+			e4 += Math.abs(r4);
+			last0 = r0;
+			last1 = r1;
+			last2 = r2;
+			last3 = r3;
+		}
+		int order = 0;
+		long min = e0;
+		if (e1 < min) { min = e1; order = 1; }
+		if (e2 < min) { min = e2; order = 2; }
+		if (e3 < min) { min = e3; order = 3; }
+		if (e4 < min) { order = 4; }
+		return order;
+	}
+
+	private boolean fixedResidual(int[] x, int n, int order) {
+		for (int i = order; i < n; i++) {
+			int r;
+			switch (order) {
+				case 0: r = x[i]; break;
+				case 1: r = x[i] - x[i - 1]; break;
+				case 2: r = x[i] - 2 * x[i - 1] + x[i - 2]; break;
+				case 3: r = x[i] - 3 * x[i - 1] + 3 * x[i - 2] - x[i - 3]; break;
+				default: r = x[i] - 4 * x[i - 1] + 6 * x[i - 2] - 4 * x[i - 3] + x[i - 4];
+			}
+			residual[i] = r;
+		}
+		return true;
+	}
+
+	/**
+	 * Calculate LPC coefficients of all orders up to max order by Levinson-Durbin recursion
+	 * on autocorrelation of the Welch windowed signal.
+	 */
+	private boolean calculateLpc(int[] x, int n, int maxOrder) {
+		if (windowLength != n) {
+			double half = (n - 1) / 2.0;
+			for (int i = 0; i < n; i++) {
+				double t = (i - half) / half;
+				window[i] = 1.0 - t * t;
+			}
+			windowLength = n;
+		}
+		for (int i = 0; i < n; i++) {
+			windowed[i] = x[i] * window[i];
+		}
+		for (int lag = 0; lag <= maxOrder; lag++) {
+			double sum = 0;
+			for (int i = lag; i < n; i++) {
+				sum += windowed[i] * windowed[i - lag];
+			}
+			autocorrelation[lag] = sum;
+		}
+		if (autocorrelation[0] <= 0) {
+			return false;
+		}
+		double error = autocorrelation[0];
+		double[] previous = null;
+		for (int order = 0; order < maxOrder; order++) {
+			double r = -autocorrelation[order + 1];
+			for (int j = 0; j < order; j++) {
+				r -= previous[j] * autocorrelation[order - j];
+			}
+			r /= error;
+			double[] current = lpc[order];
+			for (int j = 0; j < order; j++) {
+				current[j] = previous[j] + r * previous[order - 1 - j];
+			}
+			current[order] = r;
+			error *= 1.0 - r * r;
+			if (error <= 0) {
+				for (int o = order + 1; o < maxOrder; o++) {
+					System.arraycopy(current, 0, lpc[o], 0, order + 1);
+					for (int j = order + 1; j <= o; j++) {
+						lpc[o][j] = 0;
+					}
+				}
+				break;
+			}
+			previous = current;
+		}
+		return true;
+	}
+
+	/**
+	 * Quantize coefficients of the order into {@link #coefficients} and {@link #lpcShift}.
+	 * Levinson-Durbin coefficients are negated predictor coefficients.
+	 */
+	private boolean quantizeLpc(int order) {
+		double[] lp = lpc[order - 1];
+		double max = 0;
+		for (int i = 0; i < order; i++) {
+			max = Math.max(max, Math.abs(lp[i]));
+		}
+		if (max <= 0 || Double.isNaN(max) || Double.isInfinite(max)) {
+			return false;
+		}
+		int shift = LPC_PRECISION - 2 - Math.getExponent(max);
+		shift = Math.max(0, Math.min(15, shift));
+		int qMax = (1 << (LPC_PRECISION - 1)) - 1;
+		int qMin = -(1 << (LPC_PRECISION - 1));
+		double error = 0;
+		for (int i = 0; i < order; i++) {
+			error += -lp[i] * (1 << shift);
+			long q = Math.round(error);
+			q = Math.max(qMin, Math.min(qMax, q));
+			coefficients[i] = (int) q;
+			error -= q;
+		}
+		lpcShift = shift;
+		return true;
+	}
+
+	private boolean lpcResidual(int[] x, int n, int order) {
+		for (int i = order; i < n; i++) {
+			long sum = 0;
+			for (int j = 0; j < order; j++) {
+				sum += (long) coefficients[j] * x[i - j - 1];
+			}
+			long r = x[i] - (sum >> lpcShift);
+			if (r > MAX_RESIDUAL || r < -MAX_RESIDUAL) {
+				return false;
+			}
+			residual[i] = (int) r;
+		}
+		return true;
+	}
+
+	/**
+	 * Estimate bits of Rice coded {@link #residual} with the best partition order.
+	 * Chosen parameters are stored into {@link #riceParameters} and {@link #riceParameterOrder}.
+	 */
+	private long riceCost(int n, int predictorOrder) {
+		int maxOrder = 0;
+		while (maxOrder < MAX_PARTITION_ORDER && (n & (1 << (maxOrder + 1)) - 1) == 0
+				&& (n >> (maxOrder + 1)) > predictorOrder) {
+			maxOrder++;
+		}
+		//Sums of zigzag encoded residual for each partition of max order,
+		//lower orders are stored after it by merging pairs of partitions.
+		int partitions = 1 << maxOrder;
+		int partitionSize = n >> maxOrder;
+		int i = predictorOrder;
+		for (int p = 0; p < partitions; p++) {
+			long sum = 0;
+			int end = (p + 1) * partitionSize;
+			for (; i < end; i++) {
+				int r = residual[i];
+				sum += ((r << 1) ^ (r >> 31)) & 0xFFFFFFFFL;
+			}
+			partitionSums[p] = sum;
+		}
+
+		long bestCost = Long.MAX_VALUE;
+		int offset = 0;
+		for (int order = maxOrder; order >= 0; order--) {
+			int count = 1 << order;
+			int size = n >> order;
+			long cost = 6;
+			for (int p = 0; p < count; p++) {
+				int samples = p == 0 ? size - predictorOrder : size;
+				cost += 4 + riceBits(partitionSums[offset + p], samples, null, 0);
+			}
+			if (cost < bestCost) {
+				bestCost = cost;
+				riceParameterOrder = order;
+				for (int p = 0; p < count; p++) {
+					int samples = p == 0 ? size - predictorOrder : size;
+					riceBits(partitionSums[offset + p], samples, riceParameters, p);
+				}
+			}
+			if (order > 0) {
+				int next = offset + count;
+				for (int p = 0; p < count / 2; p++) {
+					partitionSums[next + p] = partitionSums[offset + 2 * p] + partitionSums[offset + 2 * p + 1];
+				}
+				offset = next;
+			}
+		}
+		return bestCost;
+	}
+
+	/**
+	 * Bits of Rice coded partition with the best parameter. Sum of quotients is
+	 * estimated by sum >> k, it is never less than the actual sum.
+	 */
+	private static long riceBits(long sum, int samples, int[] parameters, int index) {
+		if (samples <= 0) {
+			if (parameters != null) {
+				parameters[index] = 0;
+			}
+			return 0;
+		}
+		long mean = sum / samples;
+		int start = mean > 0 ? Math.max(0, 63 - Long.numberOfLeadingZeros(mean) - 1) : 0;
+		int end = Math.min(MAX_RICE_PARAMETER, start + 2);
+		long best = Long.MAX_VALUE;
+		int bestK = 0;
+		for (int k = Math.min(start, MAX_RICE_PARAMETER); k <= end; k++) {
+			long bitsCount = (long) samples * (k + 1) + (sum >> k);
+			if (bitsCount < best) {
+				best = bitsCount;
+				bestK = k;
+			}
+		}
+		if (parameters != null) {
+			parameters[index] = bestK;
+		}
+		return best;
+	}
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright 2026 Dmytro Ponomarenko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dimowner.audiorecorder.audio.recorder;
+
+import android.os.Build;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import timber.log.Timber;
+import androidx.annotation.RequiresApi;
+
+/**
+ * Records microphone PCM into FLAC file. Captured data is encoded block by block
+ * by {@link FlacEncoder} on the writer thread.
+ */
+public class FlacRecorder extends PcmRecorder {
+
+	private static class FlacRecorderSingletonHolder {
+		private static final FlacRecorder singleton = new FlacRecorder();
+
+		public static FlacRecorder getSingleton() {
+			return FlacRecorderSingletonHolder.singleton;
+		}
+	}
+
+	public static FlacRecorder getInstance() {
+		return FlacRecorderSingletonHolder.getSingleton();
+	}
+
+	private FlacRecorder() { }
+
+	@Override
+	protected RecordFileSink createSink(FileChannel channel) throws IOException {
+		FlacEncoder encoder = new FlacEncoder(channel, sampleRate, channelCount);
+		encoder.start();
+		return encoder;
+	}
+
+	@RequiresApi(api = Build.VERSION_CODES.LOLLIPOP)
+	@Override
+	public void startSystemAudioRecording(android.media.projection.MediaProjection projection, String outputFile,
+	                                       int channelCount, int sampleRate, int bitrate) {
+		// FLAC recorder doesn't support system audio recording via MediaProjection
+		// Fallback to normal microphone recording
+		Timber.w("FLAC format doesn't support system audio recording, using microphone instead");
+		startRecording(outputFile, channelCount, sampleRate, bitrate);
+	}
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright 2026 Dmytro Ponomarenko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dimowner.audiorecorder.audio.recorder;
+
+/**
+ * Fixed gain. Samples out of 16 bit range are clipped.
+ */
+public class GainProcessor implements PcmProcessor {
+
+	private final float gainDb;
+	/** Gain multiplier in Q16 fixed point. */
+	private final int gain;
+
+	public GainProcessor(float gainDb) {
+		this.gainDb = gainDb;
+		this.gain = (int) Math.round(Math.pow(10, gainDb / 20) * 65536);
+	}
+
+	@Override
+	public void prepare(int sampleRate, int channelCount) {
+	}
+
+	@Override
+	public void process(short[] samples, int offset, int length) {
+		final int end = offset + length;
+		for (int i = offset; i < end; i++) {
+			long value = ((long) samples[i] * gain + 32768) >> 16;
+			samples[i] = (short) Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, value));
+		}
+	}
+
+	@Override
+	public String getName() {
+		return "gain " + gainDb + " dB";
+	}
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2026 Dmytro Ponomarenko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dimowner.audiorecorder.audio.recorder;
+
+/**
+ * Mutes signal which stays below the threshold longer than the hold time.
+ * Gate gain is changed smoothly to avoid clicks: fast on opening and slow on closing.
+ */
+public class NoiseGate implements PcmProcessor {
+
+	private static final float ATTACK_MILLS = 2;
+	private static final float RELEASE_MILLS = 80;
+	private static final float HOLD_MILLS = 150;
+
+	private final float thresholdDb;
+	private final int threshold;
+
+	private int channelCount = 1;
+	private int holdFrames = 0;
+	private float attackCoefficient = 1;
+	private float releaseCoefficient = 1;
+
+	private int holdCounter = 0;
+	private float gateGain = 0;
+
+	/**
+	 * @param thresholdDb threshold relative to 16 bit full scale.
+	 */
+	public NoiseGate(float thresholdDb) {
+		this.thresholdDb = thresholdDb;
+		this.threshold = (int) Math.round(Math.pow(10, thresholdDb / 20) * Short.MAX_VALUE);
+	}
+
+	@Override
+	public void prepare(int sampleRate, int channelCount) {
+		this.channelCount = channelCount;
+		holdFrames = (int) (HOLD_MILLS * sampleRate / 1000);
+		attackCoefficient = (float) (1 - Math.exp(-1000.0 / (ATTACK_MILLS * sampleRate)));
+		releaseCoefficient = (float) (1 - Math.exp(-1000.0 / (RELEASE_MILLS * sampleRate)));
+		holdCounter = 0;
+		gateGain = 0;
+	}
+
+	@Override
+	public void process(short[] samples, int offset, int length) {
+		final int end = offset + length - channelCount + 1;
+		for (int i = offset; i < end; i += channelCount) {
+			int level = 0;
+			for (int ch = 0; ch < channelCount; ch++) {
+				int s = samples[i + ch];
+				int mask = s >> 31;
+				level = Math.max(level, (s ^ mask) - mask);
+			}
+			if (level >= threshold) {
+				holdCounter = holdFrames;
+			} else if (holdCounter > 0) {
+				holdCounter--;
+			}
+			if (holdCounter > 0) {
+				gateGain += (1 - gateGain) * attackCoefficient;
+			} else {
+				gateGain -= gateGain * releaseCoefficient;
+			}
+			if (gateGain < 0.999f) {
+				for (int ch = 0; ch < channelCount; ch++) {
+					samples[i + ch] = (short) (samples[i + ch] * gateGain);
+				}
+			}
+		}
+	}
+
+	@Override
+	public String getName() {
+		return "noise gate " + thresholdDb + " dB";
+	}
+}
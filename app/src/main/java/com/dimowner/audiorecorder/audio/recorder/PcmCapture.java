@@ -0,0 +1,143 @@
+/*
+ * Copyright 2026 Dmytro Ponomarenko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dimowner.audiorecorder.audio.recorder;
+
+/**
+ * Capture step of PCM recorders: reads a buffer from {@link PcmSource}, applies {@link PcmProcessorChain},
+ * measures its level and publishes it into {@link PcmWriter}, skipping silence with {@link SilenceSkipper}.
+ * Used by one capture thread and doesn't allocate per buffer.
+ */
+public class PcmCapture {
+
+	/** Mean absolute sample value is multiplied by this to get visualisation amplitude. */
+	public static final int AMPLITUDE_SCALE = 8;
+
+	private final PcmSource source;
+	private final PcmProcessorChain chain;
+	private final SilenceSkipper skipper;
+	private final short[] samples;
+	private final int frameSize;
+	private final PcmLevelMeter levelMeter = new PcmLevelMeter();
+
+	/** Value for recording visualisation. */
+	private volatile int amplitude = 0;
+	/** Count of bytes accepted by the writer, data dropped on overrun is not in the record. */
+	private long recordedBytes = 0;
+
+	/**
+	 * @param chain processing applied before data is written, null to write it as is.
+	 * @param skipper skipping of silence, null to write everything.
+	 */
+	public PcmCapture(PcmSource source, PcmProcessorChain chain, SilenceSkipper skipper) {
+		this.source = source;
+		this.chain = chain;
+		this.skipper = skipper;
+		this.frameSize = source.getChannelCount() * 2;
+		if (chain != null) {
+			chain.prepare(source.getSampleRate(), source.getChannelCount());
+			samples = new short[source.getBufferSize() / 2];
+		} else {
+			samples = null;
+		}
+		if (skipper != null) {
+			skipper.prepare(source.getSampleRate(), source.getChannelCount(), source.getBufferSize());
+		}
+	}
+
+	/**
+	 * Read and measure one processed buffer.
+	 * @param chunk array of at least {@link PcmSource#getBufferSize()} bytes.
+	 * @return count of read bytes or negative error code of the source.
+	 */
+	public int read(byte[] chunk) {
+		int read;
+		if (chain != null) {
+			read = source.read(samples, 0, samples.length);
+			if (read > 0) {
+				chain.process(samples, 0, read);
+				read = PcmProcessorChain.toBytes(samples, read, chunk);
+			}
+		} else {
+			read = source.read(chunk, 0, source.getBufferSize());
+		}
+		if (read > 0) {
+			levelMeter.process(chunk, 0, read);
+			amplitude = (int) (levelMeter.getMeanAbs() * AMPLITUDE_SCALE);
+		}
+		return read;
+	}
+
+	/**
+	 * Read one buffer into the writer.
+	 * @return count of read bytes or negative error code of the source.
+	 */
+	public int capture(PcmWriter writer) {
+		byte[] chunk = writer.claimChunk();
+		int read = read(chunk);
+		if (read > 0) {
+			if (skipper != null) {
+				skipper.publish(writer, chunk, read);
+				recordedBytes = skipper.getPublishedBytes();
+			} else if (writer.publishChunk(read)) {
+				recordedBytes += read;
+			}
+		}
+		return read;
+	}
+
+	/**
+	 * Account data set as preamble of the writer.
+	 */
+	public void addPreamble(int length) {
+		if (skipper != null) {
+			skipper.addPreamble(length);
+			recordedBytes = skipper.getPublishedBytes();
+		} else {
+			recordedBytes += length;
+		}
+	}
+
+	public int getAmplitude() {
+		return amplitude;
+	}
+
+	/** Level of the last read buffer. */
+	public PcmLevelMeter getLevelMeter() {
+		return levelMeter;
+	}
+
+	public long getRecordedBytes() {
+		return recordedBytes;
+	}
+
+	/** Count of frames in the record. */
+	public long getRecordedFrames() {
+		return recordedBytes / frameSize;
+	}
+
+	public PcmSource getSource() {
+		return source;
+	}
+
+	public PcmProcessorChain getProcessorChain() {
+		return chain;
+	}
+
+	public SilenceSkipper getSilenceSkipper() {
+		return skipper;
+	}
+}
@@ -0,0 +1,181 @@
+/*
+ * Copyright 2026 Dmytro Ponomarenko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dimowner.audiorecorder.audio.recorder;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Circular buffer which keeps the last captured PCM before recording is started.
+ * The newest data overwrites the oldest, so memory use is fixed. Along with PCM
+ * it keeps visualisation amplitude of every written chunk.
+ * Written by capture thread. Once capture thread stops writing it can be read by any thread.
+ * Then one thread may use it as a queue: take the oldest data by {@link #skip(int)}
+ * and append more by {@link #append(ByteBuffer)}, amplitudes stay those of written data.
+ */
+public class PcmHistoryBuffer {
+
+	private final byte[] data;
+	private final int[] levels;
+	private final int[] levelLengths;
+
+	/** Physical position of the next byte to write. */
+	private int writePosition = 0;
+	private int size = 0;
+	private int levelWritePosition = 0;
+	private int levelCount = 0;
+	/** Count of bytes written by {@link #write(byte[], int, int, int)} which are still in the buffer. */
+	private int levelBytes = 0;
+
+	/**
+	 * @param capacity size of the buffer in bytes, rounded down to whole frames.
+	 * @param frameSize size of one frame of all channels in bytes.
+	 * @param chunkSize expected size of written chunks, used to size amplitudes storage.
+	 */
+	public PcmHistoryBuffer(int capacity, int frameSize, int chunkSize) {
+		if (capacity < frameSize || frameSize <= 0 || chunkSize <= 0) {
+			throw new IllegalArgumentException("capacity = " + capacity + " frameSize = " + frameSize
+					+ " chunkSize = " + chunkSize);
+		}
+		this.data = new byte[capacity - capacity % frameSize];
+		int levelsCapacity = this.data.length / chunkSize + 2;
+		this.levels = new int[levelsCapacity];
+		this.levelLengths = new int[levelsCapacity];
+	}
+
+	/**
+	 * Append captured data. The oldest data is overwritten when buffer is full.
+	 * @param level visualisation amplitude of the data.
+	 */
+	public void write(byte[] src, int offset, int length, int level) {
+		final int capacity = data.length;
+		if (length >= capacity) {
+			System.arraycopy(src, offset + length - capacity, data, 0, capacity);
+			writePosition = 0;
+			size = capacity;
+			levelBytes = capacity;
+		} else {
+			int tail = Math.min(length, capacity - writePosition);
+			System.arraycopy(src, offset, data, writePosition, tail);
+			System.arraycopy(src, offset + tail, data, 0, length - tail);
+			writePosition = (writePosition + length) % capacity;
+			size = Math.min(capacity, size + length);
+			levelBytes = Math.min(capacity, levelBytes + length);
+		}
+		levels[levelWritePosition] = level;
+		levelLengths[levelWritePosition] = length;
+		levelWritePosition = (levelWritePosition + 1) % levels.length;
+		levelCount = Math.min(levels.length, levelCount + 1);
+	}
+
+	public void clear() {
+		writePosition = 0;
+		size = 0;
+		levelWritePosition = 0;
+		levelCount = 0;
+		levelBytes = 0;
+	}
+
+	/**
+	 * Append data behind buffered data if it fits into free space, buffered data is never overwritten.
+	 * @return false when there is not enough free space, nothing is appended then.
+	 */
+	public boolean append(ByteBuffer src) {
+		final int capacity = data.length;
+		int length = src.remaining();
+		if (length > capacity - size) {
+			return false;
+		}
+		int tail = Math.min(length, capacity - writePosition);
+		src.get(data, writePosition, tail);
+		src.get(data, 0, length - tail);
+		writePosition = (writePosition + length) % capacity;
+		size += length;
+		return true;
+	}
+
+	/**
+	 * Remove the oldest buffered data.
+	 */
+	public void skip(int length) {
+		size -= Math.min(length, size);
+	}
+
+	public int capacity() {
+		return data.length;
+	}
+
+	/** Count of buffered bytes. */
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * View of buffered data in the order it was written. Data doesn't wrap inside the view,
+	 * so it may be shorter than requested.
+	 * @param position offset from the oldest buffered byte.
+	 * @param maxLength max size of the view.
+	 */
+	public ByteBuffer view(int position, int maxLength) {
+		final int capacity = data.length;
+		int start = (writePosition - size + position + capacity) % capacity;
+		int length = Math.min(Math.min(maxLength, size - position), capacity - start);
+		return ByteBuffer.wrap(data, start, length);
+	}
+
+	/**
+	 * Copy buffered data in the order it was written.
+	 * @return count of copied bytes.
+	 */
+	public int copyTo(byte[] dst) {
+		int copied = 0;
+		while (copied < size && copied < dst.length) {
+			ByteBuffer view = view(copied, dst.length - copied);
+			int length = view.remaining();
+			view.get(dst, copied, length);
+			copied += length;
+		}
+		return copied;
+	}
+
+	/**
+	 * Amplitudes of buffered data resampled into the requested count of values, the oldest first.
+	 */
+	public int[] getLevels(int count) {
+		int[] result = new int[Math.max(count, 0)];
+		if (count <= 0 || levelBytes == 0) {
+			return result;
+		}
+		//Take only amplitudes of chunks which data is still in the buffer.
+		int available = 0;
+		int covered = 0;
+		while (available < levelCount && covered < levelBytes) {
+			int index = (levelWritePosition - 1 - available + levels.length) % levels.length;
+			covered += levelLengths[index];
+			available++;
+		}
+		int first = (levelWritePosition - available + levels.length) % levels.length;
+		for (int i = 0; i < count; i++) {
+			int k = (int) ((long) i * available / count);
+			result[i] = levels[(first + k) % levels.length];
+		}
+		return result;
+	}
+}
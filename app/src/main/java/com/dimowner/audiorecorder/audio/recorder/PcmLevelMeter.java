@@ -0,0 +1,131 @@
+/*
+ * Copyright 2026 Dmytro Ponomarenko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dimowner.audiorecorder.audio.recorder;
+
+import java.nio.ShortBuffer;
+
+/**
+ * Measures level of 16 bit PCM buffers: peak, RMS and mean absolute value.
+ * All values are computed in one pass over the samples without any allocation,
+ * so an instance can be reused on the recording thread for every captured buffer.
+ */
+public class PcmLevelMeter {
+
+	private int peak = 0;
+	private double rms = 0;
+	private double meanAbs = 0;
+	private int sampleCount = 0;
+
+	/**
+	 * Measure samples of the array in range [offset, offset + length).
+	 */
+	public void process(short[] samples, int offset, int length) {
+		int max = 0;
+		long sumAbs = 0;
+		long sumSquares = 0;
+		final int end = offset + length;
+		for (int i = offset; i < end; i++) {
+			int s = samples[i];
+			int mask = s >> 31;
+			int abs = (s ^ mask) - mask;
+			max = Math.max(max, abs);
+			sumAbs += abs;
+			sumSquares += s * s;
+		}
+		update(max, sumAbs, sumSquares, length);
+	}
+
+	/**
+	 * Measure the first {@code length} samples of the buffer. Buffer position is not changed.
+	 * For the little-endian view over the byte array read from AudioRecord use
+	 * {@code ByteBuffer.wrap(data).order(ByteOrder.LITTLE_ENDIAN).asShortBuffer()}.
+	 */
+	public void process(ShortBuffer samples, int length) {
+		int max = 0;
+		long sumAbs = 0;
+		long sumSquares = 0;
+		for (int i = 0; i < length; i++) {
+			int s = samples.get(i);
+			int mask = s >> 31;
+			int abs = (s ^ mask) - mask;
+			max = Math.max(max, abs);
+			sumAbs += abs;
+			sumSquares += s * s;
+		}
+		update(max, sumAbs, sumSquares, length);
+	}
+
+	/**
+	 * Measure 16 bit little-endian samples stored in the byte array in range
+	 * [offset, offset + byteLength), as they are read from AudioRecord.
+	 */
+	public void process(byte[] data, int offset, int byteLength) {
+		int max = 0;
+		long sumAbs = 0;
+		long sumSquares = 0;
+		final int length = byteLength / 2;
+		final int end = offset + length * 2;
+		for (int i = offset; i < end; i += 2) {
+			int s = (short) ((data[i] & 0xff) | (data[i + 1] << 8));
+			int mask = s >> 31;
+			int abs = (s ^ mask) - mask;
+			max = Math.max(max, abs);
+			sumAbs += abs;
+			sumSquares += s * s;
+		}
+		update(max, sumAbs, sumSquares, length);
+	}
+
+	private void update(int max, long sumAbs, long sumSquares, int length) {
+		sampleCount = length;
+		peak = max;
+		if (length > 0) {
+			meanAbs = (double) sumAbs / length;
+			rms = Math.sqrt((double) sumSquares / length);
+		} else {
+			meanAbs = 0;
+			rms = 0;
+		}
+	}
+
+	public void reset() {
+		peak = 0;
+		rms = 0;
+		meanAbs = 0;
+		sampleCount = 0;
+	}
+
+	/** Max absolute sample value of the last processed buffer. */
+	public int getPeak() {
+		return peak;
+	}
+
+	/** Root mean square of the last processed buffer. */
+	public double getRms() {
+		return rms;
+	}
+
+	/** Mean absolute sample value of the last processed buffer. */
+	public double getMeanAbs() {
+		return meanAbs;
+	}
+
+	/** Samples count of the last processed buffer. */
+	public int getSampleCount() {
+		return sampleCount;
+	}
+}
@@ -0,0 +1,38 @@
+/*
+ * Copyright 2026 Dmytro Ponomarenko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dimowner.audiorecorder.audio.recorder;
+
+/**
+ * Stage of real-time processing of captured PCM, see {@link PcmProcessorChain}.
+ * Stages are called on the recording thread, so they must not allocate or block.
+ */
+public interface PcmProcessor {
+
+	/**
+	 * Prepare for the format of captured PCM and reset the state. Called before recording.
+	 */
+	void prepare(int sampleRate, int channelCount);
+
+	/**
+	 * Process interleaved 16 bit samples of the array in range [offset, offset + length) in place.
+	 * The range holds whole sample frames, so it starts with the first channel.
+	 */
+	void process(short[] samples, int offset, int length);
+
+	/** Stage name for statistics. */
+	String getName();
+}
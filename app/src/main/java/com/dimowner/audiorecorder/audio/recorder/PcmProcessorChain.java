@@ -0,0 +1,132 @@
+/*
+ * Copyright 2026 Dmytro Ponomarenko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dimowner.audiorecorder.audio.recorder;
+
+/**
+ * Runs {@link PcmProcessor} stages one after another over captured PCM
+ * and accounts CPU time spent by each stage.
+ */
+public class PcmProcessorChain {
+
+	/** Rumble filter cutoff frequency in Hz. */
+	private static final float HIGH_PASS_FREQUENCY = 80;
+	private static final float DEFAULT_GAIN_DB = 6;
+	private static final float NOISE_GATE_THRESHOLD_DB = -55;
+
+	private final PcmProcessor[] stages;
+	private final long[] stageNanos;
+	private long processedSamples = 0;
+	private int sampleRate = 0;
+	private int channelCount = 1;
+
+	public PcmProcessorChain(PcmProcessor... stages) {
+		this.stages = stages;
+		this.stageNanos = new long[stages.length];
+	}
+
+	/**
+	 * DC offset removal, high-pass rumble filter, fixed gain and noise gate.
+	 */
+	public static PcmProcessorChain createDefault() {
+		return new PcmProcessorChain(
+				BiquadFilter.dcBlocker(),
+				BiquadFilter.highPass(HIGH_PASS_FREQUENCY, BiquadFilter.Q_BUTTERWORTH),
+				new GainProcessor(DEFAULT_GAIN_DB),
+				new NoiseGate(NOISE_GATE_THRESHOLD_DB)
+		);
+	}
+
+	public void prepare(int sampleRate, int channelCount) {
+		this.sampleRate = sampleRate;
+		this.channelCount = channelCount;
+		for (PcmProcessor stage : stages) {
+			stage.prepare(sampleRate, channelCount);
+		}
+		for (int i = 0; i < stageNanos.length; i++) {
+			stageNanos[i] = 0;
+		}
+		processedSamples = 0;
+	}
+
+	/**
+	 * Process interleaved samples in place by all stages.
+	 */
+	public void process(short[] samples, int offset, int length) {
+		for (int i = 0; i < stages.length; i++) {
+			long start = System.nanoTime();
+			stages[i].process(samples, offset, length);
+			stageNanos[i] += System.nanoTime() - start;
+		}
+		processedSamples += length;
+	}
+
+	/**
+	 * Convert samples into little-endian bytes of 16 bit PCM.
+	 * @return count of written bytes.
+	 */
+	public static int toBytes(short[] samples, int length, byte[] out) {
+		for (int i = 0, j = 0; i < length; i++, j += 2) {
+			short s = samples[i];
+			out[j] = (byte) s;
+			out[j + 1] = (byte) (s >> 8);
+		}
+		return length * 2;
+	}
+
+	public int getStageCount() {
+		return stages.length;
+	}
+
+	public String getStageName(int index) {
+		return stages[index].getName();
+	}
+
+	/** CPU time spent by the stage since {@link #prepare(int, int)}. */
+	public long getStageNanos(int index) {
+		return stageNanos[index];
+	}
+
+	public long getProcessedSamples() {
+		return processedSamples;
+	}
+
+	/**
+	 * Processing time of all stages per second of processed audio in microseconds.
+	 */
+	public long getMicrosPerSecond() {
+		long frames = processedSamples / channelCount;
+		if (frames == 0) {
+			return 0;
+		}
+		long total = 0;
+		for (long nanos : stageNanos) {
+			total += nanos;
+		}
+		return total * sampleRate / frames / 1000;
+	}
+
+	/** Statistics for logs. */
+	public String getStatistics() {
+		StringBuilder builder = new StringBuilder();
+		builder.append("total = ").append(getMicrosPerSecond()).append(" us per second of audio");
+		for (int i = 0; i < stages.length; i++) {
+			builder.append(", ").append(stages[i].getName()).append(" = ")
+					.append(stageNanos[i] / 1000).append(" us");
+		}
+		return builder.toString();
+	}
+}
@@ -0,0 +1,301 @@
+/*
+ * Copyright 2026 Dmytro Ponomarenko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dimowner.audiorecorder.audio.recorder;
+
+import com.dimowner.audiorecorder.AppConstants;
+import com.dimowner.audiorecorder.exception.InvalidOutputFile;
+import com.dimowner.audiorecorder.exception.RecorderInitException;
+import com.dimowner.audiorecorder.exception.RecordingException;
+import com.dimowner.audiorecorder.util.AndroidUtils;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+import timber.log.Timber;
+import androidx.annotation.RequiresPermission;
+
+/**
+ * Recorder of microphone PCM. Capture thread reads {@link PcmSource} through {@link PcmCapture}
+ * and publishes data into {@link PcmWriter}, which writes it into {@link RecordFileSink} of the record.
+ * Subclasses give the sink, so pause, stop and the write loop are the same for all PCM formats.
+ */
+public abstract class PcmRecorder implements RecorderContract.Recorder {
+
+	/** Count of AudioRecord buffers which may wait for the writer thread during storage stall. */
+	protected static final int RING_CHUNKS_COUNT = 128;
+
+	protected PcmSource source = null;
+	protected volatile PcmCapture capture = null;
+
+	protected File recordFile = null;
+	protected final RecordingClock clock = new RecordingClock();
+
+	protected volatile Thread recordingThread;
+
+	protected final AtomicBoolean isRecording = new AtomicBoolean(false);
+	protected final AtomicBoolean isPaused = new AtomicBoolean(false);
+
+	protected int channelCount = 1;
+	protected int sampleRate = AppConstants.RECORD_SAMPLE_RATE_44100;
+
+	private PcmProcessorChain processorChain = null;
+	private SilenceSkipper silenceSkipper = null;
+
+	protected RecorderContract.RecorderCallback recorderCallback;
+
+	/**
+	 * Create sink which writes PCM of the record into the file channel.
+	 */
+	protected abstract RecordFileSink createSink(FileChannel channel) throws IOException;
+
+	@Override
+	public void setRecorderCallback(RecorderContract.RecorderCallback callback) {
+		recorderCallback = callback;
+	}
+
+	/**
+	 * Set processing of captured PCM before it is written, null to write it as is.
+	 * Applied from the next recording.
+	 */
+	public void setProcessorChain(PcmProcessorChain chain) {
+		processorChain = chain;
+	}
+
+	/**
+	 * Set skipping of silence while recording, null to record everything.
+	 * Applied from the next recording.
+	 */
+	public void setSilenceSkipper(SilenceSkipper skipper) {
+		silenceSkipper = skipper;
+	}
+
+	@Override
+	@RequiresPermission(value = "android.permission.RECORD_AUDIO")
+	public void startRecording(String outputFile, int channelCount, int sampleRate, int bitrate) {
+		this.sampleRate = sampleRate;
+		this.channelCount = channelCount;
+		recordFile = new File(outputFile);
+		if (recordFile.exists() && recordFile.isFile()) {
+			if (createSource()) {
+				source.start();
+				clock.startFrames(sampleRate, 0);
+				isRecording.set(true);
+				recordingThread = new Thread(this::capture, "AudioRecorder Thread");
+
+				recordingThread.start();
+				if (recorderCallback != null) {
+					recorderCallback.onStartRecord(recordFile);
+				}
+				isPaused.set(false);
+			} else {
+				Timber.e("prepare() failed");
+				if (recorderCallback != null) {
+					recorderCallback.onError(new RecorderInitException());
+				}
+			}
+		} else {
+			if (recorderCallback != null) {
+				recorderCallback.onError(new InvalidOutputFile());
+			}
+		}
+	}
+
+	@RequiresPermission(value = "android.permission.RECORD_AUDIO")
+	protected boolean createSource() {
+		source = AudioRecordSource.create(sampleRate, channelCount);
+		if (source == null) {
+			return false;
+		}
+		capture = new PcmCapture(source, processorChain, silenceSkipper);
+		return true;
+	}
+
+	@Override
+	public void resumeRecording() {
+		if (source != null) {
+			if (isPaused.get()) {
+				source.start();
+				if (recorderCallback != null) {
+					recorderCallback.onResumeRecord();
+				}
+				isPaused.set(false);
+				wakeUpCapture();
+			}
+		}
+	}
+
+	@Override
+	public void pauseRecording() {
+		if (isRecording.get()) {
+			isPaused.set(true);
+			source.stop();
+
+			if (recorderCallback != null) {
+				recorderCallback.onPauseRecord();
+			}
+		}
+	}
+
+	@Override
+	public void stopRecording() {
+		if (source != null) {
+			isRecording.set(false);
+			isPaused.set(false);
+			wakeUpCapture();
+			try {
+				source.stop();
+			} catch (IllegalStateException e) {
+				Timber.e(e, "stopRecording() problems");
+			}
+			source.release();
+		}
+	}
+
+	private void wakeUpCapture() {
+		Thread thread = recordingThread;
+		if (thread != null) {
+			LockSupport.unpark(thread);
+		}
+	}
+
+	@Override
+	public boolean isRecording() {
+		return isRecording.get();
+	}
+
+	@Override
+	public boolean isPaused() {
+		return isPaused.get();
+	}
+
+	@Override
+	public long getRecordingDurationMills() {
+		return clock.getDurationMills();
+	}
+
+	@Override
+	public int getAmplitude() {
+		PcmCapture c = capture;
+		return c != null ? c.getAmplitude() : 0;
+	}
+
+	/** Body of the capture thread. */
+	protected void capture() {
+		record(capture, null);
+	}
+
+	/**
+	 * Write the record until recording is stopped.
+	 * Stop is reported when the sink is finished and the file is closed.
+	 * @param preamble audio captured before the record was started, written at its beginning, or null.
+	 */
+	protected void record(PcmCapture capture, PcmHistoryBuffer preamble) {
+		File file = recordFile;
+		writeAudioDataToFile(capture, file, preamble);
+		AndroidUtils.runOnUIThread(() -> {
+			if (recorderCallback != null) {
+				recorderCallback.onStopRecord(file);
+			}
+		});
+	}
+
+	private void writeAudioDataToFile(PcmCapture capture, File file, PcmHistoryBuffer preamble) {
+		FileOutputStream fos;
+		RecordFileSink sink;
+		try {
+			fos = new FileOutputStream(file);
+		} catch (FileNotFoundException e) {
+			Timber.e(e);
+			return;
+		}
+		try {
+			sink = createSink(fos.getChannel());
+		} catch (IOException e) {
+			Timber.e(e);
+			closeQuietly(fos);
+			return;
+		}
+		PcmWriter writer = new PcmWriter(new PcmRingBuffer(RING_CHUNKS_COUNT,
+				capture.getSource().getBufferSize()), sink);
+		if (preamble != null && !preamble.isEmpty()) {
+			writer.setPreamble(preamble);
+			capture.addPreamble(preamble.size());
+		}
+		writer.start("AudioRecorder Writer Thread");
+		while (isRecording.get()) {
+			if (isPaused.get()) {
+				//Resume and stop wake the thread up.
+				LockSupport.park(this);
+				continue;
+			}
+			if (capture.capture(writer) > 0) {
+				clock.setFrames(capture.getRecordedFrames());
+			}
+			if (writer.hasError()) {
+				Timber.e(writer.getError());
+				AndroidUtils.runOnUIThread(() -> {
+					recorderCallback.onError(new RecordingException());
+					stopRecording();
+				});
+				break;
+			}
+		}
+		writer.stop();
+		Timber.d("Recording writer: written = %d bytes, dropped = %d bytes, overruns = %d, "
+						+ "high-water mark = %d/%d chunks, write latency avg = %d us, max = %d us",
+				writer.getWrittenBytes(), writer.getDroppedBytes(), writer.getOverrunCount(),
+				writer.getHighWaterMark(), RING_CHUNKS_COUNT, writer.getAverageWriteLatencyNanos() / 1000,
+				writer.getMaxWriteLatencyNanos() / 1000);
+		if (capture.getProcessorChain() != null) {
+			Timber.d("Recording processing: %s", capture.getProcessorChain().getStatistics());
+		}
+		try {
+			sink.finish();
+		} catch (IOException e) {
+			Timber.e(e);
+		}
+		closeQuietly(fos);
+		writeSilenceIndex(capture.getSilenceSkipper(), file);
+	}
+
+	/**
+	 * Write cuts of skipped silence next to the record, so the player shows the time of capture.
+	 */
+	private void writeSilenceIndex(SilenceSkipper skipper, File file) {
+		if (skipper == null || !skipper.hasCuts()) {
+			SilenceIndex.deleteIndexFile(file);
+			return;
+		}
+		Timber.d("Recording silence skipping: %s", skipper.getStatistics());
+		try {
+			skipper.getIndex().write(SilenceIndex.getIndexFile(file));
+		} catch (IOException e) {
+			Timber.e(e);
+		}
+	}
+
+	private void closeQuietly(FileOutputStream fos) {
+		try {
+			fos.close();
+		} catch (IOException e) {
+			Timber.e(e);
+		}
+	}
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright 2026 Dmytro Ponomarenko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dimowner.audiorecorder.audio.recorder;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free single-producer/single-consumer ring of preallocated PCM chunks.
+ * Producer (capture thread) calls {@link #claim()} and {@link #publish(int)},
+ * consumer (writer thread) calls {@link #peek()} and {@link #release()}.
+ * No memory is allocated after construction.
+ */
+public class PcmRingBuffer {
+
+	private final byte[][] chunks;
+	private final ByteBuffer[] views;
+	private final int[] lengths;
+	private final int mask;
+	private final int chunkSize;
+
+	/** Index of the next chunk to read. Written only by consumer. */
+	private final AtomicLong readIndex = new AtomicLong(0);
+	/** Index of the next chunk to write. Written only by producer. */
+	private final AtomicLong writeIndex = new AtomicLong(0);
+
+	private volatile int highWaterMark = 0;
+
+	/**
+	 * @param chunksCount ring capacity, rounded up to the power of two.
+	 * @param chunkSize size of one chunk in bytes.
+	 */
+	public PcmRingBuffer(int chunksCount, int chunkSize) {
+		if (chunksCount <= 0 || chunkSize <= 0) {
+			throw new IllegalArgumentException("chunksCount = " + chunksCount + " chunkSize = " + chunkSize);
+		}
+		int capacity = Integer.highestOneBit(chunksCount);
+		if (capacity < chunksCount) {
+			capacity <<= 1;
+		}
+		this.chunkSize = chunkSize;
+		this.mask = capacity - 1;
+		this.chunks = new byte[capacity][chunkSize];
+		this.views = new ByteBuffer[capacity];
+		this.lengths = new int[capacity];
+		for (int i = 0; i < capacity; i++) {
+			views[i] = ByteBuffer.wrap(chunks[i]);
+		}
+	}
+
+	/**
+	 * Get free chunk to fill with PCM data.
+	 * @return chunk or null when ring is full.
+	 */
+	public byte[] claim() {
+		long w = writeIndex.get();
+		if (w - readIndex.get() > mask) {
+			return null;
+		}
+		return chunks[(int) (w & mask)];
+	}
+
+	/**
+	 * Make the last claimed chunk available to consumer.
+	 * @param length count of valid bytes in the chunk.
+	 */
+	public void publish(int length) {
+		long w = writeIndex.get();
+		lengths[(int) (w & mask)] = length;
+		writeIndex.lazySet(w + 1);
+		int used = (int) (w + 1 - readIndex.get());
+		if (used > highWaterMark) {
+			highWaterMark = used;
+		}
+	}
+
+	/**
+	 * Get the oldest published chunk.
+	 * @return buffer limited to valid chunk bytes or null when ring is empty.
+	 */
+	public ByteBuffer peek() {
+		long r = readIndex.get();
+		if (r == writeIndex.get()) {
+			return null;
+		}
+		int index = (int) (r & mask);
+		ByteBuffer view = views[index];
+		view.clear();
+		view.limit(lengths[index]);
+		return view;
+	}
+
+	/**
+	 * Return the chunk obtained by {@link #peek()} back to producer.
+	 */
+	public void release() {
+		readIndex.lazySet(readIndex.get() + 1);
+	}
+
+	public boolean isEmpty() {
+		return readIndex.get() == writeIndex.get();
+	}
+
+	/** Count of chunks published but not released yet. */
+	public int size() {
+		return (int) (writeIndex.get() - readIndex.get());
+	}
+
+	public int capacity() {
+		return mask + 1;
+	}
+
+	public int getChunkSize() {
+		return chunkSize;
+	}
+
+	/** Max count of chunks that were waiting for consumer at the same time. */
+	public int getHighWaterMark() {
+		return highWaterMark;
+	}
+}
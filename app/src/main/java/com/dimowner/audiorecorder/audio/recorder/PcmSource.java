@@ -0,0 +1,50 @@
+/*
+ * Copyright 2026 Dmytro Ponomarenko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dimowner.audiorecorder.audio.recorder;
+
+/**
+ * Source of interleaved 16 bit little-endian PCM for recorders.
+ * Read methods are called by capture thread only.
+ */
+public interface PcmSource {
+
+	int getSampleRate();
+
+	int getChannelCount();
+
+	/** Size in bytes of data read at once. */
+	int getBufferSize();
+
+	void start();
+
+	/** Stop capturing, source can be started again. */
+	void stop();
+
+	void release();
+
+	/**
+	 * Read captured data, blocks until it is available.
+	 * @return count of read bytes, 0 when there is no more data or negative error code.
+	 */
+	int read(byte[] data, int offset, int length);
+
+	/**
+	 * Read captured samples, blocks until they are available.
+	 * @return count of read samples, 0 when there is no more data or negative error code.
+	 */
+	int read(short[] samples, int offset, int length);
+}
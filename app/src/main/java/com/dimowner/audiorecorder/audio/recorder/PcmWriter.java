@@ -0,0 +1,232 @@
+/*
+ * Copyright 2026 Dmytro Ponomarenko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dimowner.audiorecorder.audio.recorder;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Decouples audio capture from disk I/O. Capture thread fills chunks of {@link PcmRingBuffer}
+ * and writer thread drains them into {@link Sink}, so a storage stall doesn't block the next
+ * AudioRecord.read(). When the ring is full captured data is dropped and counted as overrun.
+ */
+public class PcmWriter implements Runnable {
+
+	private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(20);
+	/** Preamble is written by parts of this size. */
+	private static final int PREAMBLE_WRITE_SIZE = 64 * 1024;
+
+	public interface Sink {
+		/** Write all remaining bytes of the buffer. */
+		void write(ByteBuffer data) throws IOException;
+	}
+
+	private final PcmRingBuffer buffer;
+	private final Sink sink;
+	/** Chunk used for reading when the ring is full. Its data is dropped. */
+	private final byte[] scratchChunk;
+	private boolean isScratchClaimed = false;
+	private PcmHistoryBuffer preamble = null;
+
+	private volatile boolean isRunning = false;
+	private volatile Thread writerThread;
+	private volatile IOException error;
+
+	private volatile long overrunCount = 0;
+	private volatile long droppedBytes = 0;
+	private volatile long writtenBytes = 0;
+	private volatile long writesCount = 0;
+	private volatile long totalWriteNanos = 0;
+	private volatile long maxWriteNanos = 0;
+
+	public PcmWriter(PcmRingBuffer buffer, Sink sink) {
+		this.buffer = buffer;
+		this.sink = sink;
+		this.scratchChunk = new byte[buffer.getChunkSize()];
+	}
+
+	/**
+	 * Set data which is written before published chunks. Must be called before {@link #start(String)},
+	 * capture thread must not change the preamble after that. Writer thread takes the data out of it
+	 * and uses the freed space for published chunks, so it is empty when the writer is stopped.
+	 */
+	public void setPreamble(PcmHistoryBuffer preamble) {
+		this.preamble = preamble;
+	}
+
+	public void start(String threadName) {
+		isRunning = true;
+		writerThread = new Thread(this, threadName);
+		writerThread.start();
+	}
+
+	/**
+	 * Get chunk to read captured data into. Called by capture thread only.
+	 * Must be followed by {@link #publishChunk(int)}.
+	 */
+	public byte[] claimChunk() {
+		byte[] chunk = buffer.claim();
+		if (chunk == null) {
+			isScratchClaimed = true;
+			return scratchChunk;
+		}
+		isScratchClaimed = false;
+		return chunk;
+	}
+
+	/**
+	 * Pass the claimed chunk to writer thread. Called by capture thread only.
+	 * @param length count of captured bytes in the chunk.
+	 * @return false when the ring was full and the chunk is dropped.
+	 */
+	public boolean publishChunk(int length) {
+		if (isScratchClaimed) {
+			overrunCount++;
+			droppedBytes += length;
+			return false;
+		}
+		buffer.publish(length);
+		Thread thread = writerThread;
+		if (thread != null) {
+			LockSupport.unpark(thread);
+		}
+		return true;
+	}
+
+	/**
+	 * Stop writer thread and wait until all published chunks are written.
+	 */
+	public void stop() {
+		isRunning = false;
+		Thread thread = writerThread;
+		if (thread != null) {
+			LockSupport.unpark(thread);
+			boolean interrupted = false;
+			while (thread.isAlive()) {
+				try {
+					thread.join();
+				} catch (InterruptedException e) {
+					interrupted = true;
+				}
+			}
+			if (interrupted) {
+				Thread.currentThread().interrupt();
+			}
+			writerThread = null;
+		}
+	}
+
+	@Override
+	public void run() {
+		if (preamble != null) {
+			try {
+				writePreamble(preamble);
+			} catch (IOException e) {
+				error = e;
+				isRunning = false;
+				return;
+			}
+		}
+		while (true) {
+			ByteBuffer chunk = buffer.peek();
+			if (chunk != null) {
+				try {
+					writeToSink(chunk);
+				} catch (IOException e) {
+					error = e;
+					isRunning = false;
+					return;
+				}
+				buffer.release();
+			} else if (isRunning) {
+				LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+			} else if (buffer.isEmpty()) {
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Write the preamble by parts. Before every part published chunks are moved from the ring
+	 * into the space of the written preamble data, so capture keeps its ring free however long
+	 * the preamble takes to write. Chunks which don't fit stay in the ring in their order.
+	 */
+	private void writePreamble(PcmHistoryBuffer preamble) throws IOException {
+		while (!preamble.isEmpty()) {
+			ByteBuffer chunk = buffer.peek();
+			while (chunk != null && preamble.append(chunk)) {
+				buffer.release();
+				chunk = buffer.peek();
+			}
+			ByteBuffer part = preamble.view(0, PREAMBLE_WRITE_SIZE);
+			int length = part.remaining();
+			writeToSink(part);
+			preamble.skip(length);
+		}
+	}
+
+	private void writeToSink(ByteBuffer data) throws IOException {
+		int length = data.remaining();
+		long start = System.nanoTime();
+		sink.write(data);
+		long time = System.nanoTime() - start;
+		writtenBytes += length;
+		writesCount++;
+		totalWriteNanos += time;
+		if (time > maxWriteNanos) {
+			maxWriteNanos = time;
+		}
+	}
+
+	/** Error that stopped writer thread or null. */
+	public IOException getError() {
+		return error;
+	}
+
+	public boolean hasError() {
+		return error != null;
+	}
+
+	/** Count of captured chunks dropped because the ring was full. */
+	public long getOverrunCount() {
+		return overrunCount;
+	}
+
+	/** Count of captured bytes dropped because the ring was full. */
+	public long getDroppedBytes() {
+		return droppedBytes;
+	}
+
+	public int getHighWaterMark() {
+		return buffer.getHighWaterMark();
+	}
+
+	public long getWrittenBytes() {
+		return writtenBytes;
+	}
+
+	public long getMaxWriteLatencyNanos() {
+		return maxWriteNanos;
+	}
+
+	public long getAverageWriteLatencyNanos() {
+		long count = writesCount;
+		return count > 0 ? totalWriteNanos / count : 0;
+	}
+}
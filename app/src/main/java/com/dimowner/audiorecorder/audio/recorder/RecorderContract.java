@@ -30,7 +30,6 @@ public interface RecorderContract {
 		void onStartRecord(File output);
 		void onPauseRecord();
 		void onResumeRecord();
-		void onRecordProgress(long mills, int amp);
 		void onStopRecord(File output);
 		void onError(AppException throwable);
 	}
@@ -48,5 +47,23 @@ public interface RecorderContract {
 		void stopRecording();
 		boolean isRecording();
 		boolean isPaused();
+		/** Duration of the current record. It is kept after stop until the next record is started. */
+		long getRecordingDurationMills();
+		/** Amplitude of the latest recorded audio for visualisation. */
+		int getAmplitude();
+	}
+
+	/**
+	 * Recorder which can keep capturing into memory before recording is started.
+	 * Record started while capturing begins with the buffered audio.
+	 */
+	interface PreRollRecorder extends Recorder {
+		void startPreRoll(int channelCount, int sampleRate, int seconds);
+		void stopPreRoll();
+		boolean isPreRolling();
+		/** Duration of buffered audio put at the beginning of the current record. */
+		long getPreRollMills();
+		/** Visualisation amplitudes of buffered audio put at the beginning of the current record. */
+		int[] getPreRollAmplitudes(int count);
 	}
 }
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2026 Dmytro Ponomarenko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dimowner.audiorecorder.audio.recorder;
+
+/**
+ * Duration of the current record.
+ * PCM recorders set count of frames written into the record, so the duration is exactly
+ * the length of the file and doesn't move while paused. Recorders which don't see PCM
+ * measure monotonic time between start and stop excluding pauses.
+ * Frames are set by one thread, the duration can be read by any.
+ */
+public class RecordingClock {
+
+	private volatile int sampleRate = 0;
+	private volatile long frames = 0;
+
+	private long elapsedNanos = 0;
+	/** Time when recording was started or resumed, negative when the clock is not running. */
+	private long runningSinceNanos = -1;
+
+	/**
+	 * Start counting frames of a record.
+	 * @param frames count of frames the record already begins with.
+	 */
+	public synchronized void startFrames(int sampleRate, long frames) {
+		this.runningSinceNanos = -1;
+		this.elapsedNanos = 0;
+		this.frames = frames;
+		this.sampleRate = sampleRate;
+	}
+
+	/** Set total count of frames written into the record. */
+	public void setFrames(long frames) {
+		this.frames = frames;
+	}
+
+	/** Start measuring elapsed time of a record. */
+	public synchronized void start() {
+		sampleRate = 0;
+		frames = 0;
+		elapsedNanos = 0;
+		runningSinceNanos = now();
+	}
+
+	public synchronized void pause() {
+		if (runningSinceNanos >= 0) {
+			elapsedNanos += now() - runningSinceNanos;
+			runningSinceNanos = -1;
+		}
+	}
+
+	public synchronized void resume() {
+		if (runningSinceNanos < 0) {
+			runningSinceNanos = now();
+		}
+	}
+
+	/** Freeze the duration, it is kept until the next start. */
+	public synchronized void stop() {
+		pause();
+	}
+
+	public long getDurationMills() {
+		int rate = sampleRate;
+		if (rate > 0) {
+			return frames * 1000 / rate;
+		}
+		return getElapsedNanos() / 1000000;
+	}
+
+	private synchronized long getElapsedNanos() {
+		if (runningSinceNanos >= 0) {
+			return elapsedNanos + now() - runningSinceNanos;
+		}
+		return elapsedNanos;
+	}
+
+	protected long now() {
+		return System.nanoTime();
+	}
+}
@@ -0,0 +1,205 @@
+/*
+ * Copyright 2026 Dmytro Ponomarenko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dimowner.audiorecorder.audio.recorder;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+import timber.log.Timber;
+
+/**
+ * Cuts made in a record by skipping silence. Every entry tells the original time
+ * of recording at which PCM data continues from the data offset, so record time
+ * can be mapped back to the time the sound was captured.
+ * Stored in a small sidecar file next to the record.
+ */
+public class SilenceIndex {
+
+	public static final String EXTENSION = "vad";
+
+	private static final int MAGIC = 0x56414449; //"VADI"
+	private static final int VERSION = 1;
+	private static final int INITIAL_CAPACITY = 16;
+
+	private final int byteRate;
+	private long[] originalTimes = new long[INITIAL_CAPACITY];
+	private long[] dataOffsets = new long[INITIAL_CAPACITY];
+	private int count = 0;
+	private long originalDurationUs = 0;
+
+	/**
+	 * @param byteRate bytes of PCM data per second of the record.
+	 */
+	public SilenceIndex(int byteRate) {
+		this.byteRate = byteRate;
+	}
+
+	public static File getIndexFile(File record) {
+		return new File(record.getPath() + "." + EXTENSION);
+	}
+
+	public static boolean isIndexFile(File file) {
+		return file.getName().endsWith("." + EXTENSION);
+	}
+
+	/**
+	 * Move index after its record was renamed or moved into another directory.
+	 * Index of the new name is deleted if the old record has no index.
+	 */
+	public static void moveIndexFile(File record, File renamed) {
+		File index = getIndexFile(record);
+		File target = getIndexFile(renamed);
+		if (index.exists()) {
+			if (!index.renameTo(target)) {
+				//Directories are on different storages, copy the index.
+				try {
+					SilenceIndex read = read(index);
+					if (read != null) {
+						read.write(target);
+					}
+				} catch (IOException e) {
+					Timber.e(e);
+				}
+				index.delete();
+			}
+		} else if (target.exists()) {
+			target.delete();
+		}
+	}
+
+	/**
+	 * @return index of the record or null when silence was not skipped in it.
+	 */
+	public static SilenceIndex findIndex(File record) {
+		File index = getIndexFile(record);
+		if (!index.exists()) {
+			return null;
+		}
+		try {
+			return read(index);
+		} catch (IOException e) {
+			Timber.e(e);
+			return null;
+		}
+	}
+
+	public static void deleteIndexFile(File record) {
+		File index = getIndexFile(record);
+		if (index.exists()) {
+			index.delete();
+		}
+	}
+
+	/**
+	 * Add a cut: PCM data written since the data offset was captured since the original time.
+	 */
+	public void add(long originalTimeUs, long dataOffset) {
+		if (count == originalTimes.length) {
+			originalTimes = Arrays.copyOf(originalTimes, count * 2);
+			dataOffsets = Arrays.copyOf(dataOffsets, count * 2);
+		}
+		originalTimes[count] = originalTimeUs;
+		dataOffsets[count] = dataOffset;
+		count++;
+	}
+
+	public int size() {
+		return count;
+	}
+
+	public long getOriginalTime(int index) {
+		return originalTimes[index];
+	}
+
+	public long getDataOffset(int index) {
+		return dataOffsets[index];
+	}
+
+	/** Duration of recording including skipped silence. */
+	public long getOriginalDurationUs() {
+		return originalDurationUs;
+	}
+
+	public void setOriginalDurationUs(long durationUs) {
+		this.originalDurationUs = durationUs;
+	}
+
+	public long getRecordTimeUs(long dataOffset) {
+		return dataOffset * 1000000 / byteRate;
+	}
+
+	/**
+	 * Map time in the record into the time when the sound was captured.
+	 */
+	public long toOriginalTimeUs(long recordTimeUs) {
+		int low = 0;
+		int high = count - 1;
+		int found = -1;
+		while (low <= high) {
+			int mid = (low + high) >>> 1;
+			if (getRecordTimeUs(dataOffsets[mid]) <= recordTimeUs) {
+				found = mid;
+				low = mid + 1;
+			} else {
+				high = mid - 1;
+			}
+		}
+		if (found < 0) {
+			return recordTimeUs;
+		}
+		return originalTimes[found] + recordTimeUs - getRecordTimeUs(dataOffsets[found]);
+	}
+
+	public void write(File file) throws IOException {
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeInt(byteRate);
+			out.writeLong(originalDurationUs);
+			out.writeInt(count);
+			for (int i = 0; i < count; i++) {
+				out.writeLong(originalTimes[i]);
+				out.writeLong(dataOffsets[i]);
+			}
+		}
+	}
+
+	/**
+	 * @return index or null when the file is not a silence index.
+	 */
+	public static SilenceIndex read(File file) throws IOException {
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+			if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+				return null;
+			}
+			SilenceIndex index = new SilenceIndex(in.readInt());
+			index.setOriginalDurationUs(in.readLong());
+			int count = in.readInt();
+			for (int i = 0; i < count; i++) {
+				index.add(in.readLong(), in.readLong());
+			}
+			return index;
+		}
+	}
+}
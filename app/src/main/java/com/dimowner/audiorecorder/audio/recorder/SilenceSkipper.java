@@ -0,0 +1,146 @@
+/*
+ * Copyright 2026 Dmytro Ponomarenko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dimowner.audiorecorder.audio.recorder;
+
+/**
+ * Publishes captured chunks into {@link PcmWriter} skipping silence found by {@link VoiceActivityDetector}.
+ * The last skipped chunk is kept and published just before speech to not cut its onset.
+ * Every cut is added into {@link SilenceIndex}.
+ */
+public class SilenceSkipper {
+
+	/** Silence is removed completely. */
+	public static final int MODE_DROP = 1;
+	/** Silence longer than {@link #COLLAPSED_SILENCE_MILLS} is shortened to it. */
+	public static final int MODE_COLLAPSE = 2;
+
+	public static final int COLLAPSED_SILENCE_MILLS = 700;
+
+	private final int mode;
+	private final VoiceActivityDetector detector = new VoiceActivityDetector();
+	private SilenceIndex index;
+	private int byteRate = 1;
+	private long keptSilenceBytes = 0;
+
+	private byte[] held = new byte[0];
+	private byte[] spare = new byte[0];
+	private int heldLength = 0;
+
+	private long capturedBytes = 0;
+	/** Count of bytes accepted by the writer. */
+	private long publishedBytes = 0;
+	private long silenceBytes = 0;
+	private boolean isCut = false;
+
+	public SilenceSkipper(int mode) {
+		this.mode = mode;
+	}
+
+	public void prepare(int sampleRate, int channelCount, int chunkSize) {
+		detector.prepare(sampleRate, channelCount);
+		byteRate = sampleRate * channelCount * 2;
+		keptSilenceBytes = mode == MODE_COLLAPSE ? (long) byteRate * COLLAPSED_SILENCE_MILLS / 1000 : 0;
+		index = new SilenceIndex(byteRate);
+		if (held.length != chunkSize) {
+			held = new byte[chunkSize];
+			spare = new byte[chunkSize];
+		}
+		heldLength = 0;
+		capturedBytes = 0;
+		publishedBytes = 0;
+		silenceBytes = 0;
+		isCut = false;
+	}
+
+	/**
+	 * Account data written before the first published chunk, it is kept as is.
+	 */
+	public void addPreamble(int length) {
+		capturedBytes += length;
+		publishedBytes += length;
+	}
+
+	/**
+	 * Publish chunk claimed from the writer, or skip it when it is silence.
+	 * @param chunk chunk returned by {@link PcmWriter#claimChunk()}.
+	 * @param length count of captured bytes in the chunk.
+	 */
+	public void publish(PcmWriter writer, byte[] chunk, int length) {
+		boolean isSpeech = detector.process(chunk, 0, length);
+		if (isSpeech) {
+			silenceBytes = 0;
+		} else {
+			silenceBytes += length;
+		}
+		if (isSpeech || silenceBytes <= keptSilenceBytes) {
+			if (isCut) {
+				index.add(toUs(capturedBytes - heldLength), publishedBytes);
+				isCut = false;
+			}
+			if (heldLength > 0) {
+				System.arraycopy(chunk, 0, spare, 0, length);
+				System.arraycopy(held, 0, chunk, 0, heldLength);
+				if (writer.publishChunk(heldLength)) {
+					publishedBytes += heldLength;
+				}
+				heldLength = 0;
+				chunk = writer.claimChunk();
+				System.arraycopy(spare, 0, chunk, 0, length);
+			}
+			if (writer.publishChunk(length)) {
+				publishedBytes += length;
+			}
+		} else {
+			isCut = true;
+			System.arraycopy(chunk, 0, held, 0, length);
+			heldLength = length;
+		}
+		capturedBytes += length;
+	}
+
+	private long toUs(long bytes) {
+		return bytes * 1000000 / byteRate;
+	}
+
+	/**
+	 * Cuts made since {@link #prepare(int, int, int)}.
+	 */
+	public SilenceIndex getIndex() {
+		index.setOriginalDurationUs(toUs(capturedBytes));
+		return index;
+	}
+
+	/** True if any silence was skipped. */
+	public boolean hasCuts() {
+		return index.size() > 0 || isCut;
+	}
+
+	public long getCapturedBytes() {
+		return capturedBytes;
+	}
+
+	public long getPublishedBytes() {
+		return publishedBytes;
+	}
+
+	/** Statistics for logs. */
+	public String getStatistics() {
+		return "cuts = " + index.size() + ", skipped = " + toUs(capturedBytes - publishedBytes) / 1000
+				+ " ms of " + toUs(capturedBytes) / 1000 + " ms, speech frames = "
+				+ detector.getSpeechFrameCount() + "/" + detector.getFrameCount();
+	}
+}
@@ -0,0 +1,248 @@
+/*
+ * Copyright 2026 Dmytro Ponomarenko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dimowner.audiorecorder.audio.recorder;
+
+import com.dimowner.audiorecorder.audio.WavFileInfo;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Random;
+
+/**
+ * Generated PCM of a fixed duration: tone, noise, silence or recorded fixture.
+ * Signal is prepared once and repeated, so reading doesn't allocate and costs only a copy.
+ * By default data is returned as fast as it is read, in real time mode reading
+ * blocks like capturing from microphone.
+ */
+public class SyntheticPcmSource implements PcmSource {
+
+	private static final int DEFAULT_BUFFER_MILLS = 40;
+
+	private final int sampleRate;
+	private final int channelCount;
+	private final int frameSize;
+	/** Repeated signal, contains whole frames. */
+	private final byte[] pattern;
+	private final long totalBytes;
+
+	private int bufferSize;
+	private boolean isRealTime = false;
+	private boolean isStarted = false;
+	private long readBytes = 0;
+	private long startNanos = 0;
+	/** Bytes read before the last start. */
+	private long startBytes = 0;
+
+	private SyntheticPcmSource(int sampleRate, int channelCount, byte[] pattern, long totalBytes) {
+		this.sampleRate = sampleRate;
+		this.channelCount = channelCount;
+		this.frameSize = channelCount * 2;
+		this.pattern = pattern;
+		this.totalBytes = totalBytes - totalBytes % frameSize;
+		this.bufferSize = sampleRate * DEFAULT_BUFFER_MILLS / 1000 * frameSize;
+	}
+
+	public static SyntheticPcmSource silence(int sampleRate, int channelCount, long durationMills) {
+		return new SyntheticPcmSource(sampleRate, channelCount, new byte[channelCount * 2],
+				toBytes(sampleRate, channelCount, durationMills));
+	}
+
+	/**
+	 * Sine tone, the same in all channels.
+	 * @param frequency whole count of Hz, so one second of the tone repeats without a gap.
+	 * @param amplitude peak sample value.
+	 */
+	public static SyntheticPcmSource tone(int sampleRate, int channelCount, long durationMills,
+			int frequency, int amplitude) {
+		byte[] pattern = new byte[sampleRate * channelCount * 2];
+		int pos = 0;
+		for (int i = 0; i < sampleRate; i++) {
+			int value = (int) Math.round(amplitude * Math.sin(2 * Math.PI * frequency * i / sampleRate));
+			for (int ch = 0; ch < channelCount; ch++) {
+				pos = putSample(pattern, pos, value);
+			}
+		}
+		return new SyntheticPcmSource(sampleRate, channelCount, pattern,
+				toBytes(sampleRate, channelCount, durationMills));
+	}
+
+	/**
+	 * Gaussian white noise, independent in every channel. One second of it is repeated.
+	 * @param amplitude standard deviation of sample values.
+	 */
+	public static SyntheticPcmSource noise(int sampleRate, int channelCount, long durationMills,
+			int amplitude, long seed) {
+		Random random = new Random(seed);
+		byte[] pattern = new byte[sampleRate * channelCount * 2];
+		int pos = 0;
+		while (pos < pattern.length) {
+			pos = putSample(pattern, pos, (int) Math.round(random.nextGaussian() * amplitude));
+		}
+		return new SyntheticPcmSource(sampleRate, channelCount, pattern,
+				toBytes(sampleRate, channelCount, durationMills));
+	}
+
+	/**
+	 * Recorded PCM played once.
+	 */
+	public static SyntheticPcmSource fixture(int sampleRate, int channelCount, byte[] pcm) {
+		return new SyntheticPcmSource(sampleRate, channelCount, pcm, pcm.length);
+	}
+
+	/**
+	 * PCM of 16 bit WAV file played once.
+	 */
+	public static SyntheticPcmSource fixture(File wav) throws IOException {
+		WavFileInfo info = WavFileInfo.read(wav);
+		if (!info.isPcm() || info.getBitsPerSample() != 16 || info.getDataLength() > Integer.MAX_VALUE) {
+			throw new IOException("Unsupported fixture: " + wav.getName());
+		}
+		byte[] pcm = new byte[(int) info.getDataLength()];
+		try (RandomAccessFile raf = new RandomAccessFile(wav, "r")) {
+			raf.seek(info.getDataOffset());
+			raf.readFully(pcm);
+		}
+		return fixture(info.getSampleRate(), info.getChannelCount(), pcm);
+	}
+
+	private static long toBytes(int sampleRate, int channelCount, long durationMills) {
+		return durationMills * sampleRate / 1000 * channelCount * 2;
+	}
+
+	private static int putSample(byte[] data, int pos, int value) {
+		int s = Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, value));
+		data[pos] = (byte) s;
+		data[pos + 1] = (byte) (s >> 8);
+		return pos + 2;
+	}
+
+	public void setBufferSize(int bufferSize) {
+		this.bufferSize = bufferSize - bufferSize % frameSize;
+	}
+
+	/** Block reading until data would be captured in real time. */
+	public void setRealTime(boolean realTime) {
+		this.isRealTime = realTime;
+	}
+
+	/** True if all data is read. */
+	public boolean isFinished() {
+		return readBytes >= totalBytes;
+	}
+
+	public long getTotalBytes() {
+		return totalBytes;
+	}
+
+	public long getReadBytes() {
+		return readBytes;
+	}
+
+	@Override
+	public int getSampleRate() {
+		return sampleRate;
+	}
+
+	@Override
+	public int getChannelCount() {
+		return channelCount;
+	}
+
+	@Override
+	public int getBufferSize() {
+		return bufferSize;
+	}
+
+	@Override
+	public void start() {
+		isStarted = true;
+		startNanos = System.nanoTime();
+		startBytes = readBytes;
+	}
+
+	@Override
+	public void stop() {
+		isStarted = false;
+	}
+
+	@Override
+	public void release() {
+		isStarted = false;
+	}
+
+	@Override
+	public int read(byte[] data, int offset, int length) {
+		if (!isStarted) {
+			return 0;
+		}
+		length = (int) Math.min(length - length % frameSize, totalBytes - readBytes);
+		if (length <= 0) {
+			return 0;
+		}
+		waitRealTime(length);
+		int copied = 0;
+		while (copied < length) {
+			int patternPos = (int) ((readBytes + copied) % pattern.length);
+			int count = Math.min(length - copied, pattern.length - patternPos);
+			System.arraycopy(pattern, patternPos, data, offset + copied, count);
+			copied += count;
+		}
+		readBytes += length;
+		return length;
+	}
+
+	@Override
+	public int read(short[] samples, int offset, int length) {
+		if (!isStarted) {
+			return 0;
+		}
+		int lengthBytes = (int) Math.min((length - length % channelCount) * 2L, totalBytes - readBytes);
+		if (lengthBytes <= 0) {
+			return 0;
+		}
+		waitRealTime(lengthBytes);
+		int count = lengthBytes / 2;
+		int patternPos = (int) (readBytes % pattern.length);
+		for (int i = 0; i < count; i++) {
+			samples[offset + i] = (short) ((pattern[patternPos] & 0xFF) | (pattern[patternPos + 1] << 8));
+			patternPos += 2;
+			if (patternPos >= pattern.length) {
+				patternPos = 0;
+			}
+		}
+		readBytes += lengthBytes;
+		return count;
+	}
+
+	private void waitRealTime(int length) {
+		if (isRealTime) {
+			long dueNanos = startNanos + (readBytes - startBytes + length) * 1000000000L
+					/ ((long) sampleRate * frameSize);
+			long delay = dueNanos - System.nanoTime();
+			while (delay > 0) {
+				try {
+					Thread.sleep(delay / 1000000, (int) (delay % 1000000));
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					return;
+				}
+				delay = dueNanos - System.nanoTime();
+			}
+		}
+	}
+}
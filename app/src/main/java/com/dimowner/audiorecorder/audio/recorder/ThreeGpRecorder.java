@@ -18,7 +18,6 @@ package com.dimowner.audiorecorder.audio.recorder;
 
 import android.media.MediaRecorder;
 import android.os.Build;
-import android.os.Handler;
 
 import androidx.annotation.RequiresApi;
 
@@ -31,18 +30,14 @@ import java.util.concurrent.atomic.AtomicBoolean;
 
 import timber.log.Timber;
 
-import static com.dimowner.audiorecorder.AppConstants.RECORDING_VISUALIZATION_INTERVAL;
-
 public class ThreeGpRecorder implements RecorderContract.Recorder {
 
 	private MediaRecorder recorder = null;
 	private File recordFile = null;
-	private long updateTime = 0;
-	private long durationMills = 0;
+	private final RecordingClock clock = new RecordingClock();
 
 	private final AtomicBoolean isRecording = new AtomicBoolean(false);
 	private final AtomicBoolean isPaused = new AtomicBoolean(false);
-	private final Handler handler = new Handler();
 
 	private RecorderContract.RecorderCallback recorderCallback;
 
@@ -82,9 +77,8 @@ public class ThreeGpRecorder implements RecorderContract.Recorder {
 			try {
 				recorder.prepare();
 				recorder.start();
-				updateTime = System.currentTimeMillis();
+				clock.start();
 				isRecording.set(true);
-				scheduleRecordingTimeUpdate();
 				if (recorderCallback != null) {
 					recorderCallback.onStartRecord(recordFile);
 				}
@@ -107,8 +101,7 @@ public class ThreeGpRecorder implements RecorderContract.Recorder {
 		if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.N && isPaused.get()) {
 			try {
 				recorder.resume();
-				updateTime = System.currentTimeMillis();
-				scheduleRecordingTimeUpdate();
+				clock.resume();
 				if (recorderCallback != null) {
 					recorderCallback.onResumeRecord();
 				}
@@ -129,8 +122,7 @@ public class ThreeGpRecorder implements RecorderContract.Recorder {
 				if (!isPaused.get()) {
 					try {
 						recorder.pause();
-						durationMills += System.currentTimeMillis() - updateTime;
-						pauseRecordingTimer();
+						clock.pause();
 						if (recorderCallback != null) {
 							recorderCallback.onPauseRecord();
 						}
@@ -152,7 +144,7 @@ public class ThreeGpRecorder implements RecorderContract.Recorder {
 	@Override
 	public void stopRecording() {
 		if (isRecording.get()) {
-			stopRecordingTimer();
+			clock.stop();
 			try {
 				recorder.stop();
 			} catch (RuntimeException e) {
@@ -162,7 +154,6 @@ public class ThreeGpRecorder implements RecorderContract.Recorder {
 			if (recorderCallback != null) {
 				recorderCallback.onStopRecord(recordFile);
 			}
-			durationMills = 0;
 			recordFile = null;
 			isRecording.set(false);
 			isPaused.set(false);
@@ -172,32 +163,6 @@ public class ThreeGpRecorder implements RecorderContract.Recorder {
 		}
 	}
 
-	private void scheduleRecordingTimeUpdate() {
-		handler.postDelayed(() -> {
-			if (recorderCallback != null && recorder != null) {
-				try {
-					long curTime = System.currentTimeMillis();
-					durationMills += curTime - updateTime;
-					updateTime = curTime;
-					recorderCallback.onRecordProgress(durationMills, recorder.getMaxAmplitude());
-				} catch (IllegalStateException e) {
-					Timber.e(e);
-				}
-				scheduleRecordingTimeUpdate();
-			}
-		}, RECORDING_VISUALIZATION_INTERVAL);
-	}
-
-	private void stopRecordingTimer() {
-		handler.removeCallbacksAndMessages(null);
-		updateTime = 0;
-	}
-
-	private void pauseRecordingTimer() {
-		handler.removeCallbacksAndMessages(null);
-		updateTime = 0;
-	}
-
 	@Override
 	public boolean isRecording() {
 		return isRecording.get();
@@ -208,6 +173,24 @@ public class ThreeGpRecorder implements RecorderContract.Recorder {
 		return isPaused.get();
 	}
 
+	@Override
+	public long getRecordingDurationMills() {
+		return clock.getDurationMills();
+	}
+
+	@Override
+	public int getAmplitude() {
+		MediaRecorder rec = recorder;
+		if (rec != null && isRecording.get() && !isPaused.get()) {
+			try {
+				return rec.getMaxAmplitude();
+			} catch (IllegalStateException e) {
+				Timber.e(e);
+			}
+		}
+		return 0;
+	}
+
 	@RequiresApi(api = Build.VERSION_CODES.LOLLIPOP)
 	@Override
 	public void startSystemAudioRecording(android.media.projection.MediaProjection projection, String outputFile,
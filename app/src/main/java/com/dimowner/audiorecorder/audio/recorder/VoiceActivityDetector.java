@@ -0,0 +1,174 @@
+/*
+ * Copyright 2026 Dmytro Ponomarenko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dimowner.audiorecorder.audio.recorder;
+
+/**
+ * Energy and zero-crossing voice activity detector for 16 bit little-endian PCM.
+ * Decision is made for every 10 ms analysis frame: a frame is active when its energy
+ * is well above the tracked noise floor, or a bit above it with high zero-crossing rate
+ * which is typical for unvoiced consonants. Speech starts after a few active frames
+ * and a lower threshold is used to continue it (hysteresis). Speech ends when no active
+ * frames were met during the hangover time, so short pauses between words are kept.
+ * Costs O(1) per sample and does not allocate.
+ */
+public class VoiceActivityDetector {
+
+	private static final int FRAME_MILLS = 10;
+	private static final int HANGOVER_MILLS = 400;
+	/** Count of consecutive active frames needed to start speech, filters out clicks. */
+	private static final int ONSET_FRAMES = 3;
+
+	/** Energy ratios to the noise floor: 10 dB to start speech and 5 dB to continue it. */
+	private static final double OPEN_RATIO = 10;
+	private static final double CLOSE_RATIO = 3.16;
+	/** Frame energy is measured in these units, which is -60 dB of full scale. */
+	private static final double ENERGY_UNIT = 32768.0 * 32768.0 / 1000000;
+	/** Lowest energies to start and to continue speech: -50 dB and -55 dB of full scale. */
+	private static final double MIN_OPEN_ENERGY = 10;
+	private static final double MIN_CLOSE_ENERGY = 3.16;
+	/** Zero crossings per sample above which a quieter frame is taken as unvoiced speech. */
+	private static final double UNVOICED_ZCR = 0.25;
+
+	/**
+	 * Noise floor follows falling energy fast and rising energy slowly.
+	 * While frames are active it rises much slower, so long speech is not taken as noise.
+	 */
+	private static final double FLOOR_FALL = 0.1;
+	private static final double FLOOR_RISE = 0.002;
+	private static final double FLOOR_RISE_ACTIVE = 0.0001;
+
+	private int channelCount = 1;
+	private int frameLength = 480;
+	private int hangoverFrames = 40;
+
+	private long energySum = 0;
+	private int crossings = 0;
+	private int frameSamples = 0;
+	private int previousSign = 0;
+
+	/** Mean frame energy of background noise, negative until the first frame. */
+	private double noiseFloor = -1;
+	private int activeFrames = 0;
+	private int hangoverCounter = 0;
+	private boolean isSpeech = false;
+
+	private long frameCount = 0;
+	private long speechFrameCount = 0;
+
+	public void prepare(int sampleRate, int channelCount) {
+		this.channelCount = channelCount;
+		frameLength = sampleRate * FRAME_MILLS / 1000;
+		hangoverFrames = HANGOVER_MILLS / FRAME_MILLS;
+		energySum = 0;
+		crossings = 0;
+		frameSamples = 0;
+		previousSign = 0;
+		noiseFloor = -1;
+		activeFrames = 0;
+		hangoverCounter = 0;
+		isSpeech = false;
+		frameCount = 0;
+		speechFrameCount = 0;
+	}
+
+	/**
+	 * Analyse interleaved little-endian 16 bit PCM. Channels are mixed into mono.
+	 * @return true when any part of the data belongs to speech.
+	 */
+	public boolean process(byte[] data, int offset, int length) {
+		final int frameBytes = channelCount * 2;
+		final int end = offset + length - frameBytes + 1;
+		boolean hasSpeech = isSpeech;
+		for (int i = offset; i < end; i += frameBytes) {
+			int sum = 0;
+			for (int j = i; j < i + frameBytes; j += 2) {
+				sum += (short) ((data[j] & 0xFF) | (data[j + 1] << 8));
+			}
+			int s = sum / channelCount;
+			energySum += (long) s * s;
+			int sign = s > 0 ? 1 : (s < 0 ? -1 : 0);
+			if (sign != 0) {
+				if (sign != previousSign && previousSign != 0) {
+					crossings++;
+				}
+				previousSign = sign;
+			}
+			if (++frameSamples == frameLength) {
+				hasSpeech |= endFrame();
+			}
+		}
+		return hasSpeech;
+	}
+
+	private boolean endFrame() {
+		double energy = (double) energySum / frameSamples / ENERGY_UNIT;
+		double zcr = (double) crossings / frameSamples;
+		energySum = 0;
+		crossings = 0;
+		frameSamples = 0;
+		frameCount++;
+
+		if (noiseFloor < 0) {
+			noiseFloor = energy;
+		}
+		boolean isActive;
+		if (isSpeech) {
+			isActive = energy > Math.max(MIN_CLOSE_ENERGY, noiseFloor * CLOSE_RATIO);
+		} else {
+			isActive = energy > Math.max(MIN_OPEN_ENERGY, noiseFloor * OPEN_RATIO)
+					|| (zcr > UNVOICED_ZCR && energy > Math.max(MIN_CLOSE_ENERGY, noiseFloor * CLOSE_RATIO));
+		}
+		if (energy < noiseFloor) {
+			noiseFloor += (energy - noiseFloor) * FLOOR_FALL;
+		} else {
+			noiseFloor += (energy - noiseFloor) * (isActive ? FLOOR_RISE_ACTIVE : FLOOR_RISE);
+		}
+
+		if (isActive) {
+			activeFrames++;
+			if (isSpeech || activeFrames >= ONSET_FRAMES) {
+				isSpeech = true;
+				hangoverCounter = hangoverFrames;
+			}
+		} else {
+			activeFrames = 0;
+			if (hangoverCounter > 0) {
+				hangoverCounter--;
+			}
+			if (hangoverCounter == 0) {
+				isSpeech = false;
+			}
+		}
+		if (isSpeech) {
+			speechFrameCount++;
+		}
+		return isSpeech;
+	}
+
+	public boolean isSpeech() {
+		return isSpeech;
+	}
+
+	/** Count of analysed 10 ms frames since {@link #prepare(int, int)}. */
+	public long getFrameCount() {
+		return frameCount;
+	}
+
+	public long getSpeechFrameCount() {
+		return speechFrameCount;
+	}
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright 2026 Dmytro Ponomarenko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dimowner.audiorecorder.audio.recorder;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Writes PCM data into WAV file and periodically commits actual data size into the header,
+ * so the file stays playable if the app is killed in the middle of recording.
+ */
+public class WavFileSink extends FileChannelSink implements RecordFileSink {
+
+	private final WavHeader header;
+	private final long commitIntervalBytes;
+	private long dataLength = 0;
+	private long committedLength = 0;
+
+	/**
+	 * @param commitIntervalBytes how many data bytes are written between header commits.
+	 */
+	public WavFileSink(FileChannel channel, WavHeader header, long commitIntervalBytes) throws IOException {
+		super(channel);
+		this.header = header;
+		this.commitIntervalBytes = commitIntervalBytes;
+		header.write(channel, 0);
+		channel.position(header.getHeaderSize());
+	}
+
+	@Override
+	public void write(ByteBuffer data) throws IOException {
+		int length = data.remaining();
+		super.write(data);
+		dataLength += length;
+		if (dataLength - committedLength >= commitIntervalBytes) {
+			commitHeader();
+		}
+	}
+
+	/**
+	 * Write current data size into the header.
+	 */
+	public void commitHeader() throws IOException {
+		header.writeSizes(channel, dataLength);
+		committedLength = dataLength;
+	}
+
+	@Override
+	public void finish() throws IOException {
+		commitHeader();
+	}
+
+	public long getDataLength() {
+		return dataLength;
+	}
+}
@@ -0,0 +1,276 @@
+/*
+ * Copyright 2026 Dmytro Ponomarenko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dimowner.audiorecorder.audio.recorder;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+
+/**
+ * Header of 16 bit PCM WAV file written by {@link WavRecorder}.
+ * Sizes of RIFF and data chunks can be updated in place with positional writes
+ * while the record is still being written.
+ * <p>
+ * Header reserves 'JUNK' chunk of the 'ds64' chunk size before 'fmt ' chunk. When data grows
+ * over 4 GB the header is switched to RF64 (EBU Tech 3306) in place: 'RIFF' becomes 'RF64',
+ * 'JUNK' becomes 'ds64' holding 64 bit sizes and 32 bit sizes are set to 0xFFFFFFFF.
+ * Records of old app versions have 44 bytes header without 'JUNK' chunk, see {@link #legacy(int, int)}.
+ */
+public class WavHeader {
+
+	public static final int HEADER_SIZE = 80;
+	public static final int LEGACY_HEADER_SIZE = 44;
+	public static final int BITS_PER_SAMPLE = 16;
+
+	static final long MAX_UINT32 = 0xFFFFFFFFL;
+
+	private static final int RIFF_SIZE_OFFSET = 4;
+	private static final int DS64_OFFSET = 12;
+	private static final int DS64_SIZE = 28;
+	private static final int DS64_RIFF_SIZE_OFFSET = 20;
+	private static final int DS64_DATA_SIZE_OFFSET = 28;
+
+	private final int sampleRate;
+	private final int channels;
+	private final int headerSize;
+	private boolean isRf64 = false;
+	private final ByteBuffer scratch = ByteBuffer.allocate(24).order(ByteOrder.LITTLE_ENDIAN);
+
+	public WavHeader(int sampleRate, int channels) {
+		this(sampleRate, channels, HEADER_SIZE);
+	}
+
+	private WavHeader(int sampleRate, int channels, int headerSize) {
+		this.sampleRate = sampleRate;
+		this.channels = channels;
+		this.headerSize = headerSize;
+	}
+
+	/**
+	 * Header in 44 bytes layout of old app versions. Sizes are limited by 4 GB.
+	 */
+	public static WavHeader legacy(int sampleRate, int channels) {
+		return new WavHeader(sampleRate, channels, LEGACY_HEADER_SIZE);
+	}
+
+	public int getSampleRate() {
+		return sampleRate;
+	}
+
+	public int getChannels() {
+		return channels;
+	}
+
+	public int getHeaderSize() {
+		return headerSize;
+	}
+
+	public boolean isRf64() {
+		return isRf64;
+	}
+
+	public int getBlockAlign() {
+		return channels * (BITS_PER_SAMPLE / 8);
+	}
+
+	public long getByteRate() {
+		return (long) sampleRate * getBlockAlign();
+	}
+
+	/**
+	 * Audio duration in microseconds for the data chunk length.
+	 */
+	public long getDurationUs(long dataLength) {
+		long byteRate = getByteRate();
+		return byteRate > 0 ? dataLength / byteRate * 1000000 + dataLength % byteRate * 1000000 / byteRate : 0;
+	}
+
+	private int getDataSizeOffset() {
+		return headerSize - 4;
+	}
+
+	/**
+	 * Write the whole header at the beginning of the file. Channel position is not changed.
+	 */
+	public void write(FileChannel channel, long dataLength) throws IOException {
+		writeFully(channel, ByteBuffer.wrap(generate(dataLength)), 0);
+		isRf64 = false;
+		if (needsRf64(dataLength)) {
+			writeSizes(channel, dataLength);
+		}
+	}
+
+	/**
+	 * Update RIFF and data chunk sizes in place. Channel position is not changed.
+	 * Header is switched to RF64 when sizes don't fit into 32 bit fields.
+	 */
+	public void writeSizes(FileChannel channel, long dataLength) throws IOException {
+		long riffSize = dataLength + headerSize - 8;
+		if (needsRf64(dataLength)) {
+			scratch.clear();
+			scratch.putLong(riffSize);
+			scratch.putLong(dataLength);
+			scratch.putLong(dataLength / getBlockAlign());
+			scratch.flip();
+			writeFully(channel, scratch, DS64_RIFF_SIZE_OFFSET);
+			if (!isRf64) {
+				//Sizes are in place, now turn 'JUNK' into 'ds64' and 'RIFF' into 'RF64'.
+				writeTag(channel, "ds64", DS64_SIZE, DS64_OFFSET);
+				writeInt(channel, MAX_UINT32, getDataSizeOffset());
+				writeTag(channel, "RF64", MAX_UINT32, 0);
+				isRf64 = true;
+			}
+		} else {
+			writeInt(channel, Math.min(riffSize, MAX_UINT32), RIFF_SIZE_OFFSET);
+			writeInt(channel, Math.min(dataLength, alignedMaxDataLength()), getDataSizeOffset());
+		}
+	}
+
+	private boolean needsRf64(long dataLength) {
+		return headerSize != LEGACY_HEADER_SIZE && dataLength + headerSize - 8 > MAX_UINT32;
+	}
+
+	private long alignedMaxDataLength() {
+		return MAX_UINT32 - MAX_UINT32 % getBlockAlign();
+	}
+
+	/**
+	 * Check that sizes stored in the header correspond to the data length.
+	 */
+	public boolean hasSizes(ByteBuffer header, long dataLength) {
+		long riffSize = dataLength + headerSize - 8;
+		if (isRf64) {
+			return header.getLong(DS64_RIFF_SIZE_OFFSET) == riffSize
+					&& header.getLong(DS64_DATA_SIZE_OFFSET) == dataLength;
+		}
+		return (header.getInt(RIFF_SIZE_OFFSET) & MAX_UINT32) == Math.min(riffSize, MAX_UINT32)
+				&& (header.getInt(getDataSizeOffset()) & MAX_UINT32) == Math.min(dataLength, alignedMaxDataLength());
+	}
+
+	/**
+	 * Data chunk size stored in the header, 64 bit size from 'ds64' chunk for RF64.
+	 */
+	public long getStoredDataLength(ByteBuffer header) {
+		if (isRf64) {
+			return header.getLong(DS64_DATA_SIZE_OFFSET);
+		}
+		return header.getInt(getDataSizeOffset()) & MAX_UINT32;
+	}
+
+	private void writeInt(FileChannel channel, long value, long position) throws IOException {
+		scratch.clear();
+		scratch.putInt((int) value);
+		scratch.flip();
+		writeFully(channel, scratch, position);
+	}
+
+	private void writeTag(FileChannel channel, String tag, long size, long position) throws IOException {
+		scratch.clear();
+		for (int i = 0; i < 4; i++) {
+			scratch.put((byte) tag.charAt(i));
+		}
+		scratch.putInt((int) size);
+		scratch.flip();
+		writeFully(channel, scratch, position);
+	}
+
+	private static void writeFully(FileChannel channel, ByteBuffer data, long position) throws IOException {
+		while (data.hasRemaining()) {
+			position += channel.write(data, position);
+		}
+	}
+
+	/**
+	 * Generate RIFF header. Sizes which don't fit into 32 bit fields are limited,
+	 * use {@link #write(FileChannel, long)} to get RF64 header for such data length.
+	 */
+	public byte[] generate(long dataLength) {
+		ByteBuffer header = ByteBuffer.allocate(headerSize).order(ByteOrder.LITTLE_ENDIAN);
+		putTag(header, "RIFF");
+		header.putInt((int) Math.min(dataLength + headerSize - 8, MAX_UINT32));
+		putTag(header, "WAVE");
+		if (headerSize != LEGACY_HEADER_SIZE) {
+			//Space reserved for 'ds64' chunk.
+			putTag(header, "JUNK");
+			header.putInt(DS64_SIZE);
+			header.position(header.position() + DS64_SIZE);
+		}
+		putTag(header, "fmt ");
+		header.putInt(16); //16 for PCM. 4 bytes: size of 'fmt ' chunk
+		header.putShort((short) 1); // format = 1
+		header.putShort((short) channels);
+		header.putInt(sampleRate);
+		header.putInt((int) getByteRate());
+		header.putShort((short) getBlockAlign()); // block align
+		header.putShort((short) BITS_PER_SAMPLE); // bits per sample
+		putTag(header, "data");
+		header.putInt((int) Math.min(dataLength, alignedMaxDataLength()));
+		return header.array();
+	}
+
+	private static void putTag(ByteBuffer buffer, String tag) {
+		for (int i = 0; i < 4; i++) {
+			buffer.put((byte) tag.charAt(i));
+		}
+	}
+
+	/**
+	 * Read header written by {@link WavRecorder} of this or old app version.
+	 * @param header little-endian buffer with at least {@link #HEADER_SIZE} first bytes of the file
+	 *               or less if the file is shorter.
+	 * @return parsed header or null if the layout is different.
+	 */
+	public static WavHeader parse(ByteBuffer header) {
+		int limit = header.limit();
+		if (limit < LEGACY_HEADER_SIZE || !hasTag(header, 8, "WAVE")) {
+			return null;
+		}
+		boolean isRf64 = hasTag(header, 0, "RF64");
+		if (!isRf64 && !hasTag(header, 0, "RIFF")) {
+			return null;
+		}
+		int headerSize;
+		if (!isRf64 && hasTag(header, 12, "fmt ") && hasTag(header, 36, "data")) {
+			headerSize = LEGACY_HEADER_SIZE;
+		} else if (limit >= HEADER_SIZE
+				&& (hasTag(header, DS64_OFFSET, isRf64 ? "ds64" : "JUNK"))
+				&& header.getInt(DS64_OFFSET + 4) == DS64_SIZE
+				&& hasTag(header, 48, "fmt ") && hasTag(header, 72, "data")) {
+			headerSize = HEADER_SIZE;
+		} else {
+			return null;
+		}
+		int fmt = headerSize == LEGACY_HEADER_SIZE ? 12 : 48;
+		if (header.getInt(fmt + 4) != 16 || header.getShort(fmt + 8) != 1
+				|| header.getShort(fmt + 22) != BITS_PER_SAMPLE) {
+			return null;
+		}
+		WavHeader result = new WavHeader(header.getInt(fmt + 12), header.getShort(fmt + 10), headerSize);
+		result.isRf64 = isRf64;
+		return result;
+	}
+
+	static boolean hasTag(ByteBuffer buffer, int offset, String tag) {
+		for (int i = 0; i < 4; i++) {
+			if (buffer.get(offset + i) != tag.charAt(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2019 Dmytro Ponomarenko
+ * Copyright 2026 Dmytro Ponomarenko
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,54 +16,28 @@
 
 package com.dimowner.audiorecorder.audio.recorder;
 
-import android.media.AudioFormat;
-import android.media.AudioRecord;
-import android.media.MediaRecorder;
 import android.os.Build;
-import android.os.Handler;
-import com.dimowner.audiorecorder.AppConstants;
 import com.dimowner.audiorecorder.exception.InvalidOutputFile;
 import com.dimowner.audiorecorder.exception.RecorderInitException;
-import com.dimowner.audiorecorder.exception.RecordingException;
 import com.dimowner.audiorecorder.util.AndroidUtils;
 import java.io.File;
-import java.io.FileNotFoundException;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.RandomAccessFile;
-import java.nio.ByteBuffer;
-import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
 import java.util.concurrent.atomic.AtomicBoolean;
 import timber.log.Timber;
-import static com.dimowner.audiorecorder.AppConstants.RECORDING_VISUALIZATION_INTERVAL;
 import androidx.annotation.RequiresApi;
 import androidx.annotation.RequiresPermission;
 
-public class WavRecorder implements RecorderContract.Recorder {
+public class WavRecorder extends PcmRecorder implements RecorderContract.PreRollRecorder {
 
-	private AudioRecord recorder = null;
+	/** Actual data size is written into the WAV header with this interval while recording. */
+	private static final int HEADER_COMMIT_INTERVAL_SECONDS = 5;
 
-	private static final int RECORDER_BPP = 16; //bits per sample
+	private final AtomicBoolean isPreRolling = new AtomicBoolean(false);
 
-	private File recordFile = null;
-	private int bufferSize = 0;
-	private long updateTime = 0;
-	private long durationMills = 0;
-
-	private Thread recordingThread;
-
-	private final AtomicBoolean isRecording = new AtomicBoolean(false);
-	private final AtomicBoolean isPaused = new AtomicBoolean(false);
-	private final Handler handler = new Handler();
-
-	private int channelCount = 1;
-
-	/** Value for recording used visualisation. */
-	private int lastVal = 0;
-
-	private int sampleRate = AppConstants.RECORD_SAMPLE_RATE_44100;
-
-	private RecorderContract.RecorderCallback recorderCallback;
+	private PcmHistoryBuffer preRollBuffer = null;
+	/** Count of buffered bytes put at the beginning of the current record. */
+	private volatile int preRollBytes = 0;
 
 	private static class WavRecorderSingletonHolder {
 		private static final WavRecorder singleton = new WavRecorder();
@@ -80,59 +54,35 @@ public class WavRecorder implements RecorderContract.Recorder {
 	private WavRecorder() { }
 
 	@Override
-	public void setRecorderCallback(RecorderContract.RecorderCallback callback) {
-		recorderCallback = callback;
+	protected RecordFileSink createSink(FileChannel channel) throws IOException {
+		WavHeader header = new WavHeader(sampleRate, channelCount);
+		return new WavFileSink(channel, header, header.getByteRate() * HEADER_COMMIT_INTERVAL_SECONDS);
 	}
 
 	@Override
 	@RequiresPermission(value = "android.permission.RECORD_AUDIO")
 	public void startRecording(String outputFile, int channelCount, int sampleRate, int bitrate) {
-		this.sampleRate = sampleRate;
-//		this.framesPerVisInterval = (int)((VISUALIZATION_INTERVAL/1000f)/(1f/sampleRate));
-		this.channelCount = channelCount;
-		recordFile = new File(outputFile);
-		if (recordFile.exists() && recordFile.isFile()) {
-			int channel = channelCount == 1 ? AudioFormat.CHANNEL_IN_MONO : AudioFormat.CHANNEL_IN_STEREO;
-			try {
-				bufferSize = AudioRecord.getMinBufferSize(sampleRate,
-						channel,
-						AudioFormat.ENCODING_PCM_16BIT);
-				if (bufferSize == AudioRecord.ERROR || bufferSize == AudioRecord.ERROR_BAD_VALUE) {
-					bufferSize = AudioRecord.getMinBufferSize(sampleRate,
-							channel,
-							AudioFormat.ENCODING_PCM_16BIT);
-				}
-				recorder = new AudioRecord(
-						MediaRecorder.AudioSource.MIC,
-						sampleRate,
-						channel,
-						AudioFormat.ENCODING_PCM_16BIT,
-						bufferSize
-				);
-			} catch (IllegalArgumentException e) {
-				Timber.e(e, "sampleRate = " + sampleRate + " channel = " + channel + " bufferSize = " + bufferSize);
-				if (recorder != null) {
-					recorder.release();
-				}
+		if (isPreRolling.get()) {
+			if (this.channelCount == channelCount && this.sampleRate == sampleRate) {
+				startRecordingFromPreRoll(outputFile);
+				return;
 			}
-			if (recorder != null && recorder.getState() == AudioRecord.STATE_INITIALIZED) {
-				recorder.startRecording();
-				updateTime = System.currentTimeMillis();
-				isRecording.set(true);
-				recordingThread = new Thread(this::writeAudioDataToFile, "AudioRecorder Thread");
+			stopPreRoll();
+		}
+		preRollBytes = 0;
+		super.startRecording(outputFile, channelCount, sampleRate, bitrate);
+	}
 
-				recordingThread.start();
-				scheduleRecordingTimeUpdate();
-				if (recorderCallback != null) {
-					recorderCallback.onStartRecord(recordFile);
-				}
-				isPaused.set(false);
-			} else {
-				Timber.e("prepare() failed");
-				if (recorderCallback != null) {
-					recorderCallback.onError(new RecorderInitException());
-				}
-			}
+	/**
+	 * Capture thread is already running, it will put the buffered audio into the record
+	 * and report start of recording when the buffer is not written anymore.
+	 */
+	private void startRecordingFromPreRoll(String outputFile) {
+		recordFile = new File(outputFile);
+		if (recordFile.exists() && recordFile.isFile()) {
+			clock.startFrames(sampleRate, 0);
+			isPaused.set(false);
+			isRecording.set(true);
 		} else {
 			if (recorderCallback != null) {
 				recorderCallback.onError(new InvalidOutputFile());
@@ -140,228 +90,125 @@ public class WavRecorder implements RecorderContract.Recorder {
 		}
 	}
 
-	@Override
-	public void resumeRecording() {
-		if (recorder != null && recorder.getState() == AudioRecord.STATE_INITIALIZED) {
-			if (isPaused.get()) {
-				updateTime = System.currentTimeMillis();
-				scheduleRecordingTimeUpdate();
-				recorder.startRecording();
-				if (recorderCallback != null) {
-					recorderCallback.onResumeRecord();
-				}
-				isPaused.set(false);
-			}
-		}
-	}
-
-	@Override
-	public void pauseRecording() {
+	private void onPreRollRecordStarted() {
 		if (isRecording.get()) {
-			recorder.stop();
-			durationMills += System.currentTimeMillis() - updateTime;
-			pauseRecordingTimer();
-
-			isPaused.set(true);
 			if (recorderCallback != null) {
-				recorderCallback.onPauseRecord();
+				recorderCallback.onStartRecord(recordFile);
 			}
 		}
 	}
 
 	@Override
-	public void stopRecording() {
-		if (recorder != null) {
-			isRecording.set(false);
-			isPaused.set(false);
-			stopRecordingTimer();
-			if (recorder.getState() == AudioRecord.STATE_INITIALIZED) {
-				try {
-					recorder.stop();
-				} catch (IllegalStateException e) {
-					Timber.e(e, "stopRecording() problems");
-				}
+	@RequiresPermission(value = "android.permission.RECORD_AUDIO")
+	public void startPreRoll(int channelCount, int sampleRate, int seconds) {
+		if (isRecording.get()) {
+			return;
+		}
+		if (isPreRolling.get()) {
+			stopPreRoll();
+		}
+		//Buffer may still be written into the previous record.
+		joinRecordingThread();
+		this.sampleRate = sampleRate;
+		this.channelCount = channelCount;
+		if (createSource()) {
+			int frameSize = channelCount * 2;
+			int capacity = sampleRate * frameSize * seconds;
+			if (preRollBuffer == null || preRollBuffer.capacity() != capacity - capacity % frameSize) {
+				//Let the old buffer be collected before the new one is allocated.
+				preRollBuffer = null;
+				preRollBuffer = new PcmHistoryBuffer(capacity, frameSize, source.getBufferSize());
+			} else {
+				preRollBuffer.clear();
 			}
-			durationMills = 0;
-			recorder.release();
-			recordingThread.interrupt();
+			source.start();
+			isPreRolling.set(true);
+			recordingThread = new Thread(this::capture, "AudioRecorder Thread");
+			recordingThread.start();
+		} else {
+			Timber.e("prepare() failed");
 			if (recorderCallback != null) {
-				recorderCallback.onStopRecord(recordFile);
+				recorderCallback.onError(new RecorderInitException());
 			}
 		}
 	}
 
+	/**
+	 * Stop capturing into the buffer. When recording is already started from it, capture thread
+	 * goes on with the record and keeps the source.
+	 */
 	@Override
-	public boolean isRecording() {
-		return isRecording.get();
-	}
-
-	@Override
-	public boolean isPaused() {
-		return isPaused.get();
+	public void stopPreRoll() {
+		if (!isRecording.get() && isPreRolling.getAndSet(false) && source != null) {
+			try {
+				source.stop();
+			} catch (IllegalStateException e) {
+				Timber.e(e, "stopPreRoll() problems");
+			}
+			//Stopped source returns from read, capture thread leaves it and the buffer.
+			joinRecordingThread();
+			source.release();
+		}
 	}
 
-	private void writeAudioDataToFile() {
-		byte[] data = new byte[bufferSize];
-		FileOutputStream fos;
-		try {
-			fos = new FileOutputStream(recordFile);
-		} catch (FileNotFoundException e) {
-			Timber.e(e);
-			fos = null;
-		}
-		if (null != fos) {
-			writeEmptyHeader(fos);
-			int chunksCount = 0;
-			ByteBuffer shortBuffer = ByteBuffer.allocate(2);
-			shortBuffer.order(ByteOrder.LITTLE_ENDIAN);
-			//TODO: Disable loop while pause.
-			while (isRecording.get()) {
-				if (!isPaused.get()) {
-					chunksCount += recorder.read(data, 0, bufferSize);
-					if (AudioRecord.ERROR_INVALID_OPERATION != chunksCount) {
-						long sum = 0;
-						for (int i = 0; i < bufferSize; i+=2) {
-							//TODO: find a better way to covert bytes into shorts.
-							shortBuffer.put(data[i]);
-							shortBuffer.put(data[i+1]);
-							sum += Math.abs(shortBuffer.getShort(0));
-							shortBuffer.clear();
-						}
-						lastVal = (int)(sum/(bufferSize/16));
-						try {
-							fos.write(data);
-						} catch (IOException e) {
-							Timber.e(e);
-							AndroidUtils.runOnUIThread(() -> {
-								recorderCallback.onError(new RecordingException());
-								stopRecording();
-							});
-						}
-					}
+	private void joinRecordingThread() {
+		Thread thread = recordingThread;
+		if (thread != null && thread != Thread.currentThread()) {
+			boolean interrupted = false;
+			while (thread.isAlive()) {
+				try {
+					thread.join();
+				} catch (InterruptedException e) {
+					interrupted = true;
 				}
 			}
-
-			try {
-				fos.flush();
-				fos.close();
-			} catch (IOException e) {
-				Timber.e(e);
+			if (interrupted) {
+				Thread.currentThread().interrupt();
 			}
-			setWaveFileHeader(recordFile, channelCount);
 		}
 	}
 
-	private void setWaveFileHeader(File file, int channels) {
-		long fileSize = file.length() - 44;
-		long totalSize = fileSize + 36;
-		long byteRate = sampleRate * channels * (RECORDER_BPP/8); //2 byte per 1 sample for 1 channel.
-
-		try {
-			final RandomAccessFile wavFile = randomAccessFile(file);
-			wavFile.seek(0); // to the beginning
-			wavFile.write(generateHeader(fileSize, totalSize, sampleRate, channels, byteRate));
-			wavFile.close();
-		} catch (FileNotFoundException e) {
-			Timber.e(e);
-		} catch (IOException e) {
-			Timber.e(e);
-		}
+	@Override
+	public boolean isPreRolling() {
+		return isPreRolling.get() && !isRecording.get();
 	}
 
-	private void writeEmptyHeader(FileOutputStream fos) {
-		try {
-			byte[] header = new byte[44];
-			fos.write(header);
-			fos.flush();
-		} catch (IOException e) {
-			Timber.e(e);
-		}
+	@Override
+	public long getPreRollMills() {
+		return (long) preRollBytes * 1000 / (sampleRate * channelCount * 2);
 	}
 
-	private RandomAccessFile randomAccessFile(File file) {
-		RandomAccessFile randomAccessFile;
-		try {
-			randomAccessFile = new RandomAccessFile(file, "rw");
-		} catch (FileNotFoundException e) {
-			throw new RuntimeException(e);
+	@Override
+	public int[] getPreRollAmplitudes(int count) {
+		if (preRollBytes == 0 || preRollBuffer == null) {
+			return new int[0];
 		}
-		return randomAccessFile;
-	}
-
-	private byte[] generateHeader(
-			long totalAudioLen, long totalDataLen, long longSampleRate, int channels,
-			long byteRate) {
-
-		byte[] header = new byte[44];
-
-		header[0] = 'R'; // RIFF/WAVE header
-		header[1] = 'I';
-		header[2] = 'F';
-		header[3] = 'F';
-		header[4] = (byte) (totalDataLen & 0xff);
-		header[5] = (byte) ((totalDataLen >> 8) & 0xff);
-		header[6] = (byte) ((totalDataLen >> 16) & 0xff);
-		header[7] = (byte) ((totalDataLen >> 24) & 0xff);
-		header[8] = 'W';
-		header[9] = 'A';
-		header[10] = 'V';
-		header[11] = 'E';
-		header[12] = 'f'; // 'fmt ' chunk
-		header[13] = 'm';
-		header[14] = 't';
-		header[15] = ' ';
-		header[16] = 16; //16 for PCM. 4 bytes: size of 'fmt ' chunk
-		header[17] = 0;
-		header[18] = 0;
-		header[19] = 0;
-		header[20] = 1; // format = 1
-		header[21] = 0;
-		header[22] = (byte) channels;
-		header[23] = 0;
-		header[24] = (byte) (longSampleRate & 0xff);
-		header[25] = (byte) ((longSampleRate >> 8) & 0xff);
-		header[26] = (byte) ((longSampleRate >> 16) & 0xff);
-		header[27] = (byte) ((longSampleRate >> 24) & 0xff);
-		header[28] = (byte) (byteRate & 0xff);
-		header[29] = (byte) ((byteRate >> 8) & 0xff);
-		header[30] = (byte) ((byteRate >> 16) & 0xff);
-		header[31] = (byte) ((byteRate >> 24) & 0xff);
-		header[32] = (byte) (channels * (RECORDER_BPP/8)); // block align
-		header[33] = 0;
-		header[34] = RECORDER_BPP; // bits per sample
-		header[35] = 0;
-		header[36] = 'd';
-		header[37] = 'a';
-		header[38] = 't';
-		header[39] = 'a';
-		header[40] = (byte) (totalAudioLen & 0xff);
-		header[41] = (byte) ((totalAudioLen >> 8) & 0xff);
-		header[42] = (byte) ((totalAudioLen >> 16) & 0xff);
-		header[43] = (byte) ((totalAudioLen >> 24) & 0xff);
-		return header;
+		return preRollBuffer.getLevels(count);
 	}
 
-	private void scheduleRecordingTimeUpdate() {
-		handler.postDelayed(() -> {
-			if (recorderCallback != null && recorder != null) {
-				long curTime = System.currentTimeMillis();
-				durationMills += curTime - updateTime;
-				updateTime = curTime;
-				recorderCallback.onRecordProgress(durationMills, lastVal);
-				scheduleRecordingTimeUpdate();
+	@Override
+	protected void capture() {
+		PcmCapture capture = this.capture;
+		PcmHistoryBuffer history = null;
+		if (isPreRolling.get()) {
+			history = preRollBuffer;
+			byte[] chunk = new byte[capture.getSource().getBufferSize()];
+			while (isPreRolling.get() && !isRecording.get()) {
+				int read = capture.read(chunk);
+				if (read > 0) {
+					history.write(chunk, 0, read, capture.getAmplitude());
+				}
 			}
-		}, RECORDING_VISUALIZATION_INTERVAL);
-	}
-
-	private void stopRecordingTimer() {
-		handler.removeCallbacksAndMessages(null);
-		updateTime = 0;
-	}
-
-	private void pauseRecordingTimer() {
-		handler.removeCallbacksAndMessages(null);
-		updateTime = 0;
+			if (!isRecording.get()) {
+				return;
+			}
+			//Buffer is not written anymore, writer thread flushes it before the live data.
+			isPreRolling.set(false);
+			preRollBytes = history.size();
+			clock.startFrames(sampleRate, preRollBytes / (channelCount * 2));
+			AndroidUtils.runOnUIThread(this::onPreRollRecordStarted);
+		}
+		record(capture, history);
 	}
 
 	@RequiresApi(api = Build.VERSION_CODES.LOLLIPOP)
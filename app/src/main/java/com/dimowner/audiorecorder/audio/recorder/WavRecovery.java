@@ -0,0 +1,156 @@
+/*
+ * Copyright 2026 Dmytro Ponomarenko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dimowner.audiorecorder.audio.recorder;
+
+import com.dimowner.audiorecorder.audio.WavFileInfo;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+
+/**
+ * Repairs WAV records which were not finalized because recording was interrupted.
+ * Only the header is read and rewritten, audio data is never copied.
+ * Data which grew over 4 GB gets RF64 header, see {@link WavHeader}.
+ * Only files in layouts this app writes are repaired, other WAV files are never opened for writing.
+ */
+public class WavRecovery {
+
+	private WavRecovery() {}
+
+	/**
+	 * Fix header of the WAV file if its sizes disagree with the file length.
+	 * Files with empty header (written by old app versions) get a new header
+	 * generated from the fallback format. Files in other layouts, including 44 bytes headers
+	 * which other apps write too, and files with chunks after audio data are not touched.
+	 * @param file WAV file to check.
+	 * @param fallbackSampleRate sample rate used when the header is empty.
+	 * @param fallbackChannels channels count used when the header is empty.
+	 * @return duration of repaired record in microseconds or -1 if the file was not changed.
+	 */
+	public static long repair(File file, int fallbackSampleRate, int fallbackChannels) throws IOException {
+		return repair(file, fallbackSampleRate, fallbackChannels, null);
+	}
+
+	/**
+	 * Fix header of the WAV file, see {@link #repair(File, int, int)}.
+	 * @param beforeRewrite run when the file is going to be changed, before anything is written. May be null.
+	 */
+	public static long repair(File file, int fallbackSampleRate, int fallbackChannels, Runnable beforeRewrite)
+			throws IOException {
+		WavHeader header;
+		long dataLength;
+		try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+			FileChannel channel = raf.getChannel();
+			long fileLength = channel.size();
+			if (fileLength < WavHeader.LEGACY_HEADER_SIZE) {
+				return -1;
+			}
+			ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(fileLength, WavHeader.HEADER_SIZE))
+					.order(ByteOrder.LITTLE_ENDIAN);
+			while (buffer.hasRemaining()) {
+				if (channel.read(buffer, buffer.position()) < 0) {
+					return -1;
+				}
+			}
+			buffer.flip();
+
+			header = WavHeader.parse(buffer);
+			if (header != null) {
+				if (header.getHeaderSize() != WavHeader.HEADER_SIZE
+						|| !isDataLast(channel, header, header.getStoredDataLength(buffer), fileLength)) {
+					return -1;
+				}
+				dataLength = alignedDataLength(fileLength, header);
+				if (header.hasSizes(buffer, dataLength)) {
+					return -1;
+				}
+			} else if (isEmpty(buffer) && fallbackSampleRate > 0 && fallbackChannels > 0) {
+				//Old app versions wrote empty 44 bytes header and filled it after recording.
+				header = WavHeader.legacy(fallbackSampleRate, fallbackChannels);
+				dataLength = alignedDataLength(fileLength, header);
+			} else {
+				return -1;
+			}
+		}
+		if (beforeRewrite != null) {
+			beforeRewrite.run();
+		}
+		try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+			if (header.getHeaderSize() == WavHeader.LEGACY_HEADER_SIZE) {
+				header.write(raf.getChannel(), dataLength);
+				return header.getDurationUs(Math.min(dataLength, WavHeader.MAX_UINT32));
+			}
+			header.writeSizes(raf.getChannel(), dataLength);
+			return header.getDurationUs(dataLength);
+		}
+	}
+
+	/**
+	 * Check that chunks of the file go in the order the recorder writes them
+	 * and nothing but audio written after the last header commit follows the stored data size.
+	 */
+	private static boolean isDataLast(FileChannel channel, WavHeader header, long storedDataLength, long fileLength)
+			throws IOException {
+		WavFileInfo info = WavFileInfo.read(channel);
+		if (info == null || info.getDataOffset() != header.getHeaderSize()
+				|| info.getSampleRate() != header.getSampleRate() || info.getChannelCount() != header.getChannels()) {
+			return false;
+		}
+		long end = header.getHeaderSize() + storedDataLength;
+		if (end + 8 > fileLength) {
+			return true;
+		}
+		ByteBuffer chunk = ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN);
+		while (chunk.hasRemaining()) {
+			if (channel.read(chunk, end + chunk.position()) < 0) {
+				return false;
+			}
+		}
+		return !isChunkHeader(chunk, fileLength - end - 8);
+	}
+
+	/** Tag of printable characters and size which fits into the rest of the file, like LIST or id3 chunk. */
+	private static boolean isChunkHeader(ByteBuffer chunk, long remaining) {
+		for (int i = 0; i < 4; i++) {
+			byte b = chunk.get(i);
+			if (b < 0x20 || b > 0x7E) {
+				return false;
+			}
+		}
+		return (chunk.getInt(4) & WavHeader.MAX_UINT32) <= remaining;
+	}
+
+	/** Data length without incomplete last frame. */
+	private static long alignedDataLength(long fileLength, WavHeader header) {
+		long length = fileLength - header.getHeaderSize();
+		int blockAlign = header.getBlockAlign();
+		return blockAlign > 0 ? length - length % blockAlign : length;
+	}
+
+	private static boolean isEmpty(ByteBuffer header) {
+		for (int i = 0; i < WavHeader.LEGACY_HEADER_SIZE; i++) {
+			if (header.get(i) != 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+}
@@ -25,6 +25,7 @@ import timber.log.Timber;
 
 import com.dimowner.audiorecorder.ARApplication;
 import com.dimowner.audiorecorder.AppConstants;
+import com.dimowner.audiorecorder.audio.recorder.SilenceIndex;
 import com.dimowner.audiorecorder.exception.CantCreateFileException;
 import com.dimowner.audiorecorder.util.FileUtil;
 
@@ -85,6 +86,9 @@ public class FileRepositoryImpl implements FileRepository {
 			case AppConstants.FORMAT_3GP:
 				recordFile = FileUtil.createFile(recordDirectory, FileUtil.addExtension(recordName, AppConstants.FORMAT_3GP));
 				break;
+			case AppConstants.FORMAT_FLAC:
+				recordFile = FileUtil.createFile(recordDirectory, FileUtil.addExtension(recordName, AppConstants.FORMAT_FLAC));
+				break;
 		}
 
 		if (recordFile != null) {
@@ -155,6 +159,7 @@ public class FileRepositoryImpl implements FileRepository {
 	@Override
 	public boolean deleteRecordFile(String path) {
 		if (path != null) {
+			SilenceIndex.deleteIndexFile(new File(path));
 			return FileUtil.deleteFile(new File(path));
 		}
 		return false;
@@ -164,6 +169,7 @@ public class FileRepositoryImpl implements FileRepository {
 	public String markAsTrashRecord(String path) {
 		String trashLocation = FileUtil.addExtension(path, AppConstants.TRASH_MARK_EXTENSION);
 		if (FileUtil.renameFile(new File(path), new File(trashLocation))) {
+			SilenceIndex.moveIndexFile(new File(path), new File(trashLocation));
 			return trashLocation;
 		}
 		return null;
@@ -173,6 +179,7 @@ public class FileRepositoryImpl implements FileRepository {
 	public String unmarkTrashRecord(String path) {
 		String restoredFile = FileUtil.removeFileExtension(path);
 		if (FileUtil.renameFile(new File(path), new File(restoredFile))) {
+			SilenceIndex.moveIndexFile(new File(path), new File(restoredFile));
 			return restoredFile;
 		}
 		return null;
@@ -186,7 +193,13 @@ public class FileRepositoryImpl implements FileRepository {
 
 	@Override
 	public boolean renameFile(String path, String newName, String extension) {
-		return FileUtil.renameFile(new File(path), newName, extension);
+		File file = new File(path);
+		if (FileUtil.renameFile(file, newName, extension)) {
+			File renamed = new File(file.getParentFile(), newName + AppConstants.EXTENSION_SEPARATOR + extension);
+			SilenceIndex.moveIndexFile(file, renamed);
+			return true;
+		}
+		return false;
 	}
 
 	public void updateRecordingDir(Context context, Prefs prefs) {
@@ -238,6 +251,8 @@ public class FileRepositoryImpl implements FileRepository {
 				return 1000 * (spaceBytes/(bitrate/8));
 			case AppConstants.FORMAT_WAV:
 				return 1000 * (spaceBytes/(sampleRate * channels * 2));
+			case AppConstants.FORMAT_FLAC:
+				return 1000 * (long) (spaceBytes/(sampleRate * channels * 2 * AppConstants.FLAC_SIZE_RATIO));
 			default:
 				return 0;
 		}
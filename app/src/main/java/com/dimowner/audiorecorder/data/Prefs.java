@@ -75,5 +75,14 @@ public interface Prefs {
 	void setRecordSystemAudio(boolean enabled);
 	boolean isRecordSystemAudio();
 
+	void setAudioProcessing(boolean enabled);
+	boolean isAudioProcessing();
+
+	void setSkipSilence(boolean enabled);
+	boolean isSkipSilence();
+
+	void setPreRollSeconds(int seconds);
+	int getPreRollSeconds();
+
 	void resetSettings();
 }
@@ -57,6 +57,9 @@ public class PrefsImpl implements Prefs {
 	private static final String PREF_KEY_SETTING_NAMING_FORMAT = "setting_naming_format";
 	private static final String PREF_KEY_SETTING_CHANNEL_COUNT = "setting_channel_count";
 	private static final String PREF_KEY_RECORD_SYSTEM_AUDIO = "record_system_audio";
+	private static final String PREF_KEY_AUDIO_PROCESSING = "audio_processing";
+	private static final String PREF_KEY_SKIP_SILENCE = "skip_silence";
+	private static final String PREF_KEY_PRE_ROLL_SECONDS = "pre_roll_seconds";
 
 	private final SharedPreferences sharedPreferences;
 
@@ -408,6 +411,42 @@ public class PrefsImpl implements Prefs {
 		return sharedPreferences.getBoolean(PREF_KEY_RECORD_SYSTEM_AUDIO, false);
 	}
 
+	@Override
+	public void setAudioProcessing(boolean enabled) {
+		SharedPreferences.Editor editor = sharedPreferences.edit();
+		editor.putBoolean(PREF_KEY_AUDIO_PROCESSING, enabled);
+		editor.apply();
+	}
+
+	@Override
+	public boolean isAudioProcessing() {
+		return sharedPreferences.getBoolean(PREF_KEY_AUDIO_PROCESSING, false);
+	}
+
+	@Override
+	public void setSkipSilence(boolean enabled) {
+		SharedPreferences.Editor editor = sharedPreferences.edit();
+		editor.putBoolean(PREF_KEY_SKIP_SILENCE, enabled);
+		editor.apply();
+	}
+
+	@Override
+	public boolean isSkipSilence() {
+		return sharedPreferences.getBoolean(PREF_KEY_SKIP_SILENCE, false);
+	}
+
+	@Override
+	public void setPreRollSeconds(int seconds) {
+		SharedPreferences.Editor editor = sharedPreferences.edit();
+		editor.putInt(PREF_KEY_PRE_ROLL_SECONDS, seconds);
+		editor.apply();
+	}
+
+	@Override
+	public int getPreRollSeconds() {
+		return sharedPreferences.getInt(PREF_KEY_PRE_ROLL_SECONDS, 0);
+	}
+
 	@Override
 	public void resetSettings() {
 		SharedPreferences.Editor editor = sharedPreferences.edit();
@@ -17,13 +17,18 @@
 package com.dimowner.audiorecorder.data.database;
 
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import android.content.ContentValues;
 import android.content.Context;
 import android.database.Cursor;
 import android.database.SQLException;
 import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
 import android.util.Log;
 
 import com.dimowner.audiorecorder.AppConstants;
@@ -44,9 +49,24 @@ public abstract class DataSource<T> {
 	/** Source table name. */
 	protected String tableName;
 
+	/** Max count of arguments in one query, SQLite allows 999 on older Android versions. */
+	private static final int MAX_QUERY_ARGS = 500;
+
 	/** Tag for logging messages. */
 	private final String LOG_TAG = getClass().getSimpleName();
 
+	/**
+	 * Queries which are run often. Their text has no values, they are bound as arguments,
+	 * so SQLite compiles each of them once and takes it from statement cache of the connection.
+	 */
+	private final String selectById;
+	private final String selectByPath;
+	private final String selectCount;
+	/** Page queries by sort order or by page key. */
+	private final Map<String, String> selectPage = new HashMap<>();
+	/** Compiled statements which return one value, by query text. */
+	private final Map<String, SQLiteStatement> statements = new HashMap<>();
+
 
 	/**
 	 * Constructor.
@@ -56,6 +76,10 @@ public abstract class DataSource<T> {
 	public DataSource (Context context, String tableName) {
 		dbHelper = new SQLiteHelper(context);
 		this.tableName = tableName;
+		String select = "SELECT * FROM " + tableName + " WHERE ";
+		selectById = select + SQLiteHelper.COLUMN_ID + " = ?";
+		selectByPath = select + SQLiteHelper.COLUMN_PATH + " = ? LIMIT 1";
+		selectCount = "SELECT COUNT(*) FROM " + tableName;
 	}
 
 	/**
@@ -69,6 +93,7 @@ public abstract class DataSource<T> {
 	 * Close connection to SQLite database.
 	 */
 	public void close() {
+		closeStatements();
 		db.close();
 		dbHelper.close();
 	}
@@ -106,7 +131,7 @@ public abstract class DataSource<T> {
 	 */
 	public int deleteItem(int id) {
 		Log.d(LOG_TAG, tableName + " deleted ID = " + id);
-		return db.delete(tableName, SQLiteHelper.COLUMN_ID + " = " + id, null);
+		return db.delete(tableName, SQLiteHelper.COLUMN_ID + " = ?", new String[]{Integer.toString(id)});
 	}
 
 	/**
@@ -116,9 +141,8 @@ public abstract class DataSource<T> {
 	public int updateItem(T item) {
 		ContentValues values = itemToContentValues(item);
 		if (values != null && values.containsKey(SQLiteHelper.COLUMN_ID)) {
-			String where = SQLiteHelper.COLUMN_ID + " = "
-					+ values.get(SQLiteHelper.COLUMN_ID);
-			int n = db.update(tableName, values, where, null);
+			int n = db.update(tableName, values, SQLiteHelper.COLUMN_ID + " = ?",
+					new String[]{String.valueOf(values.get(SQLiteHelper.COLUMN_ID))});
 			Log.d(LOG_TAG, "Updated records count = " + n);
 			return n;
 		} else {
@@ -150,11 +174,7 @@ public abstract class DataSource<T> {
 	 * @return List that contains all records of table T.
 	 */
 	public ArrayList<T> getRecords(int page) {
-		Cursor cursor = queryLocal("SELECT * FROM " + tableName
-				+ " ORDER BY " + SQLiteHelper.COLUMN_DATE_ADDED + " DESC"
-				+ " LIMIT " + AppConstants.DEFAULT_PER_PAGE
-				+ " OFFSET " + (page-1) * AppConstants.DEFAULT_PER_PAGE);
-		return convertCursor(cursor);
+		return getRecords(page, SQLiteHelper.COLUMN_DATE_ADDED + " DESC");
 	}
 
 	/**
@@ -162,13 +182,7 @@ public abstract class DataSource<T> {
 	 * @return Existing records count of table T.
 	 */
 	public int getCount() {
-		Cursor cursor = queryLocal("SELECT COUNT(*) FROM " + tableName);
-		if (cursor != null) {
-			cursor.moveToFirst();
-			return cursor.getInt(0);
-		} else {
-			return -1;
-		}
+		return (int) queryForLong(selectCount);
 	}
 
 	/**
@@ -176,10 +190,47 @@ public abstract class DataSource<T> {
 	 * @return List that contains all records of table T.
 	 */
 	public ArrayList<T> getRecords(int page, String order) {
-		Cursor cursor = queryLocal("SELECT * FROM " + tableName
-				+ " ORDER BY " + order
-				+ " LIMIT " + AppConstants.DEFAULT_PER_PAGE
-				+ " OFFSET " + (page-1) * AppConstants.DEFAULT_PER_PAGE);
+		String sql;
+		synchronized (selectPage) {
+			sql = selectPage.get(order);
+			if (sql == null) {
+				sql = "SELECT * FROM " + tableName + " ORDER BY " + order + " LIMIT ? OFFSET ?";
+				selectPage.put(order, sql);
+			}
+		}
+		Cursor cursor = query(sql, AppConstants.DEFAULT_PER_PAGE, (page-1) * AppConstants.DEFAULT_PER_PAGE);
+		return convertCursor(cursor);
+	}
+
+	/**
+	 * Get page of records which follow the key in its order.
+	 * Query is a range on index of the sort column, its cost does not depend on how deep the page is.
+	 * @param key Key of the page, see {@link PageKey#next(List)}.
+	 * @return List of records of the page.
+	 */
+	public ArrayList<T> getRecords(PageKey key) {
+		String queryKey = key.getOrderBy() + (key.isFirst() ? "" : " after");
+		String sql;
+		synchronized (selectPage) {
+			sql = selectPage.get(queryKey);
+			if (sql == null) {
+				String where = "";
+				if (!key.isFirst()) {
+					String op = key.isAscending() ? ">" : "<";
+					//Expanded form of (column, _id) > (?, ?) which older SQLite lacks, first condition is the index range.
+					where = " WHERE " + key.getColumn() + " " + op + "= ? AND (" + key.getColumn() + " " + op + " ? OR "
+							+ SQLiteHelper.COLUMN_ID + " " + op + " ?)";
+				}
+				sql = "SELECT * FROM " + tableName + where + " ORDER BY " + key.getOrderBy() + " LIMIT ?";
+				selectPage.put(queryKey, sql);
+			}
+		}
+		Cursor cursor;
+		if (key.isFirst()) {
+			cursor = query(sql, AppConstants.DEFAULT_PER_PAGE);
+		} else {
+			cursor = query(sql, key.getValue(), key.getValue(), key.getId(), AppConstants.DEFAULT_PER_PAGE);
+		}
 		return convertCursor(cursor);
 	}
 
@@ -202,15 +253,57 @@ public abstract class DataSource<T> {
 		return convertCursor(cursor);
 	}
 
+	/**
+	 * Get items that match the conditions from table T.
+	 * @param where Conditions with '?' in places of arguments.
+	 * @param args Arguments of the conditions.
+	 * @return List of some records from table T.
+	 */
+	public ArrayList<T> getItems(String where, Object... args) {
+		return convertCursor(query("SELECT * FROM " + tableName + " WHERE " + where, args));
+	}
+
+	/**
+	 * Find item by exact path of its file.
+	 * @param path Path to look up.
+	 * @return Found item or null.
+	 */
+	public T findItemByPath(String path) {
+		List<T> list = convertCursor(query(selectByPath, path));
+		return list.isEmpty() ? null : list.get(0);
+	}
+
+	/**
+	 * Find which of the paths belong to items of table T, paths are looked up in batches.
+	 * @param paths Paths to look up.
+	 * @return Found paths.
+	 */
+	public Set<String> findPaths(List<String> paths) {
+		Set<String> found = new HashSet<>();
+		for (int from = 0; from < paths.size(); from += MAX_QUERY_ARGS) {
+			List<String> args = paths.subList(from, Math.min(from + MAX_QUERY_ARGS, paths.size()));
+			StringBuilder where = new StringBuilder(SQLiteHelper.COLUMN_PATH).append(" IN (");
+			for (int i = 0; i < args.size(); i++) {
+				where.append(i == 0 ? "?" : ",?");
+			}
+			where.append(")");
+			Cursor cursor = db.query(tableName, new String[]{SQLiteHelper.COLUMN_PATH}, where.toString(),
+					args.toArray(new String[0]), null, null, null);
+			while (cursor.moveToNext()) {
+				found.add(cursor.getString(0));
+			}
+			cursor.close();
+		}
+		return found;
+	}
+
 	/**
 	 * Get item from table T.
 	 * @param id Item id to select.
 	 * @return Selected item from table.
 	 */
 	public T getItem(int id) {
-		Cursor cursor = queryLocal("SELECT * FROM " + tableName
-				+ " WHERE " + SQLiteHelper.COLUMN_ID + " = " + id);
-		List<T> list = convertCursor(cursor);
+		List<T> list = convertCursor(query(selectById, id));
 		if (list.size() > 0) {
 			return list.get(0);
 		}
@@ -262,6 +355,51 @@ public abstract class DataSource<T> {
 	 */
 	public abstract T recordToItem(Cursor cursor);
 
+	/**
+	 * Query to local SQLite database with arguments bound in places of '?'.
+	 * @param sql Query string without values.
+	 * @param args Query arguments.
+	 * @return Cursor that contains query result.
+	 */
+	protected Cursor query(String sql, Object... args) {
+		String[] strings = new String[args.length];
+		for (int i = 0; i < args.length; i++) {
+			strings[i] = String.valueOf(args[i]);
+		}
+		return db.rawQuery(sql, strings);
+	}
+
+	/**
+	 * Run query which returns one number, its statement is compiled on the first run and kept till close.
+	 * @param sql Query string without values.
+	 * @param args Query arguments.
+	 * @return Value of the first column of the first row.
+	 */
+	protected synchronized long queryForLong(String sql, Object... args) {
+		SQLiteStatement statement = statements.get(sql);
+		if (statement == null) {
+			statement = db.compileStatement(sql);
+			statements.put(sql, statement);
+		}
+		statement.clearBindings();
+		for (int i = 0; i < args.length; i++) {
+			Object arg = args[i];
+			if (arg instanceof Long || arg instanceof Integer) {
+				statement.bindLong(i + 1, ((Number) arg).longValue());
+			} else {
+				statement.bindString(i + 1, String.valueOf(arg));
+			}
+		}
+		return statement.simpleQueryForLong();
+	}
+
+	private synchronized void closeStatements() {
+		for (SQLiteStatement statement : statements.values()) {
+			statement.close();
+		}
+		statements.clear();
+	}
+
 	/**
 	 * Query to local SQLite database with write to log query text and query result.
 	 * @param query Query string.
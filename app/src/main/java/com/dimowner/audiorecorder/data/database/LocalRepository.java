@@ -20,6 +20,7 @@ import com.dimowner.audiorecorder.exception.FailedToRestoreRecord;
 
 import java.io.IOException;
 import java.util.List;
+import java.util.Set;
 
 public interface LocalRepository {
 
@@ -31,8 +32,22 @@ public interface LocalRepository {
 
 	Record findRecordByPath(String path);
 
+	/**
+	 * Find records which files are in the directory or in its subdirectories.
+	 * @param path absolute path of the directory.
+	 */
 	List<Record> findRecordsByPath(String path);
 
+	/**
+	 * Find which of the files are records, all paths are looked up in a few queries.
+	 * @return paths of records among the paths.
+	 */
+	Set<String> findRecordsPaths(List<String> paths);
+
+	/**
+	 * Check if there are records which files are in the directory or in its subdirectories.
+	 * @param path absolute path of the directory.
+	 */
 	boolean hasRecordsWithPath(String path);
 
 	Record getTrashRecord(int id);
@@ -41,10 +56,27 @@ public interface LocalRepository {
 
 	List<Integer> getAllItemsIds();
 
+	/**
+	 * Ids of records which waveform is not decoded yet and which are short enough to be decoded.
+	 */
+	List<Integer> getUnprocessedRecordsIds();
+
+	/**
+	 * Ids of decoded records which waveform was stored for a screen width instead of
+	 * {@link com.dimowner.audiorecorder.AppConstants#WAVEFORM_FRAMES_PER_SECOND}, they are decoded again.
+	 */
+	List<Integer> getLegacyWaveformRecordsIds();
+
 	List<Record> getRecords(int page);
 
 	List<Record> getRecords(int page, int order);
 
+	/**
+	 * Get page of records which follows the key.
+	 * @param key {@link PageKey#first(int)} or key returned by {@link PageKey#next(List)} for the previous page.
+	 */
+	List<Record> getRecords(PageKey key);
+
 	boolean deleteAllRecords();
 
 	Record getLastRecord();
@@ -83,5 +115,7 @@ public interface LocalRepository {
 
 	void removeOutdatedTrashRecords();
 
+	List<Record> repairInterruptedRecords(String recordingPath);
+
 	void setOnRecordsLostListener(OnRecordsLostListener listener);
 }
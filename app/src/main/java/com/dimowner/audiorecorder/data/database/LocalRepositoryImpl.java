@@ -21,6 +21,8 @@ import android.database.SQLException;
 
 import com.dimowner.audiorecorder.ARApplication;
 import com.dimowner.audiorecorder.AppConstants;
+import com.dimowner.audiorecorder.audio.WaveformCache;
+import com.dimowner.audiorecorder.audio.recorder.WavRecovery;
 import com.dimowner.audiorecorder.data.FileRepository;
 import com.dimowner.audiorecorder.data.Prefs;
 import com.dimowner.audiorecorder.exception.FailedToRestoreRecord;
@@ -31,11 +33,10 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
+import java.util.Set;
 
 import timber.log.Timber;
 
-import static com.dimowner.audiorecorder.data.database.SQLiteHelper.COLUMN_PATH;
-
 import androidx.annotation.VisibleForTesting;
 
 public class LocalRepositoryImpl implements LocalRepository {
@@ -66,22 +67,27 @@ public class LocalRepositoryImpl implements LocalRepository {
 
 	private final Prefs prefs;
 
+	private final WaveformCache waveformCache;
+
 	private volatile static LocalRepositoryImpl instance;
 
 	private OnRecordsLostListener onLostRecordsListener;
 
-	private LocalRepositoryImpl(RecordsDataSource dataSource, TrashDataSource trashDataSource, FileRepository fileRepository, Prefs prefs) {
+	private LocalRepositoryImpl(RecordsDataSource dataSource, TrashDataSource trashDataSource, FileRepository fileRepository,
+			Prefs prefs, WaveformCache waveformCache) {
 		this.dataSource = dataSource;
 		this.trashDataSource = trashDataSource;
 		this.fileRepository = fileRepository;
 		this.prefs = prefs;
+		this.waveformCache = waveformCache;
 	}
 
-	public static LocalRepositoryImpl getInstance(RecordsDataSource source, TrashDataSource trashSource, FileRepository fileRepository, Prefs prefs) {
+	public static LocalRepositoryImpl getInstance(RecordsDataSource source, TrashDataSource trashSource, FileRepository fileRepository,
+			Prefs prefs, WaveformCache waveformCache) {
 		if (instance == null) {
 			synchronized (LocalRepositoryImpl.class) {
 				if (instance == null) {
-					instance = new LocalRepositoryImpl(source, trashSource, fileRepository, prefs);
+					instance = new LocalRepositoryImpl(source, trashSource, fileRepository, prefs, waveformCache);
 					instance.removeOutdatedTrashRecords();
 				}
 			}
@@ -127,15 +133,7 @@ public class LocalRepositoryImpl implements LocalRepository {
 		if (!dataSource.isOpen()) {
 			dataSource.open();
 		}
-		if (path.contains("'")) {
-			path = path.replace("'", "''");
-		}
-		List<Record> records = dataSource.getItems(COLUMN_PATH + " = '" + path + "'");
-		if (records.isEmpty()) {
-			return null;
-		} else {
-			return records.get(0);
-		}
+		return dataSource.findItemByPath(path);
 	}
 
 	@Override
@@ -143,10 +141,15 @@ public class LocalRepositoryImpl implements LocalRepository {
 		if (!dataSource.isOpen()) {
 			dataSource.open();
 		}
-		if (path.contains("'")) {
-			path = path.replace("'", "''");
+		return dataSource.findItemsInDir(path);
+	}
+
+	@Override
+	public Set<String> findRecordsPaths(List<String> paths) {
+		if (!dataSource.isOpen()) {
+			dataSource.open();
 		}
-		return dataSource.getItems(COLUMN_PATH + " LIKE '%" + path + "%'");
+		return dataSource.findPaths(paths);
 	}
 
 	@Override
@@ -154,11 +157,7 @@ public class LocalRepositoryImpl implements LocalRepository {
 		if (!dataSource.isOpen()) {
 			dataSource.open();
 		}
-		if (path.contains("'")) {
-			path = path.replace("'", "''");
-		}
-		List<Record> records = dataSource.getItems(COLUMN_PATH + " LIKE '%" + path + "%' LIMIT 1");
-		return records.size() > 0;
+		return dataSource.hasItemsInDir(path);
 	}
 
 	@Override
@@ -244,6 +243,37 @@ public class LocalRepositoryImpl implements LocalRepository {
 		return dataSource.getAllItemsIds();
 	}
 
+	@Override
+	public List<Integer> getUnprocessedRecordsIds() {
+		if (!dataSource.isOpen()) {
+			dataSource.open();
+		}
+		Cursor c = dataSource.query("SELECT " + SQLiteHelper.COLUMN_ID + " FROM " + SQLiteHelper.TABLE_RECORDS +
+				" WHERE " + SQLiteHelper.COLUMN_WAVEFORM_PROCESSED + " = 0" +
+				" AND " + SQLiteHelper.COLUMN_DURATION + " < ?" +
+				" ORDER BY " + SQLiteHelper.COLUMN_DATE_ADDED + " DESC",
+				AppConstants.DECODE_DURATION * 1000L);
+		return dataSource.convertCursorIds(c);
+	}
+
+	@Override
+	public List<Integer> getLegacyWaveformRecordsIds() {
+		if (!dataSource.isOpen()) {
+			dataSource.open();
+		}
+		//Expected count of gains, a tenth of it is allowed to differ.
+		String frames = SQLiteHelper.COLUMN_DURATION + " * ? / 1000000";
+		Cursor c = dataSource.query("SELECT " + SQLiteHelper.COLUMN_ID + " FROM " + SQLiteHelper.TABLE_RECORDS +
+				" WHERE " + SQLiteHelper.COLUMN_WAVEFORM_PROCESSED + " = 1" +
+				" AND " + SQLiteHelper.COLUMN_DURATION + " > ?" +
+				" AND " + SQLiteHelper.COLUMN_DURATION + " < ?" +
+				" AND ABS(LENGTH(" + SQLiteHelper.COLUMN_DATA + ") - " + frames + ") > " + frames + " / 10" +
+				" ORDER BY " + SQLiteHelper.COLUMN_DATE_ADDED + " DESC",
+				AppConstants.LONG_RECORD_THRESHOLD_SECONDS * 1000000L, AppConstants.DECODE_DURATION * 1000L,
+				AppConstants.WAVEFORM_FRAMES_PER_SECOND, AppConstants.WAVEFORM_FRAMES_PER_SECOND);
+		return dataSource.convertCursorIds(c);
+	}
+
 	@Override
 	public List<Record> getRecords(int page) {
 		if (!dataSource.isOpen()) {
@@ -259,28 +289,17 @@ public class LocalRepositoryImpl implements LocalRepository {
 		if (!dataSource.isOpen()) {
 			dataSource.open();
 		}
-		String orderStr;
-		switch (order) {
-			case AppConstants.SORT_NAME:
-				orderStr = SQLiteHelper.COLUMN_NAME + " ASC";
-				break;
-			case AppConstants.SORT_NAME_DESC:
-				orderStr = SQLiteHelper.COLUMN_NAME + " DESC";
-				break;
-			case AppConstants.SORT_DURATION:
-				orderStr = SQLiteHelper.COLUMN_DURATION + " DESC";
-				break;
-			case AppConstants.SORT_DURATION_DESC:
-				orderStr = SQLiteHelper.COLUMN_DURATION + " ASC";
-				break;
-			case AppConstants.SORT_DATE_DESC:
-				orderStr = SQLiteHelper.COLUMN_DATE_ADDED + " ASC";
-				break;
-			case AppConstants.SORT_DATE:
-			default:
-				orderStr = SQLiteHelper.COLUMN_DATE_ADDED + " DESC";
-		}
-		List<Record> list = dataSource.getRecords(page, orderStr);
+		List<Record> list = dataSource.getRecords(page, PageKey.first(order).getOrderBy());
+		checkForLostRecords(list);
+		return list;
+	}
+
+	@Override
+	public List<Record> getRecords(PageKey key) {
+		if (!dataSource.isOpen()) {
+			dataSource.open();
+		}
+		List<Record> list = dataSource.getRecords(key);
 		checkForLostRecords(list);
 		return list;
 	}
@@ -528,13 +547,51 @@ public class LocalRepositoryImpl implements LocalRepository {
 			trashDataSource.open();
 		}
 		long curTime = new Date().getTime();
-		List<Record> list = trashDataSource.getAll();
+		List<Record> list = trashDataSource.getItems(SQLiteHelper.COLUMN_DATE_REMOVED + " < ?",
+				curTime - AppConstants.RECORD_IN_TRASH_MAX_DURATION);
+		for (int i = 0; i < list.size(); i++) {
+			fileRepository.deleteRecordFile(list.get(i).getPath());
+			trashDataSource.deleteItem(list.get(i).getId());
+		}
+	}
+
+	/**
+	 * Find WAV records whose header disagrees with file length, because recording was interrupted,
+	 * and repair them in place. Duration and size of repaired records are updated in database.
+	 * Cached waveforms of a record are invalidated before its file is rewritten.
+	 * @param recordingPath path of the record which is being recorded now, it is skipped. May be null.
+	 * @return List of repaired records.
+	 */
+	@Override
+	public List<Record> repairInterruptedRecords(String recordingPath) {
+		if (!dataSource.isOpen()) {
+			dataSource.open();
+		}
+		List<Record> repaired = new ArrayList<>();
+		List<RecordsDataSource.RecordFile> list = dataSource.findFilesByFormat(AppConstants.FORMAT_WAV);
 		for (int i = 0; i < list.size(); i++) {
-			if (list.get(i).getRemoved() + AppConstants.RECORD_IN_TRASH_MAX_DURATION < curTime) {
-				fileRepository.deleteRecordFile(list.get(i).getPath());
-				trashDataSource.deleteItem(list.get(i).getId());
+			RecordsDataSource.RecordFile rec = list.get(i);
+			if (rec.getPath().equals(recordingPath)) {
+				continue;
+			}
+			File file = new File(rec.getPath());
+			if (!file.exists()) {
+				continue;
+			}
+			try {
+				long duration = WavRecovery.repair(file, rec.getSampleRate(), rec.getChannelCount(),
+						() -> waveformCache.invalidate(file));
+				if (duration >= 0) {
+					if (dataSource.updateDurationAndSize(rec.getId(), duration, file.length()) > 0) {
+						repaired.add(dataSource.getItem(rec.getId()));
+					}
+					Timber.d("Repaired interrupted record: %s", rec.getPath());
+				}
+			} catch (IOException e) {
+				Timber.e(e);
 			}
 		}
+		return repaired;
 	}
 
 	@Override
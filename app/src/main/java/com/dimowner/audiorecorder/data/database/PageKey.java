@@ -0,0 +1,125 @@
+/*
+ * Copyright 2026 Dmytro Ponomarenko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dimowner.audiorecorder.data.database;
+
+import com.dimowner.audiorecorder.AppConstants;
+
+import java.util.List;
+
+/**
+ * Position in the records list sorted in one of {@link AppConstants} SORT_* orders.
+ * Next page is read after the sort value and id of the last record of the previous page,
+ * so SQLite seeks to it by index instead of skipping all previous rows like OFFSET does.
+ */
+public class PageKey {
+
+	private final int order;
+	private final String column;
+	private final boolean ascending;
+	/** Sort value of the last read record, null for the first page. */
+	private final Object value;
+	private final int id;
+
+	private PageKey(int order, String column, boolean ascending, Object value, int id) {
+		this.order = order;
+		this.column = column;
+		this.ascending = ascending;
+		this.value = value;
+		this.id = id;
+	}
+
+	/** Key of the first page of records sorted in the order. */
+	public static PageKey first(int order) {
+		switch (order) {
+			case AppConstants.SORT_NAME:
+				return new PageKey(order, SQLiteHelper.COLUMN_NAME, true, null, Record.NO_ID);
+			case AppConstants.SORT_NAME_DESC:
+				return new PageKey(order, SQLiteHelper.COLUMN_NAME, false, null, Record.NO_ID);
+			case AppConstants.SORT_DURATION:
+				return new PageKey(order, SQLiteHelper.COLUMN_DURATION, false, null, Record.NO_ID);
+			case AppConstants.SORT_DURATION_DESC:
+				return new PageKey(order, SQLiteHelper.COLUMN_DURATION, true, null, Record.NO_ID);
+			case AppConstants.SORT_DATE_DESC:
+				return new PageKey(AppConstants.SORT_DATE_DESC, SQLiteHelper.COLUMN_DATE_ADDED, true, null, Record.NO_ID);
+			case AppConstants.SORT_DATE:
+			default:
+				return new PageKey(AppConstants.SORT_DATE, SQLiteHelper.COLUMN_DATE_ADDED, false, null, Record.NO_ID);
+		}
+	}
+
+	/**
+	 * Key of the page after the loaded page.
+	 * @return null when the page is the last one.
+	 */
+	public PageKey next(List<Record> page) {
+		if (page.size() < AppConstants.DEFAULT_PER_PAGE) {
+			return null;
+		}
+		Record last = page.get(page.size() - 1);
+		Object lastValue;
+		switch (column) {
+			case SQLiteHelper.COLUMN_NAME:
+				lastValue = last.getName();
+				break;
+			case SQLiteHelper.COLUMN_DURATION:
+				lastValue = last.getDuration();
+				break;
+			default:
+				lastValue = last.getAdded();
+		}
+		return new PageKey(order, column, ascending, lastValue, last.getId());
+	}
+
+	public int getOrder() {
+		return order;
+	}
+
+	public boolean isFirst() {
+		return value == null;
+	}
+
+	String getColumn() {
+		return column;
+	}
+
+	boolean isAscending() {
+		return ascending;
+	}
+
+	Object getValue() {
+		return value;
+	}
+
+	int getId() {
+		return id;
+	}
+
+	/** ORDER BY clause of the order, id breaks ties in the same direction so one index serves both. */
+	String getOrderBy() {
+		String direction = ascending ? " ASC" : " DESC";
+		return column + direction + ", " + SQLiteHelper.COLUMN_ID + direction;
+	}
+
+	@Override
+	public String toString() {
+		return "PageKey{" +
+				"order=" + order +
+				", value=" + value +
+				", id=" + id +
+				'}';
+	}
+}
@@ -0,0 +1,211 @@
+/*
+ * Copyright 2026 Dmytro Ponomarenko
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dimowner.audiorecorder.data.database;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.SQLException;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteOpenHelper;
+
+import com.dimowner.audiorecorder.app.info.RecordInfo;
+import com.dimowner.audiorecorder.audio.AudioDecoder;
+
+import java.io.File;
+
+import timber.log.Timber;
+
+/**
+ * Metadata of audio files read by {@link AudioDecoder#readRecordInfo(File)}, stored by absolute path
+ * together with size and modification time of the file. A stored entry is used only while both are the same,
+ * a changed file is read again and its entry replaced.
+ * Entries are kept in a separate database, it may be deleted at any time.
+ */
+public class RecordInfoCache {
+
+	private static final String DATABASE_NAME = "record_info_cache.db";
+	private static final int DATABASE_VERSION = 1;
+
+	static final String TABLE_RECORD_INFO = "record_info";
+	static final String COLUMN_PATH = "path";
+	static final String COLUMN_SIZE = "size";
+	static final String COLUMN_MODIFIED = "modified";
+	static final String COLUMN_NAME = "name";
+	static final String COLUMN_FORMAT = "format";
+	static final String COLUMN_DURATION = "duration";
+	static final String COLUMN_SAMPLE_RATE = "sample_rate";
+	static final String COLUMN_CHANNEL_COUNT = "channel_count";
+	static final String COLUMN_BITRATE = "bitrate";
+	static final String COLUMN_IN_TRASH = "in_trash";
+
+	private static final String CREATE_RECORD_INFO_TABLE_SCRIPT =
+			"CREATE TABLE " + TABLE_RECORD_INFO + " ("
+					+ COLUMN_PATH + " TEXT PRIMARY KEY NOT NULL, "
+					+ COLUMN_SIZE + " LONG NOT NULL, "
+					+ COLUMN_MODIFIED + " LONG NOT NULL, "
+					+ COLUMN_NAME + " TEXT NOT NULL, "
+					+ COLUMN_FORMAT + " TEXT NOT NULL, "
+					+ COLUMN_DURATION + " LONG NOT NULL, "
+					+ COLUMN_SAMPLE_RATE + " INTEGER NOT NULL, "
+					+ COLUMN_CHANNEL_COUNT + " INTEGER NOT NULL, "
+					+ COLUMN_BITRATE + " INTEGER NOT NULL, "
+					+ COLUMN_IN_TRASH + " INTEGER NOT NULL);";
+
+	private static final String[] COLUMNS = {COLUMN_NAME, COLUMN_FORMAT, COLUMN_DURATION, COLUMN_SAMPLE_RATE,
+			COLUMN_CHANNEL_COUNT, COLUMN_BITRATE, COLUMN_IN_TRASH};
+
+	private static final String SELECTION = COLUMN_PATH + " = ? AND " + COLUMN_SIZE + " = ? AND "
+			+ COLUMN_MODIFIED + " = ?";
+
+	private final SQLiteOpenHelper dbHelper;
+	private int hits = 0;
+	private int misses = 0;
+
+	public RecordInfoCache(Context context) {
+		dbHelper = new SQLiteOpenHelper(context, DATABASE_NAME, null, DATABASE_VERSION) {
+			@Override
+			public void onCreate(SQLiteDatabase db) {
+				db.execSQL(CREATE_RECORD_INFO_TABLE_SCRIPT);
+			}
+
+			@Override
+			public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+				//Entries can be read again from files.
+				db.execSQL("DROP TABLE IF EXISTS " + TABLE_RECORD_INFO);
+				onCreate(db);
+			}
+		};
+	}
+
+	/**
+	 * Get stored metadata of the file or read it from the file and store.
+	 */
+	public RecordInfo readRecordInfo(File file) {
+		RecordInfo info = get(file);
+		if (info == null) {
+			info = AudioDecoder.readRecordInfo(file);
+			put(info);
+		}
+		return info;
+	}
+
+	/**
+	 * @return metadata stored for the file or null if there is none or the file was changed after it was stored.
+	 */
+	public RecordInfo get(File file) {
+		String path = file.getAbsolutePath();
+		long size = file.length();
+		long modified = file.lastModified();
+		try (Cursor c = getDatabase().query(TABLE_RECORD_INFO, COLUMNS, SELECTION,
+				new String[]{path, Long.toString(size), Long.toString(modified)}, null, null, null)) {
+			if (c.moveToFirst()) {
+				countLookup(true);
+				return new RecordInfo(
+						c.getString(0),
+						c.getString(1),
+						c.getLong(2),
+						size,
+						path,
+						modified,
+						c.getInt(3),
+						c.getInt(4),
+						c.getInt(5),
+						c.getInt(6) != 0
+				);
+			}
+		} catch (SQLException e) {
+			Timber.e(e);
+		}
+		countLookup(false);
+		return null;
+	}
+
+	/**
+	 * Store metadata of a file, entry stored for the same path before is replaced.
+	 * Metadata of files which could not be read is not stored.
+	 */
+	public void put(RecordInfo info) {
+		if (info.getFormat().isEmpty()) {
+			return;
+		}
+		ContentValues values = new ContentValues();
+		values.put(COLUMN_PATH, info.getLocation());
+		values.put(COLUMN_SIZE, info.getSize());
+		values.put(COLUMN_MODIFIED, info.getCreated());
+		values.put(COLUMN_NAME, info.getName());
+		values.put(COLUMN_FORMAT, info.getFormat());
+		values.put(COLUMN_DURATION, info.getDuration());
+		values.put(COLUMN_SAMPLE_RATE, info.getSampleRate());
+		values.put(COLUMN_CHANNEL_COUNT, info.getChannelCount());
+		values.put(COLUMN_BITRATE, info.getBitrate());
+		values.put(COLUMN_IN_TRASH, info.isInTrash() ? 1 : 0);
+		try {
+			getDatabase().insertWithOnConflict(TABLE_RECORD_INFO, null, values, SQLiteDatabase.CONFLICT_REPLACE);
+		} catch (SQLException e) {
+			Timber.e(e);
+		}
+	}
+
+	public void remove(String path) {
+		try {
+			getDatabase().delete(TABLE_RECORD_INFO, COLUMN_PATH + " = ?", new String[]{path});
+		} catch (SQLException e) {
+			Timber.e(e);
+		}
+	}
+
+	public void clear() {
+		try {
+			getDatabase().delete(TABLE_RECORD_INFO, null, null);
+		} catch (SQLException e) {
+			Timber.e(e);
+		}
+	}
+
+	public synchronized int getHits() {
+		return hits;
+	}
+
+	public synchronized int getMisses() {
+		return misses;
+	}
+
+	public void close() {
+		dbHelper.close();
+	}
+
+	private SQLiteDatabase getDatabase() {
+		return dbHelper.getWritableDatabase();
+	}
+
+	private synchronized void countLookup(boolean hit) {
+		if (hit) {
+			hits++;
+		} else {
+			misses++;
+		}
+	}
+
+	@Override
+	public synchronized String toString() {
+		return "RecordInfoCache{" +
+				"hits=" + hits +
+				", misses=" + misses +
+				'}';
+	}
+}
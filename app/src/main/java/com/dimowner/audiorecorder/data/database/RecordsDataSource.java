@@ -22,6 +22,9 @@ import android.database.Cursor;
 
 import com.dimowner.audiorecorder.util.FileUtil;
 
+import java.util.ArrayList;
+
+import androidx.annotation.VisibleForTesting;
 import timber.log.Timber;
 
 /**
@@ -43,10 +46,82 @@ public class RecordsDataSource extends DataSource<Record> {
 		return instance;
 	}
 
+	@VisibleForTesting
+	public static void clearInstance() {
+		if (instance != null) {
+			synchronized (RecordsDataSource.class) {
+				instance = null;
+			}
+		}
+	}
+
+	/** Records which directories start with the prefix, the range lets SQLite search the index. */
+	private static final String IN_DIR = SQLiteHelper.COLUMN_DIR + " >= ? AND " + SQLiteHelper.COLUMN_DIR + " < ?";
+	private static final String SELECT_IN_DIR = "SELECT * FROM " + SQLiteHelper.TABLE_RECORDS + " WHERE " + IN_DIR;
+	private static final String EXISTS_IN_DIR = "SELECT EXISTS(SELECT 1 FROM " + SQLiteHelper.TABLE_RECORDS
+			+ " WHERE " + IN_DIR + ")";
+	private static final String SELECT_FILES_BY_FORMAT = "SELECT " + SQLiteHelper.COLUMN_ID + ", "
+			+ SQLiteHelper.COLUMN_PATH + ", " + SQLiteHelper.COLUMN_SAMPLE_RATE + ", " + SQLiteHelper.COLUMN_CHANNEL_COUNT
+			+ " FROM " + SQLiteHelper.TABLE_RECORDS + " WHERE " + SQLiteHelper.COLUMN_FORMAT + " = ?";
+
 	private RecordsDataSource(Context context) {
 		super(context, SQLiteHelper.TABLE_RECORDS);
 	}
 
+	/**
+	 * Find records which files are in the directory or in its subdirectories.
+	 * @param dir Absolute path of the directory.
+	 */
+	public ArrayList<Record> findItemsInDir(String dir) {
+		String from = toDirPrefix(dir);
+		return convertCursor(query(SELECT_IN_DIR, from, nextPrefix(from)));
+	}
+
+	/**
+	 * Check if there are records which files are in the directory or in its subdirectories.
+	 * @param dir Absolute path of the directory.
+	 */
+	public boolean hasItemsInDir(String dir) {
+		String from = toDirPrefix(dir);
+		return queryForLong(EXISTS_IN_DIR, from, nextPrefix(from)) != 0;
+	}
+
+	/**
+	 * Find files of records in the format, without reading names and waveforms of the records.
+	 * @param format One of AppConstants FORMAT_* formats.
+	 */
+	public ArrayList<RecordFile> findFilesByFormat(String format) {
+		ArrayList<RecordFile> files = new ArrayList<>();
+		Cursor cursor = query(SELECT_FILES_BY_FORMAT, format);
+		while (cursor.moveToNext()) {
+			files.add(new RecordFile(cursor.getInt(0), cursor.getString(1), cursor.getInt(2), cursor.getInt(3)));
+		}
+		cursor.close();
+		return files;
+	}
+
+	/**
+	 * Update duration and size of the record after its file was changed.
+	 * @return Updated records count.
+	 */
+	public int updateDurationAndSize(int id, long duration, long size) {
+		ContentValues values = new ContentValues();
+		values.put(SQLiteHelper.COLUMN_DURATION, duration);
+		values.put(SQLiteHelper.COLUMN_SIZE, size);
+		return db.update(SQLiteHelper.TABLE_RECORDS, values, SQLiteHelper.COLUMN_ID + " = ?",
+				new String[]{String.valueOf(id)});
+	}
+
+	private static String toDirPrefix(String dir) {
+		return dir.endsWith("/") ? dir : dir + "/";
+	}
+
+	/** The least text greater than all texts starting with the prefix. */
+	private static String nextPrefix(String prefix) {
+		int last = prefix.length() - 1;
+		return prefix.substring(0, last) + (char) (prefix.charAt(last) + 1);
+	}
+
 	@Override
 	public ContentValues itemToContentValues(Record item) {
 		if (item.getName() != null) {
@@ -59,6 +134,7 @@ public class RecordsDataSource extends DataSource<Record> {
 			values.put(SQLiteHelper.COLUMN_CREATION_DATE, item.getCreated());
 			values.put(SQLiteHelper.COLUMN_DATE_ADDED, item.getAdded());
 			values.put(SQLiteHelper.COLUMN_PATH, item.getPath());
+			values.put(SQLiteHelper.COLUMN_DIR, SQLiteHelper.toDir(item.getPath()));
 			values.put(SQLiteHelper.COLUMN_FORMAT, item.getFormat());
 			values.put(SQLiteHelper.COLUMN_SIZE, item.getSize());
 			values.put(SQLiteHelper.COLUMN_SAMPLE_RATE, item.getSampleRate());
@@ -98,4 +174,36 @@ public class RecordsDataSource extends DataSource<Record> {
 //						cursor.getString(cursor.getColumnIndex(SQLiteHelper.COLUMN_DATA_STR)))
 		);
 	}
+
+	/** File of a record with audio format stored in database. */
+	public static class RecordFile {
+
+		private final int id;
+		private final String path;
+		private final int sampleRate;
+		private final int channelCount;
+
+		RecordFile(int id, String path, int sampleRate, int channelCount) {
+			this.id = id;
+			this.path = path;
+			this.sampleRate = sampleRate;
+			this.channelCount = channelCount;
+		}
+
+		public int getId() {
+			return id;
+		}
+
+		public String getPath() {
+			return path;
+		}
+
+		public int getSampleRate() {
+			return sampleRate;
+		}
+
+		public int getChannelCount() {
+			return channelCount;
+		}
+	}
 }
@@ -19,6 +19,7 @@ package com.dimowner.audiorecorder.data.database;
 import android.content.Context;
 import android.database.sqlite.SQLiteDatabase;
 import android.database.sqlite.SQLiteOpenHelper;
+import android.text.TextUtils;
 import android.util.Log;
 
 /**
@@ -35,6 +36,7 @@ public class SQLiteHelper extends SQLiteOpenHelper {
 	public void onCreate(SQLiteDatabase db) {
 		db.execSQL(CREATE_RECORDS_TABLE_SCRIPT);
 		db.execSQL(CREATE_TRASH_TABLE_SCRIPT);
+		createIndexes(db);
 	}
 
 	@Override
@@ -48,7 +50,7 @@ public class SQLiteHelper extends SQLiteOpenHelper {
 			onCreate(db);
 		} else if (newVersion == 2) {
 			db.execSQL(CREATE_TRASH_TABLE_SCRIPT);
-		} else if (oldVersion == 1 && newVersion == 3) {
+		} else if (oldVersion == 1 && newVersion >= 3) {
 			db.beginTransaction();
 
 			db.execSQL(CREATE_TRASH_TABLE_SCRIPT);
@@ -62,7 +64,7 @@ public class SQLiteHelper extends SQLiteOpenHelper {
 
 			db.setTransactionSuccessful();
 			db.endTransaction();
-		} else if (oldVersion == 2 && newVersion == 3) {
+		} else if (oldVersion == 2 && newVersion >= 3) {
 			db.beginTransaction();
 
 			//Add new fields to the table Records.
@@ -82,11 +84,53 @@ public class SQLiteHelper extends SQLiteOpenHelper {
 			db.setTransactionSuccessful();
 			db.endTransaction();
 		}
+		if (oldVersion < 4 && newVersion >= 4) {
+			db.beginTransaction();
+			try {
+				db.execSQL("ALTER TABLE " + TABLE_RECORDS + " ADD COLUMN " + COLUMN_DIR + " TEXT NOT NULL DEFAULT '';");
+				//Path without the characters after the last '/'.
+				db.execSQL("UPDATE " + TABLE_RECORDS + " SET " + COLUMN_DIR + " = RTRIM("
+						+ COLUMN_PATH + ", REPLACE(" + COLUMN_PATH + ", '/', ''));");
+				createIndexes(db);
+				db.setTransactionSuccessful();
+			} finally {
+				db.endTransaction();
+			}
+		}
+	}
+
+	/**
+	 * Indexes for every way records are looked up and sorted,
+	 * so queries do not scan tables together with waveform blobs.
+	 */
+	private void createIndexes(SQLiteDatabase db) {
+		createIndex(db, TABLE_RECORDS, COLUMN_DATE_ADDED);
+		createIndex(db, TABLE_RECORDS, COLUMN_NAME);
+		createIndex(db, TABLE_RECORDS, COLUMN_DURATION);
+		createIndex(db, TABLE_RECORDS, COLUMN_PATH);
+		createIndex(db, TABLE_RECORDS, COLUMN_DIR);
+		createIndex(db, TABLE_RECORDS, COLUMN_FORMAT);
+		createIndex(db, TABLE_RECORDS, COLUMN_BOOKMARK, COLUMN_CREATION_DATE);
+		createIndex(db, TABLE_RECORDS, COLUMN_WAVEFORM_PROCESSED, COLUMN_DATE_ADDED);
+		createIndex(db, TABLE_TRASH, COLUMN_DATE_REMOVED);
+	}
+
+	private void createIndex(SQLiteDatabase db, String table, String... columns) {
+		String name = "index_" + table + "_" + TextUtils.join("_", columns);
+		db.execSQL("CREATE INDEX IF NOT EXISTS " + name + " ON " + table + " (" + TextUtils.join(", ", columns) + ");");
+	}
+
+	/**
+	 * Directory of the file which is stored in {@link #COLUMN_DIR}, it ends with '/'.
+	 */
+	static String toDir(String path) {
+		int pos = path.lastIndexOf('/');
+		return path.substring(0, pos + 1);
 	}
 
 
 	private static final String DATABASE_NAME = "records.db";
-	private static final int DATABASE_VERSION = 3;
+	private static final int DATABASE_VERSION = 4;
 
 	//Tables names
 	static final String TABLE_RECORDS = "records";
@@ -100,6 +144,8 @@ public class SQLiteHelper extends SQLiteOpenHelper {
 	static final String COLUMN_DATE_ADDED = "added";
 	static final String COLUMN_DATE_REMOVED = "removed";
 	static final String COLUMN_PATH = "path";
+	/** Directory of the record file, to find records in a directory by prefix. Only in table Records. */
+	static final String COLUMN_DIR = "dir";
 	/** Simplified array of audio record amplitudes that represents waveform. */
 	static final String COLUMN_DATA = "data";
 	static final String COLUMN_DATA_STR = "data_str";
@@ -128,7 +174,8 @@ public class SQLiteHelper extends SQLiteOpenHelper {
 					+ COLUMN_DATA + " BLOB NOT NULL, "
 					+ COLUMN_BOOKMARK + " INTEGER NOT NULL DEFAULT 0, "
 					+ COLUMN_WAVEFORM_PROCESSED + " INTEGER NOT NULL DEFAULT 0, "
-					+ COLUMN_DATA_STR + " BLOB NOT NULL);";
+					+ COLUMN_DATA_STR + " BLOB NOT NULL, "
+					+ COLUMN_DIR + " TEXT NOT NULL DEFAULT '');";
 
 	//Create trash table sql statement
 	private static final String CREATE_TRASH_TABLE_SCRIPT =
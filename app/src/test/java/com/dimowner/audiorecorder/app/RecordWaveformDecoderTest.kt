@@ -0,0 +1,141 @@
+package com.dimowner.audiorecorder.app
+
+import com.dimowner.audiorecorder.AppConstants
+import com.dimowner.audiorecorder.audio.AudioDecodingListener
+import com.dimowner.audiorecorder.audio.WaveformCache
+import com.dimowner.audiorecorder.audio.WaveformPyramidBuilder
+import com.dimowner.audiorecorder.data.database.LocalRepository
+import com.dimowner.audiorecorder.data.database.Record
+import io.mockk.MockKAnnotations
+import io.mockk.every
+import io.mockk.impl.annotations.MockK
+import io.mockk.slot
+import io.mockk.verify
+import junit.framework.TestCase.assertEquals
+import junit.framework.TestCase.assertNotNull
+import junit.framework.TestCase.assertNull
+import junit.framework.TestCase.assertTrue
+import org.junit.After
+import org.junit.Before
+import org.junit.Test
+import java.io.File
+import java.io.FileNotFoundException
+import java.nio.file.Files
+import java.util.Random
+
+class RecordWaveformDecoderTest {
+
+    @MockK
+    lateinit var localRepository: LocalRepository
+
+    private lateinit var dir: File
+    private lateinit var file: File
+    private lateinit var cache: WaveformCache
+    private lateinit var record: Record
+
+    /** Paths of records passed to the file decoder. */
+    private val decoded = ArrayList<String>()
+
+    private lateinit var decoder: RecordWaveformDecoder
+
+    @Before
+    fun setUp() {
+        MockKAnnotations.init(this)
+        dir = Files.createTempDirectory("waveforms").toFile()
+        file = File(dir, "record.wav")
+        file.writeBytes(ByteArray(200_000).also { Random(1).nextBytes(it) })
+        cache = WaveformCache(File(dir, "cache"), 100_000, 100_000, 100_000)
+        record = Record(
+            1, "record", 3_000_000L, 100L, 100L, Long.MAX_VALUE, file.absolutePath, AppConstants.FORMAT_WAV,
+            file.length(), 16000, 2, 512000, false, false, IntArray(0)
+        )
+        every { localRepository.getRecord(1) } returns record
+        every { localRepository.getRecord(2) } returns null
+        every { localRepository.updateRecord(any()) } returns true
+
+        decoder = RecordWaveformDecoder(localRepository, cache, { path, _ -> decoded.add(path) }, { it.run() })
+    }
+
+    @After
+    fun after() {
+        dir.deleteRecursively()
+    }
+
+    private class Listener : AudioDecodingListener {
+        val events = ArrayList<String>()
+        var gains: IntArray? = null
+        var error: Exception? = null
+
+        override fun isCanceled() = false
+        override fun onStartProcessing(duration: Long, channelsCount: Int, sampleRate: Int) {
+            events.add("start $duration $channelsCount $sampleRate")
+        }
+        override fun onProcessingProgress(percent: Int) {
+            events.add("progress $percent")
+        }
+        override fun onProcessingCancel() {
+            events.add("cancel")
+        }
+        override fun onFinishProcessing(data: IntArray, duration: Long) {
+            events.add("finish $duration")
+            gains = data
+        }
+        override fun onWaveformChunk(offset: Int, data: IntArray, length: Int) {
+            events.add("chunk $offset $length")
+        }
+        override fun onError(exception: Exception) {
+            error = exception
+        }
+    }
+
+    @Test
+    fun test_decodedRecordIsSavedAndTakenFromCache() {
+        val listener = Listener()
+        decoder.decode(1, listener)
+        assertEquals(listOf(file.absolutePath), decoded)
+        assertTrue(listener.events.isEmpty())
+
+        val gains = IntArray(300) { it }
+        decoder.onDecoded(1, gains, 3_000_000L)
+        val saved = slot<Record>()
+        verify { localRepository.updateRecord(capture(saved)) }
+        assertEquals(1, saved.captured.id)
+        assertEquals(file.absolutePath, saved.captured.path)
+        assertTrue(saved.captured.isWaveformProcessed)
+        assertEquals(gains.toList(), saved.captured.amps.toList())
+
+        //Decoding again finishes with the cached waveform without the file decoder.
+        val cached = Listener()
+        decoder.decode(1, cached)
+        assertEquals(1, decoded.size)
+        assertEquals(listOf("start 3000000 2 16000", "chunk 0 300", "progress 100", "finish 3000000"), cached.events)
+        assertEquals(gains.toList(), cached.gains!!.toList())
+        assertNull(cached.error)
+    }
+
+    @Test
+    fun test_peaksAreCached() {
+        val builder = WaveformPyramidBuilder(16000, 2)
+        builder.process(ShortArray(2 * 256 * 10) { (it % 100).toShort() }, 0, 2 * 256 * 10)
+        assertNull(cache.findPeaks(file))
+        decoder.onPeaks(1, builder.build())
+        val peaks = cache.findPeaks(file)
+        assertNotNull(peaks)
+        assertEquals(256 * 10L, peaks!!.frameCount)
+    }
+
+    @Test
+    fun test_missingRecord() {
+        val listener = Listener()
+        decoder.decode(2, listener)
+        assertTrue(listener.error is FileNotFoundException)
+        assertTrue(decoded.isEmpty())
+
+        //Results of a record deleted while it was decoded are dropped.
+        decoder.onDecoded(2, IntArray(10), 1_000_000L)
+        decoder.onPeaks(2, WaveformPyramidBuilder(16000, 1).build())
+        verify(exactly = 0) { localRepository.updateRecord(any()) }
+        assertEquals(0L, cache.diskBytes)
+        assertEquals(0L, cache.peaksDiskBytes)
+    }
+}
@@ -0,0 +1,99 @@
+package com.dimowner.audiorecorder.app.browser
+
+import com.dimowner.audiorecorder.AppConstants
+import com.dimowner.audiorecorder.app.info.RecordInfo
+import com.dimowner.audiorecorder.audio.WavFileInfo
+import com.dimowner.audiorecorder.audio.chunk
+import com.dimowner.audiorecorder.audio.fmtChunk
+import com.dimowner.audiorecorder.audio.writeWav
+import junit.framework.TestCase.assertEquals
+import org.junit.Assume.assumeTrue
+import org.junit.Before
+import org.junit.Test
+import java.io.File
+import java.nio.file.Files
+import java.util.concurrent.Executors
+
+/**
+ * Time of listing synthetic directories by one thread shown at once, as file browser did before,
+ * and in pages by the loader on one worker, as the app runs it, and on 4 workers.
+ * Delay stands for MediaExtractor setup of formats without own parser.
+ * Timings are only reported, run with -Pbenchmark.
+ */
+class FileListLoaderBenchmarkTest {
+
+    @Before
+    fun setUp() {
+        assumeTrue(java.lang.Boolean.getBoolean("benchmark"))
+    }
+
+    private fun probe(delayMills: Long) = FileListLoader.Probe { file ->
+        if (delayMills > 0) Thread.sleep(delayMills)
+        val info = WavFileInfo.read(file)
+        RecordInfo(file.nameWithoutExtension, "wav", info.duration, file.length(), file.absolutePath,
+            file.lastModified(), info.sampleRate, info.channelCount, info.bitrate, false)
+    }
+
+    private fun print(label: String, count: Int, first: Long, total: Long) {
+        println(String.format("%-16s %6d files  first page %8.1f ms  all %8.1f ms", label, count, first / 1e6, total / 1e6))
+    }
+
+    /** Files are read one by one and shown all at once. */
+    private fun measureSerial(label: String, files: List<File>, delayMills: Long) {
+        val probe = probe(delayMills)
+        var total = Long.MAX_VALUE
+        for (run in 0 until 3) {
+            val start = System.nanoTime()
+            val items = ArrayList<RecordInfo>()
+            for (f in files) items.add(probe.read(f))
+            total = minOf(total, System.nanoTime() - start)
+            assertEquals(files.size, items.size)
+        }
+        print(label, files.size, total, total)
+    }
+
+    private fun measureLoader(label: String, files: List<File>, delayMills: Long, workers: Int) {
+        val executor = Executors.newFixedThreadPool(workers)
+        try {
+            val loader = FileListLoader(executor, probe(delayMills), 50)
+            var total = Long.MAX_VALUE
+            var first = Long.MAX_VALUE
+            for (run in 0 until 3) {
+                val start = System.nanoTime()
+                var firstPage = 0L
+                val count = loader.load(files, emptySet(), FileListLoader.Task()) {
+                    if (firstPage == 0L) firstPage = System.nanoTime() - start
+                }
+                total = minOf(total, System.nanoTime() - start)
+                first = minOf(first, firstPage)
+                assertEquals(files.size, count)
+            }
+            print(label, files.size, first, total)
+        } finally {
+            executor.shutdown()
+        }
+    }
+
+    @Test
+    fun test_listDirectories() {
+        for (count in intArrayOf(1000, 10_000)) {
+            val dir = Files.createTempDirectory("records").toFile()
+            try {
+                for (i in 0 until count) {
+                    writeWav(File(dir, "record-$i.wav"), fmtChunk(1, 1, 8000, 16), chunk("data", ByteArray(16000)))
+                }
+                val files = dir.listFiles()!!.toList()
+                measureSerial("serial", files, 0)
+                measureLoader("loader", files, 0, AppConstants.FILE_PROBE_WORKERS)
+                measureLoader("loader, 4", files, 0, 4)
+                if (count <= 1000) {
+                    measureSerial("serial, 2 ms", files, 2)
+                    measureLoader("loader, 2 ms", files, 2, AppConstants.FILE_PROBE_WORKERS)
+                    measureLoader("loader, 4, 2 ms", files, 2, 4)
+                }
+            } finally {
+                dir.deleteRecursively()
+            }
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.dimowner.audiorecorder.app.browser
+
+import com.dimowner.audiorecorder.app.info.RecordInfo
+import junit.framework.TestCase.assertEquals
+import junit.framework.TestCase.assertFalse
+import junit.framework.TestCase.assertTrue
+import org.junit.After
+import org.junit.Before
+import org.junit.Test
+import java.io.File
+import java.util.Collections
+import java.util.Random
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+
+internal fun recordInfo(file: File) = RecordInfo(file.nameWithoutExtension, "wav", 1_000_000L, 100L,
+    file.absolutePath, 0L, 8000, 1, 128000, false)
+
+class FileListLoaderTest {
+
+    private lateinit var executor: ExecutorService
+
+    @Before
+    fun setUp() {
+        executor = Executors.newFixedThreadPool(4)
+    }
+
+    @After
+    fun after() {
+        executor.shutdownNow()
+    }
+
+    private fun files(count: Int) = (0 until count).map { File("/records/record-$it.wav") }
+
+    @Test
+    fun test_allFilesPassedInPages() {
+        val files = files(230)
+        val inDatabase = files.filterIndexed { i, _ -> i % 3 == 0 }.map { it.absolutePath }.toSet()
+        val loader = FileListLoader(executor, { recordInfo(it) }, 50)
+        val pages = ArrayList<List<RecordInfo>>()
+        val count = loader.load(files, inDatabase, FileListLoader.Task()) { pages.add(it) }
+
+        assertEquals(230, count)
+        assertTrue(pages.all { it.isNotEmpty() && it.size <= 50 })
+        val items = pages.flatten()
+        assertEquals(files.map { it.absolutePath }.toSet(), items.map { it.location }.toSet())
+        for (item in items) {
+            assertEquals(item.location, inDatabase.contains(item.location), item.isInDatabase)
+        }
+        assertEquals(0, loader.load(emptyList(), emptySet(), FileListLoader.Task()) { pages.add(it) })
+    }
+
+    @Test
+    fun test_pagesFollowListOrder() {
+        //Workers finish files out of order, every page is still in the order of the list.
+        val files = files(300)
+        val loader = FileListLoader(executor, {
+            Thread.sleep((it.name.hashCode() and 3).toLong())
+            recordInfo(it)
+        }, 20)
+        val pages = ArrayList<List<RecordInfo>>()
+        assertEquals(300, loader.load(files, emptySet(), FileListLoader.Task()) { pages.add(it) })
+        for (page in pages) {
+            val indices = page.map { it.name.removePrefix("record-").toInt() }
+            assertEquals(indices.sorted(), indices)
+        }
+
+        //With one worker files are read in the order of the list, so all pages together follow it.
+        val single = Executors.newSingleThreadExecutor()
+        try {
+            val items = ArrayList<RecordInfo>()
+            val random = Random(3)
+            val serial = FileListLoader(single, {
+                Thread.sleep(random.nextInt(2).toLong())
+                recordInfo(it)
+            }, 20)
+            assertEquals(300, serial.load(files, emptySet(), FileListLoader.Task()) { items.addAll(it) })
+            assertEquals(files.map { it.absolutePath }, items.map { it.location })
+        } finally {
+            single.shutdownNow()
+        }
+    }
+
+    @Test
+    fun test_slowFilesDoNotHoldPage() {
+        //One file takes long to read, files read before it are passed without it.
+        val slow = CountDownLatch(1)
+        val loader = FileListLoader(executor, {
+            if (it.name == "record-0.wav") slow.await()
+            recordInfo(it)
+        }, 50)
+        val pages = Collections.synchronizedList(ArrayList<List<RecordInfo>>())
+        val count = loader.load(files(10), emptySet(), FileListLoader.Task()) {
+            pages.add(it)
+            slow.countDown()
+        }
+        assertEquals(10, count)
+        assertEquals(9, pages[0].size)
+        assertEquals("record-0", pages[1][0].name)
+    }
+
+    @Test
+    fun test_failedFilesSkipped() {
+        val loader = FileListLoader(executor, {
+            if (it.name.endsWith("7.wav")) throw IllegalStateException(it.name)
+            recordInfo(it)
+        }, 50)
+        val items = ArrayList<RecordInfo>()
+        assertEquals(90, loader.load(files(100), emptySet(), FileListLoader.Task()) { items.addAll(it) })
+        assertFalse(items.any { it.name.endsWith("7") })
+    }
+
+    @Test
+    fun test_cancel() {
+        val started = CountDownLatch(1)
+        val release = CountDownLatch(1)
+        val read = AtomicInteger()
+        val loader = FileListLoader(executor, {
+            started.countDown()
+            release.await()
+            read.incrementAndGet()
+            recordInfo(it)
+        }, 50)
+        val task = FileListLoader.Task()
+        Thread {
+            started.await()
+            task.cancel()
+            release.countDown()
+        }.start()
+        val pages = AtomicInteger()
+        assertEquals(-1, loader.load(files(1000), emptySet(), task) { pages.incrementAndGet() })
+        executor.shutdown()
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS))
+        //Only files taken by workers before cancel are read.
+        assertTrue(read.get() <= 4)
+        assertEquals(0, pages.get())
+    }
+}
@@ -0,0 +1,40 @@
+package com.dimowner.audiorecorder.audio
+
+import junit.framework.TestCase.assertEquals
+import org.junit.Test
+import java.io.File
+import java.nio.file.Files
+
+/**
+ * Time of reading metadata of M4A files by box parser. MediaExtractor is not available on JVM,
+ * it is compared on device, where its setup takes milliseconds per file.
+ */
+class Mp4FileInfoBenchmarkTest {
+
+    @Test
+    fun test_readPerFile() {
+        val dir = Files.createTempDirectory("m4a").toFile()
+        try {
+            val count = 1000
+            for (i in 0 until count) {
+                //Half of files keep moov after 10 MB of media data.
+                writeM4a(File(dir, "$i.m4a"), M4aLayout(moovAtEnd = i % 2 == 1, mdatLength = 10L shl 20,
+                    sampleCount = 20_000))
+            }
+            val files = dir.listFiles()!!
+            var best = Long.MAX_VALUE
+            for (run in 0 until 5) {
+                val start = System.nanoTime()
+                var duration = 0L
+                for (f in files) {
+                    duration += Mp4FileInfo.read(f)!!.duration
+                }
+                best = minOf(best, System.nanoTime() - start)
+                assertEquals(125_023_219L * count, duration)
+            }
+            println(String.format("%d files  %6.1f ms  %5.1f us per file", count, best / 1e6, best / 1e3 / count))
+        } finally {
+            dir.deleteRecursively()
+        }
+    }
+}
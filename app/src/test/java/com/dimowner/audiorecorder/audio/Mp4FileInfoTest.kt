@@ -0,0 +1,217 @@
+package com.dimowner.audiorecorder.audio
+
+import junit.framework.TestCase.assertEquals
+import junit.framework.TestCase.assertNotNull
+import junit.framework.TestCase.assertNull
+import org.junit.After
+import org.junit.Before
+import org.junit.Test
+import java.io.ByteArrayOutputStream
+import java.io.File
+import java.io.RandomAccessFile
+import java.nio.ByteBuffer
+
+/** Layout of M4A fixture written by [writeM4a], defaults are the same as Android MediaMuxer output. */
+internal data class M4aLayout(
+    val sampleRate: Int = 44100,
+    val channels: Int = 1,
+    val timescale: Int = 44100,
+    val duration: Long = 44100L * 125 + 1024,
+    val movieDuration: Long = 125_023,
+    val avgBitrate: Int = 128000,
+    val maxBitrate: Int = 160000,
+    val objectType: Int = 0x40,
+    val entryType: String = "mp4a",
+    val entryVersion: Int = 0,
+    val mdhdVersion: Int = 0,
+    val esdsInWave: Boolean = false,
+    val videoTrackFirst: Boolean = false,
+    val moovAtEnd: Boolean = false,
+    val largeMdat: Boolean = false,
+    val mdatLength: Long = 64 * 1024,
+    val sampleCount: Int = 5000
+)
+
+private fun box(type: String, vararg content: ByteArray): ByteArray {
+    val out = ByteArrayOutputStream()
+    for (c in content) out.write(c)
+    val body = out.toByteArray()
+    return ByteBuffer.allocate(8 + body.size).putInt(8 + body.size).put(type.toByteArray()).put(body).array()
+}
+
+private fun bytes(size: Int, fill: (ByteBuffer) -> Unit): ByteArray {
+    val buffer = ByteBuffer.allocate(size)
+    fill(buffer)
+    return buffer.array()
+}
+
+private fun fullBoxDuration(version: Int, timescale: Int, duration: Long, size: Int) = bytes(size) {
+    it.putInt(version shl 24)
+    if (version == 1) {
+        it.putLong(0).putLong(0).putInt(timescale).putLong(duration)
+    } else {
+        it.putInt(0).putInt(0).putInt(timescale).putInt(duration.toInt())
+    }
+}
+
+private fun handler(type: String) = box("hdlr", bytes(32) { it.putInt(0).putInt(0).put(type.toByteArray()) })
+
+private fun esds(layout: M4aLayout) = box("esds", bytes(4 + 5 + 3 + 5 + 13 + 5 + 2 + 3) {
+    it.putInt(0)
+    //Lengths of descriptors are written in 4 bytes like ffmpeg does.
+    it.put(3).put(0x80.toByte()).put(0x80.toByte()).put(0x80.toByte()).put(31).putShort(1).put(0)
+    it.put(4).put(0x80.toByte()).put(0x80.toByte()).put(0x80.toByte()).put(20)
+    it.put(layout.objectType.toByte()).put(0x15).put(0).putShort(0)
+    it.putInt(layout.maxBitrate).putInt(layout.avgBitrate)
+    it.put(5).put(0x80.toByte()).put(0x80.toByte()).put(0x80.toByte()).put(2).put(0x12).put(0x08)
+    it.put(6).put(1).put(2)
+})
+
+private fun sampleEntry(layout: M4aLayout): ByteArray {
+    val extension = when (layout.entryVersion) {
+        1 -> 16
+        2 -> 36
+        else -> 0
+    }
+    val fields = bytes(28 + extension) {
+        it.put(ByteArray(6)).putShort(1)
+        it.putShort(layout.entryVersion.toShort()).putShort(0).putInt(0)
+        if (layout.entryVersion == 2) {
+            it.putShort(3).putShort(16).putShort(-2).putShort(0).putInt(65536)
+            it.putInt(72).putLong(layout.sampleRate.toDouble().toRawBits()).putInt(layout.channels)
+        } else {
+            it.putShort(layout.channels.toShort()).putShort(16).putShort(0).putShort(0)
+            it.putInt(layout.sampleRate shl 16)
+        }
+    }
+    val child = if (layout.esdsInWave) box("wave", box("frma", "mp4a".toByteArray()), esds(layout)) else esds(layout)
+    return box(layout.entryType, fields, child)
+}
+
+private fun track(layout: M4aLayout, handlerType: String, entry: ByteArray): ByteArray {
+    val mdhdSize = if (layout.mdhdVersion == 1) 36 else 24
+    val stsd = box("stsd", bytes(8) { it.putInt(0).putInt(1) }, entry)
+    val stsz = box("stsz", ByteArray(12 + layout.sampleCount * 4))
+    return box("trak",
+        box("tkhd", ByteArray(92)),
+        box("mdia",
+            box("mdhd", fullBoxDuration(layout.mdhdVersion, layout.timescale, layout.duration, mdhdSize)),
+            handler(handlerType),
+            box("minf",
+                box("smhd", ByteArray(8)),
+                box("dinf", box("dref", ByteArray(8))),
+                box("stbl", stsd, box("stts", ByteArray(16)), box("stsc", ByteArray(20)), stsz,
+                    box("stco", ByteArray(12))))))
+}
+
+/** Writes M4A boxes with a sparse mdat, samples are never read by the parser. */
+internal fun writeM4a(file: File, layout: M4aLayout = M4aLayout()) {
+    val ftyp = box("ftyp", "M4A ".toByteArray(), ByteArray(4), "isomM4A mp42".toByteArray())
+    val tracks = ArrayList<ByteArray>()
+    if (layout.videoTrackFirst) {
+        tracks.add(track(layout, "vide", box("avc1", ByteArray(78))))
+    }
+    tracks.add(track(layout, "soun", sampleEntry(layout)))
+    val moov = box("moov", box("mvhd", fullBoxDuration(0, 1000, layout.movieDuration, 100)), *tracks.toTypedArray(),
+        box("udta", ByteArray(40)))
+    val mdatHeader = if (layout.largeMdat) {
+        bytes(16) { it.putInt(1).put("mdat".toByteArray()).putLong(16 + layout.mdatLength) }
+    } else {
+        bytes(8) { it.putInt((8 + layout.mdatLength).toInt()).put("mdat".toByteArray()) }
+    }
+    RandomAccessFile(file, "rw").use { raf ->
+        raf.setLength(0)
+        raf.write(ftyp)
+        if (!layout.moovAtEnd) raf.write(moov)
+        raf.write(box("free", ByteArray(8)))
+        raf.write(mdatHeader)
+        raf.seek(raf.filePointer + layout.mdatLength)
+        if (layout.moovAtEnd) raf.write(moov) else raf.setLength(raf.filePointer)
+    }
+}
+
+class Mp4FileInfoTest {
+
+    private lateinit var file: File
+
+    @Before
+    fun setUp() {
+        file = File.createTempFile("record", ".m4a")
+    }
+
+    @After
+    fun after() {
+        file.delete()
+    }
+
+    private fun read(layout: M4aLayout): Mp4FileInfo? {
+        writeM4a(file, layout)
+        return Mp4FileInfo.read(file)
+    }
+
+    private fun assertInfo(layout: M4aLayout, duration: Long = 125_023_219) {
+        val info = read(layout)
+        assertNotNull(layout.toString(), info)
+        assertEquals(layout.toString(), duration, info!!.duration)
+        assertEquals(layout.sampleRate, info.sampleRate)
+        assertEquals(layout.channels, info.channelCount)
+        assertEquals(layout.avgBitrate, info.bitrate)
+        assertEquals(Mp4FileInfo.MIME_AAC, info.mime)
+    }
+
+    @Test
+    fun test_moovFirst() {
+        assertInfo(M4aLayout())
+        assertInfo(M4aLayout(sampleRate = 48000, channels = 2, timescale = 48000, duration = 48000L * 125 + 1115), 125_023_229)
+    }
+
+    @Test
+    fun test_moovAtEnd() {
+        assertInfo(M4aLayout(moovAtEnd = true))
+        //Media data bigger than 4 GB is skipped by 64 bit size.
+        assertInfo(M4aLayout(moovAtEnd = true, largeMdat = true, mdatLength = 5L shl 30))
+    }
+
+    @Test
+    fun test_boxVersions() {
+        assertInfo(M4aLayout(mdhdVersion = 1, duration = 44100L * 125 + 1024))
+        assertInfo(M4aLayout(entryVersion = 1))
+        assertInfo(M4aLayout(entryVersion = 2, sampleRate = 96000, channels = 6))
+        assertInfo(M4aLayout(entryVersion = 1, esdsInWave = true))
+        //Audio track after video one.
+        assertInfo(M4aLayout(videoTrackFirst = true))
+    }
+
+    @Test
+    fun test_durationAndBitrate() {
+        //Movie duration is used when track one is unknown.
+        assertInfo(M4aLayout(duration = 0), 125_023_000)
+        assertEquals(160000, read(M4aLayout(avgBitrate = 0))!!.bitrate)
+        assertEquals(Mp4FileInfo.MIME_MPEG, read(M4aLayout(objectType = 0x6B))!!.mime)
+    }
+
+    @Test
+    fun test_otherFilesAreLeftToExtractor() {
+        //AMR in 3GP.
+        assertNull(read(M4aLayout(entryType = "samr")))
+        //Unknown object type.
+        assertNull(read(M4aLayout(objectType = 0xDD)))
+        //Fragmented file without durations.
+        assertNull(read(M4aLayout(duration = 0, movieDuration = 0)))
+
+        //Interrupted record, mdat is longer than the file and moov is not written.
+        writeM4a(file, M4aLayout(moovAtEnd = true))
+        RandomAccessFile(file, "rw").use { it.setLength(it.length() - 1000) }
+        assertNull(Mp4FileInfo.read(file))
+
+        val wav = File.createTempFile("record", ".wav")
+        try {
+            writeNoiseWav(wav, 8000, 1, 8000, 1)
+            assertNull(Mp4FileInfo.read(wav))
+            wav.writeBytes(ByteArray(3))
+            assertNull(Mp4FileInfo.read(wav))
+        } finally {
+            wav.delete()
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.dimowner.audiorecorder.audio
+
+import junit.framework.TestCase.assertEquals
+import junit.framework.TestCase.assertTrue
+import org.junit.Assume.assumeTrue
+import org.junit.Test
+import java.io.File
+import java.util.concurrent.ForkJoinPool
+
+/**
+ * Waveform calculation of long WAV records: memory mapped bulk path against per sample streaming.
+ * 10 hours record is checked only with -Dbenchmark.long=true, it takes more than 3 GB of disk.
+ */
+class WavDecoderBenchmarkTest {
+
+    private val sampleRate = 44100
+    private val dpPerSec = 25f
+
+    private class Listener : AudioDecodingListener {
+        var gains: IntArray? = null
+
+        override fun isCanceled() = false
+        override fun onStartProcessing(duration: Long, channelsCount: Int, sampleRate: Int) {}
+        override fun onProcessingProgress(percent: Int) {}
+        override fun onProcessingCancel() {}
+        override fun onFinishProcessing(data: IntArray, duration: Long) {
+            gains = data
+        }
+        override fun onError(exception: Exception) {
+            throw exception
+        }
+    }
+
+    private fun measure(name: String, hours: Int, channels: Int, runs: Int = 3) {
+        val file = File.createTempFile("benchmark", ".wav")
+        try {
+            writeNoiseWav(file, sampleRate, channels, hours * 3600L * sampleRate, 7)
+            val info = WavFileInfo.read(file)
+            var mapped = Long.MAX_VALUE
+            var streaming = Long.MAX_VALUE
+            var gains: IntArray? = null
+            var expected: IntArray? = null
+            //Best of runs, file is in page cache after it is written, so both paths read from memory.
+            for (i in 0 until runs) {
+                var start = System.nanoTime()
+                val listener = Listener()
+                WavDecoder.decode(file, info, dpPerSec, listener)
+                mapped = minOf(mapped, System.nanoTime() - start)
+                gains = listener.gains
+
+                start = System.nanoTime()
+                expected = streamingGains(file, info, dpPerSec)
+                streaming = minOf(streaming, System.nanoTime() - start)
+            }
+            println(String.format("%-16s %7.0f MB  mapped %7.0f ms %6.0f MB/s  streaming %7.0f ms %6.0f MB/s  %4.1fx",
+                name, info.dataLength / 1e6, mapped / 1e6, info.dataLength * 1000.0 / mapped,
+                streaming / 1e6, info.dataLength * 1000.0 / streaming, streaming.toDouble() / mapped))
+            assertEquals(expected!!.toList(), gains!!.toList())
+            assertTrue(mapped < streaming)
+        } finally {
+            file.delete()
+        }
+    }
+
+    @Test
+    fun test_oneHour() {
+        measure("1 h mono", 1, 1)
+        measure("1 h stereo", 1, 2)
+    }
+
+    @Test
+    fun test_parallelScaling() {
+        val file = File.createTempFile("benchmark", ".wav")
+        try {
+            writeNoiseWav(file, sampleRate, 2, 3600L * sampleRate, 7)
+            val info = WavFileInfo.read(file)
+            println("1 h stereo on ${Runtime.getRuntime().availableProcessors()} cores:")
+            var single = 0L
+            var expected: IntArray? = null
+            for (workers in 1..8) {
+                val pool = if (workers > 1) ForkJoinPool(workers) else null
+                var nanos = Long.MAX_VALUE
+                try {
+                    for (i in 0 until 3) {
+                        val start = System.nanoTime()
+                        val listener = Listener()
+                        WavDecoder.decode(file, info, dpPerSec, pool, listener)
+                        nanos = minOf(nanos, System.nanoTime() - start)
+                        if (expected == null) expected = listener.gains
+                        assertEquals(expected!!.toList(), listener.gains!!.toList())
+                    }
+                } finally {
+                    pool?.shutdown()
+                }
+                if (workers == 1) single = nanos
+                println(String.format("%d workers %7.0f ms %6.0f MB/s  %4.2fx", workers, nanos / 1e6,
+                    info.dataLength * 1000.0 / nanos, single.toDouble() / nanos))
+            }
+        } finally {
+            file.delete()
+        }
+    }
+
+    @Test
+    fun test_tenHours() {
+        assumeTrue(java.lang.Boolean.getBoolean("benchmark.long"))
+        measure("10 h mono", 10, 1, 1)
+    }
+}
@@ -0,0 +1,220 @@
+package com.dimowner.audiorecorder.audio
+
+import com.dimowner.audiorecorder.IntArrayList
+import com.dimowner.audiorecorder.audio.recorder.WavHeader
+import junit.framework.TestCase.assertEquals
+import junit.framework.TestCase.assertTrue
+import org.junit.After
+import org.junit.Before
+import org.junit.Test
+import java.io.File
+import java.io.RandomAccessFile
+import java.nio.ByteBuffer
+import java.nio.ByteOrder
+import java.util.Random
+import java.util.concurrent.ForkJoinPool
+import kotlin.math.sqrt
+
+/** Gains as calculated before the fast path: data read in blocks and taken sample by sample with getShort(). */
+internal fun streamingGains(file: File, info: WavFileInfo, dpPerSec: Float): IntArray {
+    val channelCount = info.channelCount
+    val oneFrameAmps = IntArray((info.sampleRate / dpPerSec).toInt() * channelCount)
+    var frameIndex = 0
+    val gains = IntArrayList()
+    RandomAccessFile(file, "r").use { raf ->
+        val channel = raf.channel
+        val buffer = ByteBuffer.allocate(64 * 1024).order(ByteOrder.LITTLE_ENDIAN)
+        var position = info.dataOffset
+        val end = position + info.dataLength
+        while (position < end) {
+            buffer.clear()
+            buffer.limit(minOf(buffer.capacity().toLong(), end - position).toInt())
+            val read = channel.read(buffer, position)
+            if (read < 0) break
+            position += read
+            buffer.flip()
+            while (buffer.remaining() > 1) {
+                oneFrameAmps[frameIndex] = buffer.getShort().toInt()
+                frameIndex++
+                if (frameIndex >= oneFrameAmps.size - 1) {
+                    var gain = -1
+                    var j = 0
+                    while (j < oneFrameAmps.size) {
+                        var value = 0
+                        for (k in 0 until channelCount) {
+                            value += oneFrameAmps[j + k]
+                        }
+                        value /= channelCount
+                        if (gain < value) gain = value
+                        j += channelCount
+                    }
+                    gains.add(sqrt(gain.toDouble()).toInt())
+                    frameIndex = 0
+                }
+            }
+            if (buffer.hasRemaining()) position--
+        }
+    }
+    return gains.data
+}
+
+/** Writes 16 bit WAV of Gaussian noise with random loud peaks, so gains vary from frame to frame. */
+internal fun writeNoiseWav(file: File, sampleRate: Int, channels: Int, frames: Long, seed: Long) {
+    val header = WavHeader(sampleRate, channels)
+    val dataLength = frames * channels * 2
+    val random = Random(seed)
+    //One second of signal repeated, generating every sample of long files takes longer than decoding them.
+    val pattern = ByteBuffer.allocate(sampleRate * channels * 2).order(ByteOrder.LITTLE_ENDIAN)
+    while (pattern.hasRemaining()) {
+        val peak = if (random.nextInt(500) == 0) 20000.0 else 1500.0
+        pattern.putShort((random.nextGaussian() * peak).toInt().coerceIn(-32768, 32767).toShort())
+    }
+    RandomAccessFile(file, "rw").use { raf ->
+        raf.setLength(0)
+        val channel = raf.channel
+        header.write(channel, dataLength)
+        var written = 0L
+        while (written < dataLength) {
+            pattern.clear()
+            pattern.limit(minOf(pattern.capacity().toLong(), dataLength - written).toInt())
+            written += channel.write(pattern, header.headerSize + written)
+        }
+    }
+}
+
+class WavDecoderTest {
+
+    private lateinit var file: File
+
+    private class Listener : AudioDecodingListener {
+        var gains: IntArray? = null
+        var peaks: WaveformPyramid? = null
+        var duration = 0L
+        var progress = 0
+        var canceled = false
+        var isCancelRequested = false
+        /** Gains delivered by chunks joined together. */
+        val chunks = ArrayList<Int>()
+
+        override fun isCanceled() = isCancelRequested
+        override fun onStartProcessing(duration: Long, channelsCount: Int, sampleRate: Int) {}
+        override fun onProcessingProgress(percent: Int) {
+            assertTrue(percent >= progress)
+            progress = percent
+        }
+        override fun onProcessingCancel() {
+            canceled = true
+        }
+        override fun onPeaks(peaks: WaveformPyramid) {
+            assertEquals(null, gains)
+            this.peaks = peaks
+        }
+        override fun onFinishProcessing(data: IntArray, duration: Long) {
+            assertEquals(data.size, chunks.size)
+            gains = data
+            this.duration = duration
+        }
+        override fun onWaveformChunk(offset: Int, data: IntArray, length: Int) {
+            assertEquals(chunks.size, offset)
+            assertTrue(length > 0)
+            for (i in 0 until length) chunks.add(data[i])
+        }
+        override fun onError(exception: Exception) {
+            throw exception
+        }
+    }
+
+    @Before
+    fun setUp() {
+        file = File.createTempFile("record", ".wav")
+    }
+
+    @After
+    fun after() {
+        file.delete()
+    }
+
+    private fun assertSameGains(sampleRate: Int, channels: Int, frames: Long, dpPerSec: Float) {
+        writeNoiseWav(file, sampleRate, channels, frames, frames)
+        val info = WavFileInfo.read(file)
+        val listener = Listener()
+        WavDecoder.decode(file, info, dpPerSec, listener)
+        val expected = streamingGains(file, info, dpPerSec)
+        val name = "$sampleRate Hz $channels ch $frames frames $dpPerSec dp/s"
+        assertTrue(name, expected.size > 1)
+        assertEquals(name, expected.toList(), listener.gains!!.toList())
+        assertEquals(name, expected.toList(), listener.chunks)
+        assertEquals(info.duration, listener.duration)
+        assertEquals(100, listener.progress)
+    }
+
+    private fun assertSamePeaks(expected: WaveformPyramid, actual: WaveformPyramid) {
+        assertEquals(expected.frameCount, actual.frameCount)
+        assertEquals(expected.levelCount, actual.levelCount)
+        for (level in 0 until expected.levelCount) {
+            assertEquals(expected.getBucketCount(level), actual.getBucketCount(level))
+            for (b in 0 until expected.getBucketCount(level)) {
+                assertEquals(expected.getMin(level, b), actual.getMin(level, b))
+                assertEquals(expected.getMax(level, b), actual.getMax(level, b))
+            }
+        }
+    }
+
+    @Test
+    fun test_gainsSameAsPerSampleDecoding() {
+        assertSameGains(44100, 1, 44100L * 7 + 13, 25f)
+        assertSameGains(48000, 2, 48000L * 5 + 1, 30f)
+        assertSameGains(16000, 3, 16000L * 3 + 7, 17f)
+        assertSameGains(8000, 1, 8000L * 4 + 3, 333f)
+        //Frame of one sample.
+        assertSameGains(8000, 1, 997, 8000f)
+        //Windows of the mapped data end inside of frames.
+        assertSameGains(44100, 2, 44100L * 60 + 5, 25f)
+    }
+
+    @Test
+    fun test_parallelPartsJoinedExactly() {
+        val pool = ForkJoinPool(4)
+        try {
+            for ((channels, dpPerSec) in listOf(Pair(2, 25f), Pair(1, 17f), Pair(3, 333f))) {
+                writeNoiseWav(file, 44100, channels, 44100L * 420 + 11, channels.toLong())
+                val info = WavFileInfo.read(file)
+                assertTrue(WavDecoder.calculatePartSize(info, (44100 / dpPerSec).toInt(), 4) * 2 <= info.dataLength)
+
+                val sequential = Listener()
+                WavDecoder.decode(file, info, dpPerSec, sequential)
+                val parallel = Listener()
+                WavDecoder.decode(file, info, dpPerSec, pool, parallel)
+
+                assertEquals(sequential.gains!!.toList(), parallel.gains!!.toList())
+                assertEquals(sequential.gains!!.toList(), parallel.chunks)
+                assertSamePeaks(sequential.peaks!!, parallel.peaks!!)
+                assertEquals(100, parallel.progress)
+            }
+        } finally {
+            pool.shutdown()
+        }
+    }
+
+    @Test
+    fun test_parallelCancel() {
+        writeNoiseWav(file, 44100, 2, 44100L * 300, 1)
+        val pool = ForkJoinPool(2)
+        val listener = Listener()
+        listener.isCancelRequested = true
+        WavDecoder.decode(file, WavFileInfo.read(file), 25f, pool, listener)
+        pool.shutdown()
+        assertTrue(listener.canceled)
+        assertEquals(null, listener.gains)
+    }
+
+    @Test
+    fun test_cancel() {
+        writeNoiseWav(file, 44100, 2, 44100L * 60, 1)
+        val listener = Listener()
+        listener.isCancelRequested = true
+        WavDecoder.decode(file, WavFileInfo.read(file), 25f, listener)
+        assertTrue(listener.canceled)
+        assertEquals(null, listener.gains)
+    }
+}
@@ -0,0 +1,44 @@
+package com.dimowner.audiorecorder.audio
+
+import junit.framework.TestCase.assertEquals
+import org.junit.Test
+import java.io.File
+import java.nio.file.Files
+
+/**
+ * Time of scanning a directory of WAV records by RIFF chunk walker. MediaExtractor is not available on JVM,
+ * it is compared on device, where its setup takes milliseconds per file.
+ */
+class WavFileInfoBenchmarkTest {
+
+    @Test
+    fun test_scanDirectory() {
+        val dir = Files.createTempDirectory("wav").toFile()
+        try {
+            val count = 10_000
+            for (i in 0 until count) {
+                val data = chunk("data", ByteArray(16000))
+                //Part of files have metadata before format or inside of the first read.
+                when (i % 3) {
+                    0 -> writeWav(File(dir, "$i.wav"), fmtChunk(1, 1, 8000, 16), data)
+                    1 -> writeWav(File(dir, "$i.wav"), chunk("LIST", ByteArray(120)), fmtChunk(1, 1, 8000, 16), data)
+                    else -> writeWav(File(dir, "$i.wav"), fmtChunk(1, 1, 8000, 16, extensible = true),
+                        chunk("JUNK", ByteArray(4096)), data)
+                }
+            }
+            var best = Long.MAX_VALUE
+            for (run in 0 until 5) {
+                val start = System.nanoTime()
+                var duration = 0L
+                for (f in dir.listFiles()!!) {
+                    duration += WavFileInfo.read(f)!!.duration
+                }
+                best = minOf(best, System.nanoTime() - start)
+                assertEquals(1_000_000L * count, duration)
+            }
+            println(String.format("%d files  %6.1f ms  %5.1f us per file", count, best / 1e6, best / 1e3 / count))
+        } finally {
+            dir.deleteRecursively()
+        }
+    }
+}
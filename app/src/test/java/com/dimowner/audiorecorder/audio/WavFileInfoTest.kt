@@ -0,0 +1,151 @@
+package com.dimowner.audiorecorder.audio
+
+import junit.framework.TestCase.assertEquals
+import junit.framework.TestCase.assertFalse
+import junit.framework.TestCase.assertNotNull
+import junit.framework.TestCase.assertNull
+import junit.framework.TestCase.assertTrue
+import org.junit.After
+import org.junit.Before
+import org.junit.Test
+import java.io.File
+import java.io.RandomAccessFile
+import java.nio.ByteBuffer
+import java.nio.ByteOrder
+
+/** RIFF chunk with pad byte after odd sized body. */
+internal fun chunk(tag: String, body: ByteArray, size: Long = body.size.toLong()): ByteArray {
+    val buffer = ByteBuffer.allocate(8 + body.size + body.size % 2).order(ByteOrder.LITTLE_ENDIAN)
+    return buffer.put(tag.toByteArray()).putInt(size.toInt()).put(body).array()
+}
+
+internal fun fmtChunk(format: Int, channels: Int, sampleRate: Int, bits: Int, extensible: Boolean = false): ByteArray {
+    val blockAlign = channels * bits / 8
+    val buffer = ByteBuffer.allocate(if (extensible) 40 else 16).order(ByteOrder.LITTLE_ENDIAN)
+    buffer.putShort((if (extensible) 0xFFFE else format).toShort()).putShort(channels.toShort())
+        .putInt(sampleRate).putInt(sampleRate * blockAlign).putShort(blockAlign.toShort()).putShort(bits.toShort())
+    if (extensible) {
+        buffer.putShort(22).putShort(bits.toShort()).putInt(0).putShort(format.toShort())
+    }
+    return chunk("fmt ", buffer.array())
+}
+
+/** Writes RIFF WAVE file of the chunks. */
+internal fun writeWav(file: File, vararg chunks: ByteArray, riff: String = "RIFF") {
+    RandomAccessFile(file, "rw").use { raf ->
+        raf.setLength(0)
+        val size = chunks.sumOf { it.size } + 4
+        raf.write(ByteBuffer.allocate(12).order(ByteOrder.LITTLE_ENDIAN)
+            .put(riff.toByteArray()).putInt(size).put("WAVE".toByteArray()).array())
+        for (c in chunks) raf.write(c)
+    }
+}
+
+class WavFileInfoTest {
+
+    private lateinit var file: File
+
+    @Before
+    fun setUp() {
+        file = File.createTempFile("record", ".wav")
+    }
+
+    @After
+    fun after() {
+        file.delete()
+    }
+
+    private fun list(size: Int) = chunk("LIST", ByteArray(size).also { "INFOISFT".toByteArray().copyInto(it) })
+
+    @Test
+    fun test_chunksAroundFormat() {
+        //Odd sized LIST chunk is padded, JUNK goes between format and data.
+        writeWav(file, list(27), fmtChunk(1, 2, 44100, 16), chunk("JUNK", ByteArray(28)),
+            chunk("data", ByteArray(44100 * 4)))
+        val info = WavFileInfo.read(file)
+        assertNotNull(info)
+        assertEquals(12L + 8 + 28 + 24 + 36 + 8, info.dataOffset)
+        assertEquals(44100L * 4, info.dataLength)
+        assertEquals(1_000_000L, info.duration)
+        assertEquals(2, info.channelCount)
+        assertEquals(44100 * 4 * 8, info.bitrate)
+        assertTrue(info.isPcm)
+        assertEquals(WavFileInfo.MIME_RAW, info.mime)
+    }
+
+    @Test
+    fun test_chunksAfterHead() {
+        //Metadata bigger than the first read moves data chunk further.
+        writeWav(file, fmtChunk(1, 1, 8000, 16), list(WavFileInfo.HEAD_SIZE * 3 + 1), chunk("data", ByteArray(1600)))
+        var info = WavFileInfo.read(file)
+        assertEquals(12L + 24 + 8 + WavFileInfo.HEAD_SIZE * 3 + 2 + 8, info.dataOffset)
+        assertEquals(100_000L, info.duration)
+
+        //Format chunk split by the end of the first read.
+        writeWav(file, chunk("JUNK", ByteArray(WavFileInfo.HEAD_SIZE - 12 - 8 - 8 - 10)), fmtChunk(1, 1, 8000, 16),
+            chunk("data", ByteArray(1600)))
+        info = WavFileInfo.read(file)
+        assertEquals(8000, info.sampleRate)
+        assertEquals(100_000L, info.duration)
+    }
+
+    @Test
+    fun test_formats() {
+        writeWav(file, fmtChunk(1, 2, 48000, 24, extensible = true), chunk("data", ByteArray(48000 * 6)))
+        var info = WavFileInfo.read(file)
+        assertTrue(info.isPcm)
+        assertEquals(24, info.bitsPerSample)
+        assertEquals(1_000_000L, info.duration)
+
+        writeWav(file, fmtChunk(3, 1, 16000, 32, extensible = true), chunk("fact", ByteArray(4)),
+            chunk("data", ByteArray(64000)))
+        info = WavFileInfo.read(file)
+        assertFalse(info.isPcm)
+        assertEquals(WavFileInfo.MIME_RAW, info.mime)
+        assertEquals(1_000_000L, info.duration)
+
+        writeWav(file, fmtChunk(6, 1, 8000, 8), chunk("data", ByteArray(8000)))
+        assertEquals(WavFileInfo.MIME_ALAW, WavFileInfo.read(file).mime)
+        writeWav(file, fmtChunk(7, 1, 8000, 8), chunk("data", ByteArray(8000)))
+        assertEquals(WavFileInfo.MIME_MLAW, WavFileInfo.read(file).mime)
+
+        //ADPCM is left to MediaExtractor.
+        writeWav(file, fmtChunk(2, 1, 8000, 4), chunk("data", ByteArray(8000)))
+        assertNull(WavFileInfo.read(file))
+    }
+
+    @Test
+    fun test_rf64() {
+        val ds64 = ByteBuffer.allocate(28).order(ByteOrder.LITTLE_ENDIAN).putLong(0).putLong(32000).putLong(0).array()
+        writeWav(file, chunk("ds64", ds64), fmtChunk(1, 1, 16000, 16),
+            chunk("data", ByteArray(32000), 0xFFFFFFFFL), riff = "RF64")
+        val info = WavFileInfo.read(file)
+        assertTrue(info.isRf64)
+        assertEquals(32000L, info.dataLength)
+        assertEquals(1_000_000L, info.duration)
+    }
+
+    @Test
+    fun test_malformed() {
+        //Interrupted record, data is shorter than its size and last frame is incomplete.
+        writeWav(file, fmtChunk(1, 2, 8000, 16), chunk("data", ByteArray(3202), 32000))
+        assertEquals(3200L, WavFileInfo.read(file).dataLength)
+
+        //Data before format.
+        writeWav(file, chunk("data", ByteArray(1600)), fmtChunk(1, 1, 8000, 16))
+        assertNull(WavFileInfo.read(file))
+        //Format chunk is too small.
+        writeWav(file, chunk("fmt ", ByteArray(14)), chunk("data", ByteArray(1600)))
+        assertNull(WavFileInfo.read(file))
+        //Chunk size points past the end of the file.
+        writeWav(file, fmtChunk(1, 1, 8000, 16), chunk("LIST", ByteArray(8), 100_000))
+        assertNull(WavFileInfo.read(file))
+        //File ends inside of format chunk.
+        writeWav(file, fmtChunk(1, 1, 8000, 16).copyOf(12))
+        assertNull(WavFileInfo.read(file))
+        writeWav(file, fmtChunk(1, 1, 8000, 16), riff = "RIFX")
+        assertNull(WavFileInfo.read(file))
+        file.writeBytes(ByteArray(5))
+        assertNull(WavFileInfo.read(file))
+    }
+}
@@ -0,0 +1,234 @@
+package com.dimowner.audiorecorder.audio
+
+import junit.framework.TestCase.assertEquals
+import junit.framework.TestCase.assertFalse
+import junit.framework.TestCase.assertNotNull
+import junit.framework.TestCase.assertNull
+import junit.framework.TestCase.assertTrue
+import org.junit.After
+import org.junit.Before
+import org.junit.Test
+import java.io.File
+import java.io.RandomAccessFile
+import java.nio.file.Files
+import java.util.Random
+
+class WaveformCacheTest {
+
+    private lateinit var dir: File
+    private lateinit var records: File
+
+    @Before
+    fun setUp() {
+        dir = Files.createTempDirectory("cache").toFile()
+        records = Files.createTempDirectory("records").toFile()
+    }
+
+    @After
+    fun after() {
+        dir.deleteRecursively()
+        records.deleteRecursively()
+    }
+
+    private fun record(name: String, size: Int, seed: Long): File {
+        val file = File(records, name)
+        val bytes = ByteArray(size)
+        Random(seed).nextBytes(bytes)
+        file.writeBytes(bytes)
+        return file
+    }
+
+    private fun gains(seed: Int) = IntArray(1000) { it * seed }
+
+    /** Memory holds two entries of 1000 gains, disk holds two files. */
+    private fun cache(peaksBytes: Long = 100_000) = WaveformCache(dir, 10_000, 9_000, peaksBytes)
+
+    private fun peaks(buckets: Int = 100): WaveformPyramid {
+        val builder = WaveformPyramidBuilder(8000, 1)
+        builder.process(ShortArray(256 * buckets) { (it % 1000 - 500).toShort() }, 0, 256 * buckets)
+        return builder.build()
+    }
+
+    @Test
+    fun test_keyIsContentIdentity() {
+        val file = record("a.wav", 300_000, 1)
+        val key = WaveformCache.Key.read(file, 1000)
+        //Copy of a file has the same key, whatever its name and modification time are.
+        val copy = File(records, "copy.m4a")
+        file.copyTo(copy)
+        copy.setLastModified(file.lastModified() - 100_000)
+        assertEquals(key, WaveformCache.Key.read(copy, 1000))
+        assertFalse(key == WaveformCache.Key.read(file, 2000))
+
+        //Changed head or tail give another key.
+        RandomAccessFile(copy, "rw").use { it.seek(299_999); it.write(file.readBytes()[299_999] + 1) }
+        assertFalse(key == WaveformCache.Key.read(copy, 1000))
+        file.copyTo(copy, true)
+        RandomAccessFile(copy, "rw").use { it.seek(10); it.write(file.readBytes()[10] + 1) }
+        assertFalse(key == WaveformCache.Key.read(copy, 1000))
+
+        //Files shorter than hashed bytes.
+        val small = record("small.wav", 100, 2)
+        assertEquals(WaveformCache.Key.read(small, 1000), WaveformCache.Key.read(small, 1000))
+    }
+
+    @Test
+    fun test_hitFromMemoryAndDisk() {
+        val key = WaveformCache.Key.read(record("a.wav", 200_000, 1), 1000)
+        var cache = cache()
+        assertNull(cache.get(key))
+        cache.put(key, gains(3), 5000)
+        assertEquals(gains(3).toList(), cache.get(key)!!.gains.toList())
+        assertEquals(1, cache.stats.memoryHits)
+
+        //Another instance reads from disk.
+        cache = cache()
+        val entry = cache.get(key)
+        assertNotNull(entry)
+        assertEquals(gains(3).toList(), entry!!.gains.toList())
+        assertEquals(5000, entry.duration)
+        assertEquals(1, cache.stats.diskHits)
+        cache.get(key)
+        assertEquals(1, cache.stats.memoryHits)
+        assertEquals(1.0f, cache.stats.hitRate)
+        assertEquals(400_000L, cache.stats.bytesSaved)
+    }
+
+    @Test
+    fun test_memoryEviction() {
+        val cache = cache()
+        val a = WaveformCache.Key.read(record("a.wav", 1000, 1), 1)
+        val b = WaveformCache.Key.read(record("b.wav", 1000, 2), 1)
+        val c = WaveformCache.Key.read(record("c.wav", 1000, 3), 1)
+        cache.put(a, gains(1), 1)
+        cache.put(b, gains(2), 1)
+        cache.get(a)
+        cache.put(c, gains(3), 1)
+        assertTrue(cache.memoryBytes <= 10_000)
+        //b is the least recently used, it is read from disk again.
+        cache.get(a)
+        cache.get(c)
+        assertEquals(3, cache.stats.memoryHits)
+        assertNotNull(cache.get(b))
+        assertEquals(1, cache.stats.diskHits)
+    }
+
+    @Test
+    fun test_diskEviction() {
+        val cache = cache()
+        val keys = (1..3).map { WaveformCache.Key.read(record("$it.wav", 1000, it.toLong()), 1) }
+        val now = System.currentTimeMillis()
+        for ((i, key) in keys.withIndex()) {
+            cache.put(key, gains(i + 1), 1)
+            File(dir, key.fileName).setLastModified(now - 10_000 + i * 1000L)
+        }
+        assertTrue(cache.diskBytes <= 9_000)
+        assertFalse(File(dir, keys[0].fileName).exists())
+        assertTrue(File(dir, keys[1].fileName).exists())
+        assertTrue(File(dir, keys[2].fileName).exists())
+
+        //Only files are left for a new instance.
+        val cache2 = cache()
+        assertNull(cache2.get(keys[0]))
+        assertNotNull(cache2.get(keys[1]))
+        assertEquals(cache.diskBytes, cache2.diskBytes)
+    }
+
+    @Test
+    fun test_invalidation() {
+        val file = record("a.wav", 200_000, 1)
+        val key = WaveformCache.Key.read(file, 1000)
+        val other = WaveformCache.Key.read(record("b.wav", 200_000, 2), 1000)
+        val cache = cache()
+        //Small entries, so nothing is evicted by the limits.
+        cache.put(key, IntArray(100), 1)
+        cache.put(WaveformCache.Key.read(file, 500), IntArray(50), 1)
+        cache.putPeaks(key, peaks())
+        cache.put(other, IntArray(100) { it }, 1)
+        assertEquals(3, dir.listFiles { f -> f.isFile }!!.size)
+
+        //Every resolution and the peaks of the content are removed, other records are kept.
+        cache.invalidate(file)
+        assertNull(cache.get(key))
+        assertNull(cache.get(WaveformCache.Key.read(file, 500)))
+        assertNull(cache.findPeaks(file))
+        assertEquals(0L, cache.peaksDiskBytes)
+        assertEquals(File(dir, other.fileName).length(), cache.diskBytes)
+        assertEquals(IntArray(100) { it }.toList(), cache.get(other)!!.gains.toList())
+        assertEquals(cache.get(other)!!.bytes, cache.memoryBytes)
+    }
+
+    @Test
+    fun test_changedAndBrokenFiles() {
+        val file = record("a.wav", 200_000, 1)
+        val key = WaveformCache.Key.read(file, 1000)
+        val cache = cache()
+        //Record changed after it was cached.
+        cache.put(key, gains(1), 1)
+        RandomAccessFile(file, "rw").use { it.setLength(199_000) }
+        assertNull(cache.get(WaveformCache.Key.read(file, 1000)))
+
+        //Broken file is not used and removed.
+        File(dir, key.fileName).writeBytes(ByteArray(10))
+        val cache2 = cache()
+        assertNull(cache2.get(key))
+        assertFalse(File(dir, key.fileName).exists())
+        assertEquals(1, cache.stats.misses)
+        assertEquals(1, cache2.stats.misses)
+        assertEquals(0f, cache2.stats.hitRate)
+    }
+
+    @Test
+    fun test_peaksFoundByContent() {
+        val file = record("a.wav", 200_000, 1)
+        val key = WaveformCache.Key.read(file, 1000)
+        val cache = cache()
+        assertNull(cache.findPeaks(file))
+        cache.put(key, gains(1), 1)
+        cache.putPeaks(key, peaks())
+
+        //Peaks don't depend on resolution and follow a moved record.
+        val moved = File(records, "moved.wav")
+        assertTrue(file.renameTo(moved))
+        val peaks = cache.findPeaks(moved)
+        assertNotNull(peaks)
+        assertEquals(256 * 100L, peaks!!.frameCount)
+        assertEquals((-500).toShort(), peaks.getMin(0, 0))
+        assertEquals((-245).toShort(), peaks.getMax(0, 0))
+        assertEquals(File(dir, key.fileName).length(), cache.diskBytes)
+        assertEquals(File(File(dir, "peaks"), key.peaksFileName).length(), cache.peaksDiskBytes)
+    }
+
+    @Test
+    fun test_peaksDontEvictGains() {
+        val keys = (1..3).map { WaveformCache.Key.read(record("$it.wav", 1000, it.toLong()), 1) }
+        var cache = cache()
+        cache.putPeaks(keys[0], peaks(3000))
+        val peaksSize = cache.peaksDiskBytes
+        cache.clear()
+
+        //Peaks are larger than the limit of gains, two of them fit their own limit.
+        assertTrue(peaksSize > 9_000)
+        cache = cache(peaksSize * 5 / 2)
+        val now = System.currentTimeMillis()
+        for ((i, key) in keys.withIndex()) {
+            cache.put(key, gains(i + 1), 1)
+            File(dir, key.fileName).setLastModified(now - 10_000 + i * 1000L)
+        }
+        val gainsBytes = cache.diskBytes
+        for ((i, key) in keys.withIndex()) {
+            cache.putPeaks(key, peaks(3000))
+            File(File(dir, "peaks"), key.peaksFileName).setLastModified(now - 10_000 + i * 1000L)
+        }
+        assertEquals(gainsBytes, cache.diskBytes)
+        assertEquals(peaksSize * 2, cache.peaksDiskBytes)
+        assertNull(cache.getPeaks(keys[0]))
+        assertNotNull(cache.getPeaks(keys[2]))
+        assertNotNull(cache.get(keys[2]))
+
+        //A new instance counts both stores apart.
+        val cache2 = cache(peaksSize * 5 / 2)
+        assertEquals(gainsBytes, cache2.diskBytes)
+        assertEquals(peaksSize * 2, cache2.peaksDiskBytes)
+    }
+}
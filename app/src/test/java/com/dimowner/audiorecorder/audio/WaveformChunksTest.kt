@@ -0,0 +1,66 @@
+package com.dimowner.audiorecorder.audio
+
+import com.dimowner.audiorecorder.IntArrayList
+import junit.framework.TestCase.assertEquals
+import junit.framework.TestCase.assertSame
+import junit.framework.TestCase.assertTrue
+import org.junit.Test
+
+class WaveformChunksTest {
+
+    private class Listener : AudioDecodingListener {
+        val offsets = ArrayList<Int>()
+        val gains = ArrayList<Int>()
+        var buffer: IntArray? = null
+
+        override fun isCanceled() = false
+        override fun onStartProcessing(duration: Long, channelsCount: Int, sampleRate: Int) {}
+        override fun onProcessingProgress(percent: Int) {}
+        override fun onProcessingCancel() {}
+        override fun onFinishProcessing(data: IntArray, duration: Long) {}
+        override fun onWaveformChunk(offset: Int, data: IntArray, length: Int) {
+            offsets.add(offset)
+            for (i in 0 until length) gains.add(data[i])
+            if (buffer != null && buffer!!.size >= length) assertSame(buffer, data)
+            buffer = data
+        }
+        override fun onError(exception: Exception) {}
+    }
+
+    @Test
+    fun test_chunksInOrderAndComplete() {
+        val listener = Listener()
+        val chunks = WaveformChunks(listener, 0)
+        val expected = IntArrayList()
+        for (i in 0 until 5000) {
+            chunks.add(i)
+            expected.add(i)
+            if (i % 37 == 0) chunks.publish()
+        }
+        val data = chunks.finish()
+
+        assertEquals(expected.data.toList(), data.toList())
+        assertEquals(data.toList(), listener.gains)
+        assertEquals(5000 / 37 + 2, listener.offsets.size)
+        for (i in 1 until listener.offsets.size) {
+            assertTrue(listener.offsets[i] > listener.offsets[i - 1])
+        }
+        //Nothing left to deliver.
+        chunks.finish()
+        assertEquals(5000 / 37 + 2, listener.offsets.size)
+    }
+
+    @Test
+    fun test_rateBounded() {
+        val listener = Listener()
+        val chunks = WaveformChunks(listener, 60_000)
+        for (i in 0 until 1000) {
+            chunks.add(i)
+            chunks.publish()
+        }
+        assertTrue(listener.offsets.isEmpty())
+        chunks.finish()
+        assertEquals(listOf(0), listener.offsets)
+        assertEquals(chunks.size(), listener.gains.size)
+    }
+}
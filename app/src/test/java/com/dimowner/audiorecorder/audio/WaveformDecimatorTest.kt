@@ -0,0 +1,56 @@
+package com.dimowner.audiorecorder.audio
+
+import junit.framework.TestCase.assertEquals
+import org.junit.Test
+import java.util.Random
+
+class WaveformDecimatorTest {
+
+    @Test
+    fun test_fillMinMax() {
+        val random = Random(5)
+        val gains = IntArray(10_000) { random.nextInt(256) }
+        val gainsPerPx = 7.3
+        val min = IntArray(500)
+        val max = IntArray(500)
+        val count = WaveformDecimator.fill(gains, gains.size, 120.0, gainsPerPx, min, max, 500)
+        assertEquals(500, count)
+        for (i in 0 until count) {
+            val from = (120.0 + i * gainsPerPx).toInt()
+            val to = (120.0 + (i + 1) * gainsPerPx).toInt()
+            val range = gains.copyOfRange(from, to)
+            assertEquals(range.minOrNull(), min[i])
+            assertEquals(range.maxOrNull(), max[i])
+        }
+    }
+
+    @Test
+    fun test_peakIsKept() {
+        //One second peak in an hour of silence.
+        val gains = IntArray(3600 * 25)
+        gains[50_000] = 200
+        val pixels = WaveformDecimator.resample(gains, 300)
+        assertEquals(300, pixels.size)
+        assertEquals(1, pixels.count { it == 200 })
+        assertEquals(200, pixels[50_000 * 300 / gains.size])
+    }
+
+    @Test
+    fun test_gainsRepeatedWhenZoomedIn() {
+        val gains = intArrayOf(1, 2, 3)
+        val min = IntArray(10)
+        val max = IntArray(10)
+        val count = WaveformDecimator.fill(gains, gains.size, 0.0, 0.5, min, max, 10)
+        assertEquals(6, count)
+        assertEquals(listOf(1, 1, 2, 2, 3, 3), max.take(count))
+        assertEquals(max.take(count), min.take(count))
+        assertEquals(listOf(1, 1, 2, 2, 3, 3), WaveformDecimator.resample(gains, 6).toList())
+    }
+
+    @Test
+    fun test_frameCount() {
+        assertEquals(25, WaveformDecimator.getFrameCount(1000))
+        assertEquals(180_000, WaveformDecimator.getFrameCount(2 * 3600 * 1000L))
+        assertEquals(0, WaveformDecimator.resample(IntArray(0), 10).size)
+    }
+}
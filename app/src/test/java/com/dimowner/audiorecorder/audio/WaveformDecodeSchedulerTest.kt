@@ -0,0 +1,192 @@
+package com.dimowner.audiorecorder.audio
+
+import junit.framework.TestCase.assertEquals
+import junit.framework.TestCase.assertFalse
+import junit.framework.TestCase.assertTrue
+import org.junit.Test
+import java.io.IOException
+
+class WaveformDecodeSchedulerTest {
+
+    /** Decodings are finished by the test. */
+    private class FakeDecoder : WaveformDecodeScheduler.Decoder {
+        val started = ArrayList<Int>()
+        val listeners = HashMap<Int, AudioDecodingListener>()
+
+        override fun decode(id: Int, listener: AudioDecodingListener) {
+            started.add(id)
+            listeners[id] = listener
+            listener.onStartProcessing(1000000, 1, 44100)
+        }
+
+        fun finish(id: Int) {
+            val listener = listeners.remove(id)!!
+            if (listener.isCanceled()) {
+                listener.onProcessingCancel()
+            } else {
+                listener.onFinishProcessing(intArrayOf(id), 1000000)
+            }
+        }
+
+        fun fail(id: Int) {
+            listeners.remove(id)!!.onError(IOException("Failed $id"))
+        }
+    }
+
+    private class Results : WaveformDecodeScheduler.Callback {
+        val decoded = ArrayList<Int>()
+        val failed = ArrayList<Int>()
+
+        override fun onPeaks(id: Int, peaks: WaveformPyramid) {}
+
+        override fun onDecoded(id: Int, gains: IntArray, duration: Long) {
+            assertEquals(id, gains[0])
+            decoded.add(id)
+        }
+
+        override fun onFailed(id: Int, e: Exception) {
+            failed.add(id)
+        }
+    }
+
+    private class Listener : AudioDecodingListener {
+        var isCancelRequested = false
+        var finished = 0
+        var canceled = 0
+
+        override fun isCanceled() = isCancelRequested
+        override fun onStartProcessing(duration: Long, channelsCount: Int, sampleRate: Int) {}
+        override fun onProcessingProgress(percent: Int) {}
+        override fun onProcessingCancel() {
+            canceled++
+        }
+        override fun onFinishProcessing(data: IntArray, duration: Long) {
+            finished++
+        }
+        override fun onError(exception: Exception) {}
+    }
+
+    private val decoder = FakeDecoder()
+    private val results = Results()
+
+    private fun scheduler(maxRunning: Int) =
+        WaveformDecodeScheduler(decoder, { it.run() }, results, maxRunning)
+
+    @Test
+    fun test_priorityOrder() {
+        val scheduler = scheduler(1)
+        scheduler.requestAll(listOf(1, 2, 3, 4, 5))
+        scheduler.setVisible(listOf(4, 3))
+        scheduler.request(5, WaveformDecodeScheduler.PRIORITY_ACTIVE)
+        //Visible items which are not queued are ignored.
+        scheduler.setVisible(listOf(2, 3, 100))
+        //Stopped 1 goes back to the background, 4 is not visible anymore.
+        for (id in listOf(1, 5, 3, 2, 1, 4)) {
+            assertEquals(id, decoder.started.last())
+            decoder.finish(id)
+        }
+        assertEquals(listOf(1, 5, 3, 2, 1, 4), decoder.started)
+        assertEquals(listOf(5, 3, 2, 1, 4), results.decoded)
+        assertFalse(scheduler.isQueued(100))
+    }
+
+    @Test
+    fun test_dedupe() {
+        val scheduler = scheduler(2)
+        scheduler.requestAll(listOf(1, 2, 3))
+        scheduler.requestAll(listOf(3, 2, 1))
+        val listener = Listener()
+        scheduler.request(1, WaveformDecodeScheduler.PRIORITY_ACTIVE, listener)
+        scheduler.request(3, WaveformDecodeScheduler.PRIORITY_VISIBLE)
+        assertEquals(1, scheduler.queueDepth)
+        decoder.finish(1)
+        decoder.finish(2)
+        decoder.finish(3)
+        assertEquals(listOf(1, 2, 3), decoder.started)
+        assertEquals(1, listener.finished)
+        //Decoded record is queued again only by a new request.
+        scheduler.request(1, WaveformDecodeScheduler.PRIORITY_BACKGROUND)
+        assertEquals(listOf(1, 2, 3, 1), decoder.started)
+    }
+
+    @Test
+    fun test_throttle() {
+        val scheduler = scheduler(2)
+        scheduler.requestAll((1..10).toList())
+        for (id in 1..10) {
+            assertTrue(scheduler.runningCount <= 2)
+            assertEquals(maxOf(0, 10 - id - 1), scheduler.queueDepth)
+            decoder.finish(id)
+        }
+        assertEquals((1..10).toList(), decoder.started)
+        assertEquals(0, scheduler.runningCount)
+    }
+
+    @Test
+    fun test_cancel() {
+        val scheduler = scheduler(1)
+        val queuedListener = Listener()
+        val runningListener = Listener()
+        scheduler.request(1, WaveformDecodeScheduler.PRIORITY_BACKGROUND, runningListener)
+        scheduler.request(2, WaveformDecodeScheduler.PRIORITY_BACKGROUND, queuedListener)
+        scheduler.requestAll(listOf(3))
+
+        assertTrue(scheduler.cancel(2))
+        assertEquals(1, queuedListener.canceled)
+        assertTrue(scheduler.cancel(1))
+        decoder.finish(1)
+        assertEquals(1, runningListener.canceled)
+        assertFalse(scheduler.cancel(1))
+
+        //Cancel by a listener.
+        val listener = Listener()
+        scheduler.request(3, WaveformDecodeScheduler.PRIORITY_ACTIVE, listener)
+        listener.isCancelRequested = true
+        decoder.finish(3)
+        assertEquals(1, listener.canceled)
+
+        assertEquals(listOf(1, 3), decoder.started)
+        assertTrue(results.decoded.isEmpty())
+        assertEquals(3, scheduler.metrics.canceledCount)
+    }
+
+    @Test
+    fun test_activeRecordPreemptsBackground() {
+        val scheduler = scheduler(1)
+        scheduler.requestAll(listOf(1, 2))
+        val listener = Listener()
+        scheduler.request(3, WaveformDecodeScheduler.PRIORITY_ACTIVE, listener)
+        //Background decoding of 1 is stopped and queued again before 2.
+        decoder.finish(1)
+        assertEquals(3, decoder.started.last())
+        decoder.finish(3)
+        assertEquals(1, listener.finished)
+        decoder.finish(1)
+        decoder.finish(2)
+        assertEquals(listOf(1, 3, 1, 2), decoder.started)
+        assertEquals(listOf(3, 1, 2), results.decoded)
+        assertEquals(0, scheduler.metrics.canceledCount)
+    }
+
+    @Test
+    fun test_metrics() {
+        val scheduler = scheduler(2)
+        scheduler.requestAll(listOf(1, 2, 3, 4))
+        var metrics = scheduler.metrics
+        assertEquals(2, metrics.queueDepth)
+        assertEquals(2, metrics.runningCount)
+        decoder.finish(1)
+        decoder.fail(2)
+        decoder.finish(3)
+        scheduler.cancel(4)
+        decoder.finish(4)
+        metrics = scheduler.metrics
+        assertEquals(0, metrics.queueDepth)
+        assertEquals(0, metrics.runningCount)
+        assertEquals(2, metrics.decodedCount)
+        assertEquals(1, metrics.failedCount)
+        assertEquals(1, metrics.canceledCount)
+        assertEquals(2000000L, metrics.decodedDuration)
+        assertEquals(listOf(2), results.failed)
+    }
+}
@@ -0,0 +1,44 @@
+package com.dimowner.audiorecorder.audio
+
+import junit.framework.TestCase.assertEquals
+import junit.framework.TestCase.assertTrue
+import org.junit.Test
+
+/**
+ * Waveform gains of MediaCodec output: bulk reducer against the original per sample getShort() loop.
+ * Output is 5 minutes of direct buffers of 1024 frames, as AAC decoder gives them.
+ */
+class WaveformGainReducerBenchmarkTest {
+
+    private fun measure(sampleRate: Int, channels: Int, runs: Int = 5) {
+        val buffers = codecOutput(sampleRate, channels, 300, 11) { 1024 }
+        val samplesPerFrame = sampleRate / 25
+        val bytes = buffers.sumOf { it.capacity().toLong() }
+        var bulk = Long.MAX_VALUE
+        var perSample = Long.MAX_VALUE
+        var gains: IntArray? = null
+        var expected: IntArray? = null
+        for (i in 0 until runs) {
+            var start = System.nanoTime()
+            gains = bulkGains(buffers, samplesPerFrame, channels)
+            bulk = minOf(bulk, System.nanoTime() - start)
+
+            start = System.nanoTime()
+            expected = perSampleGains(buffers, samplesPerFrame, channels)
+            perSample = minOf(perSample, System.nanoTime() - start)
+        }
+        println(String.format("%5d Hz %d ch  %4.0f MB  bulk %6.1f ms %6.0f MB/s  per sample %6.1f ms %6.0f MB/s  %4.1fx",
+            sampleRate, channels, bytes / 1e6, bulk / 1e6, bytes * 1000.0 / bulk,
+            perSample / 1e6, bytes * 1000.0 / perSample, perSample.toDouble() / bulk))
+        assertEquals(expected!!.toList(), gains!!.toList())
+        assertTrue(bulk < perSample)
+    }
+
+    @Test
+    fun test_monoAndStereo() {
+        measure(44100, 1)
+        measure(48000, 1)
+        measure(44100, 2)
+        measure(48000, 2)
+    }
+}
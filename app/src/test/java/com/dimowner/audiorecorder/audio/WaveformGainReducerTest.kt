@@ -0,0 +1,120 @@
+package com.dimowner.audiorecorder.audio
+
+import com.dimowner.audiorecorder.IntArrayList
+import junit.framework.TestCase.assertEquals
+import junit.framework.TestCase.assertTrue
+import org.junit.Test
+import java.nio.ByteBuffer
+import java.nio.ByteOrder
+import java.util.Random
+import kotlin.math.sqrt
+
+/** Gains as calculated by the original MediaCodec output loop: every sample taken with getShort(). */
+internal fun perSampleGains(buffers: List<ByteBuffer>, samplesPerFrame: Int, channelCount: Int): IntArray {
+    val oneFrameAmps = IntArray(samplesPerFrame * channelCount)
+    var frameIndex = 0
+    val gains = IntArrayList()
+    for (outputBuffer in buffers) {
+        outputBuffer.rewind()
+        outputBuffer.order(ByteOrder.LITTLE_ENDIAN)
+        while (outputBuffer.remaining() > 0) {
+            oneFrameAmps[frameIndex] = outputBuffer.getShort().toInt()
+            frameIndex++
+            if (frameIndex >= oneFrameAmps.size - 1) {
+                var gain = -1
+                var j = 0
+                while (j < oneFrameAmps.size) {
+                    var value = 0
+                    for (k in 0 until channelCount) {
+                        value += oneFrameAmps[j + k]
+                    }
+                    value /= channelCount
+                    if (gain < value) gain = value
+                    j += channelCount
+                }
+                gains.add(sqrt(gain.toDouble()).toInt())
+                frameIndex = 0
+            }
+        }
+    }
+    return gains.data
+}
+
+/** Gains as calculated by AudioDecoder now: buffers are reduced in bulk and drained into chunks. */
+internal fun bulkGains(buffers: List<ByteBuffer>, samplesPerFrame: Int, channelCount: Int): IntArray {
+    val reducer = WaveformGainReducer(samplesPerFrame, channelCount)
+    val chunks = WaveformChunks(NoListener, 0)
+    for (outputBuffer in buffers) {
+        outputBuffer.rewind()
+        outputBuffer.order(ByteOrder.LITTLE_ENDIAN)
+        reducer.process(outputBuffer.asShortBuffer())
+        reducer.drainTo(chunks)
+        chunks.publish()
+    }
+    return chunks.finish()
+}
+
+/** Decoder output of noise with loud peaks, buffers hold whole samples of all channels. */
+internal fun codecOutput(sampleRate: Int, channels: Int, seconds: Int, seed: Long, bufferFrames: (Random) -> Int): List<ByteBuffer> {
+    val random = Random(seed)
+    val buffers = ArrayList<ByteBuffer>()
+    var frames = sampleRate.toLong() * seconds
+    while (frames > 0) {
+        val count = minOf(bufferFrames(random).toLong(), frames).toInt()
+        val buffer = ByteBuffer.allocateDirect(count * channels * 2).order(ByteOrder.LITTLE_ENDIAN)
+        while (buffer.hasRemaining()) {
+            val peak = if (random.nextInt(500) == 0) 20000.0 else 1500.0
+            buffer.putShort((random.nextGaussian() * peak).toInt().coerceIn(-32768, 32767).toShort())
+        }
+        buffers.add(buffer)
+        frames -= count
+    }
+    return buffers
+}
+
+private object NoListener : AudioDecodingListener {
+    override fun isCanceled() = false
+    override fun onStartProcessing(duration: Long, channelsCount: Int, sampleRate: Int) {}
+    override fun onProcessingProgress(percent: Int) {}
+    override fun onProcessingCancel() {}
+    override fun onFinishProcessing(data: IntArray, duration: Long) {}
+    override fun onError(exception: Exception) {}
+}
+
+class WaveformGainReducerTest {
+
+    private fun assertSameGains(sampleRate: Int, channels: Int, seconds: Int, bufferFrames: (Random) -> Int) {
+        val buffers = codecOutput(sampleRate, channels, seconds, sampleRate.toLong() + channels, bufferFrames)
+        val samplesPerFrame = sampleRate / 25
+        val expected = perSampleGains(buffers, samplesPerFrame, channels)
+        val name = "$sampleRate Hz $channels ch"
+        assertTrue(name, expected.size > seconds * 20)
+        assertEquals(name, expected.toList(), bulkGains(buffers, samplesPerFrame, channels).toList())
+    }
+
+    @Test
+    fun test_sameAsPerSampleLoop() {
+        //AAC decoder output, 1024 frames per buffer.
+        assertSameGains(44100, 1, 30) { 1024 }
+        assertSameGains(48000, 2, 30) { 1024 }
+        //Frames of the waveform span any count of buffers.
+        assertSameGains(44100, 2, 20) { 1 + it.nextInt(5000) }
+        assertSameGains(8000, 1, 20) { 1 + it.nextInt(10) }
+        assertSameGains(48000, 6, 10) { 1 + it.nextInt(3000) }
+        assertSameGains(22050, 3, 10) { 1152 }
+    }
+
+    @Test
+    fun test_drainKeepsCurrentFrame() {
+        val reducer = WaveformGainReducer(4, 1)
+        val chunks = WaveformChunks(NoListener, 0)
+        reducer.process(shortArrayOf(100, 400, 9, 1, 1), 0, 5)
+        reducer.drainTo(chunks)
+        assertEquals(0, reducer.gainCount)
+        assertEquals(1, chunks.size())
+        //Frame takes 3 samples, the rest of the previous call is kept.
+        reducer.process(shortArrayOf(4, 16), 0, 2)
+        reducer.drainTo(chunks)
+        assertEquals(listOf(20, 2), chunks.finish().toList())
+    }
+}
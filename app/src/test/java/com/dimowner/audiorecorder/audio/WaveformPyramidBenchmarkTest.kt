@@ -0,0 +1,76 @@
+package com.dimowner.audiorecorder.audio
+
+import junit.framework.TestCase.assertTrue
+import org.junit.Test
+import java.io.File
+
+/**
+ * Showing waveform of a 1 hour record at another zoom: peaks of a screen taken from the stored pyramid
+ * against decoding the record again, which is the only way to get waveform of a new resolution from gains.
+ */
+class WaveformPyramidBenchmarkTest {
+
+    private val sampleRate = 44100
+    private val pixels = 1080
+
+    @Test
+    fun test_levelLookupAgainstDecoding() {
+        val file = File.createTempFile("benchmark", ".wav")
+        val peaksFile = File.createTempFile("benchmark", ".peaks")
+        try {
+            writeNoiseWav(file, sampleRate, 1, 3600L * sampleRate, 9)
+            val info = WavFileInfo.read(file)
+
+            var decodeNanos = Long.MAX_VALUE
+            var decoded: WaveformPyramid? = null
+            for (i in 0 until 3) {
+                val start = System.nanoTime()
+                WavDecoder.decode(file, info, 25f, object : AudioDecodingListener {
+                    override fun isCanceled() = false
+                    override fun onStartProcessing(duration: Long, channelsCount: Int, sampleRate: Int) {}
+                    override fun onProcessingProgress(percent: Int) {}
+                    override fun onProcessingCancel() {}
+                    override fun onPeaks(peaks: WaveformPyramid) {
+                        decoded = peaks
+                    }
+                    override fun onFinishProcessing(data: IntArray, duration: Long) {}
+                    override fun onError(exception: Exception) {}
+                })
+                decodeNanos = minOf(decodeNanos, System.nanoTime() - start)
+            }
+            decoded!!.write(peaksFile)
+
+            var openNanos = Long.MAX_VALUE
+            lateinit var pyramid: WaveformPyramid
+            for (i in 0 until 20) {
+                val start = System.nanoTime()
+                pyramid = WaveformPyramid.read(peaksFile)
+                openNanos = minOf(openNanos, System.nanoTime() - start)
+            }
+
+            val min = ShortArray(pixels)
+            val max = ShortArray(pixels)
+            println(String.format("1 h mono: pyramid %d levels %.0f KB, record %.0f MB", pyramid.levelCount,
+                peaksFile.length() / 1e3, info.dataLength / 1e6))
+            println(String.format("decode whole record %8.1f ms", decodeNanos / 1e6))
+            println(String.format("open pyramid        %8.1f us", openNanos / 1e3))
+            //From 10 seconds to the whole record on a screen.
+            for (screenSeconds in listOf(10, 60, 600, 3600)) {
+                val framesPerPixel = screenSeconds * sampleRate / pixels.toDouble()
+                val startFrame = (pyramid.frameCount - screenSeconds * sampleRate.toLong()) / 2
+                var nanos = Long.MAX_VALUE
+                for (i in 0 until 2000) {
+                    val start = System.nanoTime()
+                    pyramid.fill(startFrame, framesPerPixel, min, max, pixels)
+                    nanos = minOf(nanos, System.nanoTime() - start)
+                }
+                println(String.format("screen of %5d s    %8.1f us  level %d  %6.0fx faster than decoding",
+                    screenSeconds, nanos / 1e3, pyramid.selectLevel(framesPerPixel), decodeNanos.toDouble() / nanos))
+                assertTrue(nanos * 100 < decodeNanos)
+            }
+        } finally {
+            file.delete()
+            peaksFile.delete()
+        }
+    }
+}
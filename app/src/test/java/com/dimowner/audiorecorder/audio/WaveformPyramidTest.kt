@@ -0,0 +1,157 @@
+package com.dimowner.audiorecorder.audio
+
+import junit.framework.TestCase.assertEquals
+import junit.framework.TestCase.assertNotNull
+import junit.framework.TestCase.assertNull
+import junit.framework.TestCase.assertTrue
+import org.junit.After
+import org.junit.Before
+import org.junit.Test
+import java.io.File
+import java.io.RandomAccessFile
+import java.nio.ByteOrder
+import java.nio.ShortBuffer
+import java.nio.channels.FileChannel
+import java.util.Random
+
+class WaveformPyramidTest {
+
+    private lateinit var file: File
+
+    @Before
+    fun setUp() {
+        file = File.createTempFile("record", ".wav")
+    }
+
+    @After
+    fun after() {
+        file.delete()
+    }
+
+    private fun randomSamples(count: Int, seed: Long): ShortArray {
+        val random = Random(seed)
+        return ShortArray(count) { (random.nextGaussian() * if (random.nextInt(300) == 0) 15000 else 800)
+            .toInt().coerceIn(-32768, 32767).toShort() }
+    }
+
+    private fun build(samples: ShortArray, channels: Int, chunk: Int): WaveformPyramid {
+        val builder = WaveformPyramidBuilder(44100, channels)
+        var pos = 0
+        while (pos < samples.size) {
+            val count = minOf(chunk, samples.size - pos)
+            builder.process(ShortBuffer.wrap(samples, pos, count))
+            pos += count
+        }
+        return builder.build()
+    }
+
+    /** Peaks of frames calculated directly from samples. */
+    private fun peaks(samples: ShortArray, channels: Int, fromFrame: Long, toFrame: Long): Pair<Short, Short> {
+        var lo = Short.MAX_VALUE
+        var hi = Short.MIN_VALUE
+        val end = minOf(toFrame * channels, samples.size.toLong()).toInt()
+        for (i in (fromFrame * channels).toInt() until end) {
+            if (samples[i] < lo) lo = samples[i]
+            if (samples[i] > hi) hi = samples[i]
+        }
+        return Pair(lo, hi)
+    }
+
+    private fun assertSamePeaks(pyramid: WaveformPyramid, samples: ShortArray, channels: Int) {
+        for (level in 0 until pyramid.levelCount) {
+            val bucketFrames = WaveformPyramid.getBucketFrames(level)
+            for (b in 0 until pyramid.getBucketCount(level)) {
+                val expected = peaks(samples, channels, b * bucketFrames, (b + 1) * bucketFrames)
+                assertEquals("level $level bucket $b", expected.first, pyramid.getMin(level, b))
+                assertEquals("level $level bucket $b", expected.second, pyramid.getMax(level, b))
+            }
+        }
+    }
+
+    @Test
+    fun test_levelsSameAsDirectPeaks() {
+        val channels = 2
+        val samples = randomSamples(256 * 1000 * channels + 77 * channels, 1)
+        val pyramid = build(samples, channels, 999)
+        assertEquals(256 * 1000L + 77, pyramid.frameCount)
+        assertEquals(1001, pyramid.getBucketCount(0))
+        assertEquals(1, pyramid.getBucketCount(pyramid.levelCount - 1))
+        assertEquals(6, pyramid.levelCount)
+        assertSamePeaks(pyramid, samples, channels)
+    }
+
+    @Test
+    fun test_writeRead() {
+        val samples = randomSamples(300_000, 2)
+        val pyramid = build(samples, 1, 4096)
+        pyramid.write(file)
+        val read = WaveformPyramid.read(file)
+        assertNotNull(read)
+        assertEquals(44100, read.sampleRate)
+        assertEquals(1, read.channelCount)
+        assertEquals(pyramid.frameCount, read.frameCount)
+        assertEquals(pyramid.levelCount, read.levelCount)
+        assertSamePeaks(read, samples, 1)
+
+        //Not a pyramid.
+        RandomAccessFile(file, "rw").use { it.write(ByteArray(100)) }
+        assertNull(WaveformPyramid.read(file))
+    }
+
+    @Test
+    fun test_fillPixels() {
+        val samples = randomSamples(2_000_000, 3)
+        val pyramid = build(samples, 1, 10_000)
+        val pixels = 1080
+        val min = ShortArray(pixels)
+        val max = ShortArray(pixels)
+        //Pixels of a whole count of buckets give exact peaks at any level.
+        for (framesPerPixel in listOf(256.0, 1024.0, 4096.0, 16384.0)) {
+            val start = 16384L * 3
+            val filled = pyramid.fill(start, framesPerPixel, min, max, pixels)
+            assertEquals(minOf(pixels.toLong(), ((samples.size - start) / framesPerPixel).toLong() + 1).toInt(), filled)
+            for (i in 0 until filled) {
+                val from = start + (i * framesPerPixel).toLong()
+                val expected = peaks(samples, 1, from, from + framesPerPixel.toLong())
+                assertEquals("$framesPerPixel px $i", expected.first, min[i])
+                assertEquals("$framesPerPixel px $i", expected.second, max[i])
+            }
+        }
+        //Any zoom covers at least the peaks of its frames.
+        val filled = pyramid.fill(1000, 3333.3, min, max, pixels)
+        for (i in 0 until filled) {
+            val from = 1000 + (i * 3333.3).toLong()
+            val expected = peaks(samples, 1, from, 1000 + ((i + 1) * 3333.3).toLong())
+            assertTrue(min[i] <= expected.first && max[i] >= expected.second)
+        }
+    }
+
+    @Test
+    fun test_wavDecoderCollectsPyramid() {
+        writeNoiseWav(file, 16000, 2, 16000L * 20, 4)
+        var collected: WaveformPyramid? = null
+        WavDecoder.decode(file, WavFileInfo.read(file), 25f, object : AudioDecodingListener {
+            override fun isCanceled() = false
+            override fun onStartProcessing(duration: Long, channelsCount: Int, sampleRate: Int) {}
+            override fun onProcessingProgress(percent: Int) {}
+            override fun onProcessingCancel() {}
+            override fun onPeaks(peaks: WaveformPyramid) {
+                collected = peaks
+            }
+            override fun onFinishProcessing(data: IntArray, duration: Long) {}
+            override fun onError(exception: Exception) {}
+        })
+        val pyramid = collected!!
+        assertEquals(16000L * 20, pyramid.frameCount)
+        assertEquals(2, pyramid.channelCount)
+
+        val info = WavFileInfo.read(file)
+        val samples = RandomAccessFile(file, "r").use { raf ->
+            val data = raf.channel.map(FileChannel.MapMode.READ_ONLY, info.dataOffset, info.dataLength)
+            val shorts = ShortArray((info.dataLength / 2).toInt())
+            data.order(ByteOrder.LITTLE_ENDIAN).asShortBuffer().get(shorts)
+            shorts
+        }
+        assertSamePeaks(pyramid, samples, 2)
+    }
+}
@@ -0,0 +1,267 @@
+package com.dimowner.audiorecorder.audio.recorder
+
+import junit.framework.TestCase.assertEquals
+import junit.framework.TestCase.assertTrue
+import org.junit.After
+import org.junit.Before
+import org.junit.Test
+import java.io.File
+import java.io.RandomAccessFile
+import java.nio.ByteBuffer
+import java.nio.ByteOrder
+import java.security.MessageDigest
+import java.util.Random
+import kotlin.math.PI
+import kotlin.math.sin
+
+class FlacEncoderTest {
+
+    private lateinit var file: File
+
+    @Before
+    fun setUp() {
+        file = File.createTempFile("record", ".flac")
+    }
+
+    @After
+    fun after() {
+        file.delete()
+    }
+
+    /** Synthetic little-endian interleaved PCM. */
+    private fun generatePcm(samples: Int, channels: Int, sample: (i: Int, ch: Int) -> Int): ByteArray {
+        val buffer = ByteBuffer.allocate(samples * channels * 2).order(ByteOrder.LITTLE_ENDIAN)
+        for (i in 0 until samples) {
+            for (ch in 0 until channels) {
+                buffer.putShort(sample(i, ch).coerceIn(-32768, 32767).toShort())
+            }
+        }
+        return buffer.array()
+    }
+
+    private fun encode(pcm: ByteArray, sampleRate: Int, channels: Int, chunkSize: Int): FlacEncoder {
+        RandomAccessFile(file, "rw").use { raf ->
+            val encoder = FlacEncoder(raf.channel, sampleRate, channels)
+            encoder.start()
+            var pos = 0
+            while (pos < pcm.size) {
+                val length = minOf(chunkSize, pcm.size - pos)
+                encoder.write(ByteBuffer.wrap(pcm, pos, length))
+                pos += length
+            }
+            encoder.finish()
+            return encoder
+        }
+    }
+
+    private fun assertRoundTrip(pcm: ByteArray, sampleRate: Int, channels: Int, chunkSize: Int = 3840) {
+        val encoder = encode(pcm, sampleRate, channels, chunkSize)
+        val decoded = FlacTestDecoder(file.readBytes())
+        assertEquals(sampleRate, decoded.sampleRate)
+        assertEquals(channels, decoded.channels)
+        assertEquals((pcm.size / channels / 2).toLong(), decoded.totalSamples)
+        assertEquals(encoder.encodedBytes, file.length())
+        assertTrue(MessageDigest.getInstance("MD5").digest(pcm).contentEquals(decoded.md5))
+        assertTrue(pcm.contentEquals(decoded.pcm))
+    }
+
+    @Test
+    fun test_roundTrip_mono() {
+        val random = Random(1)
+        val pcm = generatePcm(100_000, 1) { i, _ ->
+            (12000 * sin(2 * PI * 440 * i / 44100) + random.nextGaussian() * 100).toInt()
+        }
+        assertRoundTrip(pcm, 44100, 1)
+        assertTrue(file.length() < pcm.size * 3 / 4)
+    }
+
+    @Test
+    fun test_roundTrip_stereo() {
+        val random = Random(2)
+        val pcm = generatePcm(100_001, 2) { i, ch ->
+            (16000 * sin(2 * PI * 300 * i / 48000) + ch * 500 + random.nextGaussian() * 50).toInt()
+        }
+        //Odd chunk size splits sample frames between writes.
+        assertRoundTrip(pcm, 48000, 2, 1001)
+        assertTrue(file.length() < pcm.size * 3 / 4)
+    }
+
+    @Test
+    fun test_roundTrip_silenceNoiseAndClipping() {
+        val random = Random(3)
+        val pcm = generatePcm(30_000, 2) { i, _ ->
+            when {
+                i < 10_000 -> 0
+                i < 20_000 -> random.nextInt(65536) - 32768
+                else -> if (i % 50 < 25) 40000 else -40000
+            }
+        }
+        assertRoundTrip(pcm, 11025, 2)
+    }
+
+    /** Encoder has to keep up with recording on a single core with a good margin. */
+    @Test
+    fun test_throughput_fasterThanRealTime() {
+        val seconds = 30
+        val random = Random(4)
+        val pcm = generatePcm(seconds * 48000, 2) { i, ch ->
+            (10000 * sin(2 * PI * (440 + ch) * i / 48000) + random.nextGaussian() * 300).toInt()
+        }
+        encode(pcm, 48000, 2, 3840) // warm up
+        val start = System.nanoTime()
+        encode(pcm, 48000, 2, 3840)
+        val realTimeFactor = seconds * 1e9 / (System.nanoTime() - start)
+        println("FLAC encoding speed: %.1fx real time".format(realTimeFactor))
+        assertTrue(realTimeFactor > 5)
+    }
+
+    /** Minimal FLAC decoder for the subset of the format written by [FlacEncoder]. */
+    private class FlacTestDecoder(private val data: ByteArray) {
+        var sampleRate = 0
+        var channels = 0
+        var totalSamples = 0L
+        var md5 = ByteArray(16)
+        val pcm: ByteArray
+        private var bitPos = 0L
+
+        init {
+            assertEquals("fLaC", String(data, 0, 4, Charsets.US_ASCII))
+            bitPos = 32
+            assertEquals(1, bits(1))
+            assertEquals(0, bits(7))
+            assertEquals(34, bits(24))
+            bits(16)
+            bits(16)
+            bits(24)
+            bits(24)
+            sampleRate = bits(20).toInt()
+            channels = bits(3).toInt() + 1
+            assertEquals(15, bits(5).toInt())
+            totalSamples = bits(36)
+            md5 = ByteArray(16) { bits(8).toByte() }
+
+            val out = ByteBuffer.allocate((totalSamples * channels * 2).toInt()).order(ByteOrder.LITTLE_ENDIAN)
+            while (bitPos / 8 < data.size) {
+                decodeFrame(out)
+            }
+            pcm = out.array()
+        }
+
+        private fun bits(n: Int): Long {
+            var value = 0L
+            for (i in 0 until n) {
+                val bit = (data[(bitPos shr 3).toInt()].toInt() shr (7 - (bitPos and 7).toInt())) and 1
+                value = (value shl 1) or bit.toLong()
+                bitPos++
+            }
+            return value
+        }
+
+        private fun signed(n: Int): Int {
+            val value = bits(n)
+            return ((value shl (64 - n)) shr (64 - n)).toInt()
+        }
+
+        private fun unary(): Int {
+            var count = 0
+            while (bits(1) == 0L) count++
+            return count
+        }
+
+        private fun decodeFrame(out: ByteBuffer) {
+            val frameStart = (bitPos / 8).toInt()
+            assertEquals(0xFFF8L, bits(16))
+            val blockSizeCode = bits(4).toInt()
+            val rateCode = bits(4).toInt()
+            val assignment = bits(4).toInt()
+            assertEquals(4L, bits(3))
+            bits(1)
+            val first = bits(8).toInt()
+            var extraBytes = Integer.numberOfLeadingZeros(first.inv() shl 24)
+            if (extraBytes > 0) extraBytes--
+            bits(8 * extraBytes)
+            val blockSize = when (blockSizeCode) {
+                6 -> bits(8).toInt() + 1
+                7 -> bits(16).toInt() + 1
+                else -> throw AssertionError("Unexpected block size code $blockSizeCode")
+            }
+            if (rateCode in 12..14) bits(if (rateCode == 12) 8 else 16)
+            bits(8) // CRC-8
+
+            val subframes = Array(if (assignment < 8) assignment + 1 else 2) { ch ->
+                val sideChannel = (assignment == 8 && ch == 1) || (assignment == 9 && ch == 0) || (assignment == 10 && ch == 1)
+                decodeSubframe(blockSize, if (sideChannel) 17 else 16)
+            }
+            if (bitPos and 7 != 0L) bits(8 - (bitPos and 7).toInt())
+            bits(16) // CRC-16
+            assertTrue(frameStart < bitPos / 8)
+
+            for (i in 0 until blockSize) {
+                val samples = IntArray(subframes.size)
+                when (assignment) {
+                    8 -> { samples[0] = subframes[0][i]; samples[1] = subframes[0][i] - subframes[1][i] }
+                    9 -> { samples[1] = subframes[1][i]; samples[0] = subframes[0][i] + subframes[1][i] }
+                    10 -> {
+                        val side = subframes[1][i]
+                        val mid = (subframes[0][i] shl 1) or (side and 1)
+                        samples[0] = (mid + side) shr 1
+                        samples[1] = (mid - side) shr 1
+                    }
+                    else -> for (ch in subframes.indices) samples[ch] = subframes[ch][i]
+                }
+                for (sample in samples) out.putShort(sample.toShort())
+            }
+        }
+
+        private fun decodeSubframe(n: Int, bps: Int): IntArray {
+            assertEquals(0L, bits(1))
+            val type = bits(6).toInt()
+            assertEquals(0L, bits(1))
+            val x = IntArray(n)
+            when {
+                type == 0 -> x.fill(signed(bps))
+                type == 1 -> for (i in 0 until n) x[i] = signed(bps)
+                type in 8..12 -> {
+                    val order = type - 8
+                    for (i in 0 until order) x[i] = signed(bps)
+                    decodeResidual(x, n, order)
+                    val c = listOf(intArrayOf(), intArrayOf(1), intArrayOf(2, -1), intArrayOf(3, -3, 1), intArrayOf(4, -6, 4, -1))[order]
+                    for (i in order until n) {
+                        var sum = 0
+                        for (j in 0 until order) sum += c[j] * x[i - j - 1]
+                        x[i] += sum
+                    }
+                }
+                type >= 32 -> {
+                    val order = type - 31
+                    for (i in 0 until order) x[i] = signed(bps)
+                    val precision = bits(4).toInt() + 1
+                    val shift = signed(5)
+                    val coefficients = IntArray(order) { signed(precision) }
+                    decodeResidual(x, n, order)
+                    for (i in order until n) {
+                        var sum = 0L
+                        for (j in 0 until order) sum += coefficients[j].toLong() * x[i - j - 1]
+                        x[i] += (sum shr shift).toInt()
+                    }
+                }
+                else -> throw AssertionError("Unexpected subframe type $type")
+            }
+            return x
+        }
+
+        private fun decodeResidual(x: IntArray, n: Int, predictorOrder: Int) {
+            assertEquals(0L, bits(2))
+            val partitionOrder = bits(4).toInt()
+            val partitionSize = n shr partitionOrder
+            var i = predictorOrder
+            for (p in 0 until (1 shl partitionOrder)) {
+                val k = bits(4).toInt()
+                while (i < (p + 1) * partitionSize) {
+                    val u = (unary().toLong() shl k) or bits(k)
+                    x[i++] = ((u shr 1) xor -(u and 1)).toInt()
+                }
+            }
+        }
+    }
+}
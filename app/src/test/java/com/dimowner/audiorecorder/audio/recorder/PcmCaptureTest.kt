@@ -0,0 +1,213 @@
+package com.dimowner.audiorecorder.audio.recorder
+
+import com.dimowner.audiorecorder.audio.WavFileInfo
+import junit.framework.TestCase.assertEquals
+import junit.framework.TestCase.assertFalse
+import junit.framework.TestCase.assertTrue
+import org.junit.After
+import org.junit.Before
+import org.junit.Test
+import java.io.ByteArrayOutputStream
+import java.io.File
+import java.io.FileOutputStream
+import java.io.RandomAccessFile
+import java.nio.ByteBuffer
+import java.security.MessageDigest
+import kotlin.math.PI
+import kotlin.math.abs
+
+/** Whole recording path off-device: synthetic source → capture → meter → writer → finalised file. */
+class PcmCaptureTest {
+
+    private lateinit var file: File
+
+    @Before
+    fun setUp() {
+        file = File.createTempFile("record", ".wav")
+    }
+
+    @After
+    fun after() {
+        file.delete()
+        SilenceIndex.deleteIndexFile(file)
+    }
+
+    private fun readAll(source: SyntheticPcmSource): ByteArray {
+        val result = ByteArray(source.totalBytes.toInt())
+        source.start()
+        var pos = 0
+        while (!source.isFinished) {
+            pos += source.read(result, pos, minOf(4096, result.size - pos))
+        }
+        return result
+    }
+
+    private fun record(capture: PcmCapture, sink: PcmWriter.Sink, clock: RecordingClock): PcmWriter {
+        val source = capture.source as SyntheticPcmSource
+        val writer = PcmWriter(PcmRingBuffer(128, source.bufferSize), sink)
+        writer.start("test writer")
+        clock.startFrames(source.sampleRate, 0)
+        source.start()
+        while (!source.isFinished) {
+            if (capture.capture(writer) > 0) {
+                clock.setFrames(capture.recordedFrames)
+            }
+        }
+        source.stop()
+        writer.stop()
+        assertFalse(writer.hasError())
+        assertEquals(0L, writer.overrunCount)
+        return writer
+    }
+
+    private fun recordWav(capture: PcmCapture, clock: RecordingClock = RecordingClock()) {
+        val source = capture.source
+        FileOutputStream(file).use { fos ->
+            val header = WavHeader(source.sampleRate, source.channelCount)
+            val sink = WavFileSink(fos.channel, header, header.byteRate * 5)
+            record(capture, sink, clock)
+            sink.commitHeader()
+        }
+    }
+
+    private fun readWavData(): ByteArray {
+        val info = WavFileInfo.read(file)
+        val data = ByteArray(info.dataLength.toInt())
+        RandomAccessFile(file, "r").use {
+            it.seek(info.dataOffset)
+            it.readFully(data)
+        }
+        return data
+    }
+
+    @Test
+    fun test_wav_toneRecordedExactly() {
+        val source = SyntheticPcmSource.tone(44100, 2, 3000, 440, 10000)
+        source.setBufferSize(3584)
+        val capture = PcmCapture(source, null, null)
+        val clock = RecordingClock()
+        recordWav(capture, clock)
+
+        val info = WavFileInfo.read(file)
+        assertEquals(44100, info.sampleRate)
+        assertEquals(2, info.channelCount)
+        assertEquals(3_000_000L, info.duration)
+        assertEquals(3000L, clock.durationMills)
+        assertEquals(readAll(SyntheticPcmSource.tone(44100, 2, 3000, 440, 10000)).toList(), readWavData().toList())
+
+        //Mean absolute value of a sine is 2/PI of its peak.
+        val expected = 10000 * 2 / PI * PcmCapture.AMPLITUDE_SCALE
+        assertTrue(abs(capture.amplitude - expected) < expected * 0.01)
+    }
+
+    @Test
+    fun test_wavFixture_throughProcessingIntoFlac() {
+        recordWav(PcmCapture(SyntheticPcmSource.noise(16000, 1, 2000, 3000, 5), null, null))
+        val fixture = SyntheticPcmSource.fixture(file)
+        assertEquals(16000, fixture.sampleRate)
+        val expected = readAll(SyntheticPcmSource.fixture(file))
+
+        val flac = File.createTempFile("record", ".flac")
+        try {
+            RandomAccessFile(flac, "rw").use { raf ->
+                val encoder = FlacEncoder(raf.channel, fixture.sampleRate, fixture.channelCount)
+                encoder.start()
+                //Unity gain doesn't change samples.
+                val chain = PcmProcessorChain(GainProcessor(0f))
+                record(PcmCapture(fixture, chain, null), encoder, RecordingClock())
+                encoder.finish()
+                assertEquals(expected.size / 2L, encoder.totalSamples)
+            }
+            //MD5 of PCM is the last field of STREAMINFO.
+            val md5 = flac.readBytes().copyOfRange(FlacEncoder.HEADER_SIZE - 16, FlacEncoder.HEADER_SIZE)
+            assertEquals(MessageDigest.getInstance("MD5").digest(expected).toList(), md5.toList())
+        } finally {
+            flac.delete()
+        }
+    }
+
+    @Test
+    fun test_silenceSkipped_clockFollowsRecord() {
+        val source = SyntheticPcmSource.silence(16000, 1, 5000)
+        val capture = PcmCapture(source, null, SilenceSkipper(SilenceSkipper.MODE_COLLAPSE))
+        val clock = RecordingClock()
+        recordWav(capture, clock)
+
+        val info = WavFileInfo.read(file)
+        assertEquals(0, capture.amplitude)
+        assertEquals(info.dataLength, capture.recordedBytes)
+        assertTrue(info.dataLength < source.totalBytes / 5)
+        assertEquals(info.duration / 1000, clock.durationMills)
+        assertTrue(capture.silenceSkipper.hasCuts())
+    }
+
+    /** Sink which is slower than the source, so a small ring overflows. */
+    private class SlowSink : PcmWriter.Sink {
+        override fun write(data: ByteBuffer) {
+            Thread.sleep(2)
+            data.position(data.limit())
+        }
+    }
+
+    /** Record through a ring of 4 chunks into a slow sink, counters must follow the written data. */
+    private fun recordWithOverruns(capture: PcmCapture): PcmWriter {
+        val source = capture.source as SyntheticPcmSource
+        val writer = PcmWriter(PcmRingBuffer(4, source.bufferSize), SlowSink())
+        val clock = RecordingClock()
+        writer.start("test writer")
+        clock.startFrames(source.sampleRate, 0)
+        source.start()
+        while (!source.isFinished) {
+            if (capture.capture(writer) > 0) {
+                clock.setFrames(capture.recordedFrames)
+            }
+        }
+        source.stop()
+        writer.stop()
+        assertTrue(writer.overrunCount > 0)
+        assertEquals(writer.writtenBytes, capture.recordedBytes)
+        assertEquals(writer.writtenBytes / 2 * 1000 / source.sampleRate, clock.durationMills)
+        return writer
+    }
+
+    @Test
+    fun test_overrun_droppedDataNotCounted() {
+        val source = SyntheticPcmSource.tone(16000, 1, 3000, 440, 10000)
+        source.setBufferSize(640)
+        val writer = recordWithOverruns(PcmCapture(source, null, null))
+        assertEquals(source.totalBytes, writer.writtenBytes + writer.droppedBytes)
+    }
+
+    @Test
+    fun test_overrun_silenceSkipperCountsWrittenData() {
+        val pcm = ByteArrayOutputStream()
+        repeat(3) {
+            pcm.write(readAll(SyntheticPcmSource.tone(16000, 1, 1000, 440, 10000)))
+            pcm.write(readAll(SyntheticPcmSource.silence(16000, 1, 2000)))
+        }
+        val source = SyntheticPcmSource.fixture(16000, 1, pcm.toByteArray())
+        source.setBufferSize(640)
+        val capture = PcmCapture(source, null, SilenceSkipper(SilenceSkipper.MODE_DROP))
+        val writer = recordWithOverruns(capture)
+
+        val skipper = capture.silenceSkipper
+        assertEquals(source.totalBytes, skipper.capturedBytes)
+        assertTrue(skipper.hasCuts())
+        //Cuts point into data which is in the file.
+        val index = skipper.index
+        for (i in 0 until index.size()) {
+            assertTrue(index.getDataOffset(i) <= writer.writtenBytes)
+        }
+    }
+
+    @Test
+    fun test_realTimeSource_readsAtCaptureRate() {
+        val source = SyntheticPcmSource.tone(8000, 1, 300, 100, 1000)
+        source.setRealTime(true)
+        val start = System.nanoTime()
+        val data = readAll(source)
+        val mills = (System.nanoTime() - start) / 1000000
+        assertEquals(4800, data.size)
+        assertTrue("read in $mills ms", mills in 280..600)
+    }
+}
@@ -0,0 +1,194 @@
+package com.dimowner.audiorecorder.audio.recorder
+
+import junit.framework.TestCase.assertEquals
+import junit.framework.TestCase.assertFalse
+import junit.framework.TestCase.assertTrue
+import org.junit.Test
+import java.io.ByteArrayOutputStream
+import java.nio.ByteBuffer
+import java.util.concurrent.locks.LockSupport
+
+class PcmHistoryBufferTest {
+
+    /** Bytes which value depends on the position in the captured stream. */
+    private fun stream(from: Int, length: Int) = ByteArray(length) { ((from + it) xor ((from + it) shr 8)).toByte() }
+
+    private fun contents(buffer: PcmHistoryBuffer): ByteArray {
+        val result = ByteArray(buffer.size())
+        assertEquals(buffer.size(), buffer.copyTo(result))
+        return result
+    }
+
+    @Test
+    fun test_keepsLastData_inWriteOrder() {
+        val buffer = PcmHistoryBuffer(10, 2, 4)
+        assertTrue(buffer.isEmpty)
+
+        buffer.write(stream(0, 4), 0, 4, 1)
+        buffer.write(stream(4, 4), 0, 4, 2)
+        assertEquals(stream(0, 8).toList(), contents(buffer).toList())
+
+        //Wraps around and overwrites the oldest data.
+        buffer.write(stream(8, 4), 0, 4, 3)
+        assertEquals(10, buffer.size())
+        assertEquals(stream(2, 10).toList(), contents(buffer).toList())
+
+        buffer.write(stream(12, 6), 0, 6, 4)
+        assertEquals(stream(8, 10).toList(), contents(buffer).toList())
+    }
+
+    @Test
+    fun test_capacityRoundedToFrames_andLongWrite() {
+        val buffer = PcmHistoryBuffer(11, 4, 4)
+        assertEquals(8, buffer.capacity())
+
+        buffer.write(stream(0, 20), 0, 20, 1)
+        assertEquals(stream(12, 8).toList(), contents(buffer).toList())
+
+        buffer.write(stream(100, 8), 2, 4, 1)
+        assertEquals((stream(16, 4) + stream(102, 4)).toList(), contents(buffer).toList())
+
+        buffer.clear()
+        assertTrue(buffer.isEmpty)
+        assertEquals(0, buffer.copyTo(ByteArray(8)))
+    }
+
+    @Test
+    fun test_viewDoesNotWrap() {
+        val buffer = PcmHistoryBuffer(8, 1, 4)
+        buffer.write(stream(0, 6), 0, 6, 0)
+        buffer.write(stream(6, 6), 0, 6, 0)
+        //Oldest byte 4 is at physical position 4.
+        val first = buffer.view(0, 100)
+        assertEquals(4, first.remaining())
+        assertEquals(stream(4, 1)[0], first.get())
+        val second = buffer.view(4, 100)
+        assertEquals(4, second.remaining())
+        assertEquals(stream(8, 1)[0], second.get())
+        assertEquals(2, buffer.view(6, 100).remaining())
+        assertEquals(1, buffer.view(0, 1).remaining())
+    }
+
+    @Test
+    fun test_levels_onlyOfBufferedChunks() {
+        val buffer = PcmHistoryBuffer(8, 1, 4)
+        assertEquals(listOf(0, 0, 0), buffer.getLevels(3).toList())
+        for (i in 1..5) {
+            buffer.write(stream(i * 4, 4), 0, 4, i * 10)
+        }
+        //Two last chunks are in the buffer.
+        assertEquals(listOf(40, 50), buffer.getLevels(2).toList())
+        assertEquals(listOf(40, 40, 50, 50), buffer.getLevels(4).toList())
+        assertEquals(listOf(40), buffer.getLevels(1).toList())
+    }
+
+    @Test
+    fun test_queue_appendsIntoFreedSpace_andKeepsLevels() {
+        val buffer = PcmHistoryBuffer(8, 1, 4)
+        buffer.write(stream(0, 4), 0, 4, 10)
+        buffer.write(stream(4, 4), 0, 4, 20)
+        //Full buffer doesn't take more without overwriting.
+        assertFalse(buffer.append(ByteBuffer.wrap(stream(8, 1))))
+
+        buffer.skip(3)
+        assertTrue(buffer.append(ByteBuffer.wrap(stream(8, 3))))
+        assertFalse(buffer.append(ByteBuffer.wrap(stream(11, 1))))
+        assertEquals(stream(3, 8).toList(), contents(buffer).toList())
+        buffer.skip(6)
+        assertTrue(buffer.append(ByteBuffer.wrap(stream(11, 5))))
+        assertEquals(stream(9, 7).toList(), contents(buffer).toList())
+        assertEquals(listOf(10, 20), buffer.getLevels(2).toList())
+    }
+
+    private class SlowSink : PcmWriter.Sink {
+        val output = ByteArrayOutputStream()
+
+        override fun write(data: ByteBuffer) {
+            Thread.sleep(2)
+            val bytes = ByteArray(data.remaining())
+            data.get(bytes)
+            output.write(bytes)
+        }
+    }
+
+    /** Pre-roll is written before live chunks, while capture keeps publishing without waiting. */
+    @Test
+    fun test_flushOrder_preambleThenLiveData() {
+        val chunkSize = 1000
+        val history = PcmHistoryBuffer(300_000, 2, chunkSize)
+        var position = 0
+        while (position < 500_000) {
+            history.write(stream(position, chunkSize), 0, chunkSize, 0)
+            position += chunkSize
+        }
+        val sink = SlowSink()
+        val writer = PcmWriter(PcmRingBuffer(64, chunkSize), sink)
+        writer.setPreamble(history)
+        writer.start("test writer")
+
+        //Live capture continues right after the buffered data.
+        val start = System.nanoTime()
+        for (i in 0 until 50) {
+            val chunk = writer.claimChunk()
+            System.arraycopy(stream(position, chunkSize), 0, chunk, 0, chunkSize)
+            writer.publishChunk(chunkSize)
+            position += chunkSize
+        }
+        val publishMills = (System.nanoTime() - start) / 1000000
+        writer.stop()
+
+        assertFalse(writer.hasError())
+        assertEquals(0L, writer.overrunCount)
+        //Writing takes more than 100 ms, capture must not wait for it.
+        assertTrue(publishMills < 50)
+        val expected = stream(200_000, 350_000)
+        assertEquals(expected.size, sink.output.size())
+        assertEquals(expected.toList(), sink.output.toByteArray().toList())
+    }
+
+    /** Storage of about 20 MB/s, writing a large preamble takes longer than a small ring lasts. */
+    private class ThroughputSink : PcmWriter.Sink {
+        val output = ByteArrayOutputStream()
+
+        override fun write(data: ByteBuffer) {
+            LockSupport.parkNanos(data.remaining() * 50L)
+            val bytes = ByteArray(data.remaining())
+            data.get(bytes)
+            output.write(bytes)
+        }
+    }
+
+    /** Capture publishes into a ring of 8 chunks all the time the preamble of 2 MB is written. */
+    @Test
+    fun test_slowFlush_doesNotOverrunRing() {
+        val chunkSize = 1000
+        val history = PcmHistoryBuffer(2_000_000, 2, chunkSize)
+        var position = 0
+        while (position < 2_000_000) {
+            history.write(stream(position, chunkSize), 0, chunkSize, 0)
+            position += chunkSize
+        }
+        val sink = ThroughputSink()
+        val writer = PcmWriter(PcmRingBuffer(8, chunkSize), sink)
+        writer.setPreamble(history)
+        writer.start("test writer")
+
+        val start = System.nanoTime()
+        for (i in 0 until 200) {
+            val chunk = writer.claimChunk()
+            System.arraycopy(stream(position, chunkSize), 0, chunk, 0, chunkSize)
+            assertTrue(writer.publishChunk(chunkSize))
+            position += chunkSize
+            Thread.sleep(1)
+        }
+        val publishMills = (System.nanoTime() - start) / 1000000
+        writer.stop()
+
+        assertFalse(writer.hasError())
+        assertEquals(0L, writer.overrunCount)
+        assertTrue(writer.maxWriteLatencyNanos > 1_000_000L)
+        assertTrue(publishMills > 100)
+        assertEquals(stream(0, position).toList(), sink.output.toByteArray().toList())
+        assertTrue(history.isEmpty)
+    }
+}
@@ -0,0 +1,142 @@
+package com.dimowner.audiorecorder.audio.recorder
+
+import com.dimowner.audiorecorder.AppConstants
+import junit.framework.TestCase.assertEquals
+import org.junit.Assume.assumeTrue
+import org.junit.Before
+import org.junit.Test
+import java.nio.ByteBuffer
+import java.nio.ByteOrder
+import java.util.Random
+
+/**
+ * Recording amplitude of captured buffers: PcmLevelMeter against the original loop,
+ * which put every two bytes into a ByteBuffer to read a sample.
+ * Every sample rate and channel count of recording settings is measured on 10 minutes of 16 bit PCM
+ * read in buffers of AudioRecord minimal size. One second of PCM is generated and read over and over.
+ * Timings are only reported, run with -Pbenchmark.
+ */
+class PcmLevelMeterBenchmarkTest {
+
+    private val bufferSize = 3584
+    private val seconds = 600
+
+    private val sampleRates = intArrayOf(
+        AppConstants.RECORD_SAMPLE_RATE_8000,
+        AppConstants.RECORD_SAMPLE_RATE_16000,
+        AppConstants.RECORD_SAMPLE_RATE_22050,
+        AppConstants.RECORD_SAMPLE_RATE_32000,
+        AppConstants.RECORD_SAMPLE_RATE_44100,
+        AppConstants.RECORD_SAMPLE_RATE_48000
+    )
+    private val channelCounts = intArrayOf(AppConstants.RECORD_AUDIO_MONO, AppConstants.RECORD_AUDIO_STEREO)
+
+    @Before
+    fun setUp() {
+        assumeTrue(java.lang.Boolean.getBoolean("benchmark"))
+    }
+
+    /** A second of PCM rounded up to whole buffers. */
+    private fun pcm(sampleRate: Int, channels: Int): ByteArray {
+        val random = Random(7)
+        val buffers = (sampleRate * channels * 2 + bufferSize - 1) / bufferSize
+        val samples = buffers * bufferSize / 2
+        val bytes = ByteBuffer.allocate(samples * 2).order(ByteOrder.LITTLE_ENDIAN)
+        for (i in 0 until samples) {
+            bytes.putShort((Math.sin(i / 20.0) * 12000 + random.nextGaussian() * 2000).toInt().toShort())
+        }
+        return bytes.array()
+    }
+
+    private fun bufferCount(sampleRate: Int, channels: Int) = (sampleRate.toLong() * channels * 2 * seconds / bufferSize).toInt()
+
+    /** Amplitude of every buffer as the capture loop computed it before. */
+    private fun perSampleAmplitudes(pcm: ByteArray, count: Int): IntArray {
+        val data = ByteArray(bufferSize)
+        val result = IntArray(count)
+        val shortBuffer = ByteBuffer.allocate(2)
+        shortBuffer.order(ByteOrder.LITTLE_ENDIAN)
+        for (b in result.indices) {
+            System.arraycopy(pcm, b * bufferSize % pcm.size, data, 0, bufferSize)
+            var sum = 0L
+            var i = 0
+            while (i < bufferSize) {
+                shortBuffer.put(data[i])
+                shortBuffer.put(data[i + 1])
+                sum += Math.abs(shortBuffer.getShort(0).toInt())
+                shortBuffer.clear()
+                i += 2
+            }
+            result[b] = (sum / (bufferSize / 16)).toInt()
+        }
+        return result
+    }
+
+    /** Amplitude of every buffer measured on the little-endian view of the read buffer. */
+    private fun meterAmplitudes(pcm: ByteArray, count: Int): IntArray {
+        val data = ByteArray(bufferSize)
+        val samples = ByteBuffer.wrap(data).order(ByteOrder.LITTLE_ENDIAN).asShortBuffer()
+        val meter = PcmLevelMeter()
+        val result = IntArray(count)
+        for (b in result.indices) {
+            System.arraycopy(pcm, b * bufferSize % pcm.size, data, 0, bufferSize)
+            meter.process(samples, bufferSize / 2)
+            result[b] = (meter.meanAbs * 8).toInt()
+        }
+        return result
+    }
+
+    /** Amplitude of every buffer measured on samples read by AudioRecord into a short array. */
+    private fun meterShortAmplitudes(pcm: ByteArray, count: Int): IntArray {
+        val chunk = ShortArray(bufferSize / 2)
+        val source = ByteBuffer.wrap(pcm).order(ByteOrder.LITTLE_ENDIAN).asShortBuffer()
+        val meter = PcmLevelMeter()
+        val result = IntArray(count)
+        for (b in result.indices) {
+            source.position(b * bufferSize % pcm.size / 2)
+            source.get(chunk)
+            meter.process(chunk, 0, chunk.size)
+            result[b] = (meter.meanAbs * 8).toInt()
+        }
+        return result
+    }
+
+    private fun measure(sampleRate: Int, channels: Int, runs: Int = 5) {
+        val pcm = pcm(sampleRate, channels)
+        val count = bufferCount(sampleRate, channels)
+        var perSample = Long.MAX_VALUE
+        var view = Long.MAX_VALUE
+        var array = Long.MAX_VALUE
+        var expected = IntArray(0)
+        var viewAmplitudes = IntArray(0)
+        var arrayAmplitudes = IntArray(0)
+        for (i in 0 until runs) {
+            var start = System.nanoTime()
+            expected = perSampleAmplitudes(pcm, count)
+            perSample = minOf(perSample, System.nanoTime() - start)
+
+            start = System.nanoTime()
+            viewAmplitudes = meterAmplitudes(pcm, count)
+            view = minOf(view, System.nanoTime() - start)
+
+            start = System.nanoTime()
+            arrayAmplitudes = meterShortAmplitudes(pcm, count)
+            array = minOf(array, System.nanoTime() - start)
+        }
+        println(String.format("%5d Hz %d ch  %6d buffers  per sample %6.1f ms  view %6.1f ms %4.1fx  short[] %6.1f ms %4.1fx",
+            sampleRate, channels, count, perSample / 1e6,
+            view / 1e6, perSample.toDouble() / view, array / 1e6, perSample.toDouble() / array))
+        //Only amplitudes are checked, timings depend on the machine.
+        assertEquals(expected.toList(), viewAmplitudes.toList())
+        assertEquals(expected.toList(), arrayAmplitudes.toList())
+    }
+
+    @Test
+    fun test_allRecordingFormats() {
+        for (sampleRate in sampleRates) {
+            for (channels in channelCounts) {
+                measure(sampleRate, channels)
+            }
+        }
+    }
+}
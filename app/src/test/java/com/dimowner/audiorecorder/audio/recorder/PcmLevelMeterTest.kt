@@ -0,0 +1,48 @@
+package com.dimowner.audiorecorder.audio.recorder
+
+import junit.framework.TestCase.assertEquals
+import org.junit.Test
+import java.nio.ByteBuffer
+import java.nio.ByteOrder
+
+class PcmLevelMeterTest {
+
+    private val meter = PcmLevelMeter()
+
+    @Test
+    fun test_process_shortArray() {
+        val samples = shortArrayOf(0, 100, -200, 300, Short.MIN_VALUE, 4)
+
+        meter.process(samples, 1, 4)
+
+        assertEquals(4, meter.sampleCount)
+        assertEquals(32768, meter.peak)
+        assertEquals((100 + 200 + 300 + 32768) / 4.0, meter.meanAbs, 0.0001)
+        val squares = 100.0 * 100 + 200.0 * 200 + 300.0 * 300 + 32768.0 * 32768
+        assertEquals(Math.sqrt(squares / 4), meter.rms, 0.0001)
+    }
+
+    @Test
+    fun test_process_littleEndianView_matchesShortArray() {
+        val samples = ShortArray(4410) { (Math.sin(it / 10.0) * 20000).toInt().toShort() }
+        val bytes = ByteBuffer.allocate(samples.size * 2).order(ByteOrder.LITTLE_ENDIAN)
+        bytes.asShortBuffer().put(samples)
+        val expected = PcmLevelMeter()
+        expected.process(samples, 0, samples.size)
+
+        meter.process(ByteBuffer.wrap(bytes.array()).order(ByteOrder.LITTLE_ENDIAN).asShortBuffer(), samples.size)
+
+        assertEquals(expected.peak, meter.peak)
+        assertEquals(expected.meanAbs, meter.meanAbs, 0.0)
+        assertEquals(expected.rms, meter.rms, 0.0)
+    }
+
+    @Test
+    fun test_process_empty() {
+        meter.process(ShortArray(0), 0, 0)
+
+        assertEquals(0, meter.peak)
+        assertEquals(0.0, meter.meanAbs, 0.0)
+        assertEquals(0.0, meter.rms, 0.0)
+    }
+}
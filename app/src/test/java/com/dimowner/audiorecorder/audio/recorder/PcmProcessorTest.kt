@@ -0,0 +1,122 @@
+package com.dimowner.audiorecorder.audio.recorder
+
+import junit.framework.TestCase.assertEquals
+import junit.framework.TestCase.assertTrue
+import org.junit.Test
+import java.util.Random
+import kotlin.math.PI
+import kotlin.math.abs
+import kotlin.math.log10
+import kotlin.math.sin
+
+class PcmProcessorTest {
+
+    private val sampleRate = 48000
+
+    /** Interleaved tone of the same frequency in all channels. */
+    private fun tone(frequency: Double, amplitude: Double, seconds: Double, channels: Int = 1, dc: Int = 0): ShortArray {
+        val frames = (sampleRate * seconds).toInt()
+        return ShortArray(frames * channels) {
+            (amplitude * sin(2 * PI * frequency * (it / channels) / sampleRate) + dc).toInt().toShort()
+        }
+    }
+
+    /** Process in chunks like the capture loop does. */
+    private fun process(processor: PcmProcessor, samples: ShortArray, channels: Int = 1, chunk: Int = 960) {
+        processor.prepare(sampleRate, channels)
+        var pos = 0
+        while (pos < samples.size) {
+            val length = minOf(chunk * channels, samples.size - pos)
+            processor.process(samples, pos, length)
+            pos += length
+        }
+    }
+
+    /** RMS of the last half of the samples, when filters are settled. */
+    private fun rmsOfTail(samples: ShortArray): Double {
+        val meter = PcmLevelMeter()
+        meter.process(samples, samples.size / 2, samples.size - samples.size / 2)
+        return meter.rms
+    }
+
+    private fun gainDb(input: ShortArray, output: ShortArray) = 20 * log10(rmsOfTail(output) / rmsOfTail(input))
+
+    @Test
+    fun test_highPass_attenuatesRumble() {
+        val rumble = tone(20.0, 10000.0, 1.0)
+        val voice = tone(1000.0, 10000.0, 1.0)
+        val filteredRumble = rumble.copyOf()
+        val filteredVoice = voice.copyOf()
+        process(BiquadFilter.highPass(80f, BiquadFilter.Q_BUTTERWORTH), filteredRumble)
+        process(BiquadFilter.highPass(80f, BiquadFilter.Q_BUTTERWORTH), filteredVoice)
+
+        //2nd order Butterworth: -12 dB per octave below the cutoff.
+        assertTrue(gainDb(rumble, filteredRumble) < -20)
+        assertEquals(0.0, gainDb(voice, filteredVoice), 0.1)
+    }
+
+    @Test
+    fun test_dcBlocker_removesOffset_stereo() {
+        val samples = tone(440.0, 5000.0, 2.0, 2, 3000)
+        val filtered = samples.copyOf()
+        process(BiquadFilter.dcBlocker(), filtered, 2)
+
+        for (ch in 0..1) {
+            var sum = 0L
+            var count = 0
+            for (i in filtered.size / 2 + ch until filtered.size step 2) {
+                sum += filtered[i]
+                count++
+            }
+            assertTrue(abs(sum / count) < 30)
+        }
+        val tail = filtered.copyOfRange(filtered.size / 2, filtered.size)
+        val input = tone(440.0, 5000.0, 2.0, 2).copyOfRange(filtered.size / 2, filtered.size)
+        assertEquals(0.0, gainDb(input, tail), 0.1)
+    }
+
+    @Test
+    fun test_gain_amplifiesAndClips() {
+        val samples = shortArrayOf(1000, -1000, 20000, -20000, 0)
+        process(GainProcessor(6.0206f), samples)
+        assertEquals(listOf<Short>(2000, -2000, Short.MAX_VALUE, Short.MIN_VALUE, 0), samples.toList())
+    }
+
+    @Test
+    fun test_noiseGate_mutesQuietNoiseAndKeepsSignal() {
+        val random = Random(1)
+        val noise = ShortArray(sampleRate) { (random.nextGaussian() * 20).toInt().toShort() }
+        val signal = tone(300.0, 8000.0, 1.0)
+        val samples = noise + signal
+        process(NoiseGate(-50f), samples)
+
+        assertEquals(0.0, rmsOfTail(samples.copyOfRange(0, sampleRate)))
+        assertEquals(0.0, gainDb(signal, samples.copyOfRange(sampleRate, samples.size)), 0.1)
+    }
+
+    /** Default chain has to cost a small fraction of real time on the recording thread. */
+    @Test
+    fun test_chain_cpuTimeAccounting() {
+        val seconds = 20.0
+        val chain = PcmProcessorChain.createDefault()
+        val samples = tone(440.0, 3000.0, seconds, 2)
+        chain.prepare(sampleRate, 2)
+        val chunk = ShortArray(1920)
+        var pos = 0
+        while (pos < samples.size) {
+            val length = minOf(chunk.size, samples.size - pos)
+            System.arraycopy(samples, pos, chunk, 0, length)
+            chain.process(chunk, 0, length)
+            pos += length
+        }
+        println("PCM processing: " + chain.statistics)
+
+        assertEquals(4, chain.stageCount)
+        assertEquals(samples.size.toLong(), chain.processedSamples)
+        for (i in 0 until chain.stageCount) {
+            assertTrue(chain.getStageNanos(i) > 0)
+        }
+        //Less than 10% of one core.
+        assertTrue(chain.microsPerSecond < 100_000)
+    }
+}
@@ -0,0 +1,92 @@
+package com.dimowner.audiorecorder.audio.recorder
+
+import junit.framework.TestCase.assertEquals
+import junit.framework.TestCase.assertFalse
+import junit.framework.TestCase.assertTrue
+import org.junit.Test
+import java.io.ByteArrayOutputStream
+import java.io.IOException
+import java.nio.ByteBuffer
+
+class PcmWriterTest {
+
+    /** Sink which stalls on every [stallEvery] write to imitate slow storage. */
+    private class SlowSink(private val stallEvery: Int, private val stallMills: Long) : PcmWriter.Sink {
+        val output = ByteArrayOutputStream()
+        private var writes = 0
+
+        override fun write(data: ByteBuffer) {
+            if (++writes % stallEvery == 0) {
+                Thread.sleep(stallMills)
+            }
+            val bytes = ByteArray(data.remaining())
+            data.get(bytes)
+            output.write(bytes)
+        }
+    }
+
+    /** Synthetic PCM source: every chunk is filled with its sequence number. */
+    private fun capture(writer: PcmWriter, chunksCount: Int, chunkSize: Int, periodMills: Long) {
+        for (i in 0 until chunksCount) {
+            val chunk = writer.claimChunk()
+            chunk.fill(i.toByte(), 0, chunkSize)
+            writer.publishChunk(chunkSize)
+            if (periodMills > 0) {
+                Thread.sleep(periodMills)
+            }
+        }
+    }
+
+    @Test
+    fun test_slowSink_noDataLost_whenRingIsLargeEnough() {
+        val chunkSize = 512
+        val sink = SlowSink(stallEvery = 20, stallMills = 20)
+        val writer = PcmWriter(PcmRingBuffer(64, chunkSize), sink)
+        writer.start("test writer")
+
+        capture(writer, 100, chunkSize, 2)
+        writer.stop()
+
+        assertFalse(writer.hasError())
+        assertEquals(0L, writer.overrunCount)
+        assertEquals(100L * chunkSize, writer.writtenBytes)
+        assertTrue(writer.highWaterMark > 1)
+        assertTrue(writer.maxWriteLatencyNanos >= 20_000_000L)
+        val data = sink.output.toByteArray()
+        for (i in 0 until 100) {
+            assertEquals(i.toByte(), data[i * chunkSize])
+            assertEquals(i.toByte(), data[i * chunkSize + chunkSize - 1])
+        }
+    }
+
+    @Test
+    fun test_slowSink_overrunsCounted_andWrittenDataKeepsOrder() {
+        val chunkSize = 64
+        val sink = SlowSink(stallEvery = 1, stallMills = 5)
+        val writer = PcmWriter(PcmRingBuffer(4, chunkSize), sink)
+        writer.start("test writer")
+
+        capture(writer, 100, chunkSize, 0)
+        writer.stop()
+
+        assertTrue(writer.overrunCount > 0)
+        assertEquals(4, writer.highWaterMark)
+        val data = sink.output.toByteArray()
+        assertEquals(100 - writer.overrunCount, (data.size / chunkSize).toLong())
+        for (i in 1 until data.size / chunkSize) {
+            assertTrue(data[i * chunkSize] > data[(i - 1) * chunkSize])
+        }
+    }
+
+    @Test
+    fun test_sinkError_stopsWriter() {
+        val writer = PcmWriter(PcmRingBuffer(4, 16)) { throw IOException("No space") }
+        writer.start("test writer")
+
+        capture(writer, 1, 16, 0)
+        writer.stop()
+
+        assertTrue(writer.hasError())
+        assertEquals(0L, writer.writtenBytes)
+    }
+}
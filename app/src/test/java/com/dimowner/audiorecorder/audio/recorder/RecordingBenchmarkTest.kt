@@ -0,0 +1,129 @@
+package com.dimowner.audiorecorder.audio.recorder
+
+import junit.framework.TestCase.assertEquals
+import junit.framework.TestCase.assertTrue
+import org.junit.Test
+import java.io.File
+import java.io.FileOutputStream
+import java.lang.management.ManagementFactory
+import java.nio.channels.FileChannel
+
+/**
+ * End-to-end throughput of recording paths with synthetic source read as fast as the writer accepts it.
+ * Reports sustained throughput, capture time of one buffer and allocations of the capture thread.
+ */
+class RecordingBenchmarkTest {
+
+    private val sampleRate = 44100
+    private val channels = 2
+    private val bufferSize = 3584
+    private val ringChunks = 128
+
+    private class Result(
+        val name: String,
+        val audioMills: Long,
+        val wallNanos: Long,
+        val bytes: Long,
+        val latencies: LongArray,
+        val allocatedBytes: Long,
+        val overruns: Long,
+        val writeAverageNanos: Long,
+        val writeMaxNanos: Long
+    ) {
+        val realTimeFactor get() = audioMills * 1_000_000.0 / wallNanos
+        val megabytesPerSecond get() = bytes * 1000.0 / wallNanos
+        val allocationPerBuffer get() = allocatedBytes.toDouble() / latencies.size
+
+        fun percentileMicros(p: Double) = latencies[((latencies.size - 1) * p).toInt()] / 1000.0
+
+        override fun toString() = String.format(
+            "%-24s %5.0fx real time %6.1f MB/s  capture p50 %5.1f us p99 %6.1f us max %7.1f us  "
+                    + "write avg %6.1f us max %7.1f us  alloc %4.1f B/buffer",
+            name, realTimeFactor, megabytesPerSecond, percentileMicros(0.5), percentileMicros(0.99),
+            percentileMicros(1.0), writeAverageNanos / 1000.0, writeMaxNanos / 1000.0, allocationPerBuffer
+        )
+    }
+
+    private fun source(durationMills: Long): SyntheticPcmSource {
+        val source = SyntheticPcmSource.noise(sampleRate, channels, durationMills, 2000, 3)
+        source.setBufferSize(bufferSize)
+        return source
+    }
+
+    private fun run(name: String, durationMills: Long, capture: PcmCapture, createSink: (FileChannel) -> PcmWriter.Sink,
+                    finish: (PcmWriter.Sink) -> Unit): Result {
+        val source = capture.source as SyntheticPcmSource
+        val file = File.createTempFile("benchmark", ".rec")
+        try {
+            FileOutputStream(file).use { fos ->
+                val sink = createSink(fos.channel)
+                val ring = PcmRingBuffer(ringChunks, bufferSize)
+                val writer = PcmWriter(ring, sink)
+                val latencies = LongArray((source.totalBytes / bufferSize + 1).toInt())
+                var count = 0
+                val bean = ManagementFactory.getThreadMXBean() as com.sun.management.ThreadMXBean
+                val threadId = Thread.currentThread().id
+
+                writer.start("benchmark writer")
+                val allocatedBefore = bean.getThreadAllocatedBytes(threadId)
+                val start = System.nanoTime()
+                source.start()
+                while (!source.isFinished) {
+                    //Source is faster than real time, let the writer keep up instead of dropping data.
+                    while (ring.size() >= ringChunks - 1) {
+                        Thread.yield()
+                    }
+                    val t = System.nanoTime()
+                    capture.capture(writer)
+                    latencies[count++] = System.nanoTime() - t
+                }
+                val allocated = bean.getThreadAllocatedBytes(threadId) - allocatedBefore
+                writer.stop()
+                finish(sink)
+                val wall = System.nanoTime() - start
+                fos.channel.force(false)
+                latencies.sort(0, count)
+                return Result(name, durationMills, wall, source.totalBytes, latencies.copyOf(count), allocated,
+                    writer.overrunCount, writer.averageWriteLatencyNanos, writer.maxWriteLatencyNanos)
+            }
+        } finally {
+            file.delete()
+        }
+    }
+
+    private fun wav(name: String, durationMills: Long, chain: PcmProcessorChain?, skipper: SilenceSkipper?) =
+        run(name, durationMills, PcmCapture(source(durationMills), chain, skipper),
+            { channel ->
+                val header = WavHeader(sampleRate, channels)
+                WavFileSink(channel, header, header.byteRate * 5)
+            },
+            { sink -> (sink as WavFileSink).commitHeader() })
+
+    private fun flac(name: String, durationMills: Long) =
+        run(name, durationMills, PcmCapture(source(durationMills), null, null),
+            { channel -> FlacEncoder(channel, sampleRate, channels).apply { start() } },
+            { sink -> (sink as FlacEncoder).finish() })
+
+    private fun runAll(durationMills: Long) = listOf(
+        wav("WAV", durationMills, null, null),
+        wav("WAV + processing + VAD", durationMills, PcmProcessorChain.createDefault(),
+            SilenceSkipper(SilenceSkipper.MODE_COLLAPSE)),
+        flac("FLAC", durationMills)
+    )
+
+    @Test
+    fun test_recordingPaths() {
+        //Warm up JIT.
+        runAll(20_000)
+        val results = runAll(5 * 60_000)
+        println("Recording of ${5 * 60} s, $channels ch, $sampleRate Hz, buffer $bufferSize bytes:")
+        results.forEach { println(it) }
+
+        for (result in results) {
+            assertEquals(0L, result.overruns)
+            //Capture has to be far faster than real time and must not allocate per buffer.
+            assertTrue(result.toString(), result.realTimeFactor > 20)
+            assertTrue(result.toString(), result.allocationPerBuffer < 64)
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.dimowner.audiorecorder.audio.recorder
+
+import com.dimowner.audiorecorder.app.ProgressScheduler
+import junit.framework.TestCase.assertEquals
+import junit.framework.TestCase.assertTrue
+import org.junit.Test
+import java.util.concurrent.atomic.AtomicInteger
+
+class RecordingClockTest {
+
+    private class ManualClock : RecordingClock() {
+        var nanos = 1_000_000_000L
+
+        override fun now() = nanos
+
+        fun advance(mills: Long) {
+            nanos += mills * 1_000_000
+        }
+    }
+
+    @Test
+    fun test_frames_matchRecordedLength() {
+        val clock = RecordingClock()
+        val sampleRate = 44100
+        clock.startFrames(sampleRate, 0)
+        assertEquals(0L, clock.durationMills)
+
+        //Capture of 13 minutes of 3528 byte stereo chunks. Paused time adds no frames.
+        var bytes = 0L
+        repeat(13 * 60 * sampleRate * 4 / 3528) {
+            bytes += 3528
+            clock.setFrames(bytes / 4)
+        }
+        assertEquals(13 * 60 * 1000L, clock.durationMills)
+        assertEquals(bytes * 1000 / (sampleRate * 4), clock.durationMills)
+
+        //Record started from pre-roll begins with the buffered frames.
+        clock.startFrames(sampleRate, sampleRate * 10L)
+        assertEquals(10_000L, clock.durationMills)
+    }
+
+    @Test
+    fun test_elapsedTime_excludesPauses() {
+        val clock = ManualClock()
+        clock.start()
+        clock.advance(1500)
+        assertEquals(1500L, clock.durationMills)
+        clock.pause()
+        clock.advance(60_000)
+        assertEquals(1500L, clock.durationMills)
+        clock.pause()
+        clock.resume()
+        clock.advance(250)
+        clock.resume()
+        clock.advance(250)
+        assertEquals(2000L, clock.durationMills)
+
+        //Many short pause/resume cycles don't accumulate rounding.
+        repeat(1000) {
+            clock.advance(7)
+            clock.pause()
+            clock.advance(3)
+            clock.resume()
+        }
+        assertEquals(9000L, clock.durationMills)
+
+        clock.stop()
+        clock.advance(1000)
+        assertEquals(9000L, clock.durationMills)
+        clock.start()
+        assertEquals(0L, clock.durationMills)
+    }
+
+    /** One scheduler with visualisation interval replaces recorder and AppRecorder timers. */
+    @Test
+    fun test_progressScheduler_wakeups() {
+        val ticks = AtomicInteger()
+        val scheduler = ProgressScheduler("test progress", 27, Runnable { ticks.incrementAndGet() })
+        scheduler.start()
+        Thread.sleep(1000)
+        scheduler.stop()
+        val active = scheduler.activeMills
+        Thread.sleep(50)
+        val wakeups = scheduler.wakeupCount
+        assertEquals(ticks.get().toLong(), wakeups)
+        //Stopped scheduler doesn't wake up.
+        Thread.sleep(100)
+        assertEquals(wakeups, scheduler.wakeupCount)
+
+        val timers = active / 13 + active / 27
+        println("Progress wakeups: $wakeups in $active ms, two timers: $timers")
+        assertTrue(wakeups in 30..45)
+        assertTrue(wakeups * 2 < timers)
+
+        scheduler.resetStatistics()
+        assertEquals(0L, scheduler.wakeupCount)
+        assertEquals(0L, scheduler.activeMills)
+    }
+}
@@ -0,0 +1,109 @@
+package com.dimowner.audiorecorder.audio.recorder
+
+import com.dimowner.audiorecorder.audio.WavFileInfo
+import junit.framework.TestCase.assertEquals
+import junit.framework.TestCase.assertFalse
+import junit.framework.TestCase.assertTrue
+import org.junit.After
+import org.junit.Before
+import org.junit.Test
+import java.io.File
+import java.io.RandomAccessFile
+import java.nio.ByteBuffer
+import java.nio.ByteOrder
+
+class Rf64Test {
+
+    /** 5 GB of data. File is sparse, so no disk space is used. */
+    private val bigDataLength = 5L * 1024 * 1024 * 1024
+
+    private lateinit var file: File
+
+    @Before
+    fun setUp() {
+        file = File.createTempFile("record", ".wav")
+    }
+
+    @After
+    fun after() {
+        file.delete()
+    }
+
+    private fun readHeader(): ByteBuffer {
+        val bytes = ByteArray(WavHeader.HEADER_SIZE)
+        RandomAccessFile(file, "r").use { it.readFully(bytes) }
+        return ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN)
+    }
+
+    private fun tag(buffer: ByteBuffer, offset: Int): String {
+        return String(ByteArray(4) { buffer.get(offset + it) }, Charsets.US_ASCII)
+    }
+
+    @Test
+    fun test_writeSizes_switchesToRf64() {
+        val header = WavHeader(48000, 2)
+        RandomAccessFile(file, "rw").use { raf ->
+            header.write(raf.channel, 0)
+            raf.setLength(WavHeader.HEADER_SIZE + bigDataLength)
+            assertFalse(header.isRf64)
+            header.writeSizes(raf.channel, bigDataLength)
+            assertTrue(header.isRf64)
+        }
+
+        val buffer = readHeader()
+        assertEquals("RF64", tag(buffer, 0))
+        assertEquals(-1, buffer.getInt(4))
+        assertEquals("ds64", tag(buffer, 12))
+        assertEquals(bigDataLength + 72, buffer.getLong(20))
+        assertEquals(bigDataLength, buffer.getLong(28))
+        assertEquals(bigDataLength / 4, buffer.getLong(36))
+        assertEquals("data", tag(buffer, 72))
+        assertEquals(-1, buffer.getInt(76))
+        assertTrue(header.hasSizes(buffer, bigDataLength))
+
+        val info = WavFileInfo.read(file)
+        assertTrue(info.isRf64)
+        assertEquals(2, info.channelCount)
+        assertEquals(48000, info.sampleRate)
+        assertEquals(WavHeader.HEADER_SIZE.toLong(), info.dataOffset)
+        assertEquals(bigDataLength, info.dataLength)
+        assertEquals(bigDataLength * 1_000_000 / 192000, info.duration)
+    }
+
+    @Test
+    fun test_repair_interruptedBigRecord() {
+        RandomAccessFile(file, "rw").use { raf ->
+            val header = WavHeader(44100, 1)
+            header.write(raf.channel, 0)
+            header.writeSizes(raf.channel, 3_000_000_000L)
+            raf.setLength(WavHeader.HEADER_SIZE + bigDataLength + 1)
+        }
+
+        assertEquals(bigDataLength * 1_000_000 / 88200, WavRecovery.repair(file, 0, 0))
+        assertTrue(WavHeader.parse(readHeader()).isRf64)
+        assertEquals(bigDataLength, readHeader().getLong(28))
+        assertEquals(-1L, WavRecovery.repair(file, 0, 0))
+        assertEquals(bigDataLength, WavFileInfo.read(file).dataLength)
+    }
+
+    @Test
+    fun test_readInfo_riffLayouts() {
+        RandomAccessFile(file, "rw").use {
+            it.write(WavHeader(8000, 1).generate(1600))
+            it.write(ByteArray(1600))
+        }
+        var info = WavFileInfo.read(file)
+        assertFalse(info.isRf64)
+        assertEquals(80L, info.dataOffset)
+        assertEquals(100_000L, info.duration)
+
+        RandomAccessFile(file, "rw").use {
+            it.setLength(0)
+            it.write(WavHeader.legacy(8000, 1).generate(1600))
+            it.write(ByteArray(1600))
+        }
+        info = WavFileInfo.read(file)
+        assertEquals(44L, info.dataOffset)
+        assertEquals(1600L, info.dataLength)
+    }
+}
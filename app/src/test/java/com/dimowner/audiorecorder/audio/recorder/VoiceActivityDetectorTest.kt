@@ -0,0 +1,222 @@
+package com.dimowner.audiorecorder.audio.recorder
+
+import junit.framework.TestCase.assertEquals
+import junit.framework.TestCase.assertFalse
+import junit.framework.TestCase.assertTrue
+import org.junit.Test
+import java.io.ByteArrayOutputStream
+import java.io.File
+import java.lang.management.ManagementFactory
+import java.nio.ByteBuffer
+import java.util.Random
+import kotlin.math.PI
+import kotlin.math.sin
+
+class VoiceActivityDetectorTest {
+
+    private val sampleRate = 16000
+    private val chunkSize = 1280
+
+    /** Segment of synthetic signal, true when it is speech. */
+    private class Segment(val millis: Int, val isSpeech: Boolean)
+
+    /** Words of 600 ms split by 150 ms pauses, then 3 s of silence, repeated. */
+    private val script = listOf(
+            Segment(2000, false),
+            Segment(600, true), Segment(150, false), Segment(600, true), Segment(150, false), Segment(600, true),
+            Segment(3000, false),
+            Segment(600, true), Segment(150, false), Segment(600, true),
+            Segment(4000, false),
+            Segment(600, true),
+            Segment(1500, false)
+    )
+
+    /**
+     * Voiced speech is a 140 Hz harmonic signal with syllable envelope, first 80 ms of a word
+     * is a quiet fricative. Silence is background noise at about -60 dB.
+     */
+    private fun synthesize(segments: List<Segment>, channels: Int = 1): ByteArray {
+        val random = Random(7)
+        val out = ByteArrayOutputStream()
+        for (segment in segments) {
+            val frames = sampleRate * segment.millis / 1000
+            for (i in 0 until frames) {
+                var value = random.nextGaussian() * 30
+                if (segment.isSpeech) {
+                    val t = i.toDouble() / sampleRate
+                    if (t < 0.08) {
+                        value += random.nextGaussian() * 400 * (if (i % 2 == 0) 1 else -1)
+                    } else {
+                        val envelope = 0.6 + 0.4 * sin(2 * PI * 4 * t)
+                        for (h in 1..6) {
+                            value += envelope * 3000 / h * sin(2 * PI * 140 * h * t)
+                        }
+                    }
+                }
+                val s = value.toInt().coerceIn(-32768, 32767)
+                for (ch in 0 until channels) {
+                    out.write(s and 0xFF)
+                    out.write(s shr 8 and 0xFF)
+                }
+            }
+        }
+        return out.toByteArray()
+    }
+
+    /** Speech decision for every 10 ms of the signal. */
+    private fun detect(pcm: ByteArray, channels: Int = 1): BooleanArray {
+        val detector = VoiceActivityDetector()
+        detector.prepare(sampleRate, channels)
+        val step = sampleRate / 100 * channels * 2
+        return BooleanArray(pcm.size / step) { detector.process(pcm, it * step, step) }
+    }
+
+    private fun truth(segments: List<Segment>): BooleanArray {
+        val result = ArrayList<Boolean>()
+        for (segment in segments) {
+            repeat(segment.millis / 10) { result.add(segment.isSpeech) }
+        }
+        return result.toBooleanArray()
+    }
+
+    @Test
+    fun test_detectsSpeech_andSkipsLongSilence() {
+        for (channels in 1..2) {
+            val decisions = detect(synthesize(script, channels), channels)
+            val truth = truth(script)
+            assertEquals(truth.size, decisions.size)
+
+            var missed = 0
+            var speechFrames = 0
+            var falseAlarms = 0
+            var silenceFrames = 0
+            var lastSpeech = -1000
+            for (i in truth.indices) {
+                if (truth[i]) {
+                    speechFrames++
+                    if (!decisions[i]) missed++
+                    lastSpeech = i
+                } else if (i - lastSpeech > 50) {
+                    //Farther than hangover from the end of speech.
+                    silenceFrames++
+                    if (decisions[i]) falseAlarms++
+                }
+            }
+            assertTrue("missed $missed of $speechFrames", missed * 100 < speechFrames * 2)
+            assertEquals(0, falseAlarms)
+            assertTrue(silenceFrames > 800)
+
+            //Short pauses between words are bridged by the hangover.
+            for (i in 260 until 275) {
+                assertTrue(decisions[i])
+            }
+        }
+    }
+
+    @Test
+    fun test_unvoicedOnset_detectedByZeroCrossings() {
+        val decisions = detect(synthesize(listOf(Segment(1000, false), Segment(600, true))))
+        //Fricative starts at frame 100 and voiced part at frame 108.
+        assertFalse(decisions[99])
+        assertTrue(decisions[104])
+    }
+
+    @Test
+    fun test_noAllocation() {
+        val pcm = synthesize(script)
+        val detector = VoiceActivityDetector()
+        detector.prepare(sampleRate, 1)
+        detector.process(pcm, 0, pcm.size)
+        val bean = ManagementFactory.getThreadMXBean() as com.sun.management.ThreadMXBean
+        val id = Thread.currentThread().id
+        val before = bean.getThreadAllocatedBytes(id)
+        var pos = 0
+        while (pos + chunkSize <= pcm.size) {
+            detector.process(pcm, pos, chunkSize)
+            pos += chunkSize
+        }
+        val allocated = bean.getThreadAllocatedBytes(id) - before
+        assertTrue("allocated $allocated bytes", allocated < 1024)
+    }
+
+    private class CollectingSink : PcmWriter.Sink {
+        val output = ByteArrayOutputStream()
+
+        override fun write(data: ByteBuffer) {
+            val bytes = ByteArray(data.remaining())
+            data.get(bytes)
+            output.write(bytes)
+        }
+    }
+
+    private fun skip(pcm: ByteArray, mode: Int): Pair<ByteArray, SilenceIndex> {
+        val sink = CollectingSink()
+        val writer = PcmWriter(PcmRingBuffer(1024, chunkSize), sink)
+        writer.start("test writer")
+        val skipper = SilenceSkipper(mode)
+        skipper.prepare(sampleRate, 1, chunkSize)
+        var pos = 0
+        while (pos < pcm.size) {
+            val length = minOf(chunkSize, pcm.size - pos)
+            val chunk = writer.claimChunk()
+            System.arraycopy(pcm, pos, chunk, 0, length)
+            skipper.publish(writer, chunk, length)
+            pos += length
+        }
+        writer.stop()
+        assertEquals(0L, writer.overrunCount)
+        assertEquals(pcm.size.toLong(), skipper.capturedBytes)
+        assertEquals(skipper.publishedBytes, sink.output.size().toLong())
+        return Pair(sink.output.toByteArray(), skipper.index)
+    }
+
+    /** Every written byte has to be found in the original signal at the mapped time. */
+    private fun assertMapping(pcm: ByteArray, record: ByteArray, index: SilenceIndex) {
+        val byteRate = sampleRate * 2
+        for (offset in 0 until record.size step 2) {
+            val recordUs = offset * 1000000L / byteRate
+            val originalOffset = ((index.toOriginalTimeUs(recordUs) * byteRate + 500000) / 1000000).toInt() and 1.inv()
+            assertEquals(pcm[originalOffset], record[offset])
+            assertEquals(pcm[originalOffset + 1], record[offset + 1])
+        }
+    }
+
+    @Test
+    fun test_dropMode_removesSilence_andIndexMapsTime() {
+        val pcm = synthesize(script)
+        val (record, index) = skip(pcm, SilenceSkipper.MODE_DROP)
+
+        //Speech with hangover is kept, silence before the first word and two long pauses are cut.
+        assertEquals(3, index.size())
+        assertTrue(record.size < pcm.size / 2)
+        assertEquals(pcm.size * 1000000L / (sampleRate * 2), index.originalDurationUs)
+        assertMapping(pcm, record, index)
+    }
+
+    @Test
+    fun test_collapseMode_keepsShortPauses_andIndexRoundTrip() {
+        val pcm = synthesize(script)
+        val (record, index) = skip(pcm, SilenceSkipper.MODE_COLLAPSE)
+        val (dropped, _) = skip(pcm, SilenceSkipper.MODE_DROP)
+        assertTrue(record.size > dropped.size)
+        assertTrue(record.size < pcm.size * 2 / 3)
+        assertMapping(pcm, record, index)
+
+        val file = File.createTempFile("record", ".wav")
+        val indexFile = SilenceIndex.getIndexFile(file)
+        try {
+            index.write(indexFile)
+            assertTrue(SilenceIndex.isIndexFile(indexFile))
+            val read = SilenceIndex.read(indexFile)!!
+            assertEquals(index.size(), read.size())
+            assertEquals(index.originalDurationUs, read.originalDurationUs)
+            for (i in 0 until index.size()) {
+                assertEquals(index.getOriginalTime(i), read.getOriginalTime(i))
+                assertEquals(index.getDataOffset(i), read.getDataOffset(i))
+            }
+        } finally {
+            file.delete()
+            indexFile.delete()
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package com.dimowner.audiorecorder.audio.recorder
+
+import com.dimowner.audiorecorder.audio.WaveformCache
+import junit.framework.TestCase.assertEquals
+import junit.framework.TestCase.assertNotNull
+import junit.framework.TestCase.assertNull
+import org.junit.After
+import org.junit.Before
+import org.junit.Test
+import java.io.File
+import java.io.RandomAccessFile
+import java.nio.ByteBuffer
+import java.nio.ByteOrder
+import java.nio.file.Files
+
+class WavRecoveryTest {
+
+    private lateinit var file: File
+
+    @Before
+    fun setUp() {
+        file = File.createTempFile("record", ".wav")
+    }
+
+    @After
+    fun after() {
+        file.delete()
+    }
+
+    private fun readHeader(): ByteBuffer {
+        val bytes = ByteArray(minOf(WavHeader.HEADER_SIZE.toLong(), file.length()).toInt())
+        RandomAccessFile(file, "r").use { it.readFully(bytes) }
+        return ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN)
+    }
+
+    /** Imitate a record interrupted after [dataLength] bytes while header tells [committedLength]. */
+    private fun writeInterruptedRecord(dataLength: Int, committedLength: Long) {
+        val header = WavHeader(8000, 2)
+        RandomAccessFile(file, "rw").use {
+            it.write(header.generate(committedLength))
+            it.write(ByteArray(dataLength))
+        }
+    }
+
+    @Test
+    fun test_sink_commitsHeaderPeriodically() {
+        val header = WavHeader(8000, 1)
+        RandomAccessFile(file, "rw").use { raf ->
+            val sink = WavFileSink(raf.channel, header, header.byteRate)
+            sink.write(ByteBuffer.wrap(ByteArray(10000)))
+            assertEquals(0, readHeader().getInt(76))
+
+            sink.write(ByteBuffer.wrap(ByteArray(7000)))
+            assertEquals(17000, readHeader().getInt(76))
+            assertEquals(17072, readHeader().getInt(4))
+
+            sink.write(ByteBuffer.wrap(ByteArray(100)))
+            sink.commitHeader()
+        }
+        assertNotNull(WavHeader.parse(readHeader()))
+        assertEquals(17100, readHeader().getInt(76))
+        assertEquals(WavHeader.HEADER_SIZE + 17100L, file.length())
+    }
+
+    @Test
+    fun test_repair_interruptedRecord() {
+        writeInterruptedRecord(32003, 16000)
+
+        val duration = WavRecovery.repair(file, 0, 0)
+
+        assertEquals(1_000_000L, duration)
+        assertEquals(32000, readHeader().getInt(76))
+        assertEquals(32072, readHeader().getInt(4))
+    }
+
+    @Test
+    fun test_repair_invalidatesWaveformBeforeRewrite() {
+        //Same size and tail as after the repair, only the stored sizes in the header differ.
+        writeInterruptedRecord(32000, 16000)
+        val dir = Files.createTempDirectory("waveforms").toFile()
+        try {
+            val cache = WaveformCache(dir, 100_000, 100_000, 100_000)
+            val key = WaveformCache.Key.read(file, 25)
+            cache.put(key, IntArray(25) { it }, 500_000)
+
+            assertEquals(1_000_000L, WavRecovery.repair(file, 0, 0) { cache.invalidate(file) })
+            assertNull(cache.get(key))
+            assertEquals(0L, cache.diskBytes)
+
+            //Nothing is invalidated when the file is not changed.
+            val repaired = WaveformCache.Key.read(file, 25)
+            cache.put(repaired, IntArray(50) { it }, 1_000_000)
+            assertEquals(-1L, WavRecovery.repair(file, 0, 0) { cache.invalidate(file) })
+            assertNotNull(cache.get(repaired))
+        } finally {
+            dir.deleteRecursively()
+        }
+    }
+
+    @Test
+    fun test_repair_consistentRecord_notChanged() {
+        writeInterruptedRecord(32000, 32000)
+        val modified = file.lastModified()
+
+        assertEquals(-1L, WavRecovery.repair(file, 0, 0))
+        assertEquals(modified, file.lastModified())
+    }
+
+    @Test
+    fun test_repair_emptyHeader_usesFallbackFormat() {
+        RandomAccessFile(file, "rw").use {
+            it.write(ByteArray(WavHeader.LEGACY_HEADER_SIZE + 16000))
+        }
+
+        assertEquals(-1L, WavRecovery.repair(file, 0, 0))
+        assertEquals(500_000L, WavRecovery.repair(file, 16000, 1))
+        val header = readHeader()
+        assertEquals(WavHeader.LEGACY_HEADER_SIZE, WavHeader.parse(header).headerSize)
+        assertEquals(16000, header.getInt(24))
+        assertEquals(16000, header.getInt(40))
+    }
+
+    @Test
+    fun test_repair_44BytesHeader_notChanged() {
+        //Other apps write the same layout, such files are not ours to repair.
+        val header = WavHeader.legacy(8000, 1)
+        RandomAccessFile(file, "rw").use {
+            it.write(header.generate(0))
+            it.write(ByteArray(8000))
+        }
+
+        assertEquals(-1L, WavRecovery.repair(file, 8000, 1))
+        assertEquals(0, readHeader().getInt(40))
+    }
+
+    @Test
+    fun test_repair_chunkAfterData_notChanged() {
+        writeInterruptedRecord(16000, 16000)
+        RandomAccessFile(file, "rw").use {
+            it.seek(it.length())
+            it.write("LIST".toByteArray())
+            it.write(byteArrayOf(4, 0, 0, 0))
+            it.write("INFO".toByteArray())
+        }
+        val length = file.length()
+
+        assertEquals(-1L, WavRecovery.repair(file, 8000, 2))
+        assertEquals(16000, readHeader().getInt(76))
+        assertEquals(length, file.length())
+    }
+
+    @Test
+    fun test_repair_unknownLayout_notChanged() {
+        RandomAccessFile(file, "rw").use {
+            it.write("ID3".toByteArray())
+            it.write(ByteArray(1000))
+        }
+
+        assertEquals(-1L, WavRecovery.repair(file, 16000, 1))
+    }
+}
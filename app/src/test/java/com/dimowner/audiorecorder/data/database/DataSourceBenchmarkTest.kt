@@ -0,0 +1,123 @@
+package com.dimowner.audiorecorder.data.database
+
+import android.app.Application
+import com.dimowner.audiorecorder.AppConstants
+import junit.framework.TestCase.assertEquals
+import org.junit.After
+import org.junit.Before
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+import org.robolectric.RuntimeEnvironment
+import org.robolectric.annotation.Config
+
+/**
+ * Time of frequent queries on 20k records, built with values in query text as before
+ * and with bound arguments which are compiled once, and time of deep pages read by OFFSET and by page key.
+ */
+@RunWith(RobolectricTestRunner::class)
+@Config(application = Application::class)
+class DataSourceBenchmarkTest {
+
+    private val count = 20_000
+    private val runs = 500
+
+    private lateinit var dataSource: RecordsDataSource
+
+    @Before
+    fun setUp() {
+        dataSource = RecordsDataSource.getInstance(RuntimeEnvironment.getApplication())
+        dataSource.open()
+        dataSource.db.beginTransaction()
+        try {
+            for (i in 0 until count) {
+                dataSource.insertItem(Record(Record.NO_ID, "record-$i", 1_000_000L * (i % 600), i.toLong(), i.toLong(),
+                    Long.MAX_VALUE, "/records/record-$i.m4a", AppConstants.FORMAT_M4A, 1000L, 44100, 1, 128000,
+                    false, true, IntArray(1500)))
+            }
+            dataSource.db.setTransactionSuccessful()
+        } finally {
+            dataSource.db.endTransaction()
+        }
+    }
+
+    @After
+    fun after() {
+        dataSource.deleteAll()
+        dataSource.close()
+        RecordsDataSource.clearInstance()
+    }
+
+    private fun measure(label: String, block: (Int) -> Int) {
+        var result = 0
+        for (i in 0 until runs) result += block(i)
+        val start = System.nanoTime()
+        for (i in 0 until runs) result += block(i)
+        val time = System.nanoTime() - start
+        println(String.format("%-24s %8.1f us  (%d)", label, time / 1e3 / runs, result))
+    }
+
+    private fun rawQuery(sql: String) = dataSource.convertCursor(dataSource.db.rawQuery(sql, null))
+
+    @Test
+    fun test_queries() {
+        val ids = dataSource.allItemsIds
+        assertEquals(count, ids.size)
+        val table = SQLiteHelper.TABLE_RECORDS
+        val pages = count / AppConstants.DEFAULT_PER_PAGE
+
+        measure("getItem, before") { rawQuery("SELECT * FROM $table WHERE _id = ${ids[it * 37 % count]}").size }
+        measure("getItem, after") { if (dataSource.getItem(ids[it * 37 % count]) != null) 1 else 0 }
+
+        measure("findByPath, before") { rawQuery("SELECT * FROM $table WHERE path = '/records/record-${it * 37 % count}.m4a'").size }
+        measure("findByPath, after") { if (dataSource.findItemByPath("/records/record-${it * 37 % count}.m4a") != null) 1 else 0 }
+
+        measure("page, before") {
+            val offset = (it % pages) * AppConstants.DEFAULT_PER_PAGE
+            rawQuery("SELECT * FROM $table ORDER BY name ASC LIMIT ${AppConstants.DEFAULT_PER_PAGE} OFFSET $offset").size
+        }
+        measure("page, after") { dataSource.getRecords(it % pages + 1, "name ASC").size }
+
+        measure("count, before") {
+            val cursor = dataSource.db.rawQuery("SELECT COUNT(*) FROM $table", null)
+            cursor.moveToFirst()
+            val c = cursor.getInt(0)
+            cursor.close()
+            c
+        }
+        measure("count, after") { dataSource.count }
+    }
+
+    /** Page at the depth is read by OFFSET and by the key of the previous page. */
+    @Test
+    fun test_deepPages() {
+        for (sort in intArrayOf(AppConstants.SORT_DATE, AppConstants.SORT_NAME, AppConstants.SORT_DURATION)) {
+            val keys = ArrayList<PageKey>()
+            var key: PageKey? = PageKey.first(sort)
+            while (key != null) {
+                val page = dataSource.getRecords(key)
+                if (page.isEmpty()) break
+                keys.add(key)
+                key = key.next(page)
+            }
+            assertEquals(count / AppConstants.DEFAULT_PER_PAGE, keys.size)
+            for (page in intArrayOf(1, 10, 100, keys.size)) {
+                val orderBy = PageKey.first(sort).orderBy
+                assertEquals(dataSource.getRecords(page, orderBy).map { it.id }, dataSource.getRecords(keys[page - 1]).map { it.id })
+                val offset = time { dataSource.getRecords(page, orderBy).size }
+                val keyset = time { dataSource.getRecords(keys[page - 1]).size }
+                println(String.format("sort %d page %4d  offset %8.1f us  keyset %8.1f us", sort, page, offset / 1e3, keyset / 1e3))
+            }
+        }
+    }
+
+    private fun time(block: () -> Int): Long {
+        var best = Long.MAX_VALUE
+        for (i in 0 until 20) {
+            val start = System.nanoTime()
+            block()
+            best = minOf(best, System.nanoTime() - start)
+        }
+        return best
+    }
+}
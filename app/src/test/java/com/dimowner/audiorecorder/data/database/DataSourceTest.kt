@@ -0,0 +1,148 @@
+package com.dimowner.audiorecorder.data.database
+
+import android.app.Application
+import com.dimowner.audiorecorder.AppConstants
+import junit.framework.TestCase.assertEquals
+import junit.framework.TestCase.assertFalse
+import junit.framework.TestCase.assertNull
+import junit.framework.TestCase.assertTrue
+import org.junit.After
+import org.junit.Before
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+import org.robolectric.RuntimeEnvironment
+import org.robolectric.annotation.Config
+
+internal fun testRecord(name: String, path: String, duration: Long = 1_000_000L, added: Long = 0L) = Record(
+    Record.NO_ID, name, duration, added, added, Long.MAX_VALUE, path, AppConstants.FORMAT_M4A,
+    1000L, 44100, 1, 128000, false, true, IntArray(100)
+)
+
+@RunWith(RobolectricTestRunner::class)
+@Config(application = Application::class)
+class DataSourceTest {
+
+    private lateinit var dataSource: RecordsDataSource
+
+    @Before
+    fun setUp() {
+        dataSource = RecordsDataSource.getInstance(RuntimeEnvironment.getApplication())
+        dataSource.open()
+    }
+
+    @After
+    fun after() {
+        dataSource.deleteAll()
+        dataSource.close()
+        RecordsDataSource.clearInstance()
+    }
+
+    @Test
+    fun test_findByPath() {
+        dataSource.insertItem(testRecord("it's", "/records/it's.m4a"))
+        dataSource.insertItem(testRecord("a_b", "/records/a_b.m4a"))
+        dataSource.insertItem(testRecord("old", "/records/old/axb.m4a"))
+        dataSource.insertItem(testRecord("100%", "/records0/100%.m4a"))
+        dataSource.insertItem(testRecord("music", "/music/100%.m4a"))
+
+        assertEquals("it's", dataSource.findItemByPath("/records/it's.m4a").name)
+        assertNull(dataSource.findItemByPath("/records/it"))
+
+        //Records in the directory and its subdirectories, not in directories with the same prefix.
+        assertEquals(setOf("it's", "a_b", "old"), dataSource.findItemsInDir("/records").map { it.name }.toSet())
+        assertEquals(listOf("old"), dataSource.findItemsInDir("/records/old/").map { it.name })
+        assertEquals(listOf("100%"), dataSource.findItemsInDir("/records0").map { it.name })
+        assertTrue(dataSource.hasItemsInDir("/music"))
+        assertFalse(dataSource.hasItemsInDir("/mus"))
+        assertFalse(dataSource.hasItemsInDir("/music/100%.m4a"))
+    }
+
+    @Test
+    fun test_itemsAndCount() {
+        val ids = (0 until 120).map { dataSource.insertItem(testRecord("r$it", "/records/r$it.m4a", added = it.toLong())).id }
+        assertEquals(120, dataSource.count)
+        assertEquals("r5", dataSource.getItem(ids[5]).name)
+        assertEquals(1, dataSource.deleteItem(ids[5]))
+        assertNull(dataSource.getItem(ids[5]))
+        assertEquals(119, dataSource.count)
+
+        //Compiled statements are not used after reopen.
+        dataSource.close()
+        dataSource.open()
+        assertEquals(119, dataSource.count)
+        val record = dataSource.getItem(ids[6])
+        record.setBookmark(true)
+        assertEquals(1, dataSource.updateItem(record))
+        assertTrue(dataSource.getItems(SQLiteHelper.COLUMN_BOOKMARK + " = ?", 1).single().isBookmarked)
+    }
+
+    @Test
+    fun test_findFilesByFormat() {
+        val m4a = dataSource.insertItem(testRecord("a", "/records/a.m4a"))
+        val wav = dataSource.insertItem(Record(Record.NO_ID, "b", 1_000_000L, 0L, 0L, Long.MAX_VALUE, "/records/b.wav",
+            AppConstants.FORMAT_WAV, 1000L, 16000, 2, 512000, true, true, IntArray(100)))
+
+        val files = dataSource.findFilesByFormat(AppConstants.FORMAT_WAV)
+        assertEquals(listOf(wav.id), files.map { it.id })
+        assertEquals("/records/b.wav", files[0].path)
+        assertEquals(16000, files[0].sampleRate)
+        assertEquals(2, files[0].channelCount)
+
+        assertEquals(1, dataSource.updateDurationAndSize(wav.id, 5_000_000L, 2000L))
+        val updated = dataSource.getItem(wav.id)
+        assertEquals(5_000_000L, updated.duration)
+        assertEquals(2000L, updated.size)
+        assertTrue(updated.isBookmarked)
+        assertEquals(1_000_000L, dataSource.getItem(m4a.id).duration)
+    }
+
+    @Test
+    fun test_pages() {
+        for (i in 0 until 120) {
+            dataSource.insertItem(testRecord("r$i", "/records/r$i.m4a", duration = (i % 7).toLong(), added = i.toLong()))
+        }
+        assertEquals(AppConstants.DEFAULT_PER_PAGE, dataSource.getRecords(1).size)
+        assertEquals("r119", dataSource.getRecords(1)[0].name)
+        assertEquals("r69", dataSource.getRecords(2)[0].name)
+        assertEquals(20, dataSource.getRecords(3).size)
+        assertEquals(0, dataSource.getRecords(4).size)
+
+        val order = SQLiteHelper.COLUMN_DATE_ADDED + " ASC"
+        assertEquals("r50", dataSource.getRecords(2, order)[0].name)
+        val byDuration = (1..3).flatMap { dataSource.getRecords(it, SQLiteHelper.COLUMN_DURATION + " DESC") }
+        assertEquals(120, byDuration.map { it.id }.toSet().size)
+        assertEquals(6L, byDuration[0].duration)
+    }
+
+    @Test
+    fun test_keysetPages() {
+        //Names and durations repeat, so pages split groups of equal sort values.
+        for (i in 0 until 230) {
+            dataSource.insertItem(testRecord("r${i % 40}", "/records/r$i.m4a", duration = (i % 7).toLong(), added = (i / 3).toLong()))
+        }
+        val orders = mapOf(
+            AppConstants.SORT_NAME to compareBy<Record>({ it.name }, { it.id }),
+            AppConstants.SORT_NAME_DESC to compareByDescending<Record>({ it.name }).thenByDescending { it.id },
+            AppConstants.SORT_DURATION to compareByDescending<Record>({ it.duration }).thenByDescending { it.id },
+            AppConstants.SORT_DURATION_DESC to compareBy<Record>({ it.duration }, { it.id }),
+            AppConstants.SORT_DATE to compareByDescending<Record>({ it.added }).thenByDescending { it.id },
+            AppConstants.SORT_DATE_DESC to compareBy<Record>({ it.added }, { it.id })
+        )
+        val all = dataSource.all
+        for ((order, comparator) in orders) {
+            val loaded = ArrayList<Record>()
+            var key: PageKey? = PageKey.first(order)
+            var pages = 0
+            while (key != null) {
+                val page = dataSource.getRecords(key)
+                assertEquals(order, key.order)
+                loaded.addAll(page)
+                key = key.next(page)
+                pages++
+            }
+            assertEquals(5, pages)
+            assertEquals("order $order", all.sortedWith(comparator).map { it.id }, loaded.map { it.id })
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.dimowner.audiorecorder.data.database
 
+import com.dimowner.audiorecorder.audio.WaveformCache
 import com.dimowner.audiorecorder.data.FileRepository
 import com.dimowner.audiorecorder.data.Prefs
 import com.dimowner.audiorecorder.exception.FailedToRestoreRecord
@@ -31,6 +32,9 @@ class LocalRepositoryTest {
     @MockK
     lateinit var prefs: Prefs
 
+    @MockK
+    lateinit var waveformCache: WaveformCache
+
     private lateinit var localRepository: LocalRepository
 
     private lateinit var testRecord: Record
@@ -58,13 +62,14 @@ class LocalRepositoryTest {
         )
 
         every { trashDataSource.isOpen } returns true
-        every { trashDataSource.getAll() } returns arrayListOf()
+        every { trashDataSource.getItems(any(), *anyVararg()) } returns arrayListOf()
 
         localRepository = LocalRepositoryImpl.getInstance(
             recordsDataSource,
             trashDataSource,
             fileRepository,
-            prefs
+            prefs,
+            waveformCache
         )
     }
 
@@ -0,0 +1,58 @@
+package com.dimowner.audiorecorder.data.database
+
+import android.app.Application
+import com.dimowner.audiorecorder.audio.chunk
+import com.dimowner.audiorecorder.audio.fmtChunk
+import com.dimowner.audiorecorder.audio.writeWav
+import junit.framework.TestCase.assertEquals
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+import org.robolectric.RuntimeEnvironment
+import org.robolectric.annotation.Config
+import java.io.File
+import java.nio.file.Files
+
+/**
+ * Time of reading metadata of a directory of records as file browser does, with empty cache and with all
+ * files stored. WAV records are read by chunk walker, records MediaExtractor reads gain more from the cache.
+ */
+@RunWith(RobolectricTestRunner::class)
+@Config(application = Application::class)
+class RecordInfoCacheBenchmarkTest {
+
+    @Test
+    fun test_browseDirectory() {
+        val dir = Files.createTempDirectory("records").toFile()
+        val cache = RecordInfoCache(RuntimeEnvironment.getApplication())
+        try {
+            val count = 5000
+            for (i in 0 until count) {
+                writeWav(File(dir, "record-$i.wav"), fmtChunk(1, 1, 8000, 16), chunk("data", ByteArray(16000)))
+            }
+            val files = dir.listFiles()!!
+            var cold = Long.MAX_VALUE
+            var warm = Long.MAX_VALUE
+            for (run in 0 until 3) {
+                cache.clear()
+                var start = System.nanoTime()
+                var duration = 0L
+                for (f in files) duration += cache.readRecordInfo(f).duration
+                cold = minOf(cold, System.nanoTime() - start)
+                assertEquals(1_000_000L * count, duration)
+
+                start = System.nanoTime()
+                duration = 0L
+                for (f in files) duration += cache.readRecordInfo(f).duration
+                warm = minOf(warm, System.nanoTime() - start)
+                assertEquals(1_000_000L * count, duration)
+            }
+            assertEquals(3 * count, cache.hits)
+            println(String.format("%d files  cold %6.1f ms  warm %6.1f ms  %s", count, cold / 1e6, warm / 1e6, cache))
+        } finally {
+            cache.clear()
+            cache.close()
+            dir.deleteRecursively()
+        }
+    }
+}
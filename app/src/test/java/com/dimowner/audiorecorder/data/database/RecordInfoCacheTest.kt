@@ -0,0 +1,112 @@
+package com.dimowner.audiorecorder.data.database
+
+import android.app.Application
+import com.dimowner.audiorecorder.audio.chunk
+import com.dimowner.audiorecorder.audio.fmtChunk
+import com.dimowner.audiorecorder.audio.writeWav
+import junit.framework.TestCase.assertEquals
+import junit.framework.TestCase.assertNotNull
+import junit.framework.TestCase.assertNull
+import org.junit.After
+import org.junit.Before
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+import org.robolectric.RuntimeEnvironment
+import org.robolectric.annotation.Config
+import java.io.File
+import java.io.RandomAccessFile
+import java.nio.file.Files
+
+@RunWith(RobolectricTestRunner::class)
+@Config(application = Application::class)
+class RecordInfoCacheTest {
+
+    private lateinit var dir: File
+    private lateinit var cache: RecordInfoCache
+
+    @Before
+    fun setUp() {
+        dir = Files.createTempDirectory("records").toFile()
+        cache = RecordInfoCache(RuntimeEnvironment.getApplication())
+    }
+
+    @After
+    fun after() {
+        cache.clear()
+        cache.close()
+        dir.deleteRecursively()
+    }
+
+    private fun writeRecord(name: String, seconds: Int): File {
+        val file = File(dir, name)
+        writeWav(file, fmtChunk(1, 1, 8000, 16), chunk("data", ByteArray(16000 * seconds)))
+        return file
+    }
+
+    @Test
+    fun test_storedInfoIsUsedForSameFile() {
+        val file = writeRecord("record.wav", 2)
+        val info = cache.readRecordInfo(file)
+        assertEquals(0, cache.hits)
+        assertEquals(1, cache.misses)
+
+        val cached = cache.readRecordInfo(file)
+        assertEquals(1, cache.hits)
+        assertEquals(1, cache.misses)
+        assertEquals(info.name, cached.name)
+        assertEquals(info.format, cached.format)
+        assertEquals(2_000_000L, cached.duration)
+        assertEquals(info.size, cached.size)
+        assertEquals(file.absolutePath, cached.location)
+        assertEquals(file.lastModified(), cached.created)
+        assertEquals(8000, cached.sampleRate)
+        assertEquals(1, cached.channelCount)
+        assertEquals(info.bitrate, cached.bitrate)
+        assertEquals(info.isInTrash, cached.isInTrash)
+    }
+
+    @Test
+    fun test_changedFileIsReadAgain() {
+        val file = writeRecord("record.wav", 1)
+        val modified = file.lastModified()
+        cache.readRecordInfo(file)
+
+        //Record continued with the same modification time.
+        writeWav(file, fmtChunk(1, 1, 8000, 16), chunk("data", ByteArray(16000 * 3)))
+        file.setLastModified(modified)
+        assertNull(cache.get(file))
+        assertEquals(3_000_000L, cache.readRecordInfo(file).duration)
+
+        //Record edited without change of size.
+        RandomAccessFile(file, "rw").use { it.seek(100); it.write(1) }
+        file.setLastModified(modified + 5000)
+        assertNull(cache.get(file))
+        cache.readRecordInfo(file)
+        assertNotNull(cache.get(file))
+        assertEquals(1, cache.hits)
+        assertEquals(5, cache.misses)
+    }
+
+    @Test
+    fun test_unreadableFilesAreNotStored() {
+        val file = File(dir, "broken.wav")
+        file.writeBytes(ByteArray(100))
+        assertEquals("", cache.readRecordInfo(file).format)
+        assertNull(cache.get(file))
+
+        val record = writeRecord("record.wav", 1)
+        cache.readRecordInfo(record)
+        cache.remove(record.absolutePath)
+        assertNull(cache.get(record))
+    }
+
+    @Test
+    fun test_entriesOutliveCacheInstance() {
+        val file = writeRecord("record.wav", 1)
+        cache.readRecordInfo(file)
+        cache.close()
+        cache = RecordInfoCache(RuntimeEnvironment.getApplication())
+        assertEquals(1_000_000L, cache.get(file)!!.duration)
+    }
+}
@@ -0,0 +1,120 @@
+package com.dimowner.audiorecorder.data.database
+
+import android.app.Application
+import android.database.sqlite.SQLiteDatabase
+import com.dimowner.audiorecorder.AppConstants
+import com.dimowner.audiorecorder.data.database.SQLiteHelper.*
+import junit.framework.TestCase.assertEquals
+import junit.framework.TestCase.assertFalse
+import junit.framework.TestCase.assertTrue
+import org.junit.After
+import org.junit.Before
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+import org.robolectric.RuntimeEnvironment
+import org.robolectric.annotation.Config
+
+@RunWith(RobolectricTestRunner::class)
+@Config(application = Application::class)
+class SQLiteHelperTest {
+
+    private lateinit var helper: SQLiteHelper
+    private lateinit var db: SQLiteDatabase
+
+    @Before
+    fun setUp() {
+        helper = SQLiteHelper(RuntimeEnvironment.getApplication())
+        db = helper.writableDatabase
+    }
+
+    @After
+    fun after() {
+        helper.close()
+        RuntimeEnvironment.getApplication().deleteDatabase("records.db")
+    }
+
+    private fun plan(sql: String, vararg args: Any): String {
+        val cursor = db.rawQuery("EXPLAIN QUERY PLAN $sql", args.map { it.toString() }.toTypedArray())
+        val plan = StringBuilder()
+        while (cursor.moveToNext()) {
+            plan.append(cursor.getString(cursor.getColumnIndexOrThrow("detail"))).append('\n')
+        }
+        cursor.close()
+        return plan.toString()
+    }
+
+    private fun assertIndexed(method: String, sql: String, vararg args: Any) {
+        val plan = plan(sql, *args)
+        //Older SQLite prints "SCAN TABLE records".
+        val scans = plan.lines().filter { it.startsWith("SCAN") && (it.contains(" $TABLE_RECORDS") || it.contains(" $TABLE_TRASH")) }
+        assertTrue("$method: $plan", scans.all { it.contains("INDEX") })
+        assertFalse("$method: $plan", plan.contains("TEMP B-TREE"))
+    }
+
+    /** Queries of repository methods, methods which read whole table are left out. */
+    @Test
+    fun test_queriesUseIndexes() {
+        val records = "SELECT * FROM $TABLE_RECORDS"
+        assertIndexed("getRecord", "$records WHERE $COLUMN_ID = ?", 1)
+        assertIndexed("findRecordByPath", "$records WHERE $COLUMN_PATH = ? LIMIT 1", "/records/a.m4a")
+        assertIndexed("findRecordsByPath", "$records WHERE $COLUMN_DIR >= ? AND $COLUMN_DIR < ?", "/records/", "/records0")
+        assertIndexed("hasRecordsWithPath", "SELECT EXISTS(SELECT 1 FROM $TABLE_RECORDS WHERE $COLUMN_DIR >= ? AND $COLUMN_DIR < ?)",
+            "/records/", "/records0")
+        assertIndexed("findRecordsPaths", "SELECT $COLUMN_PATH FROM $TABLE_RECORDS WHERE $COLUMN_PATH IN (?,?)", "a", "b")
+        assertIndexed("getAllItemsIds", "SELECT $COLUMN_ID FROM $TABLE_RECORDS")
+        assertIndexed("getCount", "SELECT COUNT(*) FROM $TABLE_RECORDS")
+        assertIndexed("getUnprocessedRecordsIds", "SELECT $COLUMN_ID FROM $TABLE_RECORDS WHERE $COLUMN_WAVEFORM_PROCESSED = 0" +
+            " AND $COLUMN_DURATION < ? ORDER BY $COLUMN_DATE_ADDED DESC", 100)
+        assertIndexed("getLegacyWaveformRecordsIds", "SELECT $COLUMN_ID FROM $TABLE_RECORDS WHERE $COLUMN_WAVEFORM_PROCESSED = 1" +
+            " AND $COLUMN_DURATION > ? AND $COLUMN_DURATION < ?" +
+            " AND ABS(LENGTH($COLUMN_DATA) - $COLUMN_DURATION * ? / 1000000) > $COLUMN_DURATION * ? / 1000000 / 10" +
+            " ORDER BY $COLUMN_DATE_ADDED DESC", 10, 100, 25, 25)
+        for (order in listOf("$COLUMN_NAME ASC", "$COLUMN_NAME DESC", "$COLUMN_DURATION DESC", "$COLUMN_DURATION ASC",
+                "$COLUMN_DATE_ADDED ASC", "$COLUMN_DATE_ADDED DESC")) {
+            assertIndexed("getRecords $order", "$records ORDER BY $order LIMIT ? OFFSET ?", 50, 100)
+        }
+        for (sort in AppConstants.SORT_DATE..AppConstants.SORT_DURATION_DESC) {
+            val key = PageKey.first(sort)
+            val next = key.next(List(AppConstants.DEFAULT_PER_PAGE) { testRecord("a", "/records/a.m4a") })!!
+            val op = if (next.isAscending) ">" else "<"
+            assertIndexed("getRecords ${key.orderBy}", "$records ORDER BY ${key.orderBy} LIMIT ?", 50)
+            assertIndexed("getRecords after ${key.orderBy}", "$records WHERE ${next.column} $op= ? AND " +
+                "(${next.column} $op ? OR $COLUMN_ID $op ?) ORDER BY ${next.orderBy} LIMIT ?", "a", "a", 1, 50)
+        }
+        assertIndexed("getRecordsDurations", "SELECT $COLUMN_DURATION FROM $TABLE_RECORDS")
+        assertIndexed("getBookmarks", "$records WHERE $COLUMN_BOOKMARK = 1 ORDER BY $COLUMN_CREATION_DATE DESC")
+        assertIndexed("repairInterruptedRecords", "SELECT $COLUMN_ID, $COLUMN_PATH, $COLUMN_SAMPLE_RATE, $COLUMN_CHANNEL_COUNT " +
+            "FROM $TABLE_RECORDS WHERE $COLUMN_FORMAT = ?", "wav")
+        assertIndexed("getTrashRecord", "SELECT * FROM $TABLE_TRASH WHERE $COLUMN_ID = ?", 1)
+        assertIndexed("getTrashRecordsIds", "SELECT $COLUMN_ID FROM $TABLE_TRASH")
+        assertIndexed("getTrashRecordsCount", "SELECT COUNT(*) FROM $TABLE_TRASH")
+        assertIndexed("removeOutdatedTrashRecords", "SELECT * FROM $TABLE_TRASH WHERE $COLUMN_DATE_REMOVED < ?", 1000)
+        //Last record is read backwards by rowid.
+        assertFalse(plan("$records ORDER BY $COLUMN_ID DESC LIMIT 1").contains("TEMP B-TREE"))
+    }
+
+    @Test
+    fun test_upgradeFromVersion3() {
+        db.execSQL("DROP TABLE $TABLE_RECORDS")
+        db.execSQL("DROP TABLE $TABLE_TRASH")
+        db.execSQL("CREATE TABLE $TABLE_RECORDS ($COLUMN_ID INTEGER PRIMARY KEY AUTOINCREMENT, $COLUMN_NAME TEXT NOT NULL, " +
+            "$COLUMN_DURATION LONG NOT NULL, $COLUMN_CREATION_DATE LONG NOT NULL, $COLUMN_DATE_ADDED LONG NOT NULL, " +
+            "$COLUMN_PATH TEXT NOT NULL, $COLUMN_FORMAT TEXT NOT NULL DEFAULT '', $COLUMN_DATA BLOB NOT NULL, " +
+            "$COLUMN_BOOKMARK INTEGER NOT NULL DEFAULT 0, $COLUMN_WAVEFORM_PROCESSED INTEGER NOT NULL DEFAULT 0, " +
+            "$COLUMN_DATA_STR BLOB NOT NULL)")
+        db.execSQL("CREATE TABLE $TABLE_TRASH ($COLUMN_ID INTEGER PRIMARY KEY AUTOINCREMENT, $COLUMN_DATE_REMOVED LONG NOT NULL)")
+        db.execSQL("INSERT INTO $TABLE_RECORDS ($COLUMN_NAME, $COLUMN_DURATION, $COLUMN_CREATION_DATE, $COLUMN_DATE_ADDED, " +
+            "$COLUMN_PATH, $COLUMN_DATA, $COLUMN_DATA_STR) VALUES ('a', 1, 1, 1, '/sdcard/Music/records/a.m4a', x'00', '')")
+
+        helper.onUpgrade(db, 3, 4)
+
+        val cursor = db.rawQuery("SELECT $COLUMN_DIR FROM $TABLE_RECORDS", null)
+        assertTrue(cursor.moveToFirst())
+        assertEquals("/sdcard/Music/records/", cursor.getString(0))
+        cursor.close()
+        assertEquals("/sdcard/Music/records/", toDir("/sdcard/Music/records/a.m4a"))
+        assertTrue(plan("SELECT * FROM $TABLE_RECORDS WHERE $COLUMN_PATH = ?", "a").contains("INDEX"))
+        assertTrue(plan("SELECT * FROM $TABLE_TRASH WHERE $COLUMN_DATE_REMOVED < ?", 1).contains("INDEX"))
+    }
+}